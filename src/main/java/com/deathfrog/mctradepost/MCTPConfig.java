@@ -3,6 +3,7 @@ package com.deathfrog.mctradepost;
 import java.lang.reflect.Field;
 import java.util.HashMap;
 import java.util.Map;
+import com.deathfrog.mctradepost.api.util.ItemValueManager;
 import com.deathfrog.mctradepost.network.ConfigurationPacket;
 import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.level.ServerPlayer;
@@ -56,6 +57,10 @@ public class MCTPConfig
     public static final ConfigValue<Integer> trackValidationFrequency;
     public static final ConfigValue<Integer> baseTradeSpeed;
     public static final ConfigValue<Integer> maximumWaterRouteDistance;
+    public static final ConfigValue<Integer> routeDiscoveryTickBudgetMs;
+    public static final ConfigValue<Boolean> offThreadRouteSearch;
+    public static final ConfigValue<Integer> routeSnapshotMaxChunks;
+    public static final ConfigValue<Boolean> virtualShipments;
     public static final ConfigValue<Integer> importsPerLevel;
 
     // Animal Trainer Settings
@@ -152,6 +157,14 @@ public class MCTPConfig
         baseTradeSpeed = BUILDER.comment("Base trade speed per building level.").define("baseTradeSpeed", 4);
         maximumWaterRouteDistance = BUILDER.comment("Maximum navigable block distance for one dock-to-dock water leg.")
             .defineInRange("maximumWaterRouteDistance", 1000, 1, 10000);
+        routeDiscoveryTickBudgetMs = BUILDER.comment("Milliseconds per tick a station master may spend searching for a new route.")
+            .defineInRange("routeDiscoveryTickBudgetMs", 5, 1, 50);
+        offThreadRouteSearch = BUILDER.comment("Search same-dimension station routes on a background thread against a copy of the loaded chunks.")
+            .define("offThreadRouteSearch", true);
+        routeSnapshotMaxChunks = BUILDER.comment("Largest area, in chunks, copied for a background route search. Larger routes are searched on the server thread.")
+            .defineInRange("routeSnapshotMaxChunks", 256, 16, 4096);
+        virtualShipments = BUILDER.comment("Only show shipment vehicles while a player is within view distance of them. Shipments out of view advance without an entity.")
+            .define("virtualShipments", true);
 
         importsPerLevel = BUILDER.comment("Number of imports allowed per Station level.").define("importsPerLevel", 5);
 
@@ -209,6 +222,7 @@ public class MCTPConfig
     static void onLoad(final ModConfigEvent.Loading event)
     {
         MCTradePostMod.LOGGER.info("Loading config");
+        ItemValueManager.invalidateScaledValues();
         setupConfiguration(event);
     }
 
@@ -216,6 +230,7 @@ public class MCTPConfig
     static void onReload(final ModConfigEvent.Reloading event)
     {
         MCTradePostMod.LOGGER.info("Reloading config");
+        ItemValueManager.invalidateScaledValues();
         setupConfiguration(event);
     }
 
@@ -259,6 +274,7 @@ public class MCTPConfig
             if (parsedValue != null)
             {
                 configField.set(parsedValue);
+                ItemValueManager.invalidateScaledValues();
                 MCTradePostMod.LOGGER.info("Updated config '{}' to '{}'", configKey, configField.get());
             }
             else
@@ -70,6 +70,9 @@ import com.deathfrog.mctradepost.core.client.render.PetDragonRenderer;
 import com.deathfrog.mctradepost.core.client.render.WagonRenderer;
 import com.deathfrog.mctradepost.core.client.render.souvenir.SouvenirItemExtension;
 import com.deathfrog.mctradepost.core.client.render.souvenir.SouvenirLoader;
+import com.deathfrog.mctradepost.core.colony.buildings.modules.thriftshop.LootRoller;
+import com.deathfrog.mctradepost.core.colony.buildings.modules.thriftshop.MarketTierSources;
+import com.deathfrog.mctradepost.core.colony.buildings.modules.thriftshop.TaggedItemPicker;
 import com.deathfrog.mctradepost.core.colony.buildings.modules.BuildingStationConnectionModule;
 import com.deathfrog.mctradepost.core.colony.buildings.modules.CancelRecyclingMessage;
 import com.deathfrog.mctradepost.core.colony.buildings.modules.MCTPBuildingModules;
@@ -88,13 +91,24 @@ import com.deathfrog.mctradepost.core.colony.buildings.workerbuildings.BuildingO
 import com.deathfrog.mctradepost.core.colony.buildings.workerbuildings.BuildingStation;
 import com.deathfrog.mctradepost.core.event.ModelRegistryHandler;
 import com.deathfrog.mctradepost.core.event.burnout.BurnoutRemedyManager;
+import com.deathfrog.mctradepost.core.recycling.RecyclingTemplateCache;
+import com.deathfrog.mctradepost.core.event.wishingwell.WishingWellRegistry;
 import com.deathfrog.mctradepost.core.recycling.blacklist.RecyclingBlacklistManager;
 import com.deathfrog.mctradepost.core.event.wishingwell.ritual.RitualManager;
 import com.deathfrog.mctradepost.core.event.wishingwell.ritual.RitualPacket;
 import com.deathfrog.mctradepost.core.entity.pets.scavenge.PetForagingJeiSyncPacket;
 import com.deathfrog.mctradepost.core.entity.pets.scavenge.FocusedForagingIndex;
+import com.deathfrog.mctradepost.core.economy.RecipeOutputIndex;
 import com.deathfrog.mctradepost.core.entity.ai.workers.trade.DimPos;
+import com.deathfrog.mctradepost.core.colony.BlockFinder;
+import com.deathfrog.mctradepost.core.colony.ColonyBuildingIndex;
+import com.deathfrog.mctradepost.core.colony.ContainerChangeLog;
+import com.deathfrog.mctradepost.core.entity.ai.workers.minimal.VisitorShoppingScheduler;
+import com.deathfrog.mctradepost.core.colony.WarehouseContentIndex;
+import com.deathfrog.mctradepost.core.entity.ai.workers.trade.ModalEdgeCache;
+import com.deathfrog.mctradepost.core.entity.ai.workers.trade.RailNetworkIndex;
 import com.deathfrog.mctradepost.core.entity.ai.workers.trade.StationData;
+import com.deathfrog.mctradepost.core.entity.ai.workers.trade.TrackPathConnection;
 import com.deathfrog.mctradepost.core.entity.ai.workers.trade.TrackPathConnection.TrackConnectionResult;
 import com.deathfrog.mctradepost.core.entity.ai.workers.trade.TrackRoute;
 import com.deathfrog.mctradepost.core.loot.ModLootModifiers;
@@ -226,10 +240,13 @@ import net.neoforged.neoforge.event.BuildCreativeModeTabContentsEvent;
 import net.neoforged.neoforge.event.entity.EntityAttributeCreationEvent;
 import net.neoforged.neoforge.event.entity.EntityJoinLevelEvent;
 import net.neoforged.neoforge.event.entity.player.PlayerEvent;
+import net.neoforged.neoforge.event.TagsUpdatedEvent;
 import net.neoforged.neoforge.event.level.BlockEvent;
 import net.neoforged.neoforge.event.level.LevelEvent;
 import net.neoforged.neoforge.event.server.ServerStartedEvent;
 import net.neoforged.neoforge.event.server.ServerStartingEvent;
+import net.neoforged.neoforge.event.server.ServerStoppedEvent;
+import net.neoforged.neoforge.event.tick.ServerTickEvent;
 import net.neoforged.neoforge.items.wrapper.InvWrapper;
 import net.neoforged.neoforge.network.event.RegisterPayloadHandlersEvent;
 import net.neoforged.neoforge.network.handling.DirectionalPayloadHandler;
@@ -1464,10 +1481,14 @@ public class MCTradePostMod
                 (payload, ctx) -> payload.handleDataInClientOnMain(ctx)
             );  
 
-            registrar.playToClient(
+            // Item values are pushed to clients; a client that cannot apply a delta asks for a full snapshot.
+            registrar.playBidirectional(
                 ItemValueSyncPacket.TYPE,
                 ItemValueSyncPacket.STREAM_CODEC,
-                (payload, ctx) -> payload.handleDataInClientOnMain(ctx)
+                new DirectionalPayloadHandler<>(
+                    (payload, ctx) -> ItemValueSyncPacket.handleDataInClientOnMain(payload, ctx),
+                    ItemValueSyncPacket::handleDataInServerOnMain
+                )
             );
 
             registrar.playToClient(
@@ -1509,6 +1530,19 @@ public class MCTradePostMod
                 }
             }
 
+            @SubscribeEvent
+            public static void onPlayerLogout(PlayerEvent.PlayerLoggedOutEvent event) {
+                if (event.getEntity() instanceof ServerPlayer player) {
+                    ItemValueSyncPacket.forgetPlayer(player);
+                }
+            }
+
+            @SubscribeEvent
+            public static void onServerTick(ServerTickEvent.Post event)
+            {
+                ItemValueSyncPacket.answerDeferredRequests(event.getServer());
+            }
+
             @SubscribeEvent
             public static void onDatapackSync(OnDatapackSyncEvent event)
             {
@@ -1523,6 +1557,10 @@ public class MCTradePostMod
                     return;
                 }
 
+                // A null player means datapacks were reloaded, which replaces the recipe manager.
+                RecipeOutputIndex.rebuild(event.getPlayerList().getServer().getRecipeManager(),
+                    event.getPlayerList().getServer().registryAccess());
+
                 for (ServerPlayer player : event.getPlayerList().getPlayers())
                 {
                     RitualPacket.sendPacketsToPlayer(player);
@@ -1650,15 +1688,32 @@ public class MCTradePostMod
          * Handles the BlockEvent.EntityPlaceEvent.
          * This event is fired by the EntityPlaceEvent class when a block is placed by an entity.
          * Specifically, it is fired when a player places a block.
-         * This method is responsible for registering the placed block as a work location for pets in the colony.
+         * This method is responsible for registering the placed block as a work location for pets in the colony,
+         * and for adding placed rails to the dimension's rail network index and refreshing cached modal edges.
          * @param event The event that is fired when an entity places a block.
          */
+        @SuppressWarnings("null")
         @SubscribeEvent
         public static void onBlockPlaced(final BlockEvent.EntityPlaceEvent event) {
-            if (!(event.getEntity() instanceof Player)) return;
             if (!(event.getLevel() instanceof ServerLevel level)) return;
 
             BlockState state = event.getPlacedBlock();
+            if (TrackPathConnection.isTrackState(state))
+            {
+                RailNetworkIndex.get(level).onRailPlaced(level, event.getPos());
+                ModalEdgeCache.get(level).onTrackedBlockPlaced(ModalEdgeCache.Mode.RAIL);
+            }
+            else if (state.is(NullnessBridge.assumeNonnull(ModTags.BLOCKS.TRADE_ROADS_TAG)))
+            {
+                ModalEdgeCache.get(level).onTrackedBlockPlaced(ModalEdgeCache.Mode.ROAD);
+            }
+
+            if (state.getBlock() instanceof AbstractBlockHut<?>)
+            {
+                ColonyBuildingIndex.invalidate(IColonyManager.getInstance().getColonyByPosFromWorld(level, event.getPos()));
+            }
+
+            if (!(event.getEntity() instanceof Player)) return;
             if (!(state.getBlock() instanceof AbstractBlockPetWorkingLocation)) return;
 
             BlockPos pos = event.getPos();
@@ -1669,6 +1724,32 @@ public class MCTradePostMod
             }
         }
 
+        /**
+         * Rebuilds thrift shop tag lookups after tags are reloaded.
+         *
+         * @param event tags updated event
+         */
+        @SubscribeEvent
+        public static void onTagsUpdated(final TagsUpdatedEvent event) {
+            MarketTierSources.invalidateSellableTiers();
+            TaggedItemPicker.clearCache();
+        }
+
+        /**
+         * Drops cached block searches whose area includes a changed block, and keeps the rail network index current for rails placed
+         * or removed without an entity event (builders, pistons, commands).
+         *
+         * @param event neighbour notification fired for every block change that updates its neighbours
+         */
+        @SuppressWarnings("null")
+        @SubscribeEvent
+        public static void onNeighborNotify(final BlockEvent.NeighborNotifyEvent event) {
+            if (!(event.getLevel() instanceof ServerLevel level)) return;
+
+            BlockFinder.onBlockChanged(level, event.getPos());
+            RailNetworkIndex.get(level).onBlockChanged(level, event.getPos(), event.getState());
+        }
+
         /**
          * Called when a block is broken in the world.
          * If the broken block is a Work Location block, this will unregister the BlockPos
@@ -1687,6 +1768,11 @@ public class MCTradePostMod
 
             BlockState state = event.getState();
             BlockPos pos = event.getPos();
+            if (state.getBlock() instanceof AbstractBlockHut<?>)
+            {
+                ColonyBuildingIndex.invalidate(IColonyManager.getInstance().getColonyByPosFromWorld(level, pos));
+            }
+
             if (state.getBlock() instanceof AbstractBlockPetWorkingLocation)
             {
                 IColony colony = IColonyManager.getInstance().getColonyByPosFromWorld(level, pos);
@@ -1702,6 +1788,12 @@ public class MCTradePostMod
                 state.is(TRADE_DOCK.get()) || state.is(TRADE_INTERCHANGE.get()))
             {
                 invalidateTrackCachesForBrokenTrack(level, pos);
+                ModalEdgeCache.get(level).onTrackedBlockBroken(pos);
+            }
+
+            if (TrackPathConnection.isTrackState(state))
+            {
+                RailNetworkIndex.get(level).onRailRemoved(pos);
             }
         }
 
@@ -1862,6 +1954,21 @@ public class MCTradePostMod
             MCTradePostMod.LOGGER.info("Server started.");
         }
 
+        @SubscribeEvent
+        public static void onServerStopped(ServerStoppedEvent event)
+        {
+            ModalEdgeCache.clearAll();
+            WarehouseContentIndex.clearAll();
+            RecyclingTemplateCache.clear();
+            WishingWellRegistry.clearAll();
+            ItemValueSyncPacket.clearAll();
+            BlockFinder.clearAll();
+            ColonyBuildingIndex.clearAll();
+            VisitorShoppingScheduler.clearAll();
+            ContainerChangeLog.clearAll();
+            LootRoller.clearCaches();
+        }
+
     }
 
     // You can use EventBusSubscriber to automatically register all static methods in the class annotated with @SubscribeEvent
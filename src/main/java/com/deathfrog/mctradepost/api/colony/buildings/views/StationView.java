@@ -5,7 +5,6 @@ import net.minecraft.network.RegistryFriendlyByteBuf;
 import net.neoforged.api.distmarker.Dist;
 import net.neoforged.api.distmarker.OnlyIn;
 import net.minecraft.core.BlockPos;
-import net.minecraft.nbt.CompoundTag;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -85,34 +84,23 @@ public class StationView extends AbstractBuildingView
         final int stationsize = buf.readInt();
         for (int i = 0; i < stationsize; i++)
         {
-            final CompoundTag compound = buf.readNbt();
-            if (compound != null)
+            StationData data = StationData.fromBuffer(buf);
+            if (data != null) 
             {
-                StationData data = StationData.fromNBT(compound);
-                if (data != null) 
-                {
-                    // BuildingStation.LOGGER.info("Adding station to view: {}", data);
-                    this.stations.put(data.getBuildingPosition(), data);
-                }
-                else
-                {
-                    BuildingStation.LOGGER.warn("Failed to deserialize station from tag: {}", compound);
-                }
+                // BuildingStation.LOGGER.info("Adding station to view: {}", data);
+                this.stations.put(data.getBuildingPosition(), data);
+            }
+            else
+            {
+                BuildingStation.LOGGER.warn("Failed to deserialize station {} from buffer.", i);
             }
         }
 
         final int connSize = buf.readInt();
         for (int i = 0; i < connSize; i++) {
-            final CompoundTag keyTag = buf.readNbt();
+            final StationData deserializedKey = StationData.fromBuffer(buf);
             final boolean value = buf.readBoolean();
 
-            if (keyTag == null) 
-            {
-                BuildingStation.LOGGER.warn("Invalid connectionresults entry {}; keyTag={}, value={}", i, keyTag, value);
-                continue;
-            }
-
-            final StationData deserializedKey = StationData.fromNBT(keyTag);
             if (deserializedKey == null) 
             {
                 BuildingStation.LOGGER.warn("Failed to deserialize StationData key in connectionresults; skipping {}", i);
@@ -220,6 +220,29 @@ public class GhostCartEntity extends AbstractMinecart implements IEntityWithComp
         return e;
     }
 
+    /**
+     * Places the cart on a path node without animating toward it. Used when a shipment that has been advancing without a vehicle
+     * becomes visible partway along its route.
+     *
+     * @param index path node to place the cart on
+     */
+    public void setProgress(int index)
+    {
+        if (path == null || path.isEmpty()) return;
+
+        int clamped = Mth.clamp(index, 0, path.size() - 1);
+        this.startIdx = clamped;
+        this.targetIdx = clamped;
+        this.desiredIdx = clamped;
+        this.startT = 0.0;
+        this.strideStartTick = level().getGameTime();
+        this.strideLength = 0.0;
+        this.lastEdgeA = -1;
+        this.lastEdgeB = -1;
+        this.lastEdgeT = 0.0;
+        setPos(NullnessBridge.assumeNonnull(pathPosition(NullnessBridge.assumeNonnull(path.get(clamped)))));
+    }
+
     /**
      * Request movement toward a segment. The distance from the cart's *current* fractional position to the requested segment will be
      * traversed over exactly one COLONY_T (e.g., 500 ticks) with smooth speed.
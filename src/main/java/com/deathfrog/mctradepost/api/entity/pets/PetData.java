@@ -40,6 +40,7 @@ import com.deathfrog.mctradepost.core.blocks.BlockFeeder;
 import com.deathfrog.mctradepost.core.blocks.BlockHauler;
 import com.deathfrog.mctradepost.core.blocks.BlockScavenge;
 import com.deathfrog.mctradepost.core.blocks.BlockTrough;
+import com.deathfrog.mctradepost.core.colony.ColonyBuildingIndex;
 import com.deathfrog.mctradepost.core.colony.buildings.modules.BuildingEconModule;
 import com.deathfrog.mctradepost.core.colony.buildings.workerbuildings.BuildingMarketplace;
 import com.deathfrog.mctradepost.core.colony.buildings.workerbuildings.BuildingPetshop;
@@ -695,15 +696,7 @@ public class  PetData<P extends Animal & ITradePostPet & IHerdingPet>
 
         if (colony == null) return null;
 
-        for (IBuilding building : colony.getServerBuildingManager().getBuildings().values())
-        {
-            if (BlockPosUtil.isInArea(building.getCorners().getA(), building.getCorners().getB(), workLocation)) 
-            {
-                return building;
-            }
-        }
-
-        return null;
+        return ColonyBuildingIndex.get(colony).containing(workLocation);
     }
 
     /**
@@ -2,6 +2,7 @@ package com.deathfrog.mctradepost.api.util;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
 import javax.annotation.Nonnull;
 
 import com.deathfrog.mctradepost.MCTPConfig;
@@ -24,6 +25,20 @@ public final class ItemValueManager extends SimplePreparableReloadListener<Map<R
     private static final ResourceLocation FILE = ResourceLocation.fromNamespaceAndPath(MCTradePostMod.MODID, "item_values.json");
     private static volatile Map<ResourceLocation, Integer> VALUES = Map.of();
 
+    /**
+     * Scaled item values indexed by item registry id, together with the value snapshot they were baked from. A config change replaces
+     * it with an empty marker until next needed, so lookups never read the config themselves. In single player the client and server
+     * threads share it, so a table is only used while its snapshot is still current, and a lazily baked table is only published over
+     * the exact table it replaces.
+     */
+    private static final AtomicReference<ScaledValues> SCALED_VALUES = new AtomicReference<>(ScaledValues.STALE);
+
+    private record ScaledValues(Map<ResourceLocation, Integer> values, int[] table)
+    {
+        /** Matches no value snapshot, so the next lookup bakes a fresh table. */
+        private static final ScaledValues STALE = new ScaledValues(null, new int[0]);
+    }
+
     @Override
     protected Map<ResourceLocation, Integer> prepare(@Nonnull ResourceManager rm, @Nonnull ProfilerFiller profiler)
     {
@@ -84,6 +99,7 @@ public final class ItemValueManager extends SimplePreparableReloadListener<Map<R
         @Nonnull ProfilerFiller profiler)
     {
         VALUES = prepared;
+        SCALED_VALUES.set(bakeScaledValues(prepared, economicScaling()));
     }
 
     /** Returns the immutable, unscaled value snapshot currently loaded on this side. */
@@ -95,7 +111,50 @@ public final class ItemValueManager extends SimplePreparableReloadListener<Map<R
     /** Atomically installs a complete server-authoritative value snapshot on the client. */
     public static void replaceFromServer(Map<ResourceLocation, Integer> values)
     {
-        VALUES = Map.copyOf(values);
+        Map<ResourceLocation, Integer> snapshot = Map.copyOf(values);
+        VALUES = snapshot;
+        SCALED_VALUES.set(bakeScaledValues(snapshot, economicScaling()));
+    }
+
+    /**
+     * Discards the baked value table so that it is rebuilt with the current economicScaling on the next lookup. Called whenever the
+     * configuration is loaded, reloaded or synchronized from the server.
+     */
+    public static void invalidateScaledValues()
+    {
+        // A new marker each time, so a table baked from the old config can no longer be swapped in over it.
+        SCALED_VALUES.set(new ScaledValues(null, ScaledValues.STALE.table()));
+    }
+
+    /**
+     * Bakes item values into a table indexed by item registry id, with economicScaling applied. Values for unknown items are dropped.
+     *
+     * @param values unscaled values keyed by item id
+     * @param scaling economicScaling to apply
+     * @return scaled values; items without a value hold 0
+     */
+    private static ScaledValues bakeScaledValues(Map<ResourceLocation, Integer> values, double scaling)
+    {
+        int[] table = new int[BuiltInRegistries.ITEM.size()];
+
+        for (Map.Entry<ResourceLocation, Integer> entry : values.entrySet())
+        {
+            ResourceLocation key = entry.getKey();
+            if (key == null || entry.getValue() == null || !BuiltInRegistries.ITEM.containsKey(key)) continue;
+
+            int id = BuiltInRegistries.ITEM.getId(BuiltInRegistries.ITEM.get(key));
+            if (id < 0 || id >= table.length) continue;
+
+            int baseValue = entry.getValue();
+            table[id] = scaling == 0.0 ? baseValue : (int) (baseValue * (1 + scaling));
+        }
+
+        return new ScaledValues(values, table);
+    }
+
+    private static double economicScaling()
+    {
+        return MCTPConfig.economicScaling.get();
     }
 
 
@@ -110,12 +169,23 @@ public final class ItemValueManager extends SimplePreparableReloadListener<Map<R
     {
         if (item == null) return 0;
 
-        int baseValue = VALUES.getOrDefault(BuiltInRegistries.ITEM.getKey(item), 0);
+        ScaledValues scaled = SCALED_VALUES.get();
+        Map<ResourceLocation, Integer> values = VALUES;
+
+        if (scaled.values() != values)
+        {
+            ScaledValues baked = bakeScaledValues(values, economicScaling());
+
+            if (VALUES == values)
+            {
+                SCALED_VALUES.compareAndSet(scaled, baked);
+            }
+            scaled = baked;
+        }
 
-        double scaling = MCTPConfig.economicScaling.get();
-        
-        if (scaling == 0.0) return baseValue;
+        int[] table = scaled.table();
+        int id = BuiltInRegistries.ITEM.getId(item);
 
-        return (int) (baseValue * (1 + scaling));
+        return id >= 0 && id < table.length ? table[id] : 0;
     }
 }
@@ -236,8 +236,8 @@ public class PetRegistryUtil
     }
 
     /**
-     * Retrieves all pets in the given colony by iterating over all buildings in the colony and retrieving the list of pets associated
-     * with each building from the global pet registry. If a building does not have any associated pets, it is skipped.
+     * Retrieves all pets in the given colony from the global pet registry. Only buildings that have registered pets are visited, rather
+     * than every building of the colony.
      *
      * @param colony the colony to retrieve the list of pets from.
      * @return the list of all ITradePostPet entities in the colony.
@@ -245,12 +245,13 @@ public class PetRegistryUtil
     public static final ImmutableList<PetHandle> getPetsInColony(IColony colony)
     {
         List<PetHandle> pets = new ArrayList<>();
-        for (IBuilding building : colony.getServerBuildingManager().getBuildings().values())
+        for (Map.Entry<IBuilding, Queue<PetHandle>> entry : globalPetRegistry.entrySet())
         {
-            Queue<PetHandle> buildingPets = globalPetRegistry.get(building);
-            if (buildingPets != null)
+            IColony buildingColony = entry.getKey().getColony();
+            if (buildingColony != null && buildingColony.getID() == colony.getID()
+                && buildingColony.getDimension().equals(colony.getDimension()))
             {
-                pets.addAll(buildingPets);
+                pets.addAll(entry.getValue());
             }
         }
 
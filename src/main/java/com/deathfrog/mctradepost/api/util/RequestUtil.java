@@ -7,6 +7,7 @@ import javax.annotation.Nonnull;
 
 import org.slf4j.Logger;
 
+import com.deathfrog.mctradepost.core.colony.ColonyBuildingIndex;
 import com.minecolonies.api.colony.IColony;
 import com.minecolonies.api.colony.buildings.IBuilding;
 import com.minecolonies.api.colony.buildings.workerbuildings.IWareHouse;
@@ -101,13 +102,10 @@ public class RequestUtil
         final Set<IToken<?>> requestTokens = new HashSet<>(
             requestManager.getRetryingRequestResolver().getAllAssignedRequests());
 
-        for (final IBuilding building : colony.getServerBuildingManager().getBuildings().values())
+        for (final IWareHouse warehouse : ColonyBuildingIndex.get(colony).ofType(IWareHouse.class))
         {
-            if (building instanceof IWareHouse warehouse)
-            {
-                requestTokens.addAll(
-                    warehouse.getModule(BuildingModules.WAREHOUSE_REQUEST_QUEUE).getMutableRequestList());
-            }
+            requestTokens.addAll(
+                warehouse.getModule(BuildingModules.WAREHOUSE_REQUEST_QUEUE).getMutableRequestList());
         }
 
         int pendingCount = 0;
@@ -23,7 +23,6 @@ import mezz.jei.api.recipe.RecipeType;
 import mezz.jei.api.recipe.category.IRecipeCategory;
 import net.minecraft.ChatFormatting;
 import net.minecraft.client.gui.GuiGraphics;
-import net.minecraft.core.registries.BuiltInRegistries;
 import net.minecraft.network.chat.Component;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.world.item.Item;
@@ -118,7 +117,7 @@ public class RitualCategory implements IRecipeCategory<RitualDefinitionHelper>
     @Override
     public void setRecipe(@Nonnull IRecipeLayoutBuilder builder, @Nonnull RitualDefinitionHelper recipe, @Nonnull IFocusGroup focuses)
     {
-        ItemStack companion = new ItemStack(BuiltInRegistries.ITEM.get(recipe.companionItem()), recipe.companionItemCount());
+        ItemStack companion = new ItemStack(recipe.getCompanionAsItem(), recipe.companionItemCount());
         Item coinItem = recipe.getCoinAsItem();
         Item targetItem = recipe.getTargetAsItem();
 
@@ -17,10 +17,10 @@ import net.minecraft.world.phys.shapes.VoxelShape;
 import net.minecraft.server.level.ServerLevel;
 import net.minecraft.world.level.BlockGetter;
 import net.minecraft.world.level.Level;
-import net.minecraft.world.level.LevelReader;
 import net.minecraft.tags.FluidTags;
 
 import com.deathfrog.mctradepost.api.util.NullnessBridge;
+import com.deathfrog.mctradepost.core.entity.ai.workers.trade.ModalEdgeCache;
 import com.deathfrog.mctradepost.core.entity.ai.workers.trade.TradeDockRegistry;
 import com.mojang.serialization.MapCodec;
 
@@ -66,7 +66,7 @@ public class BlockTradeDock extends HorizontalDirectionalBlock
      * the water or, more commonly, one block above it.
      */
     @SuppressWarnings("null")
-    public static BlockPos waterEndpoint(LevelReader level, BlockState state, BlockPos dock)
+    public static BlockPos waterEndpoint(BlockGetter level, BlockState state, BlockPos dock)
     {
         BlockPos facing = dock.relative(state.getValue(FACING));
         if (isNavigableWater(level, facing)) return facing;
@@ -80,7 +80,7 @@ public class BlockTradeDock extends HorizontalDirectionalBlock
     }
 
     @SuppressWarnings("null")
-    private static boolean isNavigableWater(LevelReader level, @Nonnull BlockPos pos)
+    private static boolean isNavigableWater(BlockGetter level, @Nonnull BlockPos pos)
     {
         return level.getFluidState(pos).is(NullnessBridge.assumeNonnull(FluidTags.WATER))
             && level.getBlockState(pos.above()).getCollisionShape(level, pos.above()).isEmpty();
@@ -123,14 +123,20 @@ public class BlockTradeDock extends HorizontalDirectionalBlock
     protected void onPlace(@Nonnull BlockState state, @Nonnull Level level, @Nonnull BlockPos pos, @Nonnull BlockState oldState, boolean movedByPiston)
     {
         super.onPlace(state, level, pos, oldState, movedByPiston);
-        if (level instanceof ServerLevel serverLevel) TradeDockRegistry.get(serverLevel).add(pos);
+        if (level instanceof ServerLevel serverLevel && TradeDockRegistry.get(serverLevel).add(pos))
+        {
+            ModalEdgeCache.get(serverLevel).onRegistryChanged();
+        }
     }
 
     @SuppressWarnings("null")
     @Override
     protected void onRemove(@Nonnull BlockState state, @Nonnull Level level, @Nonnull BlockPos pos, @Nonnull BlockState newState, boolean movedByPiston)
     {
-        if (level instanceof ServerLevel serverLevel && !state.is(newState.getBlock())) TradeDockRegistry.get(serverLevel).remove(pos);
+        if (level instanceof ServerLevel serverLevel && !state.is(newState.getBlock()) && TradeDockRegistry.get(serverLevel).remove(pos))
+        {
+            ModalEdgeCache.get(serverLevel).onRegistryChanged();
+        }
         super.onRemove(state, level, pos, newState, movedByPiston);
     }
 }
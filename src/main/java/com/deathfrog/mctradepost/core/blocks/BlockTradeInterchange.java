@@ -2,6 +2,7 @@ package com.deathfrog.mctradepost.core.blocks;
 
 import javax.annotation.Nonnull;
 
+import com.deathfrog.mctradepost.core.entity.ai.workers.trade.ModalEdgeCache;
 import com.deathfrog.mctradepost.core.entity.ai.workers.trade.TradeInterchangeRegistry;
 import net.minecraft.core.BlockPos;
 import net.minecraft.server.level.ServerLevel;
@@ -41,14 +42,20 @@ public class BlockTradeInterchange extends Block
     protected void onPlace(@Nonnull BlockState state, @Nonnull Level level, @Nonnull BlockPos pos, @Nonnull BlockState oldState, boolean movedByPiston)
     {
         super.onPlace(state, level, pos, oldState, movedByPiston);
-        if (level instanceof ServerLevel serverLevel) TradeInterchangeRegistry.get(serverLevel).add(pos);
+        if (level instanceof ServerLevel serverLevel && TradeInterchangeRegistry.get(serverLevel).add(pos))
+        {
+            ModalEdgeCache.get(serverLevel).onRegistryChanged();
+        }
     }
 
     @SuppressWarnings("null")
     @Override
     protected void onRemove(@Nonnull BlockState state, @Nonnull Level level, @Nonnull BlockPos pos, @Nonnull BlockState newState, boolean movedByPiston)
     {
-        if (level instanceof ServerLevel serverLevel && !state.is(newState.getBlock())) TradeInterchangeRegistry.get(serverLevel).remove(pos);
+        if (level instanceof ServerLevel serverLevel && !state.is(newState.getBlock()) && TradeInterchangeRegistry.get(serverLevel).remove(pos))
+        {
+            ModalEdgeCache.get(serverLevel).onRegistryChanged();
+        }
         super.onRemove(state, level, pos, newState, movedByPiston);
     }
 }
@@ -0,0 +1,278 @@
+package com.deathfrog.mctradepost.core.colony;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiPredicate;
+import java.util.function.Predicate;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.SectionPos;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.LevelChunk;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+
+/**
+ * Shared service for finding a block near a building.
+ * <p>
+ * A search visits the loaded chunk sections overlapping its area and first asks each section's palette whether it can hold a
+ * candidate state at all, so sections without one are skipped without reading a single block. Results are cached per search,
+ * dimension and area. A cached position is re-checked on every lookup; a cached miss is kept until a block changes in one of the
+ * sections the search covers, or until {@link #MISS_TTL_TICKS} have passed, which catches changes made without neighbour
+ * notifications.
+ * <p>
+ * All access happens on the server thread.
+ */
+public final class BlockFinder
+{
+    /** Ticks a cached miss is trusted without any block change in its area. */
+    private static final int MISS_TTL_TICKS = 1200;
+
+    private static final Map<ResourceKey<Level>, DimensionCache> DIMENSIONS = new HashMap<>();
+
+    /**
+     * Prevents instantiation of this utility class.
+     */
+    private BlockFinder()
+    {
+    }
+
+    /**
+     * A kind of block being searched for.
+     *
+     * @param name name used to keep the results of different searches apart
+     * @param paletteFilter true for every state that could be a match; sections whose palette holds no such state are skipped
+     * @param matcher final check of a candidate position, which may inspect neighbouring blocks
+     */
+    public record Search(String name, Predicate<BlockState> paletteFilter, BiPredicate<Level, BlockPos> matcher) { }
+
+    private record Key(Search search, long origin, int radius, int yBelow, int yAbove) { }
+
+    /**
+     * Cached outcome of one search.
+     */
+    private static final class Result
+    {
+        private final Key key;
+        private final long[] sections;
+        private BlockPos found;
+        private long searchedAt;
+
+        private Result(Key key, long[] sections)
+        {
+            this.key = key;
+            this.sections = sections;
+        }
+    }
+
+    /**
+     * Cached results of one dimension, indexed by the sections they cover.
+     */
+    private static final class DimensionCache
+    {
+        private final Map<Key, Result> results = new HashMap<>();
+        private final Long2ObjectOpenHashMap<List<Result>> bySection = new Long2ObjectOpenHashMap<>();
+
+        private void add(Result result)
+        {
+            Result previous = results.put(result.key, result);
+            if (previous != null) unindex(previous);
+
+            for (long section : result.sections)
+            {
+                bySection.computeIfAbsent(section, key -> new ArrayList<>(1)).add(result);
+            }
+        }
+
+        private void remove(Result result)
+        {
+            results.remove(result.key, result);
+            unindex(result);
+        }
+
+        private void unindex(Result result)
+        {
+            for (long section : result.sections)
+            {
+                List<Result> list = bySection.get(section);
+                if (list == null) continue;
+
+                list.remove(result);
+                if (list.isEmpty()) bySection.remove(section);
+            }
+        }
+    }
+
+    /**
+     * Finds the matching block closest to {@code origin} within a horizontal circle of {@code radius} and a vertical band around
+     * the origin. Unloaded chunks are not searched.
+     *
+     * @param level the world
+     * @param search what to look for
+     * @param origin center of the search, usually the building position
+     * @param radius max horizontal distance to search
+     * @param yBelow number of blocks below origin.y to scan
+     * @param yAbove number of blocks above origin.y to scan
+     * @return the closest match, or null if there is none
+     */
+    public static @Nullable BlockPos find(final @Nonnull ServerLevel level,
+        final @Nonnull Search search,
+        final @Nonnull BlockPos origin,
+        final int radius,
+        final int yBelow,
+        final int yAbove)
+    {
+        DimensionCache dimension = DIMENSIONS.computeIfAbsent(level.dimension(), key -> new DimensionCache());
+        Key key = new Key(search, origin.asLong(), radius, yBelow, yAbove);
+        long now = level.getGameTime();
+
+        Result cached = dimension.results.get(key);
+        if (cached != null)
+        {
+            if (cached.found != null && search.matcher().test(level, cached.found)) return cached.found;
+            if (cached.found == null && now - cached.searchedAt < MISS_TTL_TICKS) return null;
+        }
+
+        Result result = new Result(key, coveredSections(origin, radius, yBelow, yAbove));
+        result.found = scan(level, search, origin, radius, yBelow, yAbove);
+        result.searchedAt = now;
+        dimension.add(result);
+        return result.found;
+    }
+
+    /**
+     * Drops the cached results whose area includes a changed block. Called for every block change the server notifies neighbours of.
+     *
+     * @param level level of the change
+     * @param pos changed block
+     */
+    public static void onBlockChanged(final @Nonnull ServerLevel level, final @Nonnull BlockPos pos)
+    {
+        DimensionCache dimension = DIMENSIONS.get(level.dimension());
+        if (dimension == null) return;
+
+        List<Result> affected = dimension.bySection.get(SectionPos.asLong(pos));
+        if (affected == null) return;
+
+        for (Result result : new ArrayList<>(affected))
+        {
+            dimension.remove(result);
+        }
+    }
+
+    /**
+     * Discards every cached result. Called when the server stops so that one world's results never leak into another.
+     */
+    public static void clearAll()
+    {
+        DIMENSIONS.clear();
+    }
+
+    /**
+     * Scans the search area section by section, skipping sections whose palette cannot hold a candidate.
+     */
+    private static @Nullable BlockPos scan(final ServerLevel level,
+        final Search search,
+        final BlockPos origin,
+        final int radius,
+        final int yBelow,
+        final int yAbove)
+    {
+        final int ox = origin.getX();
+        final int oy = origin.getY();
+        final int oz = origin.getZ();
+        final int minY = Math.max(level.getMinBuildHeight(), oy - yBelow);
+        final int maxY = Math.min(level.getMaxBuildHeight() - 1, oy + yAbove);
+        final long radiusSq = (long) radius * radius;
+
+        final BlockPos.MutableBlockPos cursor = new BlockPos.MutableBlockPos();
+        BlockPos best = null;
+        long bestDistance = Long.MAX_VALUE;
+
+        for (int cx = SectionPos.blockToSectionCoord(ox - radius); cx <= SectionPos.blockToSectionCoord(ox + radius); cx++)
+        {
+            for (int cz = SectionPos.blockToSectionCoord(oz - radius); cz <= SectionPos.blockToSectionCoord(oz + radius); cz++)
+            {
+                LevelChunk chunk = level.getChunkSource().getChunkNow(cx, cz);
+                if (chunk == null) continue;
+
+                for (int sy = SectionPos.blockToSectionCoord(minY); sy <= SectionPos.blockToSectionCoord(maxY); sy++)
+                {
+                    LevelChunkSection section = chunk.getSection(level.getSectionIndexFromSectionY(sy));
+                    if (section.hasOnlyAir() || !section.maybeHas(search.paletteFilter())) continue;
+
+                    int x0 = Math.max(ox - radius, SectionPos.sectionToBlockCoord(cx));
+                    int x1 = Math.min(ox + radius, SectionPos.sectionToBlockCoord(cx, 15));
+                    int y0 = Math.max(minY, SectionPos.sectionToBlockCoord(sy));
+                    int y1 = Math.min(maxY, SectionPos.sectionToBlockCoord(sy, 15));
+                    int z0 = Math.max(oz - radius, SectionPos.sectionToBlockCoord(cz));
+                    int z1 = Math.min(oz + radius, SectionPos.sectionToBlockCoord(cz, 15));
+
+                    for (int y = y0; y <= y1; y++)
+                    {
+                        for (int x = x0; x <= x1; x++)
+                        {
+                            for (int z = z0; z <= z1; z++)
+                            {
+                                long dx = x - ox;
+                                long dz = z - oz;
+                                if (dx * dx + dz * dz > radiusSq) continue;
+
+                                if (!search.paletteFilter().test(section.getBlockState(x & 15, y & 15, z & 15))) continue;
+
+                                long dy = y - oy;
+                                long distance = dx * dx + dy * dy + dz * dz;
+                                if (distance >= bestDistance) continue;
+
+                                cursor.set(x, y, z);
+                                if (search.matcher().test(level, cursor))
+                                {
+                                    best = cursor.immutable();
+                                    bestDistance = distance;
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        return best;
+    }
+
+    /**
+     * Lists the packed positions of the sections a search area overlaps, including the sections just below and above it so that
+     * matchers looking at neighbouring blocks are invalidated too.
+     */
+    private static long[] coveredSections(final BlockPos origin, final int radius, final int yBelow, final int yAbove)
+    {
+        int minX = SectionPos.blockToSectionCoord(origin.getX() - radius);
+        int maxX = SectionPos.blockToSectionCoord(origin.getX() + radius);
+        int minY = SectionPos.blockToSectionCoord(origin.getY() - yBelow - 1);
+        int maxY = SectionPos.blockToSectionCoord(origin.getY() + yAbove + 1);
+        int minZ = SectionPos.blockToSectionCoord(origin.getZ() - radius);
+        int maxZ = SectionPos.blockToSectionCoord(origin.getZ() + radius);
+
+        long[] sections = new long[(maxX - minX + 1) * (maxY - minY + 1) * (maxZ - minZ + 1)];
+        int i = 0;
+        for (int x = minX; x <= maxX; x++)
+        {
+            for (int y = minY; y <= maxY; y++)
+            {
+                for (int z = minZ; z <= maxZ; z++)
+                {
+                    sections[i++] = SectionPos.asLong(x, y, z);
+                }
+            }
+        }
+        return sections;
+    }
+}
@@ -0,0 +1,217 @@
+package com.deathfrog.mctradepost.core.colony;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import com.minecolonies.api.colony.IColony;
+import com.minecolonies.api.colony.buildings.IBuilding;
+import com.minecolonies.api.util.BlockPosUtil;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.core.BlockPos;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.util.Tuple;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.Level;
+
+/**
+ * Per-colony index of buildings by type and by chunk column, replacing linear walks over every building of a colony.
+ * <p>
+ * Type lookups are answered from a bucket built the first time a type is asked for; position lookups only test the buildings whose
+ * corners overlap the chunk column of the position. The index is marked stale when a hut block is placed or broken. Because
+ * buildings also change without a hut block event (upgrades, moves, buildings added by commands), the building count, positions and
+ * levels are compared at most once per tick as well; an upgrade can grow a building's corners, so a level change forces a rebuild.
+ * <p>
+ * All access happens on the server thread.
+ */
+public final class ColonyBuildingIndex
+{
+    private static final Map<ColonyKey, ColonyBuildingIndex> INDEXES = new HashMap<>();
+
+    private record ColonyKey(ResourceKey<Level> dimension, int colonyId) { }
+
+    private final List<IBuilding> buildings = new ArrayList<>();
+    private final Map<Class<?>, List<?>> byType = new HashMap<>();
+    private final Long2ObjectOpenHashMap<List<IBuilding>> byColumn = new Long2ObjectOpenHashMap<>();
+    private boolean stale = true;
+    private long fingerprint = 0;
+    private long checkedAt = Long.MIN_VALUE;
+
+    private ColonyBuildingIndex()
+    {
+    }
+
+    /**
+     * Returns the building index of a colony, rebuilding it first if the colony's buildings have changed.
+     *
+     * @param colony colony whose buildings are indexed
+     * @return the current index
+     */
+    public static ColonyBuildingIndex get(@Nonnull IColony colony)
+    {
+        ColonyBuildingIndex index = INDEXES.computeIfAbsent(new ColonyKey(colony.getDimension(), colony.getID()),
+            key -> new ColonyBuildingIndex());
+        index.ensureCurrent(colony);
+        return index;
+    }
+
+    /**
+     * Marks the index of a colony stale. Called when a hut block of the colony is placed or broken.
+     *
+     * @param colony colony whose buildings changed; ignored when null
+     */
+    public static void invalidate(@Nullable IColony colony)
+    {
+        if (colony == null) return;
+
+        ColonyBuildingIndex index = INDEXES.get(new ColonyKey(colony.getDimension(), colony.getID()));
+        if (index != null)
+        {
+            index.stale = true;
+        }
+    }
+
+    /**
+     * Discards every index. Called when the server stops so that one world's colonies never leak into another.
+     */
+    public static void clearAll()
+    {
+        INDEXES.clear();
+    }
+
+    /**
+     * Lists the buildings of a type, including subclasses and implementations of an interface, in colony order.
+     *
+     * @param type building class or interface
+     * @return the matching buildings; shared until the index is rebuilt and must not be modified
+     */
+    @SuppressWarnings("unchecked")
+    public <T> List<T> ofType(@Nonnull Class<T> type)
+    {
+        return (List<T>) byType.computeIfAbsent(type, key -> {
+            List<T> matches = new ArrayList<>();
+            for (IBuilding building : buildings)
+            {
+                if (type.isInstance(building)) matches.add(type.cast(building));
+            }
+            return matches.isEmpty() ? List.of() : matches;
+        });
+    }
+
+    /**
+     * Finds the building of a type with the smallest Manhattan distance to a position among those accepted by a filter.
+     *
+     * @param type building class or interface
+     * @param from position distances are measured from
+     * @param filter test each candidate must pass
+     * @return the nearest accepted building, or null if there is none
+     */
+    public <T extends IBuilding> @Nullable T nearest(@Nonnull Class<T> type, @Nonnull BlockPos from, @Nonnull Predicate<? super T> filter)
+    {
+        T best = null;
+        int bestDistance = Integer.MAX_VALUE;
+
+        for (T building : ofType(type))
+        {
+            int distance = from.distManhattan(building.getPosition());
+            if (distance < bestDistance && filter.test(building))
+            {
+                best = building;
+                bestDistance = distance;
+            }
+        }
+
+        return best;
+    }
+
+    /**
+     * Finds the first building, in colony order, whose corners contain a position.
+     *
+     * @param pos position to look up
+     * @return the containing building, or null if the position is outside every building
+     */
+    public @Nullable IBuilding containing(@Nonnull BlockPos pos)
+    {
+        List<IBuilding> candidates = byColumn.get(ChunkPos.asLong(pos.getX() >> 4, pos.getZ() >> 4));
+        if (candidates == null) return null;
+
+        for (IBuilding building : candidates)
+        {
+            Tuple<BlockPos, BlockPos> corners = building.getCorners();
+            if (corners != null && BlockPosUtil.isInArea(corners.getA(), corners.getB(), pos)) return building;
+        }
+
+        return null;
+    }
+
+    /**
+     * Rebuilds the index when it has been marked stale or, at most once per tick, when the colony's building count, positions or
+     * levels differ from the indexed ones.
+     */
+    private void ensureCurrent(IColony colony)
+    {
+        Collection<IBuilding> current = colony.getServerBuildingManager().getBuildings().values();
+        long now = colony.getWorld() == null ? checkedAt : colony.getWorld().getGameTime();
+
+        if (!stale && (now == checkedAt || current.size() == buildings.size() && fingerprint(current) == fingerprint))
+        {
+            checkedAt = now;
+            return;
+        }
+
+        checkedAt = now;
+        rebuild(current);
+    }
+
+    private void rebuild(Collection<IBuilding> current)
+    {
+        buildings.clear();
+        byType.clear();
+        byColumn.clear();
+
+        for (IBuilding building : current)
+        {
+            if (building == null) continue;
+
+            buildings.add(building);
+
+            Tuple<BlockPos, BlockPos> corners = building.getCorners();
+            if (corners == null) continue;
+
+            BlockPos a = corners.getA();
+            BlockPos b = corners.getB();
+            for (int cx = Math.min(a.getX(), b.getX()) >> 4; cx <= Math.max(a.getX(), b.getX()) >> 4; cx++)
+            {
+                for (int cz = Math.min(a.getZ(), b.getZ()) >> 4; cz <= Math.max(a.getZ(), b.getZ()) >> 4; cz++)
+                {
+                    byColumn.computeIfAbsent(ChunkPos.asLong(cx, cz), key -> new ArrayList<>(2)).add(building);
+                }
+            }
+        }
+
+        fingerprint = fingerprint(buildings);
+        stale = false;
+    }
+
+    /**
+     * Combines the position and level of every building into an order-independent value.
+     */
+    private static long fingerprint(Collection<IBuilding> buildings)
+    {
+        long hash = 0;
+        for (IBuilding building : buildings)
+        {
+            if (building == null) continue;
+
+            hash += building.getPosition().asLong() * 31 + building.getBuildingLevel();
+        }
+        return hash;
+    }
+}
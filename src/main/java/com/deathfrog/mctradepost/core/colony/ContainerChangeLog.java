@@ -0,0 +1,76 @@
+package com.deathfrog.mctradepost.core.colony;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.annotation.Nonnull;
+
+import com.minecolonies.api.colony.buildings.IBuilding;
+
+import it.unimi.dsi.fastutil.longs.Long2LongOpenHashMap;
+import net.minecraft.core.BlockPos;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.world.level.Level;
+
+/**
+ * Records the game tick at which each colony rack last changed its contents, so that callers caching facts about a building's
+ * inventory can tell whether any of its racks changed since the fact was computed without recounting the racks.
+ * <p>
+ * Only racks report changes. The hut block and worker inventories do not, so callers must still expire their facts after some time.
+ * <p>
+ * All access happens on the server thread.
+ */
+public final class ContainerChangeLog
+{
+    private static final Map<ResourceKey<Level>, Long2LongOpenHashMap> CHANGES = new HashMap<>();
+
+    /**
+     * Prevents instantiation of this utility class.
+     */
+    private ContainerChangeLog()
+    {
+    }
+
+    /**
+     * Records a content change of the container at a position. Called from the rack whenever its contents are recounted.
+     *
+     * @param level level of the container
+     * @param pos container position
+     */
+    public static void onContainerChanged(@Nonnull Level level, @Nonnull BlockPos pos)
+    {
+        CHANGES.computeIfAbsent(level.dimension(), key -> new Long2LongOpenHashMap()).put(pos.asLong(), level.getGameTime());
+    }
+
+    /**
+     * Returns the latest tick at which one of a building's racks changed.
+     *
+     * @param building the building
+     * @return the tick of the latest recorded change, or {@link Long#MIN_VALUE} if none of its racks has changed since the server
+     *         started
+     */
+    public static long lastChange(@Nonnull IBuilding building)
+    {
+        if (building.getColony() == null) return Long.MIN_VALUE;
+
+        Long2LongOpenHashMap changes = CHANGES.get(building.getColony().getDimension());
+        if (changes == null) return Long.MIN_VALUE;
+
+        long latest = Long.MIN_VALUE;
+        for (BlockPos container : building.getContainers())
+        {
+            if (container == null) continue;
+
+            latest = Math.max(latest, changes.getOrDefault(container.asLong(), Long.MIN_VALUE));
+        }
+        return latest;
+    }
+
+    /**
+     * Discards every recorded change. Called when the server stops so that one world's ticks are never compared with another's.
+     */
+    public static void clearAll()
+    {
+        CHANGES.clear();
+    }
+}
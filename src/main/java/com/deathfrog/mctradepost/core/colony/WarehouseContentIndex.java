@@ -0,0 +1,242 @@
+package com.deathfrog.mctradepost.core.colony;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.deathfrog.mctradepost.MCTradePostMod;
+import com.minecolonies.api.colony.IColony;
+import com.minecolonies.api.colony.buildings.workerbuildings.IWareHouse;
+import com.minecolonies.api.crafting.ItemStorage;
+import com.minecolonies.core.tileentities.TileEntityRack;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntMaps;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import net.minecraft.core.BlockPos;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.block.entity.BlockEntity;
+
+/**
+ * Colony-wide aggregate of the items held in warehouse racks, kept current from rack content-change notifications.
+ * <p>
+ * The index remembers each rack's last reported contents and applies the difference when a rack changes, so lookups never walk the
+ * racks. The set of warehouse containers is compared at most once per tick; when a warehouse or rack is added or removed the index
+ * is rebuilt from the racks once. Each change bumps a version, and {@link #snapshot()} returns an immutable copy tagged with that version for
+ * modules that diff warehouse contents between runs.
+ * <p>
+ * All access happens on the server thread.
+ */
+public final class WarehouseContentIndex
+{
+    private static final Map<ColonyKey, WarehouseContentIndex> INDEXES = new HashMap<>();
+    private static final Map<ResourceKey<Level>, Long2ObjectMap<WarehouseContentIndex>> RACK_OWNERS = new HashMap<>();
+
+    private record ColonyKey(ResourceKey<Level> dimension, int colonyId) { }
+
+    /**
+     * Immutable copy of the aggregated warehouse contents.
+     *
+     * @param version index version the copy was taken at
+     * @param contents item counts across all warehouse racks
+     */
+    public record Snapshot(long version, Object2IntMap<ItemStorage> contents) { }
+
+    private final ResourceKey<Level> dimension;
+    private final LongOpenHashSet containers = new LongOpenHashSet();
+    private final Long2ObjectOpenHashMap<Object2IntOpenHashMap<ItemStorage>> rackContents = new Long2ObjectOpenHashMap<>();
+    private final Object2IntOpenHashMap<ItemStorage> totals = new Object2IntOpenHashMap<>();
+    private long version = 0;
+    private long checkedAt = Long.MIN_VALUE;
+    private Snapshot snapshot = null;
+
+    private WarehouseContentIndex(ResourceKey<Level> dimension)
+    {
+        this.dimension = dimension;
+        this.totals.defaultReturnValue(0);
+    }
+
+    /**
+     * Returns the warehouse index of a colony, rebuilding it first if the colony's warehouse containers have changed.
+     *
+     * @param colony colony whose warehouses are indexed
+     * @return the current index
+     */
+    public static WarehouseContentIndex get(IColony colony)
+    {
+        WarehouseContentIndex index = INDEXES.computeIfAbsent(new ColonyKey(colony.getDimension(), colony.getID()),
+            key -> new WarehouseContentIndex(key.dimension()));
+        index.ensureCurrent(colony);
+        return index;
+    }
+
+    /**
+     * Applies a rack's new contents to the index that tracks it, if any. Called from the rack whenever its contents are recounted.
+     *
+     * @param level level of the rack
+     * @param rack rack whose contents changed
+     */
+    public static void onRackChanged(Level level, TileEntityRack rack)
+    {
+        Long2ObjectMap<WarehouseContentIndex> owners = RACK_OWNERS.get(level.dimension());
+        if (owners == null) return;
+
+        WarehouseContentIndex owner = owners.get(rack.getBlockPos().asLong());
+        if (owner != null)
+        {
+            owner.replaceRack(rack.getBlockPos().asLong(), rack.getAllContent());
+        }
+    }
+
+    /**
+     * Discards every index. Called when the server stops so that one world's colonies never leak into another.
+     */
+    public static void clearAll()
+    {
+        INDEXES.clear();
+        RACK_OWNERS.clear();
+    }
+
+    /**
+     * Checks whether any warehouse holds an item.
+     *
+     * @param item item to look for
+     * @return true when at least one matching item is stored
+     */
+    public boolean contains(ItemStorage item)
+    {
+        return totals.getInt(item) > 0;
+    }
+
+    /**
+     * Counts an item across all warehouses.
+     *
+     * @param item item to count
+     * @return number of matching items stored
+     */
+    public int count(ItemStorage item)
+    {
+        return totals.getInt(item);
+    }
+
+    /** @return version of the index, incremented on every content change */
+    public long version()
+    {
+        return version;
+    }
+
+    /**
+     * Returns an immutable copy of the aggregated contents. The copy is shared until the next change.
+     *
+     * @return snapshot of the current version
+     */
+    public Snapshot snapshot()
+    {
+        if (snapshot == null || snapshot.version() != version)
+        {
+            snapshot = new Snapshot(version, Object2IntMaps.unmodifiable(new Object2IntOpenHashMap<>(totals)));
+        }
+        return snapshot;
+    }
+
+    /**
+     * Rebuilds the index when the colony's warehouse containers differ from the indexed set. Checked at most once per game tick.
+     *
+     * @param colony colony whose warehouses are indexed
+     */
+    private void ensureCurrent(IColony colony)
+    {
+        if (colony.getWorld() == null || colony.getServerBuildingManager() == null) return;
+
+        long now = colony.getWorld().getGameTime();
+        if (now == checkedAt) return;
+        checkedAt = now;
+
+        List<IWareHouse> warehouses = colony.getServerBuildingManager().getWareHouses();
+        LongOpenHashSet current = new LongOpenHashSet();
+        for (IWareHouse warehouse : warehouses)
+        {
+            if (warehouse == null || warehouse.getPosition() == null) continue;
+
+            current.add(warehouse.getPosition().asLong());
+            for (BlockPos container : warehouse.getContainers())
+            {
+                if (container != null) current.add(container.asLong());
+            }
+        }
+
+        if (current.equals(containers)) return;
+
+        rebuild(colony.getWorld(), current);
+    }
+
+    /**
+     * Re-reads every warehouse rack and takes ownership of their change notifications.
+     *
+     * @param level colony level
+     * @param current packed positions of every warehouse container
+     */
+    private void rebuild(Level level, LongOpenHashSet current)
+    {
+        Long2ObjectMap<WarehouseContentIndex> owners = RACK_OWNERS.computeIfAbsent(dimension, key -> new Long2ObjectOpenHashMap<>());
+        for (long pos : containers)
+        {
+            owners.remove(pos, this);
+        }
+
+        containers.clear();
+        containers.addAll(current);
+        rackContents.clear();
+        totals.clear();
+
+        for (long pos : containers)
+        {
+            owners.put(pos, this);
+            BlockEntity blockEntity = level.getBlockEntity(BlockPos.of(pos));
+            if (blockEntity instanceof TileEntityRack rack)
+            {
+                replaceRack(pos, rack.getAllContent());
+            }
+        }
+        version++;
+
+        MCTradePostMod.LOGGER.debug("Rebuilt warehouse index: {} containers, {} distinct items.", containers.size(), totals.size());
+    }
+
+    /**
+     * Replaces one rack's contribution to the totals.
+     *
+     * @param pos packed rack position
+     * @param content the rack's current contents
+     */
+    private void replaceRack(long pos, Map<ItemStorage, Integer> content)
+    {
+        Object2IntOpenHashMap<ItemStorage> previous = rackContents.remove(pos);
+        if (previous != null)
+        {
+            for (Object2IntMap.Entry<ItemStorage> entry : previous.object2IntEntrySet())
+            {
+                if (totals.addTo(entry.getKey(), -entry.getIntValue()) - entry.getIntValue() <= 0)
+                {
+                    totals.removeInt(entry.getKey());
+                }
+            }
+        }
+
+        Object2IntOpenHashMap<ItemStorage> copy = new Object2IntOpenHashMap<>(content.size());
+        for (Map.Entry<ItemStorage, Integer> entry : content.entrySet())
+        {
+            int amount = entry.getValue() == null ? 0 : entry.getValue();
+            if (amount <= 0) continue;
+
+            copy.addTo(entry.getKey(), amount);
+            totals.addTo(entry.getKey(), amount);
+        }
+        rackContents.put(pos, copy);
+        version++;
+    }
+}
@@ -1,5 +1,9 @@
 package com.deathfrog.mctradepost.core.colony.buildings.modules;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Predicate;
@@ -88,12 +92,24 @@ public class BuildingStationExportModule extends AbstractBuildingModule implemen
      */
     private static final String TAG_NSF = "nsf";
 
+    /**
+     * Tags for the train an export is loaded in, its car, and whether it leads the train.
+     */
+    private static final String TAG_CONSIST = "consist";
+    private static final String TAG_CAR = "car";
+    private static final String TAG_CONSIST_LEAD = "consistLead";
+
     /**
      * The list of exports configured.
      */
     // protected final List<ExportData> exportList = new ArrayList<>();
     protected final Set<ExportData> exportList = ConcurrentHashMap.newKeySet();
 
+    /**
+     * Identifier of the next train formed at this station.
+     */
+    private int nextConsistId = 1;
+
     /**
      * Deserializes the NBT data for the trade list, restoring its state from the
      * provided CompoundTag.
@@ -106,6 +122,8 @@ public class BuildingStationExportModule extends AbstractBuildingModule implemen
     public void deserializeNBT(@NotNull final HolderLookup.Provider provider, final CompoundTag compound)
     {
         exportList.clear();
+        nextConsistId = 1;
+        final Map<Integer, TrainConsist> consists = new HashMap<>();
         final ListTag exportListTag = compound.getList(TAG_EXPORTS, Tag.TAG_COMPOUND);
         for (int i = 0; i < exportListTag.size(); i++)
         {
@@ -148,6 +166,15 @@ public class BuildingStationExportModule extends AbstractBuildingModule implemen
                 exportData.setShipmentCountdown(shipmentCountdown);
                 exportData.setRequestToken(requestToken);
                 exportList.add(exportData);
+
+                if (compoundNBT.contains(TAG_CONSIST))
+                {
+                    int consistId = compoundNBT.getInt(TAG_CONSIST);
+                    TrainConsist consist = consists.computeIfAbsent(consistId, TrainConsist::new);
+                    consist.add(exportData, compoundNBT.getInt(TAG_CAR));
+                    if (compoundNBT.getBoolean(TAG_CONSIST_LEAD)) consist.restoreLead(exportData);
+                    nextConsistId = Math.max(nextConsistId, consistId + 1);
+                }
             }
         }
     }
@@ -190,6 +217,14 @@ public class BuildingStationExportModule extends AbstractBuildingModule implemen
             compoundNBT.putInt(TAG_SHIPMENT_COUNTDOWN, exportData.getShipmentCountdown());
             compoundNBT.putBoolean(TAG_REVERSE, exportData.isReverse());
 
+            TrainConsist consist = exportData.getConsist();
+            if (consist != null)
+            {
+                compoundNBT.putInt(TAG_CONSIST, consist.getId());
+                compoundNBT.putInt(TAG_CAR, exportData.getCar());
+                compoundNBT.putBoolean(TAG_CONSIST_LEAD, consist.getLead() == exportData);
+            }
+
             if (exportData.getRequestToken() != null)
             {
                 CompoundTag outpostToken = StandardFactoryController.getInstance().serializeTag(provider, exportData.getRequestToken());
@@ -301,6 +336,12 @@ public class BuildingStationExportModule extends AbstractBuildingModule implemen
 
         if (removed)
         {
+            TrainConsist consist = exportData.getConsist();
+            if (consist != null)
+            {
+                consist.remove(exportData);
+            }
+
             GhostCartEntity cart = exportData.getCart();
             if (cart != null) 
             {
@@ -351,6 +392,42 @@ public class BuildingStationExportModule extends AbstractBuildingModule implemen
         return removalCount > 0;
     }
 
+    /**
+     * Packs every delivery waiting to leave for a destination into trains, so that deliveries made ready at different times still
+     * share a train. Trains that have already departed are left alone.
+     *
+     * @param destination the destination whose deliveries are packed
+     * @return the trains formed
+     */
+    public List<TrainConsist> packDeliveries(StationData destination)
+    {
+        List<ExportData> waiting = new ArrayList<>();
+        for (ExportData exportData : exportList)
+        {
+            if (exportData.isReverse() || exportData.getRequestToken() == null || exportData.getShipDistance() >= 0
+                || exportData.getShipmentCountdown() == 0 || !exportData.getDestinationStationData().equals(destination))
+            {
+                continue;
+            }
+
+            TrainConsist consist = exportData.getConsist();
+            if (consist != null)
+            {
+                consist.remove(exportData);
+            }
+            waiting.add(exportData);
+        }
+
+        List<TrainConsist> trains = TrainConsist.pack(waiting, () -> nextConsistId++);
+
+        TraceUtils.dynamicTrace(TRACE_STATION, () -> LOGGER.info("Packed {} deliveries to {} into trains {}.", 
+            waiting.size(), destination.getBuildingPosition(), trains));
+
+        markDirty();
+
+        return trains;
+    }
+
     /**
      * Retrieves the number of configured exports in this module.
      * 
@@ -394,6 +471,7 @@ public class BuildingStationExportModule extends AbstractBuildingModule implemen
             }
         }
         exportList.clear();
+        nextConsistId = 1;
         markDirty();
     }
 
@@ -410,6 +488,9 @@ public class BuildingStationExportModule extends AbstractBuildingModule implemen
 
         for (ExportData exportData : exportList) 
         {
+            // Members riding behind the lead of a train move and arrive with it.
+            if (exportData.isFollower()) continue;
+
             int shipDistance = exportData.getShipDistance();
             if (shipDistance >= 0)
             { 
@@ -418,7 +499,7 @@ public class BuildingStationExportModule extends AbstractBuildingModule implemen
                 // Check for completion before the next move.
                 if (shipDistance >= exportData.getTrackDistance())
                 {
-                    ((BuildingStation) building).completeExport(exportData);
+                    completeTrain(exportData);
                     continue;
                 }
 
@@ -436,6 +517,11 @@ public class BuildingStationExportModule extends AbstractBuildingModule implemen
 
                 exportData.setShipDistance(shipDistance);
 
+                if (exportData.getConsist() != null)
+                {
+                    exportData.getConsist().follow();
+                }
+
                 TraceUtils.dynamicTrace(TRACE_STATION, () -> LOGGER.info("Colony {} - Shipment in transit of {} {} for {} at {} of {}", colony.getID(), exportData.getQuantity(),  exportData.getTradeItem().getItem(), exportData.getCost(), exportData.getShipDistance(), exportData.getTrackDistance()));
             }
             else
@@ -445,6 +531,29 @@ public class BuildingStationExportModule extends AbstractBuildingModule implemen
         }
     }
 
+    /**
+     * Completes an arrived export and, if it leads a train, every member riding behind it. Each member completes its own request.
+     *
+     * @param lead the arrived export
+     */
+    private void completeTrain(ExportData lead)
+    {
+        TrainConsist consist = lead.getConsist();
+        List<ExportData> followers = consist == null || consist.getLead() != lead ? List.of() : consist.getFollowers();
+
+        ((BuildingStation) building).completeExport(lead);
+
+        for (ExportData follower : followers)
+        {
+            ((BuildingStation) building).completeExport(follower);
+        }
+
+        if (consist != null && consist.getLead() == lead)
+        {
+            consist.dissolve();
+        }
+    }
+
     /**
      * Modifies the items to be kept in the inventory. This method is called when the inventory is about to be cleared.
      * Any items expected to be exported are added to the list of items to be kept.
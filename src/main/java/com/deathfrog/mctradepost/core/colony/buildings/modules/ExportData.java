@@ -1,5 +1,6 @@
 package com.deathfrog.mctradepost.core.colony.buildings.modules;
 
+import com.deathfrog.mctradepost.MCTPConfig;
 import com.deathfrog.mctradepost.MCTradePostMod;
 
 import static com.deathfrog.mctradepost.api.util.TraceUtils.TRACE_CART;
@@ -39,6 +40,7 @@ import net.minecraft.core.BlockPos;
 import net.minecraft.core.particles.ParticleTypes;
 import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.level.ServerLevel;
+import net.minecraft.util.Mth;
 import net.minecraft.world.item.ItemStack;
 
 public class ExportData
@@ -65,13 +67,21 @@ public class ExportData
     private int lastShipDay = -1;
     private boolean insufficientFunds = false;
     private IToken<?> requestToken = null;
+    private TrainConsist consist = null;
+    private int car = 0;
     private GhostCartEntity cart = null;
     private TrackRoute activeRoute = null;
     private int activeRouteSegmentIndex = -1;
     private final Deque<VisualLeg> pendingVisualLegs = new ArrayDeque<>();
     private long nextVisualTransitionTick = Long.MAX_VALUE;
+    private VisualLeg currentVisualLeg = null;
+    private long currentVisualLegStartTick = 0;
+    private long nextVisibilityCheckTick = 0;
 
-    private record VisualLeg(int segmentIndex, TrackRoute.Segment segment, int targetIndex, int durationTicks) { }
+    /** Server ticks between checks for players coming into or leaving view of a virtual shipment. */
+    private static final int VISIBILITY_CHECK_TICKS = 20;
+
+    private record VisualLeg(int segmentIndex, TrackRoute.Segment segment, int startIndex, int targetIndex, int durationTicks) { }
 
 
 
@@ -144,6 +154,42 @@ public class ExportData
         return requestToken;
     }
 
+    /**
+     * Returns the train this export is loaded in together with other deliveries to the same destination.
+     *
+     * @return the train, or null if this export travels on its own.
+     */
+    public @Nullable TrainConsist getConsist()
+    {
+        return consist;
+    }
+
+    /**
+     * Returns the index of the car, within its train, that carries this export.
+     *
+     * @return the car index, 0 for the first car or when not part of a train.
+     */
+    public int getCar()
+    {
+        return car;
+    }
+
+    void setConsist(@Nullable TrainConsist consist, int car)
+    {
+        this.consist = consist;
+        this.car = consist == null ? 0 : car;
+    }
+
+    /**
+     * Checks whether this export rides in a dispatched train led by another export, which carries the vehicle and progress for it.
+     *
+     * @return true if another export of the same train is moving this one.
+     */
+    public boolean isFollower()
+    {
+        return consist != null && consist.getLead() != null && consist.getLead() != this && shipDistance >= 0;
+    }
+
     /**
      * Spawns a GhostCartEntity for trade if one does not already exist. The cart is initialized with the current export's trade item
      * and set on this export data.
@@ -234,6 +280,7 @@ public class ExportData
 
         this.activeRoute = isReverse() ? route.reversed() : route;
         updateCartForRouteDistance(this.shipDistance < 0 ? 0 : this.shipDistance);
+        if (virtualShipments()) TradeRouteVisualTicker.activate(this);
         return cart;
     }
 
@@ -272,16 +319,12 @@ public class ExportData
         }
         else if (tcr != null && tcr.path != null && !tcr.path.isEmpty())
         {
-            if (this.cart == null)
-            {
-                this.cart = spawnCartForTrade(tcr.path);
-                TraceUtils.dynamicTrace(TRACE_CART, () -> LOGGER.warn("Spawning cart for trade: {}", this));
-            }
-            else
-            {
-                TraceUtils.dynamicTrace(TRACE_CART, () -> LOGGER.warn("Setting path for existing cart: {}", this));
-                this.cart.setPath(tcr.path, isReverse());
-            }
+            // Plain rail paths run through the segmented route handling so that they can also advance without a vehicle.
+            ITradeCapable pathOwner = this.getDestinationStationData().getStation();
+            if (pathOwner == null || pathOwner.getColony() == null || pathOwner.getColony().getWorld() == null) return null;
+
+            TraceUtils.dynamicTrace(TRACE_CART, () -> LOGGER.warn("Routing cart for trade along a single rail path: {}", this));
+            spawnCartForTrade(TrackRoute.singleDimension(NullnessBridge.assumeNonnull(pathOwner.getColony().getWorld().dimension()), tcr.path));
         }
         else
         { 
@@ -310,6 +353,7 @@ public class ExportData
             activeRoute = null;
             activeRouteSegmentIndex = -1;
             pendingVisualLegs.clear();
+            currentVisualLeg = null;
             TradeRouteVisualTicker.deactivate(this);
             return;
         }
@@ -352,9 +396,10 @@ public class ExportData
             if (overlapEnd > overlapStart)
             {
                 int amount = overlapEnd - overlapStart;
-                int localTarget = segment.type() == TrackRoute.SegmentType.TRANSFER
-                    ? 0 : Math.min(segment.path().size() - 1, overlapEnd - cursor);
-                drafts.add(new VisualLegDraft(segmentIndex, segment, localTarget, amount));
+                boolean transfer = segment.type() == TrackRoute.SegmentType.TRANSFER;
+                int localStart = transfer ? 0 : Math.min(segment.path().size() - 1, overlapStart - cursor);
+                int localTarget = transfer ? 0 : Math.min(segment.path().size() - 1, overlapEnd - cursor);
+                drafts.add(new VisualLegDraft(segmentIndex, segment, localStart, localTarget, amount));
             }
             cursor += distance;
         }
@@ -367,14 +412,14 @@ public class ExportData
                 ? Math.max(1, GhostCartEntity.DEFAULT_STRIDE_TICKS - assignedTicks)
                 : Math.max(1, Math.round(GhostCartEntity.DEFAULT_STRIDE_TICKS * draft.distance() / (float) travelled));
             assignedTicks += duration;
-            pendingVisualLegs.addLast(new VisualLeg(draft.segmentIndex(), draft.segment(), draft.targetIndex(), duration));
+            pendingVisualLegs.addLast(new VisualLeg(draft.segmentIndex(), draft.segment(), draft.startIndex(), draft.targetIndex(), duration));
         }
 
         startNextVisualLeg();
-        if (!pendingVisualLegs.isEmpty()) TradeRouteVisualTicker.activate(this);
+        if (!pendingVisualLegs.isEmpty() || virtualShipments()) TradeRouteVisualTicker.activate(this);
     }
 
-    private record VisualLegDraft(int segmentIndex, TrackRoute.Segment segment, int targetIndex, int distance) { }
+    private record VisualLegDraft(int segmentIndex, TrackRoute.Segment segment, int startIndex, int targetIndex, int distance) { }
 
     /** Starts the next timed modal leg; zero-distance handoffs are implicit between consecutive legs. */
     private void startNextVisualLeg()
@@ -399,6 +444,9 @@ public class ExportData
             "Starting trade visual leg index={} mode={} target={} durationTicks={} remainingLegs={}",
             leg.segmentIndex(), segment.type(), leg.targetIndex(), leg.durationTicks(), pendingVisualLegs.size()));
 
+        currentVisualLeg = leg;
+        currentVisualLegStartTick = server.overworld().getGameTime();
+
         if (segment.type() == TrackRoute.SegmentType.TRANSFER)
         {
             if (cart != null) cart.playTransferEffects();
@@ -410,16 +458,26 @@ public class ExportData
             ServerLevel level = server.getLevel(segment.dimension());
             if (level == null) return;
             int segmentIndex = leg.segmentIndex();
-            if (cart == null || !cart.hasPath() || activeRouteSegmentIndex != segmentIndex || !vehicleMatches(segment.type()))
+            if (virtualShipments() && !isWatched(level, segment.path().get(leg.startIndex())))
             {
-                emitVehicleHandoff(level, activeRouteSegmentIndex, segmentIndex, segment.type());
+                // Nobody can see this leg; the shipment advances on distance alone until a player comes into view.
                 discardCart();
-                cart = spawnVehicleForTrade(level, segment.path(), segment.type(), false);
                 activeRouteSegmentIndex = segmentIndex;
             }
-            if (cart != null) cart.setSegment(leg.targetIndex(), leg.durationTicks());
+            else
+            {
+                if (cart == null || !cart.hasPath() || activeRouteSegmentIndex != segmentIndex || !vehicleMatches(segment.type()))
+                {
+                    emitVehicleHandoff(level, activeRouteSegmentIndex, segmentIndex, segment.type());
+                    discardCart();
+                    cart = spawnVehicleForTrade(level, segment.path(), segment.type(), false);
+                    if (cart != null) cart.setProgress(leg.startIndex());
+                    activeRouteSegmentIndex = segmentIndex;
+                }
+                if (cart != null) cart.setSegment(leg.targetIndex(), leg.durationTicks());
+            }
         }
-        nextVisualTransitionTick = server.overworld().getGameTime() + leg.durationTicks();
+        nextVisualTransitionTick = currentVisualLegStartTick + leg.durationTicks();
     }
 
     /** Emits one restrained, mode-aware particle burst at a dock or interchange vehicle handoff. */
@@ -481,10 +539,11 @@ public class ExportData
         };
     }
 
-    /** @return true while another server tick is needed for this visual stride */
+    /** @return true while another server tick is needed for this visual stride, or for a virtual shipment's visibility checks */
     boolean tickRouteVisualization()
     {
-        if (pendingVisualLegs.isEmpty()) return false;
+        boolean virtual = virtualShipments() && activeRoute != null && shipDistance >= 0;
+        if (pendingVisualLegs.isEmpty() && !virtual) return false;
 
         ITradeCapable localSourceStation = sourceStation;
 
@@ -492,8 +551,82 @@ public class ExportData
             ? null : localSourceStation.getColony().getWorld().getServer();
             
         if (server == null) return false;
-        if (server.overworld().getGameTime() >= nextVisualTransitionTick) startNextVisualLeg();
-        return !pendingVisualLegs.isEmpty();
+        long now = server.overworld().getGameTime();
+        if (!pendingVisualLegs.isEmpty() && now >= nextVisualTransitionTick) startNextVisualLeg();
+        if (virtual && now >= nextVisibilityCheckTick)
+        {
+            nextVisibilityCheckTick = now + VISIBILITY_CHECK_TICKS;
+            updateVehicleVisibility(server, now);
+        }
+        return virtual || !pendingVisualLegs.isEmpty();
+    }
+
+    /**
+     * Materializes the vehicle of a virtual shipment when a player comes within view of its simulated position, and dematerializes
+     * it when no player can see it any more. The simulated position follows the current visual leg at the same pace the vehicle
+     * would move, so a materialized vehicle continues from where it would have been.
+     *
+     * @param server the running server
+     * @param now current overworld game time
+     */
+    private void updateVehicleVisibility(MinecraftServer server, long now)
+    {
+        VisualLeg leg = currentVisualLeg;
+        if (leg == null || !isVehicleMode(leg.segment().type()) || leg.segment().path().isEmpty()) return;
+
+        ServerLevel level = server.getLevel(leg.segment().dimension());
+        if (level == null) return;
+
+        double progress = Mth.clamp((now - currentVisualLegStartTick) / (double) Math.max(1, leg.durationTicks()), 0.0, 1.0);
+        int index = leg.startIndex() + (int) Math.floor((leg.targetIndex() - leg.startIndex()) * progress);
+        index = Mth.clamp(index, 0, leg.segment().path().size() - 1);
+
+        if (!isWatched(level, leg.segment().path().get(index)))
+        {
+            if (cart != null && !cart.isRemoved())
+            {
+                TraceUtils.dynamicTrace(TRACE_CART, () -> LOGGER.info("Dematerializing shipment vehicle out of view: {}", this));
+                discardCart();
+            }
+            return;
+        }
+
+        // A vehicle that was unloaded or killed while still referenced is spawned again like a missing one.
+        if (cart != null && cart.isRemoved())
+        {
+            cart = null;
+        }
+
+        if (cart == null)
+        {
+            TraceUtils.dynamicTrace(TRACE_CART, () -> LOGGER.info("Materializing shipment vehicle in view: {}", this));
+            cart = spawnVehicleForTrade(level, leg.segment().path(), leg.segment().type(), false);
+            activeRouteSegmentIndex = leg.segmentIndex();
+            if (cart != null)
+            {
+                cart.setProgress(index);
+                cart.setSegment(leg.targetIndex(), (int) Math.max(1, currentVisualLegStartTick + leg.durationTicks() - now));
+            }
+        }
+    }
+
+    /**
+     * Checks whether any player is close enough to see a route position.
+     *
+     * @param level level containing the position
+     * @param pos route position
+     * @return true when a living player is within the server's view distance of the position
+     */
+    private static boolean isWatched(ServerLevel level, BlockPos pos)
+    {
+        double range = level.getServer().getPlayerList().getViewDistance() * 16.0D;
+        return level.hasNearbyAlivePlayer(pos.getX() + 0.5D, pos.getY() + 0.5D, pos.getZ() + 0.5D, range);
+    }
+
+    /** @return whether shipment vehicles are only spawned while a player can see them */
+    private static boolean virtualShipments()
+    {
+        return MCTPConfig.virtualShipments.get();
     }
 
     /**
@@ -559,16 +692,24 @@ public class ExportData
                 return;
             }
 
+            int localSegment = Math.max(0, Math.min(segment.path().size() - 1, routeDistance - cursor));
+            if (virtualShipments() && !isWatched(level, segment.path().get(localSegment)))
+            {
+                discardCart();
+                activeRouteSegmentIndex = i;
+                return;
+            }
+
             if (cart == null || !cart.hasPath() || activeRouteSegmentIndex != i)
             {
                 discardCart();
                 cart = spawnVehicleForTrade(level, segment.path(), segment.type(), false);
+                if (cart != null && localSegment > 0) cart.setProgress(localSegment);
                 activeRouteSegmentIndex = i;
             }
 
             if (cart != null)
             {
-                int localSegment = Math.max(0, Math.min(segment.path().size() - 1, routeDistance - cursor));
                 cart.setSegment(localSegment);
             }
             return;
@@ -9,7 +9,6 @@ import net.minecraft.world.item.crafting.*;
 import net.minecraft.world.level.Level;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
-import com.ldtteam.domumornamentum.recipe.ModRecipeTypes;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -17,6 +16,7 @@ import javax.annotation.Nonnull;
 
 import com.deathfrog.mctradepost.MCTradePostMod;
 import com.deathfrog.mctradepost.api.util.NullnessBridge;
+import com.deathfrog.mctradepost.core.economy.RecipeOutputIndex;
 
 public class RecipeAnalysisHelper
 {
@@ -30,7 +30,7 @@ public class RecipeAnalysisHelper
      * @param recipeManager the recipe manager to query for recipes
      * @param item          the item to find recipes for
      * @param level         the level to access the registry for item results
-     * @return a list of recipes that result in the specified item, filtered by specific recipe types
+     * @return an immutable list of recipes that result in the specified item, filtered by specific recipe types
      */
     public static List<RecipeHolder<?>> getRecipeListForItem(RecipeManager recipeManager, Item item, @Nonnull Level level)
     {
@@ -40,21 +40,8 @@ public class RecipeAnalysisHelper
         {
             return Collections.emptyList();
         }
-        
-        List<RecipeHolder<?>> recipes = recipeManager.getRecipes()
-            .stream()
-            // .filter(r -> r.value().getResultItem(level.registryAccess()).getItem().equals(item))
-            .filter(r -> {
-                ItemStack result = r.value().getResultItem(registryAccess);
-                return result != null && !result.isEmpty() && result.getItem().equals(item);
-            })
-            .filter(r -> (r.value().getType() == RecipeType.CRAFTING) || (r.value().getType() == RecipeType.SMELTING) ||
-                (r.value().getType() == RecipeType.CAMPFIRE_COOKING) ||
-                (r.value().getType() == RecipeType.STONECUTTING) ||
-                (r.value().getType() == ModRecipeTypes.ARCHITECTS_CUTTER.get()))
-            .collect(Collectors.toList());
-
-        return recipes;
+
+        return RecipeOutputIndex.recipesFor(recipeManager, registryAccess, item);
     }
 
     /**
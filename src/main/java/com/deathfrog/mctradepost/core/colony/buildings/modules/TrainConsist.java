@@ -0,0 +1,293 @@
+package com.deathfrog.mctradepost.core.colony.buildings.modules;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.IntSupplier;
+
+import javax.annotation.Nullable;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+
+/**
+ * A train of several cars carrying deliveries from a station to the same outpost, and therefore along the same route.
+ * <p>
+ * Every delivery keeps its own {@link ExportData}, so the request behind it still completes on its own, but once the train is
+ * dispatched only its lead export spawns a vehicle, takes chunk tickets and is advanced by the export module. The other members ride
+ * at the lead's distance and arrive with it. Deliveries are packed first-fit-decreasing into cars of {@link #CAR_SLOTS} stacks, with
+ * at most {@link #MAX_CARS} cars per train; a delivery larger than one car gets consecutive cars of its own.
+ */
+public final class TrainConsist
+{
+    /** Stacks one car holds, as many as a chest minecart. */
+    public static final int CAR_SLOTS = 27;
+
+    /** Cars one train pulls at most. */
+    public static final int MAX_CARS = 8;
+
+    private final int id;
+    private final List<ExportData> members = new ArrayList<>();
+    private final IntArrayList carLoads = new IntArrayList();
+    private ExportData lead = null;
+
+    TrainConsist(int id)
+    {
+        this.id = id;
+    }
+
+    /**
+     * Packs deliveries into as few trains as their payload allows.
+     *
+     * @param deliveries deliveries waiting for the same destination
+     * @param ids source of identifiers for new trains
+     * @return the trains, each holding at least one delivery
+     */
+    static List<TrainConsist> pack(Collection<ExportData> deliveries, IntSupplier ids)
+    {
+        List<ExportData> sorted = new ArrayList<>(deliveries);
+        sorted.sort(Comparator.comparingInt(TrainConsist::slotsFor).reversed());
+
+        List<TrainConsist> trains = new ArrayList<>();
+        for (ExportData delivery : sorted)
+        {
+            int slots = slotsFor(delivery);
+            TrainConsist target = null;
+            int car = -1;
+
+            for (TrainConsist train : trains)
+            {
+                car = train.fit(slots);
+                if (car >= 0)
+                {
+                    target = train;
+                    break;
+                }
+            }
+
+            if (target == null)
+            {
+                target = new TrainConsist(ids.getAsInt());
+                trains.add(target);
+                car = target.carLoads.size();
+            }
+
+            target.add(delivery, car);
+        }
+
+        return trains;
+    }
+
+    /**
+     * Returns the number of stacks a delivery occupies.
+     *
+     * @param delivery the delivery
+     * @return its stack count, at least 1
+     */
+    static int slotsFor(ExportData delivery)
+    {
+        int stackSize = Math.max(1, delivery.getMaxStackSize());
+        return Math.max(1, (delivery.getQuantity() + stackSize - 1) / stackSize);
+    }
+
+    /**
+     * Finds the car a payload of the given size can be loaded into.
+     *
+     * @return the index of the first car with room, of the next new car, or -1 if the train is full
+     */
+    private int fit(int slots)
+    {
+        if (slots <= CAR_SLOTS)
+        {
+            for (int car = 0; car < carLoads.size(); car++)
+            {
+                if (carLoads.getInt(car) + slots <= CAR_SLOTS) return car;
+            }
+        }
+
+        int carsNeeded = (slots + CAR_SLOTS - 1) / CAR_SLOTS;
+        return carLoads.size() + carsNeeded <= MAX_CARS ? carLoads.size() : -1;
+    }
+
+    /**
+     * Loads a delivery into a car, adding cars as needed.
+     *
+     * @param delivery the delivery
+     * @param car index of the (first) car carrying it
+     */
+    void add(ExportData delivery, int car)
+    {
+        members.add(delivery);
+        delivery.setConsist(this, car);
+        load(slotsFor(delivery), car);
+    }
+
+    private void load(int slots, int car)
+    {
+        while (slots > 0)
+        {
+            while (carLoads.size() <= car)
+            {
+                carLoads.add(0);
+            }
+
+            int loaded = Math.min(slots, CAR_SLOTS - carLoads.getInt(car));
+            if (loaded <= 0) loaded = slots;
+
+            carLoads.set(car, carLoads.getInt(car) + loaded);
+            slots -= loaded;
+            car++;
+        }
+    }
+
+    /**
+     * Marks the train as departed. Members that were not loaded leave the train and wait for a later one.
+     *
+     * @param departingLead export that carries the vehicle
+     * @param loaded the other members that were loaded
+     */
+    public void depart(ExportData departingLead, Collection<ExportData> loaded)
+    {
+        for (ExportData member : new ArrayList<>(members))
+        {
+            if (member != departingLead && !loaded.contains(member))
+            {
+                members.remove(member);
+                member.setConsist(null, 0);
+            }
+        }
+
+        lead = departingLead;
+        reloadCars();
+    }
+
+    /**
+     * Moves every member riding behind the lead to the lead's position on the route.
+     */
+    public void follow()
+    {
+        if (lead == null) return;
+
+        for (ExportData member : members)
+        {
+            if (member.isFollower())
+            {
+                member.setTrackDistance(lead.getTrackDistance());
+                member.setShipDistance(lead.getShipDistance());
+            }
+        }
+    }
+
+    /**
+     * Removes a member, handing the lead to another member in transit if the removed one led the train.
+     *
+     * @param member the member to remove
+     */
+    public void remove(ExportData member)
+    {
+        if (!members.remove(member)) return;
+
+        member.setConsist(null, 0);
+
+        if (lead == member)
+        {
+            lead = null;
+            for (ExportData candidate : members)
+            {
+                if (candidate.getShipDistance() >= 0)
+                {
+                    lead = candidate;
+                    break;
+                }
+            }
+        }
+
+        reloadCars();
+    }
+
+    /**
+     * Releases every member after the train has arrived.
+     */
+    public void dissolve()
+    {
+        for (ExportData member : members)
+        {
+            member.setConsist(null, 0);
+        }
+        members.clear();
+        carLoads.clear();
+        lead = null;
+    }
+
+    /**
+     * Sets the lead of a train restored from saved data.
+     *
+     * @param restoredLead the lead export
+     */
+    void restoreLead(ExportData restoredLead)
+    {
+        if (members.contains(restoredLead)) lead = restoredLead;
+    }
+
+    private void reloadCars()
+    {
+        carLoads.clear();
+        for (ExportData member : members)
+        {
+            load(slotsFor(member), member.getCar());
+        }
+    }
+
+    public int getId()
+    {
+        return id;
+    }
+
+    public @Nullable ExportData getLead()
+    {
+        return lead;
+    }
+
+    public List<ExportData> getMembers()
+    {
+        return Collections.unmodifiableList(members);
+    }
+
+    /**
+     * Returns the members riding behind the lead.
+     *
+     * @return the followers, in loading order
+     */
+    public List<ExportData> getFollowers()
+    {
+        List<ExportData> followers = new ArrayList<>();
+        for (ExportData member : members)
+        {
+            if (member.isFollower()) followers.add(member);
+        }
+        return followers;
+    }
+
+    public int getCarCount()
+    {
+        return carLoads.size();
+    }
+
+    /**
+     * Returns the number of stacks loaded into a car.
+     *
+     * @param car car index
+     * @return the stacks loaded, 0 for a car the train does not have
+     */
+    public int getCarLoad(int car)
+    {
+        return car >= 0 && car < carLoads.size() ? carLoads.getInt(car) : 0;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "TrainConsist{id=" + id + ", members=" + members.size() + ", cars=" + carLoads + '}';
+    }
+}
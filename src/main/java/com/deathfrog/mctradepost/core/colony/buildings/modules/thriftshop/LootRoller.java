@@ -9,6 +9,7 @@ import net.minecraft.core.BlockPos;
 import net.minecraft.core.registries.Registries;
 import net.minecraft.resources.ResourceKey;
 import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.ReloadableServerRegistries;
 import net.minecraft.server.level.ServerLevel;
 import net.minecraft.util.RandomSource;
 import net.minecraft.world.item.ItemStack;
@@ -27,7 +28,7 @@ public final class LootRoller
     private static final class WeightedBlockStatePool
     {
         private final java.util.ArrayList<BlockState> states = new java.util.ArrayList<>();
-        private final java.util.ArrayList<Integer> cumulative = new java.util.ArrayList<>();
+        private int[] cumulative = new int[0];
         private int total = 0;
 
         WeightedBlockStatePool add(BlockState state, int weight)
@@ -36,7 +37,8 @@ public final class LootRoller
 
             total += weight;
             states.add(state);
-            cumulative.add(total);
+            cumulative = java.util.Arrays.copyOf(cumulative, cumulative.length + 1);
+            cumulative[cumulative.length - 1] = total;
             return this;
         }
 
@@ -46,15 +48,37 @@ public final class LootRoller
                 return Blocks.SHORT_GRASS.defaultBlockState();
 
             int r = rand.nextInt(total) + 1; // 1..total
-            for (int i = 0; i < cumulative.size(); i++)
+
+            // First state whose cumulative weight reaches r.
+            int low = 0;
+            int high = cumulative.length - 1;
+            while (low < high)
             {
-                if (r <= cumulative.get(i))
-                    return states.get(i);
+                int mid = (low + high) >>> 1;
+                if (cumulative[mid] < r) low = mid + 1;
+                else high = mid;
             }
-            return states.get(states.size() - 1);
+            return states.get(low);
         }
     }
 
+    /**
+     * Loot parameters of one level, reused across rolls. Loot tables build a fresh context from the parameters on every roll, so the
+     * parameters themselves never change.
+     */
+    private static final class LevelParams
+    {
+        private LootParams chest = null;
+        private final java.util.Map<BlockState, LootParams> blocks = new java.util.IdentityHashMap<>();
+        private final java.util.Map<Float, LootParams> fishing = new java.util.HashMap<>();
+    }
+
+    /** Resolved loot tables, valid for the reloadable registries they were resolved from. */
+    private static final java.util.Map<ResourceLocation, LootTable> TABLES = new java.util.HashMap<>();
+    private static ReloadableServerRegistries.Holder tablesSource = null;
+
+    private static final java.util.Map<ServerLevel, LevelParams> PARAMS = new java.util.IdentityHashMap<>();
+
     private static final String MINECRAFT_NAMESPACE = "minecraft";
     private static final @Nonnull BlockPos ORIGIN_POS = NullnessBridge.assumeNonnull(BlockPos.ZERO);
 
@@ -107,12 +131,16 @@ public final class LootRoller
 
         try
         {
-            @SuppressWarnings("null")
-            final LootParams params = new LootParams.Builder(level)
-                .withParameter(LootContextParams.ORIGIN, Vec3.atCenterOf(ORIGIN_POS))
-                .withLuck(0.0f)
-                .create(LootContextParamSets.CHEST);
-                
+            final LevelParams cached = params(level);
+            if (cached.chest == null)
+            {
+                cached.chest = new LootParams.Builder(level)
+                    .withParameter(LootContextParams.ORIGIN, Vec3.atCenterOf(ORIGIN_POS))
+                    .withLuck(0.0f)
+                    .create(LootContextParamSets.CHEST);
+            }
+
+            final LootParams params = cached.chest;
             if (params == null) return ItemStack.EMPTY;
 
             return pickOne(table, params, rand);
@@ -148,11 +176,11 @@ public final class LootRoller
         try
         {
             @SuppressWarnings("null")
-            final LootParams params = new LootParams.Builder(level)
+            final LootParams params = params(level).blocks.computeIfAbsent(state, blockState -> new LootParams.Builder(level)
                 .withParameter(LootContextParams.ORIGIN, Vec3.atCenterOf(ORIGIN_POS))
-                .withParameter(LootContextParams.BLOCK_STATE, state)
+                .withParameter(LootContextParams.BLOCK_STATE, blockState)
                 .withLuck(0.0f)
-                .create(LootContextParamSets.BLOCK);
+                .create(LootContextParamSets.BLOCK));
 
             if (params == null) return ItemStack.EMPTY;
 
@@ -217,16 +245,14 @@ public final class LootRoller
 
         if (table == null || table == LootTable.EMPTY) return ItemStack.EMPTY;
 
-        final ItemStack fishingRod = new ItemStack(NullnessBridge.assumeNonnull(Items.FISHING_ROD));
-
         try
         {
             @SuppressWarnings("null")
-            final LootParams params = new LootParams.Builder(level)
+            final LootParams params = params(level).fishing.computeIfAbsent(luck, key -> new LootParams.Builder(level)
                 .withParameter(LootContextParams.ORIGIN, Vec3.atCenterOf(ORIGIN_POS))
-                .withParameter(LootContextParams.TOOL, fishingRod)
-                .withLuck(luck)
-                .create(LootContextParamSets.FISHING);
+                .withParameter(LootContextParams.TOOL, new ItemStack(NullnessBridge.assumeNonnull(Items.FISHING_ROD)))
+                .withLuck(key)
+                .create(LootContextParamSets.FISHING));
 
             if (params == null) return ItemStack.EMPTY;
 
@@ -259,7 +285,19 @@ public final class LootRoller
             return ItemStack.EMPTY;
         }
 
-        return out.get(rand.nextInt(out.size())).copy();
+        // The loot table hands out freshly created stacks, so the pick needs no copy.
+        return out.get(rand.nextInt(out.size()));
+    }
+
+    /**
+     * Returns the reusable loot parameters of a level.
+     *
+     * @param level the server level the parameters belong to
+     * @return the level's parameter cache
+     */
+    private static LevelParams params(@Nonnull ServerLevel level)
+    {
+        return PARAMS.computeIfAbsent(level, key -> new LevelParams());
     }
 
 
@@ -275,14 +313,33 @@ public final class LootRoller
      */
     private static LootTable getLootTable(ServerLevel level, @Nonnull ResourceLocation tableId)
     {
-        ResourceKey<LootTable> lootTableKey = ResourceKey.create(NullnessBridge.assumeNonnull(Registries.LOOT_TABLE), tableId);
+        final ReloadableServerRegistries.Holder registries = level.getServer().reloadableRegistries();
+
+        // A datapack reload replaces the registries holder, and with it every loot table.
+        if (registries != tablesSource)
+        {
+            TABLES.clear();
+            tablesSource = registries;
+        }
 
-        if (lootTableKey == null) return null;
+        return TABLES.computeIfAbsent(tableId, id -> {
+            ResourceKey<LootTable> lootTableKey = ResourceKey.create(NullnessBridge.assumeNonnull(Registries.LOOT_TABLE), id);
 
-        // Access the loot table from MinecraftServer correctly
-        LootTable lootTable = level.getServer().reloadableRegistries().getLootTable(lootTableKey);
+            if (lootTableKey == null) return null;
+
+            // Access the loot table from MinecraftServer correctly
+            return registries.getLootTable(lootTableKey);
+        });
+    }
 
-        return lootTable;
+    /**
+     * Discards resolved loot tables and cached loot parameters. Called when the server stops.
+     */
+    public static void clearCaches()
+    {
+        TABLES.clear();
+        tablesSource = null;
+        PARAMS.clear();
     }
 
 
@@ -11,9 +11,11 @@ import com.deathfrog.mctradepost.core.colony.buildings.modules.thriftshop.Market
 import com.deathfrog.mctradepost.core.colony.buildings.workerbuildings.BuildingMarketplace;
 import com.minecolonies.api.util.MathUtils;
 
+import net.minecraft.core.registries.BuiltInRegistries;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.server.level.ServerLevel;
 import net.minecraft.util.RandomSource;
+import net.minecraft.world.item.Item;
 import net.minecraft.world.item.ItemStack;
 
 public final class MarketTierSources
@@ -71,6 +73,9 @@ public final class MarketTierSources
         rl("minecraft:blocks/flowering_azalea_leaves")
     );
 
+    /** Rolling tiers each item may be sold in, indexed by item registry id; null until next needed. */
+    private static volatile byte[] SELLABLE_TIERS = null;
+
     // ---- Fishing ----
     // Vanilla fishing is driven by minecraft:gameplay/fishing, which uses subtables:
     // minecraft:gameplay/fishing/fish, .../junk, .../treasure.
@@ -361,6 +366,69 @@ public final class MarketTierSources
      * @return true if the stack is sellable, false otherwise
      */
     public static boolean isSellable(ItemStack stack, MarketTier rollingTier)
+    {
+        if (stack.isEmpty()) return false;
+
+        byte[] table = SELLABLE_TIERS;
+        if (table == null)
+        {
+            table = bakeSellableTiers();
+            SELLABLE_TIERS = table;
+        }
+
+        int id = BuiltInRegistries.ITEM.getId(stack.getItem());
+        if (id >= 0 && id < table.length)
+        {
+            return (table[id] & (1 << tierIndex(rollingTier))) != 0;
+        }
+
+        return isSellableUncached(stack, rollingTier);
+    }
+
+    /**
+     * Discards the baked sellability table so that it is rebuilt from the current tags on the next roll. Called whenever tags are
+     * reloaded.
+     */
+    public static void invalidateSellableTiers()
+    {
+        SELLABLE_TIERS = null;
+    }
+
+    /**
+     * Bakes, for every registered item, the rolling tiers it may be sold in. Tier tags belong to the item, so the outcome of
+     * {@link #isSellable(ItemStack, MarketTier)} depends only on the item and the tier.
+     *
+     * @return bit {@code tierIndex(tier)} of entry {@code id} is set when the item with that registry id is sellable in that tier
+     */
+    private static byte[] bakeSellableTiers()
+    {
+        byte[] table = new byte[BuiltInRegistries.ITEM.size()];
+        for (Item item : BuiltInRegistries.ITEM)
+        {
+            if (item == null) continue;
+
+            int id = BuiltInRegistries.ITEM.getId(item);
+            if (id < 0 || id >= table.length) continue;
+
+            ItemStack probe = new ItemStack(item);
+            if (probe.isEmpty()) continue;
+
+            for (MarketTier tier : MarketTier.values())
+            {
+                if (isSellableUncached(probe, tier)) table[id] |= (byte) (1 << tierIndex(tier));
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Evaluates the sellability rules against the stack's tags. See {@link #isSellable(ItemStack, MarketTier)}.
+     *
+     * @param stack the item stack to check
+     * @param rollingTier the market tier to check against
+     * @return true if the stack is sellable, false otherwise
+     */
+    private static boolean isSellableUncached(ItemStack stack, MarketTier rollingTier)
     {
         if (stack.isEmpty()) return false;
         if (stack.is(ModTags.ITEMS.RARE_FINDS_BLACKLIST_TAG)) return false;
@@ -3,13 +3,11 @@ package com.deathfrog.mctradepost.core.colony.buildings.workerbuildings;
 import com.minecolonies.api.colony.ICitizenData;
 import com.minecolonies.api.colony.IColony;
 import com.minecolonies.api.colony.IColonyManager;
-import com.minecolonies.api.colony.IVisitorData;
 import com.minecolonies.api.colony.buildings.IBuilding;
 import com.minecolonies.api.colony.buildings.modules.settings.ISettingKey;
 import com.minecolonies.api.colony.interactionhandling.ChatPriority;
 import com.minecolonies.api.entity.ai.statemachine.states.CitizenAIState;
 import com.minecolonies.api.entity.ai.statemachine.states.IState;
-import com.minecolonies.api.entity.ai.statemachine.tickratestatemachine.ITickRateStateMachine;
 import com.minecolonies.api.entity.citizen.AbstractEntityCitizen;
 import com.minecolonies.api.util.MessageUtils;
 import com.minecolonies.core.colony.buildings.AbstractBuilding;
@@ -19,7 +17,6 @@ import com.minecolonies.core.colony.buildings.modules.settings.IntSetting;
 import com.minecolonies.core.colony.buildings.modules.settings.SettingKey;
 import com.minecolonies.core.colony.interactionhandling.StandardInteraction;
 import com.minecolonies.core.entity.citizen.EntityCitizen;
-import com.minecolonies.core.entity.visitor.VisitorCitizen;
 import com.mojang.logging.LogUtils;
 
 import net.minecraft.core.BlockPos;
@@ -54,7 +51,7 @@ import com.deathfrog.mctradepost.core.colony.buildings.modules.MCTPBuildingModul
 import com.deathfrog.mctradepost.core.colony.buildings.modules.thriftshop.ThriftShopOffersModule;
 import com.deathfrog.mctradepost.core.colony.buildings.workerbuildings.DisplayCase.SaleState;
 import com.deathfrog.mctradepost.core.colony.jobs.JobShopkeeper;
-import com.deathfrog.mctradepost.core.entity.ai.workers.minimal.EntityAIShoppingTask;
+import com.deathfrog.mctradepost.core.entity.ai.workers.minimal.VisitorShoppingScheduler;
 import com.deathfrog.mctradepost.core.event.wishingwell.WellLocations;
 import com.deathfrog.mctradepost.item.CoinItem;
 import com.deathfrog.mctradepost.item.SouvenirItem;
@@ -72,7 +69,6 @@ import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
 import static com.deathfrog.mctradepost.api.util.TraceUtils.TRACE_SHOPKEEPER;
-import static com.deathfrog.mctradepost.api.util.TraceUtils.TRACE_SHOPPER;
 import static com.minecolonies.api.util.constant.BuildingConstants.CONST_DEFAULT_MAX_BUILDING_LEVEL;
 
 /**
@@ -88,10 +84,6 @@ public class BuildingMarketplace extends AbstractBuilding
     protected final static int ADVERTISING_COOLDOWN_MAX = 3; // In colony ticks (500 regular ticks)
     protected int advertisingCooldown = ADVERTISING_COOLDOWN_MAX;
 
-    // Keep a list of who the resort has "advertised" to (who has had the EntityAIShoppingTask added to their AI)
-    // This is deliberately global across all marketplaces.
-    protected static List<IVisitorData> advertisingList = new ArrayList<>();
-
     public static final String REQUESTS_TYPE_SELLABLE = "com.mctradepost.coremod.request.sellable";
 
     // Cached currency item - used to avoid searching the registry every time the configured trade currency is fetched.
@@ -768,26 +760,8 @@ public class BuildingMarketplace extends AbstractBuilding
 
         if (advertisingCooldown > 0) return;
 
-        Set<Integer> visitorIDs = colony.getVisitorManager().getCivilianDataMap().keySet();
-
-        for (Integer visitorID : visitorIDs)
-        {
-            IVisitorData visitor = (IVisitorData) colony.getVisitorManager().getVisitor(visitorID);
-
-            if (visitor != null && !visitor.getEntity().isEmpty() && !advertisingList.contains(visitor))
-            {
-                TraceUtils.dynamicTrace(TRACE_SHOPPER,
-                    () -> LOGGER.info("Adding visitor to advertising list: {}", visitor.getEntity().get().getName()));
-
-                VisitorCitizen vitizen = (VisitorCitizen) visitor.getEntity().get();
-
-                ITickRateStateMachine<IState> stateMachine = vitizen.getEntityStateController();
-                EntityAIShoppingTask shoppingTask = new EntityAIShoppingTask(visitor);
-                shoppingTask.init(stateMachine);
-
-                advertisingList.add(visitor);
-            }
-        }
+        // Enrollment is shared by all marketplaces of the colony; visitors already enrolled are skipped.
+        VisitorShoppingScheduler.get(colony).enrollVisitors(colony);
 
         advertisingCooldown = ADVERTISING_COOLDOWN_MAX;
     }
@@ -30,20 +30,17 @@ import com.deathfrog.mctradepost.api.util.TraceUtils;
 import com.deathfrog.mctradepost.compat.recycling.IOptionalRecyclingProvider;
 import com.deathfrog.mctradepost.compat.recycling.OptionalRecyclingProviders;
 import com.deathfrog.mctradepost.compat.recycling.RecyclingPlan;
+import com.deathfrog.mctradepost.core.colony.WarehouseContentIndex;
 import com.deathfrog.mctradepost.core.colony.buildings.modules.RecipeAnalysisHelper;
 import com.deathfrog.mctradepost.core.colony.buildings.modules.settings.SortSetting;
-import com.deathfrog.mctradepost.core.recycling.blacklist.RecyclingBlacklistManager;
+import com.deathfrog.mctradepost.core.recycling.RecyclingTemplateCache;
 import com.deathfrog.mctradepost.core.entity.ai.workers.crafting.EntityAIWorkRecyclingEngineer;
 import com.deathfrog.mctradepost.item.SouvenirItem;
 import com.deathfrog.mctradepost.recipe.DeconstructionRecipe;
 import com.deathfrog.mctradepost.recipe.DeconstructionRecipe.Output;
 import com.ldtteam.domumornamentum.recipe.ModRecipeTypes;
 import com.minecolonies.api.colony.IColony;
-import com.minecolonies.api.colony.IColonyManager;
-import com.minecolonies.api.colony.buildings.IBuilding;
 import com.minecolonies.api.colony.buildings.modules.settings.ISettingKey;
-import com.minecolonies.api.colony.buildings.workerbuildings.IWareHouse;
-import com.minecolonies.api.colony.managers.interfaces.IRegisteredStructureManager;
 import com.minecolonies.api.colony.requestsystem.request.IRequest;
 import com.minecolonies.api.colony.requestsystem.request.RequestState;
 import com.minecolonies.api.colony.requestsystem.requestable.StackList;
@@ -60,7 +57,6 @@ import com.minecolonies.core.colony.buildings.modules.settings.BoolSetting;
 import com.minecolonies.core.colony.buildings.modules.settings.SettingKey;
 import com.minecolonies.core.util.AdvancementUtils;
 import com.mojang.logging.LogUtils;
-import it.unimi.dsi.fastutil.objects.Object2IntMap;
 import it.unimi.dsi.fastutil.objects.Object2IntMap.Entry;
 import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
 import net.minecraft.core.BlockPos;
@@ -603,7 +599,7 @@ public class BuildingRecycling extends AbstractBuilding
             return false;
         }
 
-        if (RecyclingBlacklistManager.isBlacklisted(itemToRecycle, getColony() != null ? getColony().getWorld() : null))
+        if (RecyclingTemplateCache.isBlacklisted(itemToRecycle, getColony() != null ? getColony().getWorld() : null))
         {
             return false;
         }
@@ -1069,7 +1065,7 @@ public class BuildingRecycling extends AbstractBuilding
             return null;
         }
 
-        if (RecyclingBlacklistManager.isBlacklisted(inputStack, level))
+        if (RecyclingTemplateCache.isBlacklisted(inputStack, level))
         {
             TraceUtils.dynamicTrace(TRACE_RECYCLING_RECIPE, () -> LOGGER.info("Item {} is blacklisted from recycling.", inputStack));
             return null;
@@ -1109,7 +1105,8 @@ public class BuildingRecycling extends AbstractBuilding
      * Resolves the best available recycling plan for the supplied input stack.
      * The search order preserves existing behavior by preferring souvenir and
      * deconstruction handling first, then optional compatibility providers, and
-     * finally generic recipe reverse engineering.
+     * finally generic recipe reverse engineering. Deconstruction recipes and
+     * reverse-engineered templates come from the {@link RecyclingTemplateCache}.
      *
      * @param inputStack the item stack to recycle
      * @param level the active level containing the recipe manager
@@ -1119,8 +1116,6 @@ public class BuildingRecycling extends AbstractBuilding
     @Nullable
     protected RecyclingPlan resolveRecyclingPlan(@Nonnull final ItemStack inputStack, @Nonnull final Level level, final int workerSkill)
     {
-        final Optional<RecipeHolder<DeconstructionRecipe>> deconRecipe = findDeconstructionRecipe(inputStack, level);
-
         if (inputStack.getItem() instanceof SouvenirItem)
         {
             final Item originalItem = SouvenirItem.getOriginal(inputStack);
@@ -1135,6 +1130,9 @@ public class BuildingRecycling extends AbstractBuilding
             return new RecyclingPlan.IngredientOutputs(candidateMaterialsOutput, originalItemStack.copy());
         }
 
+        final RecyclingTemplateCache.Entry templates = RecyclingTemplateCache.get(inputStack, level);
+        final Optional<RecipeHolder<DeconstructionRecipe>> deconRecipe = templates.deconstruction(stack -> findDeconstructionRecipe(stack, level));
+
         if (deconRecipe.isPresent())
         {
             final Recipe<?> selectedRecipeForLogging = deconRecipe.get().value();
@@ -1149,7 +1147,7 @@ public class BuildingRecycling extends AbstractBuilding
             return compatPlan;
         }
 
-        final Tuple<Object2IntOpenHashMap<ItemStorage>, ItemStack> outputResult = outputsFromReverseEngineeredRecipe(inputStack);
+        final Tuple<Object2IntOpenHashMap<ItemStorage>, ItemStack> outputResult = templates.reverseTemplate(this::outputsFromReverseEngineeredRecipe);
         if (outputResult == null)
         {
             return null;
@@ -1488,7 +1486,7 @@ public class BuildingRecycling extends AbstractBuilding
 
             if (pendingStack == null) continue;
 
-            if (RecyclingBlacklistManager.isBlacklisted(pendingStack, getColony().getWorld()))
+            if (RecyclingTemplateCache.isBlacklisted(pendingStack, getColony().getWorld()))
             {
                 getColony().getRequestManager().updateRequestState(request.getId(), RequestState.CANCELLED);
                 requestsToRemove.add(pendingRequest);
@@ -1600,27 +1598,7 @@ public class BuildingRecycling extends AbstractBuilding
             return false;
         }
 
-        IRegisteredStructureManager buildingManager = getColony().getServerBuildingManager();
-        for (IWareHouse wh : buildingManager.getWareHouses())
-        {
-            BlockPos whPos = wh.getPosition();
-            if (whPos == null)
-            {
-                continue;
-            }
-
-            IBuilding warehouse = IColonyManager.getInstance().getBuilding(getColony().getWorld(), whPos);
-            Object2IntMap<ItemStorage> whItems = MCTPInventoryUtils.contentsForBuilding(warehouse);
-            for (Entry<ItemStorage> entry : whItems.object2IntEntrySet())
-            {
-                if (entry.getIntValue() > 0 && item.equals(entry.getKey()))
-                {
-                    return true;
-                }
-            }
-        }
-
-        return false;
+        return WarehouseContentIndex.get(getColony()).contains(item);
     }
 
     /**
@@ -1656,10 +1634,8 @@ public class BuildingRecycling extends AbstractBuilding
     }
 
     /**
-     * Refreshes the list of items stored in all warehouses within the colony. This method retrieves the registered structure manager
-     * for the colony and obtains a list of all warehouse locations. For each warehouse, it calculates the item storage contents and
-     * aggregates them into a map, which is then used to update the function that provides the set of all items stored in the
-     * building's warehouse.
+     * Refreshes the list of items stored in all warehouses within the colony. The aggregated warehouse contents come from the colony's
+     * {@link WarehouseContentIndex}; items already requested, accepted as recycling inputs or blacklisted are left out.
      */
     public void refreshItemList()
     {
@@ -1673,8 +1649,6 @@ public class BuildingRecycling extends AbstractBuilding
 
         reconcileRecyclingRequests();
 
-        IRegisteredStructureManager buildingManager = getColony().getServerBuildingManager();
-        List<IWareHouse> warehouses = buildingManager.getWareHouses();
         final Set<ItemStorage> pendingWarehouseRequestSet = new HashSet<>();
         for (PendingWarehouseRequest request : getPendingWarehouseRequests())
         {
@@ -1682,34 +1656,24 @@ public class BuildingRecycling extends AbstractBuilding
         }
         final Set<ItemStorage> acceptedInputSet = new HashSet<>(getAcceptedRecyclingInputs());
 
-        for (IWareHouse wh : warehouses)
-        {
-            Object2IntMap<ItemStorage> whItems = null;
+        final WarehouseContentIndex.Snapshot warehouseContents = WarehouseContentIndex.get(getColony()).snapshot();
+        TraceUtils.dynamicTrace(TRACE_RECYCLING_RECIPE,
+            () -> LOGGER.info("Analyzing warehouse inventory at version {}.", warehouseContents.version()));
 
-            BlockPos whPos = wh.getPosition();
+        for (final Entry<ItemStorage> entry : warehouseContents.contents().object2IntEntrySet())
+        {
+            ItemStack keyStack = entry.getKey().getItemStack();
 
-            if (whPos != null)
+            if (keyStack == null || keyStack.isEmpty())
             {
-                TraceUtils.dynamicTrace(TRACE_RECYCLING_RECIPE, () -> LOGGER.info("Analyzing inventory of warehouse at: {}.", whPos));
-
-                IBuilding warehouse = IColonyManager.getInstance().getBuilding(getColony().getWorld(), whPos);
-                whItems = MCTPInventoryUtils.contentsForBuilding(warehouse);
-                for (final Entry<ItemStorage> entry : whItems.object2IntEntrySet())
-                {
-                    ItemStack keyStack = entry.getKey().getItemStack();
-
-                    if (keyStack == null || keyStack.isEmpty())
-                    {
-                        continue;
-                    }
+                continue;
+            }
 
-                    if (!pendingWarehouseRequestSet.contains(entry.getKey())
-                        && !acceptedInputSet.contains(entry.getKey())
-                        && !RecyclingBlacklistManager.isBlacklisted(keyStack, getColony().getWorld()))
-                    {
-                        allItems.addTo(entry.getKey(), entry.getIntValue());
-                    }
-                }
+            if (!pendingWarehouseRequestSet.contains(entry.getKey())
+                && !acceptedInputSet.contains(entry.getKey())
+                && !RecyclingTemplateCache.isBlacklisted(keyStack, getColony().getWorld()))
+            {
+                allItems.addTo(entry.getKey(), entry.getIntValue());
             }
         }
 
@@ -32,6 +32,7 @@ import com.deathfrog.mctradepost.core.colony.requestsystem.IRequestSatisfaction;
 import com.deathfrog.mctradepost.core.colony.requestsystem.resolvers.TrainDeliveryResolver;
 import com.deathfrog.mctradepost.core.entity.ai.workers.trade.ITradeCapable;
 import com.deathfrog.mctradepost.core.entity.ai.workers.trade.StationData;
+import com.deathfrog.mctradepost.core.entity.ai.workers.trade.TrackPathCodec;
 import com.deathfrog.mctradepost.core.entity.ai.workers.trade.TrackPathConnection.TrackConnectionResult;
 import com.deathfrog.mctradepost.core.entity.ai.workers.trade.DimPos;
 import com.deathfrog.mctradepost.core.entity.ai.workers.trade.TrackRoute;
@@ -122,6 +123,7 @@ public class BuildingStation extends AbstractBuilding implements ITradeCapable,
     private static final String TAG_CONNECTION_LAST_CHECKED = "last_checked";
     private static final String TAG_CONNECTION_CLOSEST = "closest";
     private static final String TAG_CONNECTION_PATH = "path";
+    private static final String TAG_CONNECTION_PATH_PACKED = "path_packed";
     private static final String TAG_CONNECTION_ROUTE = "route";
     private static final String TAG_ROUTE_SEGMENTS = "segments";
     private static final String TAG_ROUTE_SEGMENT_TYPE = "type";
@@ -151,6 +153,12 @@ public class BuildingStation extends AbstractBuilding implements ITradeCapable,
      */
     private Queue<Integer> paymentRequests = new ArrayDeque<>();
 
+    /**
+     * Counters bumped on every trade and connection change, letting cached export facts detect that they are out of date.
+     */
+    private long tradeGeneration = 0;
+    private long connectionGeneration = 0;
+
     /**
      * Delay for spawning more visitors when a spot opens up.
      */
@@ -282,6 +290,7 @@ public class BuildingStation extends AbstractBuilding implements ITradeCapable,
      */
     public void markTradesDirty()
     {
+        tradeGeneration++;
         markDirty();
         BuildingStationImportModule imports = getModule(MCTPBuildingModules.IMPORTS);
 
@@ -298,6 +307,26 @@ public class BuildingStation extends AbstractBuilding implements ITradeCapable,
         }
     }
 
+    /**
+     * Returns a counter incremented by every {@link #markTradesDirty()}.
+     *
+     * @return the current trade generation
+     */
+    public long getTradeGeneration()
+    {
+        return tradeGeneration;
+    }
+
+    /**
+     * Returns a counter incremented whenever a track connection result is recorded.
+     *
+     * @return the current connection generation
+     */
+    public long getConnectionGeneration()
+    {
+        return connectionGeneration;
+    }
+
     /**
      * Validates the stations that are connected to this station. Goes through all the stations in the list and checks if they are
      * still valid. Checks for the following conditions: - The server is not null. - The level is not null. - The colony is not null. -
@@ -606,6 +635,7 @@ public class BuildingStation extends AbstractBuilding implements ITradeCapable,
 
         stations.clear();
         connectionresults.clear();
+        connectionGeneration++;
 
         ListTag stationTagList = compound.getList(TAG_STATIONS, Tag.TAG_COMPOUND);
         for (int i = 0; i < stationTagList.size(); ++i)
@@ -632,8 +662,8 @@ public class BuildingStation extends AbstractBuilding implements ITradeCapable,
     }
 
     /**
-     * Serializes the current state of the building, including the list of stations, to the given buffer. The state of the stations is
-     * stored under the key TAG_STATIONS in the serialized CompoundTag.
+     * Serializes the current state of the building, including the list of stations, to the given buffer. Each station is written in
+     * the compact form of {@link StationData#toBuffer}.
      *
      * @param buf      The buffer to serialize the state of the building into.
      * @param fullSync Whether or not to serialize the full state of the building, or just the delta.
@@ -645,13 +675,13 @@ public class BuildingStation extends AbstractBuilding implements ITradeCapable,
         buf.writeInt(stations.size());
         for (final Entry<BlockPos, StationData> station : stations.entrySet())
         {
-            buf.writeNbt(station.getValue().toNBT());
+            station.getValue().toBuffer(buf);
         }
 
         buf.writeInt(connectionresults.size());
         for (final Map.Entry<StationData, TrackConnectionResult> e : connectionresults.entrySet())
         {
-            buf.writeNbt(e.getKey().toNBT());       // key
+            e.getKey().toBuffer(buf);       // key
             buf.writeBoolean(e.getValue().connected);     // value
         }
     }
@@ -666,6 +696,7 @@ public class BuildingStation extends AbstractBuilding implements ITradeCapable,
     public void putTrackConnectionResult(StationData stationData, TrackConnectionResult result)
     {
         connectionresults.put(stationData, result);
+        connectionGeneration++;
         BuildingStationConnectionModule module = this.getModule(MCTPBuildingModules.STATION_CONNECTION);
         if (module != null)
         {
@@ -699,7 +730,7 @@ public class BuildingStation extends AbstractBuilding implements ITradeCapable,
             {
                 BlockPosUtil.write(tag, TAG_CONNECTION_CLOSEST, result.closestPoint);
             }
-            tag.put(TAG_CONNECTION_PATH, writeBlockPosList(result.path));
+            writePath(tag, result.path);
             TrackRoute route = result.getRoute();
             if (route != null)
             {
@@ -732,7 +763,7 @@ public class BuildingStation extends AbstractBuilding implements ITradeCapable,
             BlockPos closest = tag.contains(TAG_CONNECTION_CLOSEST, Tag.TAG_COMPOUND)
                 ? BlockPosUtil.read(tag, TAG_CONNECTION_CLOSEST)
                 : stationData.getBuildingPosition();
-            List<BlockPos> path = readBlockPosList(tag.getList(TAG_CONNECTION_PATH, Tag.TAG_COMPOUND));
+            List<BlockPos> path = readPath(tag);
             TrackRoute route = tag.contains(TAG_CONNECTION_ROUTE, Tag.TAG_COMPOUND)
                 ? readRoute(tag.getCompound(TAG_CONNECTION_ROUTE))
                 : null;
@@ -742,34 +773,7 @@ public class BuildingStation extends AbstractBuilding implements ITradeCapable,
     }
 
     /**
-     * Writes a block position list to NBT.
-     *
-     * @param positions positions to serialize
-     * @return list tag containing block positions
-     */
-    private static @Nonnull ListTag writeBlockPosList(List<BlockPos> positions)
-    {
-        ListTag list = new ListTag();
-        if (positions == null)
-        {
-            return list;
-        }
-
-        for (BlockPos pos : positions)
-        {
-            if (pos == null)
-            {
-                continue;
-            }
-            CompoundTag posTag = new CompoundTag();
-            BlockPosUtil.write(posTag, TAG_DIMPOS_POS, pos);
-            list.add(posTag);
-        }
-        return list;
-    }
-
-    /**
-     * Reads a block position list from NBT.
+     * Reads a block position list from NBT, as written before paths were packed.
      *
      * @param list serialized block positions
      * @return deserialized block positions
@@ -788,6 +792,41 @@ public class BuildingStation extends AbstractBuilding implements ITradeCapable,
         return positions;
     }
 
+    /**
+     * Writes a path in the packed form of {@link TrackPathCodec}.
+     *
+     * @param tag tag to write the path into
+     * @param positions positions to serialize
+     */
+    private static void writePath(@Nonnull CompoundTag tag, List<BlockPos> positions)
+    {
+        tag.putByteArray(TAG_CONNECTION_PATH_PACKED, TrackPathCodec.encode(positions));
+    }
+
+    /**
+     * Reads a path written by {@link #writePath(CompoundTag, List)}, or by earlier versions as one tag per position.
+     *
+     * @param tag tag holding the path
+     * @return deserialized positions; empty when the packed path cannot be decoded
+     */
+    private static List<BlockPos> readPath(@Nonnull CompoundTag tag)
+    {
+        if (!tag.contains(TAG_CONNECTION_PATH_PACKED, Tag.TAG_BYTE_ARRAY))
+        {
+            return readBlockPosList(tag.getList(TAG_CONNECTION_PATH, Tag.TAG_COMPOUND));
+        }
+
+        try
+        {
+            return TrackPathCodec.decode(tag.getByteArray(TAG_CONNECTION_PATH_PACKED));
+        }
+        catch (IllegalArgumentException exception)
+        {
+            LOGGER.warn("Discarding unreadable route path: {}", exception.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
     /**
      * Serializes a dimension-aware track route.
      *
@@ -804,7 +843,7 @@ public class BuildingStation extends AbstractBuilding implements ITradeCapable,
             CompoundTag segmentTag = new CompoundTag();
             segmentTag.putString(TAG_ROUTE_SEGMENT_TYPE, segment.type().name());
             segmentTag.putString(TAG_ROUTE_SEGMENT_DIMENSION, segment.dimension().location().toString());
-            segmentTag.put(TAG_CONNECTION_PATH, writeBlockPosList(segment.path()));
+            writePath(segmentTag, segment.path());
             if (segment.transferFrom() != null)
             {
                 segmentTag.put(TAG_ROUTE_SEGMENT_TRANSFER_FROM, writeDimPos(segment.transferFrom()));
@@ -855,19 +894,19 @@ public class BuildingStation extends AbstractBuilding implements ITradeCapable,
             else if (type == TrackRoute.SegmentType.DOCK)
             {
                 ResourceKey<Level> dimension = readDimension(segmentTag.getString(TAG_ROUTE_SEGMENT_DIMENSION));
-                List<BlockPos> path = readBlockPosList(segmentTag.getList(TAG_CONNECTION_PATH, Tag.TAG_COMPOUND));
+                List<BlockPos> path = readPath(segmentTag);
                 if (dimension != null && !path.isEmpty()) segments.add(TrackRoute.Segment.dock(dimension, path.getFirst()));
             }
             else if (type == TrackRoute.SegmentType.INTERCHANGE)
             {
                 ResourceKey<Level> dimension = readDimension(segmentTag.getString(TAG_ROUTE_SEGMENT_DIMENSION));
-                List<BlockPos> path = readBlockPosList(segmentTag.getList(TAG_CONNECTION_PATH, Tag.TAG_COMPOUND));
+                List<BlockPos> path = readPath(segmentTag);
                 if (dimension != null && !path.isEmpty()) segments.add(TrackRoute.Segment.interchange(dimension, path.getFirst()));
             }
             else
             {
                 ResourceKey<Level> dimension = readDimension(segmentTag.getString(TAG_ROUTE_SEGMENT_DIMENSION));
-                List<BlockPos> path = readBlockPosList(segmentTag.getList(TAG_CONNECTION_PATH, Tag.TAG_COMPOUND));
+                List<BlockPos> path = readPath(segmentTag);
                 if (dimension != null && !path.isEmpty())
                 {
                     segments.add(TrackRoute.Segment.traversable(type, dimension, path));
@@ -1204,6 +1243,9 @@ public class BuildingStation extends AbstractBuilding implements ITradeCapable,
      * checks if the outpost has a qualifying item to ship. If so, it initiates a shipment and sets the request state to RESOLVED. If
      * no qualifying item is found, it echoes the request to the stationmaster and sets the request state to ASSIGNED. If the request
      * is already in progress, it does nothing. This method is called as needed by the worker's AI.
+     * <p>
+     * Deliveries made ready for the same outpost are then packed into trains, so that they travel together rather than as one cart
+     * each.
      */
     public void handleOutpostRequests()
     {
@@ -1239,7 +1281,7 @@ public class BuildingStation extends AbstractBuilding implements ITradeCapable,
                 this.getBuildingDisplayName(),
                 this.getColony().getID()));
 
-        int car = 1;
+        final Map<BuildingOutpost, StationData> readyDestinations = new HashMap<>();
 
         // Cycle through open task list, see if we have something that can
         // be shipped, and ship it if so. Remove it from the task list once shipped.
@@ -1294,10 +1336,11 @@ public class BuildingStation extends AbstractBuilding implements ITradeCapable,
                 tracking.getState() == OutpostOrderState.ITEM_READY_TO_SHIP) && !handledRequestList.contains(request.getId()) &&
                 !reqsToRemove.contains(request.getId()))
             {
-                boolean satisfied = trySatisfyRequest(request, outpost, car++);
+                ExportData shipment = trySatisfyRequest(request, outpost);
 
-                if (satisfied)
+                if (shipment != null)
                 {
+                    readyDestinations.putIfAbsent(outpost, shipment.getDestinationStationData());
                     tracking.setState(OutpostOrderState.SHIPMENT_INITIATED);
                     reqsToRemove.add(requestToken);
                     continue;
@@ -1308,6 +1351,15 @@ public class BuildingStation extends AbstractBuilding implements ITradeCapable,
         module.getMutableRequestList().removeAll(reqsToRemove);
         module.markDirty();
         handledRequestList.addAll(reqsToRemove);
+
+        BuildingStationExportModule exports = this.getModule(MCTPBuildingModules.EXPORTS);
+        if (exports != null)
+        {
+            for (StationData destination : readyDestinations.values())
+            {
+                exports.packDeliveries(destination);
+            }
+        }
     }
 
     /**
@@ -1442,12 +1494,11 @@ public class BuildingStation extends AbstractBuilding implements ITradeCapable,
      * 
      * @param request The request to check for satisfaction.
      * @param outpost The outpost to check for satisfaction.
-     * @param car     The car to use for the shipment.
-     * @return A list of request tokens to remove from the outpost's request list.
+     * @return The shipment set up for the request, or null if the request cannot be satisfied yet.
      */
-    protected boolean trySatisfyRequest(@Nonnull IRequest<?> request, @Nonnull BuildingOutpost outpost, int car)
+    protected @Nullable ExportData trySatisfyRequest(@Nonnull IRequest<?> request, @Nonnull BuildingOutpost outpost)
     {
-        boolean satisfied = false;
+        ExportData shipment = null;
 
         TraceUtils.dynamicTrace(TRACE_OUTPOST_REQUESTS,
             () -> LOGGER.info("Checking if satisfiable: {} (state {}) - {}",
@@ -1461,34 +1512,32 @@ public class BuildingStation extends AbstractBuilding implements ITradeCapable,
         {
             TraceUtils.dynamicTrace(TRACE_OUTPOST_REQUESTS, () -> LOGGER.info("Station has something to ship: {}", satisfier));
             TraceUtils.dynamicTrace(TRACE_STATION, () -> LOGGER.info("Station has something to ship: {}", satisfier));
-            initiateShipment(satisfier, request, outpost, car);
-            satisfied = true;
+            shipment = initiateShipment(satisfier, request, outpost);
         }
 
-        return satisfied;
+        return shipment;
     }
 
     /**
      * Initiates a shipment of goods from this station to an outpost. The cost of shipping is hardcoded to 0 (no charge to the outpost
-     * for shipping). The shipment data is added to the outpost's expected shipments.
+     * for shipping). The shipment data is added to the outpost's expected shipments. The shipment is shipped once; shipments set up
+     * in short succession are packed into a shared train by {@link #handleOutpostRequests()}.
      * 
      * @param thingsToDeliver    the items to ship
      * @param associatedRequest  the request associated with the shipment
      * @param outpostDestination the outpost to ship to
-     * @param car                When called multiple times in short succession use different car numbers to space them out on the
-     *                           track.
+     * @return the export set up for the shipment, or null if none could be set up.
      */
-    public void initiateShipment(ItemStorage thingsToDeliver,
+    public @Nullable ExportData initiateShipment(ItemStorage thingsToDeliver,
         IRequest<?> associatedRequest,
-        BuildingOutpost outpostDestination,
-        int car)
+        BuildingOutpost outpostDestination)
     {
         BuildingStationExportModule exports = this.getModule(MCTPBuildingModules.EXPORTS);
 
         if (exports == null)
         {
             LOGGER.error("No export module on connected station - cannot place order.");
-            return;
+            return null;
         }
 
         if (thingsToDeliver == null || thingsToDeliver.isEmpty())
@@ -1497,7 +1546,7 @@ public class BuildingStation extends AbstractBuilding implements ITradeCapable,
                 associatedRequest.getId(),
                 associatedRequest.getState(),
                 associatedRequest.getShortDisplayString());
-            return;
+            return null;
         }
 
         int cost = 0;
@@ -1505,7 +1554,7 @@ public class BuildingStation extends AbstractBuilding implements ITradeCapable,
         StationData destinationStation = new StationData(outpostDestination);
         ExportData export = exports.addExport(destinationStation, thingsToDeliver, cost);
         export.setRequestToken(associatedRequest.getId());
-        export.setShipmentCountdown(car);
+        export.setShipmentCountdown(1);
 
         OutpostShipmentTracking shipment = outpostDestination.trackingForRequest(associatedRequest);
         shipment.setState(OutpostOrderState.SHIPMENT_INITIATED);
@@ -1518,6 +1567,8 @@ public class BuildingStation extends AbstractBuilding implements ITradeCapable,
                 outpostDestination.getBuildingDisplayName(),
                 associatedRequest == null ? "null" : associatedRequest.getId(),
                 associatedRequest == null ? "null" : associatedRequest.getShortDisplayString()));
+
+        return export;
     }
 
     /**
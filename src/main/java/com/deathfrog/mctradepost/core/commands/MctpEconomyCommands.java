@@ -63,12 +63,13 @@ public final class MctpEconomyCommands
             final Options options = new DerivedItemValueGenerator.Options()
                 .setApplyCookingPremium(false) // recommended default
                 .setMaxIterations(50)
+                .setParallelism(Runtime.getRuntime().availableProcessors())
                 .setNamespaceExclusions(seedData.namespaceExclusions());
 
-            final Report firstPass = DerivedItemValueGenerator.generate(
+            final Report<Item> firstPass = DerivedItemValueGenerator.generate(
                 server, authoritativeValues, explicitSeeds, options);
             final Map<Item, Integer> tierValues;
-            final Report report;
+            final Report<Item> report;
             if (deriveFromTier)
             {
                 // Only items unresolved after ordinary recipe propagation receive a tier fallback.
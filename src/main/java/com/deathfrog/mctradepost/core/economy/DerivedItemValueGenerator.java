@@ -1,7 +1,6 @@
 package com.deathfrog.mctradepost.core.economy;
 
 import com.deathfrog.mctradepost.MCTradePostMod;
-import com.ldtteam.domumornamentum.recipe.ModRecipeTypes;
 import net.minecraft.core.RegistryAccess;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.server.MinecraftServer;
@@ -10,7 +9,10 @@ import net.minecraft.world.item.ItemStack;
 import net.minecraft.world.item.crafting.*;
 
 import java.util.*;
-import java.util.function.Predicate;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+import java.util.function.Function;
+import java.util.stream.IntStream;
 
 import javax.annotation.Nonnull;
 
@@ -19,10 +21,17 @@ import static net.minecraft.core.registries.BuiltInRegistries.ITEM;
 /**
  * Standalone generator: seeds + fixpoint propagation over known recipes.
  *
+ * Recipes are compiled once, linked from each ingredient item to the recipes that consume it, and swept in dependency order; after
+ * the first sweep only recipes whose ingredients changed value are re-evaluated. Large waves may be costed on a worker pool; results
+ * do not depend on the parallelism setting.
+ *
  * Important: unknown ingredients remain unknown (do NOT treat as 0).
  */
 public final class DerivedItemValueGenerator
 {
+    /** Smallest wave worth splitting across worker threads. */
+    private static final int PARALLEL_WAVE_THRESHOLD = 256;
+
     private DerivedItemValueGenerator() { }
 
     public static final class Options
@@ -31,15 +40,18 @@ public final class DerivedItemValueGenerator
         private int maxIterations = 50;
         private double cookingPremiumPer1200Ticks = 0.10; // 10% per 60s (1200 ticks)
         private Set<String> namespaceExclusions = Set.of();
+        private int parallelism = 1;
 
         public boolean applyCookingPremium() { return applyCookingPremium; }
         public int maxIterations() { return maxIterations; }
         public double cookingPremiumPer1200Ticks() { return cookingPremiumPer1200Ticks; }
         public Set<String> namespaceExclusions() { return namespaceExclusions; }
+        public int parallelism() { return parallelism; }
 
         public Options setApplyCookingPremium(final boolean v) { this.applyCookingPremium = v; return this; }
         public Options setMaxIterations(final int v) { this.maxIterations = Math.max(1, v); return this; }
         public Options setCookingPremiumPer1200Ticks(final double v) { this.cookingPremiumPer1200Ticks = Math.max(0, v); return this; }
+        public Options setParallelism(final int v) { this.parallelism = Math.max(1, v); return this; }
         public Options setNamespaceExclusions(final Collection<String> namespaces)
         {
             this.namespaceExclusions = namespaces == null ? Set.of() : Set.copyOf(namespaces);
@@ -47,12 +59,17 @@ public final class DerivedItemValueGenerator
         }
     }
 
-    public record Report(
-        Map<Item, Integer> values,
+    /**
+     * Outcome of a generation run. It holds only results of the propagation, so two runs over the same inputs produce equal reports
+     * whatever their parallelism; phase timings are logged instead.
+     */
+    public record Report<T>(
+        Map<T, Integer> values,
         int iterations,
         int recipesConsidered,
         int recipesApplied,
         int derivedCount,
+        int pendingRecipes,
         Set<String> unknownOutputs,
         Map<String, Integer> unknownIngredientCounts
     )
@@ -63,12 +80,34 @@ public final class DerivedItemValueGenerator
                 + ", recipesConsidered=" + recipesConsidered
                 + ", recipesApplied=" + recipesApplied
                 + ", derivedCount=" + derivedCount
+                + ", pendingRecipes=" + pendingRecipes
                 + ", emittedValues=" + values.size()
                 + ", unknownOutputs=" + unknownOutputs.size()
                 + ", unknownIngredients=" + unknownIngredientCounts.size();
         }
     }
 
+    /**
+     * A recipe reduced to what value propagation needs, so result stacks and ingredient tags are resolved only once per run.
+     *
+     * @param output result item
+     * @param outCount result count, at least one
+     * @param multiplier cooking premium applied to the per-item cost
+     * @param ingredients candidate items for each non-empty ingredient slot
+     */
+    record CompiledRecipe<T>(T output, int outCount, double multiplier, List<List<T>> ingredients) { }
+
+    /**
+     * Counters from a propagation run.
+     *
+     * @param iterations sweeps evaluated
+     * @param recipesConsidered recipe evaluations across all sweeps
+     * @param recipesApplied evaluations that lowered or introduced an output value
+     * @param derivedCount outputs that had no value before propagation
+     * @param pendingRecipes recipes still queued when the sweep limit stopped propagation; 0 when it reached the fixpoint
+     */
+    record Propagation(int iterations, int recipesConsidered, int recipesApplied, int derivedCount, int pendingRecipes) { }
+
     /**
      * Generate a map of item values by propagating seeds and known recipes via fixpoint iteration.
      * 
@@ -80,7 +119,7 @@ public final class DerivedItemValueGenerator
      * @param options configuration options for the generation process
      * @return a report containing the generated item values, iteration count, and other statistics
      */
-    public static Report generate(final MinecraftServer server,
+    public static Report<Item> generate(final MinecraftServer server,
                                   final Map<?, Integer> seedValuesRaw,
                                   final Options options)
     {
@@ -100,7 +139,7 @@ public final class DerivedItemValueGenerator
      * @return generation report whose values are safe to emit
      */
     @SuppressWarnings("null")
-    public static Report generate(final MinecraftServer server,
+    public static Report<Item> generate(final MinecraftServer server,
                                   final Map<?, Integer> authoritativeValuesRaw,
                                   final Map<?, Integer> seedValuesRaw,
                                   final Options options)
@@ -111,139 +150,448 @@ public final class DerivedItemValueGenerator
         if (rm == null || ra == null)
         {
             MCTradePostMod.LOGGER.error("ItemValueGen: No recipe manager or registry access available.");
-            return new Report(new HashMap<>(), 0, 0, 0, 0, new HashSet<>(), new HashMap<>());
+            return new Report<>(new HashMap<>(), 0, 0, 0, 0, 0, new HashSet<>(), new HashMap<>());
         }
 
-        final Map<Item, Integer> unknownIngredientCounts = new HashMap<>();
+        final Map<String, Long> phaseMillis = new LinkedHashMap<>();
+        long phaseStart = System.nanoTime();
 
         // Authoritative values are protected inputs but are not generator output.
         final Map<Item, Integer> authoritativeValues = typedValues(authoritativeValuesRaw, options);
-        final Set<Item> authoritativeItems = authoritativeValues.keySet();
 
         // Seeds are explicit overrides and therefore load after authoritative values.
         final Map<Item, Integer> seedValues = typedValues(seedValuesRaw, options);
-        final Set<Item> seedItems = seedValues.keySet();
-        final Map<Item, Integer> values = combineInputs(authoritativeValues, seedValues);
-        final int seedCount = seedItems.size();
 
-        final Set<Item> protectedItems = new HashSet<>(authoritativeItems);
-        protectedItems.addAll(seedItems);
+        // Compile allowed recipes once from the shared reload-scoped index.
+        final List<CompiledRecipe<Item>> all = new ArrayList<>();
+        for (final RecipeHolder<?> holder : RecipeOutputIndex.supportedRecipes(rm, ra))
+        {
+            final CompiledRecipe<Item> compiled = compile(holder.value(), ra, options);
+            if (compiled != null && !isNamespaceExcluded(compiled.output(), options))
+            {
+                all.add(compiled);
+            }
+        }
 
-        final Predicate<RecipeType<?>> allowedTypes = t ->
-            t == RecipeType.CRAFTING
-                || t == RecipeType.SMELTING
-                || t == RecipeType.CAMPFIRE_COOKING
-                || t == RecipeType.STONECUTTING
-                || t == ModRecipeTypes.ARCHITECTS_CUTTER.get(); // MineColonies
+        MCTradePostMod.LOGGER.info("ItemValueGen: seeds={}, allowedRecipes={}, parallelism={}", seedValues.size(), all.size(), options.parallelism());
+        phaseStart = recordPhase(phaseMillis, "compile", phaseStart);
 
-        // Flatten allowed recipes once (1.21+ API)
-        final List<RecipeHolder<?>> all = new ArrayList<>();
+        final Report<Item> report = derive(all, authoritativeValues, seedValues, options.maxIterations(), options.parallelism(),
+            item -> ITEM.getKey(item).toString());
+        recordPhase(phaseMillis, "derive", phaseStart);
 
-        for (final RecipeHolder<?> holder : rm.getRecipes())
+        if (report.pendingRecipes() > 0)
         {
-            final Recipe<?> recipe = holder.value();
-            final ItemStack output = recipe.getResultItem(ra);
+            MCTradePostMod.LOGGER.warn("ItemValueGen: stopped after {} sweeps with {} recipes still queued; derived values may be too high.",
+                report.iterations(), report.pendingRecipes());
+        }
+        MCTradePostMod.LOGGER.info("ItemValueGen: phaseMillis={}", phaseMillis);
 
-            if (allowedTypes.test(recipe.getType()) && !output.isEmpty() && !isNamespaceExcluded(output.getItem(), options))
+        return report;
+    }
+
+    /**
+     * Propagates compiled recipes from authoritative values and generator seeds, and reports the values safe to emit together with
+     * the outputs and ingredients that remain unknown.
+     *
+     * @param recipes compiled recipes, in a stable order
+     * @param authoritativeValues protected values that are not generator output
+     * @param seedValues protected values that are generator output, taking precedence over authoritative values
+     * @param maxIterations largest number of sweeps to evaluate
+     * @param parallelism worker threads used to cost large waves
+     * @param idOf stable identifier of an item, used in the unknown-item listings
+     * @return the generation report
+     */
+    static <T> Report<T> derive(final List<CompiledRecipe<T>> recipes,
+                                final Map<T, Integer> authoritativeValues,
+                                final Map<T, Integer> seedValues,
+                                final int maxIterations,
+                                final int parallelism,
+                                final Function<T, String> idOf)
+    {
+        final Map<T, Integer> values = combineInputs(authoritativeValues, seedValues);
+
+        final Set<T> protectedItems = new HashSet<>(authoritativeValues.keySet());
+        protectedItems.addAll(seedValues.keySet());
+
+        final Propagation propagation = propagate(recipes, values, protectedItems, maxIterations, parallelism);
+
+        // Build "unknown outputs" set for recipes we considered whose output still has no value, and count which ingredients
+        // block the recipes that remain unevaluable.
+        final Set<String> unknown = new TreeSet<>();
+        final Map<T, Integer> unknownIngredientCounts = new HashMap<>();
+        for (final CompiledRecipe<T> recipe : recipes)
+        {
+            if (!values.containsKey(recipe.output()))
+            {
+                unknown.add(idOf.apply(recipe.output()));
+            }
+            if (computeRecipeUnitCost(recipe, values) == null)
             {
-                all.add(holder);
+                collectUnknownIngredients(recipe, values, unknownIngredientCounts);
             }
         }
 
-        MCTradePostMod.LOGGER.info("ItemValueGen: seeds={}, allowedRecipes={}", seedCount, all.size());
+        final Map<String, Integer> unknownCountsSorted = new LinkedHashMap<>();
+        unknownIngredientCounts.entrySet().stream()
+            .filter(e -> e.getKey() != null)
+            .map(e -> Map.entry(idOf.apply(e.getKey()), e.getValue()))
+            .sorted(Map.Entry.<String, Integer>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+            .limit(200) // keep it bounded
+            .forEach(e -> unknownCountsSorted.put(e.getKey(), e.getValue()));
+
+        final Map<T, Integer> emittedValues = selectEmittedValues(values, authoritativeValues.keySet(), seedValues.keySet());
+
+        return new Report<>(Collections.unmodifiableMap(emittedValues), propagation.iterations(), propagation.recipesConsidered(),
+            propagation.recipesApplied(), propagation.derivedCount(), propagation.pendingRecipes(), unknown,
+            Collections.unmodifiableMap(unknownCountsSorted));
+    }
+
+    /**
+     * Lowers output values to a fixpoint by worklist propagation, sweeping the recipes in dependency order. Recipes are levelled so
+     * that every recipe sits above the recipes producing its ingredients, except for recipes in the same dependency cycle, which share
+     * a level. A sweep visits the levels in ascending order and evaluates the queued recipes of each level as one wave. A change queues
+     * the consumers of the changed output; consumers on a higher level are evaluated later in the same sweep, and only consumers in the
+     * same cycle wait for the next sweep. An acyclic recipe graph therefore reaches its fixpoint in one sweep however deep its chains
+     * are, and {@code maxIterations} only bounds how often cycles are revisited. Hitting the limit with recipes still queued is
+     * reported through {@link Propagation#pendingRecipes()}.
+     * <p>
+     * All recipes of a wave are costed against the values as they stood when the wave began, and the resulting minimums are merged in
+     * recipe order. Evaluation is therefore independent of scheduling, and a run with any parallelism produces exactly the values and
+     * counters of a sequential run.
+     *
+     * @param recipes compiled recipes, in a stable order
+     * @param values known values, updated in place
+     * @param protectedItems items whose values are never replaced
+     * @param maxIterations largest number of sweeps to evaluate
+     * @param parallelism worker threads used to cost large waves; 1 evaluates on the calling thread
+     * @return propagation counters
+     */
+    static <T> Propagation propagate(final List<CompiledRecipe<T>> recipes,
+                                     final Map<T, Integer> values,
+                                     final Set<T> protectedItems,
+                                     final int maxIterations,
+                                     final int parallelism)
+    {
+        // Dependency graph: ingredient item -> indices of the recipes consuming it, ascending and without duplicates.
+        final Map<T, List<Integer>> consumers = new HashMap<>();
+        for (int index = 0; index < recipes.size(); index++)
+        {
+            for (final List<T> candidates : recipes.get(index).ingredients())
+            {
+                for (final T candidate : candidates)
+                {
+                    final List<Integer> users = consumers.computeIfAbsent(candidate, ignored -> new ArrayList<>());
+                    if (users.isEmpty() || users.get(users.size() - 1) != index)
+                    {
+                        users.add(index);
+                    }
+                }
+            }
+        }
+
+        // Lay the recipes out level by level, keeping recipe order within a level; queued bits index this layout.
+        final int[] level = recipeLevels(recipes, consumers);
+        int levelCount = 0;
+        for (final int recipeLevel : level)
+        {
+            levelCount = Math.max(levelCount, recipeLevel + 1);
+        }
+        final int[] levelStart = new int[levelCount + 1];
+        for (final int recipeLevel : level)
+        {
+            levelStart[recipeLevel + 1]++;
+        }
+        for (int l = 0; l < levelCount; l++)
+        {
+            levelStart[l + 1] += levelStart[l];
+        }
+        final int[] order = new int[recipes.size()];
+        final int[] slot = new int[recipes.size()];
+        final int[] fill = Arrays.copyOf(levelStart, levelCount);
+        for (int index = 0; index < recipes.size(); index++)
+        {
+            slot[index] = fill[level[index]]++;
+            order[slot[index]] = index;
+        }
 
         int iterations = 0;
+        int pendingRecipes = 0;
         int recipesConsidered = 0;
         int recipesApplied = 0;
         int derivedCount = 0;
 
-        // Fixpoint loop: keep applying recipes while new values are discovered/improved.
-        boolean changed = true;
-        while (changed && iterations < options.maxIterations())
+        final ForkJoinPool pool = parallelism > 1 ? new ForkJoinPool(parallelism) : null;
+        try
         {
-            changed = false;
-            iterations++;
+            final BitSet queued = new BitSet(recipes.size());
+            queued.set(0, recipes.size());
 
-            for (final RecipeHolder<?> holder : all)
+            while (!queued.isEmpty() && iterations < maxIterations)
             {
-                recipesConsidered++;
-                final Recipe<?> recipe = holder.value();
+                iterations++;
 
-                final ItemStack outStack = recipe.getResultItem(ra);
-                if (outStack.isEmpty())
+                for (int next = queued.nextSetBit(0); next >= 0; next = queued.nextSetBit(next))
                 {
-                    continue;
+                    final int waveStart = levelStart[level[order[next]]];
+                    final int waveEnd = levelStart[level[order[next]] + 1];
+                    final int[] wave = queued.get(waveStart, waveEnd).stream().map(bit -> order[waveStart + bit]).toArray();
+                    queued.clear(waveStart, waveEnd);
+                    recipesConsidered += wave.length;
+
+                    // Cost the wave without touching the value map, so workers only ever read it.
+                    final Integer[] costs = new Integer[wave.length];
+                    final IntConsumer evaluate = i ->
+                    {
+                        final CompiledRecipe<T> recipe = recipes.get(wave[i]);
+                        if (!protectedItems.contains(recipe.output()))
+                        {
+                            costs[i] = computeRecipeUnitCost(recipe, values);
+                        }
+                    };
+
+                    if (pool != null && wave.length >= PARALLEL_WAVE_THRESHOLD)
+                    {
+                        pool.submit(() -> IntStream.range(0, wave.length).parallel().forEach(evaluate)).join();
+                    }
+                    else
+                    {
+                        for (int i = 0; i < wave.length; i++)
+                        {
+                            evaluate.accept(i);
+                        }
+                    }
+
+                    for (int i = 0; i < wave.length; i++)
+                    {
+                        if (costs[i] == null)
+                        {
+                            continue;
+                        }
+
+                        // cost is per 1 output item already
+                        final T outItem = recipes.get(wave[i]).output();
+                        final int unitCost = Math.max(0, costs[i]);
+                        final Integer existing = values.get(outItem);
+
+                        // Keep minimum cost among multiple recipes, if not a seeded item
+                        if (existing == null || unitCost < existing)
+                        {
+                            values.put(outItem, unitCost);
+                            recipesApplied++;
+                            if (existing == null)
+                            {
+                                derivedCount++;
+                            }
+                            for (final int consumer : consumers.getOrDefault(outItem, List.of()))
+                            {
+                                queued.set(slot[consumer]);
+                            }
+                        }
+                    }
+
+                    // Consumers in the same cycle were queued on this level; they wait for the next sweep.
+                    next = waveEnd;
                 }
+            }
+            pendingRecipes = queued.cardinality();
+        }
+        finally
+        {
+            if (pool != null)
+            {
+                pool.shutdown();
+            }
+        }
 
-                final Item outItem = outStack.getItem();
+        return new Propagation(iterations, recipesConsidered, recipesApplied, derivedCount, pendingRecipes);
+    }
 
-                // If output already has a seed/override, you may or may not want to replace it.
-                // Here we allow improvement by cheaper derivation, but do NOT override a seed if you want strict seeds.
-                // If you prefer "seeds win", check a separate seedSet and skip if present.
-                final Integer existing = values.get(outItem);
+    /**
+     * Levels recipes by their dependencies: a recipe feeding another sits on a lower level, unless both are in the same dependency
+     * cycle, in which case they share one. Cycles are found as strongly connected components with an iterative Tarjan search, which
+     * emits every component after all components it feeds.
+     *
+     * @param recipes compiled recipes
+     * @param consumers ingredient item -> indices of the recipes consuming it
+     * @return the level of each recipe, 0 for recipes fed by no other recipe
+     */
+    private static <T> int[] recipeLevels(final List<CompiledRecipe<T>> recipes, final Map<T, List<Integer>> consumers)
+    {
+        final int n = recipes.size();
+        final int[] index = new int[n];
+        final int[] low = new int[n];
+        final int[] component = new int[n];
+        final boolean[] onStack = new boolean[n];
+        final int[] stack = new int[n];
+        final int[] callRecipe = new int[n];
+        final int[] callEdge = new int[n];
+        Arrays.fill(index, -1);
+
+        int counter = 0;
+        int stackSize = 0;
+        int components = 0;
+
+        for (int root = 0; root < n; root++)
+        {
+            if (index[root] >= 0) continue;
+
+            int depth = 0;
+            callRecipe[0] = root;
+            callEdge[0] = 0;
+            index[root] = low[root] = counter++;
+            stack[stackSize++] = root;
+            onStack[root] = true;
+
+            while (depth >= 0)
+            {
+                final int recipe = callRecipe[depth];
+                final List<Integer> fed = consumers.getOrDefault(recipes.get(recipe).output(), List.of());
 
-                final Integer cost = computeRecipeUnitCost(recipe, ra, values, options);
-                if (cost == null)
+                if (callEdge[depth] < fed.size())
                 {
-                    // record which ingredients are blocking this recipe
-                    collectUnknownIngredients(recipe, values, unknownIngredientCounts);
+                    final int consumer = fed.get(callEdge[depth]++);
+                    if (index[consumer] < 0)
+                    {
+                        index[consumer] = low[consumer] = counter++;
+                        stack[stackSize++] = consumer;
+                        onStack[consumer] = true;
+                        depth++;
+                        callRecipe[depth] = consumer;
+                        callEdge[depth] = 0;
+                    }
+                    else if (onStack[consumer])
+                    {
+                        low[recipe] = Math.min(low[recipe], index[consumer]);
+                    }
                     continue;
                 }
-                
-                // cost is per 1 output item already
-                final int unitCost = Math.max(0, cost);
 
-                if (!protectedItems.contains(outItem))
+                if (low[recipe] == index[recipe])
                 {
-                    // Keep minimum cost among multiple recipes, if not a seeded item
-                    if (existing == null || unitCost < existing)
+                    int member;
+                    do
                     {
-                        values.put(outItem, unitCost);
-                        changed = true;
-                        recipesApplied++;
-                        if (existing == null)
-                        {
-                            derivedCount++;
-                        }
-                    }   
+                        member = stack[--stackSize];
+                        onStack[member] = false;
+                        component[member] = components;
+                    }
+                    while (member != recipe);
+                    components++;
+                }
+
+                depth--;
+                if (depth >= 0)
+                {
+                    low[callRecipe[depth]] = Math.min(low[callRecipe[depth]], low[recipe]);
                 }
             }
         }
 
-        // Build "unknown outputs" set for recipes we considered whose output still has no value.
-        final Set<String> unknown = new TreeSet<>();
-        for (final RecipeHolder<?> holder : all)
+        // Components were emitted consumers first, so walking them in reverse visits every feeder before what it feeds.
+        final int[] componentStart = new int[components + 1];
+        for (int recipe = 0; recipe < n; recipe++)
         {
-            final ItemStack out = holder.value().getResultItem(ra);
-            if (out.isEmpty()) continue;
-
-            final Item outItem = out.getItem();
-
-            if (outItem == null) continue;
+            componentStart[component[recipe] + 1]++;
+        }
+        for (int c = 0; c < components; c++)
+        {
+            componentStart[c + 1] += componentStart[c];
+        }
+        final int[] members = new int[n];
+        final int[] fill = Arrays.copyOf(componentStart, components);
+        for (int recipe = 0; recipe < n; recipe++)
+        {
+            members[fill[component[recipe]]++] = recipe;
+        }
 
-            if (!values.containsKey(outItem))
+        final int[] componentLevel = new int[components];
+        for (int c = components - 1; c >= 0; c--)
+        {
+            for (int m = componentStart[c]; m < componentStart[c + 1]; m++)
             {
-                final ResourceLocation id = ITEM.getKey(outItem);
-                unknown.add(id.toString());
+                for (final int consumer : consumers.getOrDefault(recipes.get(members[m]).output(), List.of()))
+                {
+                    final int fed = component[consumer];
+                    if (fed != c)
+                    {
+                        componentLevel[fed] = Math.max(componentLevel[fed], componentLevel[c] + 1);
+                    }
+                }
             }
         }
 
-        final Map<String, Integer> unknownCountsSorted = new LinkedHashMap<>();
-        unknownIngredientCounts.entrySet().stream()
-            .sorted((a, b) -> Integer.compare(b.getValue(), a.getValue()))
-            .limit(200) // keep it bounded
-            .forEach(e -> 
+        final int[] level = new int[n];
+        for (int recipe = 0; recipe < n; recipe++)
+        {
+            level[recipe] = componentLevel[component[recipe]];
+        }
+        return level;
+    }
+
+    /**
+     * Records the elapsed time of a generation phase.
+     *
+     * @param phaseMillis phase timings in completion order
+     * @param phase phase name
+     * @param phaseStart {@link System#nanoTime()} at which the phase began
+     * @return {@link System#nanoTime()} at which the next phase begins
+     */
+    private static long recordPhase(final Map<String, Long> phaseMillis, final String phase, final long phaseStart)
+    {
+        final long now = System.nanoTime();
+        phaseMillis.put(phase, (now - phaseStart) / 1_000_000L);
+        return now;
+    }
+
+    /**
+     * Resolves a recipe's result and ingredient candidates.
+     *
+     * @param recipe recipe to compile
+     * @param ra registry access used to resolve the result
+     * @param options generation options supplying the cooking premium
+     * @return compiled recipe, or null when the recipe has no result
+     */
+    @SuppressWarnings("null")
+    private static CompiledRecipe<Item> compile(final Recipe<?> recipe, final @Nonnull RegistryAccess ra, final Options options)
+    {
+        final ItemStack outStack = recipe.getResultItem(ra);
+        if (outStack.isEmpty())
+        {
+            return null;
+        }
+
+        final List<List<Item>> ingredients = new ArrayList<>();
+        for (final Ingredient ing : recipe.getIngredients())
+        {
+            if (ing == null || ing.isEmpty())
             {
-                Item eKey = e.getKey();
-                
-                if (eKey == null) return;
+                continue;
+            }
 
-                unknownCountsSorted.put(ITEM.getKey(eKey).toString(), e.getValue());
+            // Ingredient#getItems returns matching stacks (already expanded across tags etc).
+            final ItemStack[] matches = ing.getItems();
+            final List<Item> candidates = new ArrayList<>();
+            if (matches != null)
+            {
+                for (final ItemStack stack : matches)
+                {
+                    if (stack != null && !stack.isEmpty()) candidates.add(stack.getItem());
+                }
             }
-        );
+            ingredients.add(List.copyOf(candidates));
+        }
+
+        double multiplier = 1.0;
 
-        final Map<Item, Integer> emittedValues = selectEmittedValues(values, authoritativeItems, seedItems);
-        return new Report(Collections.unmodifiableMap(emittedValues), iterations, recipesConsidered, recipesApplied, derivedCount, unknown, Collections.unmodifiableMap(unknownCountsSorted));
+        // Optional premium for cooking-time based recipes
+        if (options.applyCookingPremium() && recipe instanceof AbstractCookingRecipe cook)
+        {
+            final int t = Math.max(0, cook.getCookingTime());
+            multiplier += (t / 1200.0) * options.cookingPremiumPer1200Ticks();
+        }
+
+        return new CompiledRecipe<>(outStack.getItem(), Math.max(1, outStack.getCount()), multiplier, List.copyOf(ingredients));
     }
 
     private static Map<Item, Integer> typedValues(final Map<?, Integer> source, final Options options)
@@ -282,109 +630,46 @@ public final class DerivedItemValueGenerator
     }
 
     /**
-     * Counts the number of times an unknown ingredient appears in a recipe, and
-     * its candidate items. This is used to track the number of unknown ingredients
-     * that are blocking the value propagation process.
+     * Counts the candidate items of each ingredient that blocks a recipe. This is used to
+     * track which unknown ingredients are blocking the value propagation process.
      *
      * @param recipe the recipe to inspect
      * @param knownValues the known values of ingredients
      * @param unknownCounts the counts of unknown ingredients
      */
-    @SuppressWarnings("null")
-    private static void collectUnknownIngredients(final Recipe<?> recipe,
-                                                final Map<Item, Integer> knownValues,
-                                                final Map<Item, Integer> unknownCounts)
+    private static <T> void collectUnknownIngredients(final CompiledRecipe<T> recipe,
+                                                    final Map<T, Integer> knownValues,
+                                                    final Map<T, Integer> unknownCounts)
     {
-        for (final Ingredient ing : recipe.getIngredients())
+        for (final List<T> matches : recipe.ingredients())
         {
-            if (ing == null || ing.isEmpty())
-            {
-                continue;
-            }
-
             // If this ingredient has ANY priced option, it's not blocking.
-            if (hasAnyKnownOption(ing, knownValues))
-            {
-                continue;
-            }
-
-            // Otherwise, it's blocking: count all its candidate items.
-            final ItemStack[] matches = ing.getItems();
-            if (matches == null || matches.length == 0)
+            if (minKnownIngredientCost(matches, knownValues) != null)
             {
                 continue;
             }
 
             // Safety limit: some tags expand huge in modpacks.
-            final int limit = Math.min(matches.length, 64);
+            final int limit = Math.min(matches.size(), 64);
 
             for (int i = 0; i < limit; i++)
             {
-                final ItemStack s = matches[i];
-                if (s == null || s.isEmpty()) continue;
-
-                final Item it = s.getItem();
-                unknownCounts.merge(it, 1, Integer::sum);
-            }
-        }
-    }
-
-    /**
-     * Determines if any of the ingredient's options are known to have a value.
-     * If any option has a value, it's not blocking.
-     *
-     * @param ing the ingredient to check
-     * @param knownValues map of items to their known values
-     * @return true if any of the ingredient's options are known to have a value, false otherwise
-     */
-    private static boolean hasAnyKnownOption(final Ingredient ing, final Map<Item, Integer> knownValues)
-    {
-        final ItemStack[] matches = ing.getItems();
-        if (matches == null || matches.length == 0)
-        {
-            return false;
-        }
-
-        for (final ItemStack s : matches)
-        {
-            if (s == null || s.isEmpty()) continue;
-
-            if (knownValues.containsKey(s.getItem()))
-            {
-                return true;
+                unknownCounts.merge(matches.get(i), 1, Integer::sum);
             }
         }
-        return false;
     }
 
-
     /**
      * Returns unit cost per 1 output item, or null if unknown.
      */
-    private static Integer computeRecipeUnitCost(final Recipe<?> recipe,
-                                                final @Nonnull RegistryAccess ra,
-                                                final Map<Item, Integer> knownValues,
-                                                final Options options)
+    private static <T> Integer computeRecipeUnitCost(final CompiledRecipe<T> recipe, final Map<T, Integer> knownValues)
     {
-        final ItemStack outStack = recipe.getResultItem(ra);
-        if (outStack.isEmpty())
-        {
-            return null;
-        }
-
-        final int outCount = Math.max(1, outStack.getCount());
-
-        // Sum ingredient costs (skip empty ingredients).
+        // Sum ingredient costs (empty ingredients were dropped when compiling).
         long sum = 0L;
 
-        for (final Ingredient ing : recipe.getIngredients())
+        for (final List<T> matches : recipe.ingredients())
         {
-            if (ing == null || ing.isEmpty())
-            {
-                continue;
-            }
-
-            final Integer ingCost = minKnownIngredientCost(ing, knownValues);
+            final Integer ingCost = minKnownIngredientCost(matches, knownValues);
             if (ingCost == null)
             {
                 return null; // cannot evaluate this recipe yet
@@ -398,23 +683,7 @@ public final class DerivedItemValueGenerator
             }
         }
 
-        // If a recipe has no ingredients (weird/special), skip.
-        if (sum <= 0L && !recipe.getIngredients().isEmpty())
-        {
-            // still allowed to be 0 if all ingredient costs are 0, but that’s usually not desired.
-            // leave as-is.
-        }
-
-        double multiplier = 1.0;
-
-        // Optional premium for cooking-time based recipes
-        if (options.applyCookingPremium() && recipe instanceof AbstractCookingRecipe cook)
-        {
-            final int t = Math.max(0, cook.getCookingTime());
-            multiplier += (t / 1200.0) * options.cookingPremiumPer1200Ticks();
-        }
-
-        final double perItem = (sum / (double) outCount) * multiplier;
+        final double perItem = (sum / (double) recipe.outCount()) * recipe.multiplier();
 
         // Round up so you don't get 0.1 style values; keep integer economy.
         final int rounded = (int) Math.ceil(perItem);
@@ -428,23 +697,14 @@ public final class DerivedItemValueGenerator
         return rounded;
     }
 
-    private static Integer minKnownIngredientCost(final Ingredient ing, final Map<Item, Integer> known)
+    private static <T> Integer minKnownIngredientCost(final List<T> matches, final Map<T, Integer> known)
     {
         int best = Integer.MAX_VALUE;
         boolean any = false;
 
-        // Ingredient#getItems returns matching stacks (already expanded across tags etc).
-        final ItemStack[] matches = ing.getItems();
-        if (matches == null || matches.length == 0)
-        {
-            return null;
-        }
-
-        for (final ItemStack stack : matches)
+        for (final T item : matches)
         {
-            if (stack == null || stack.isEmpty()) continue;
-
-            final Integer v = known.get(stack.getItem());
+            final Integer v = known.get(item);
             if (v == null) continue;
 
             any = true;
@@ -0,0 +1,119 @@
+package com.deathfrog.mctradepost.core.economy;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.deathfrog.mctradepost.MCTradePostMod;
+import com.ldtteam.domumornamentum.recipe.ModRecipeTypes;
+
+import net.minecraft.core.RegistryAccess;
+import net.minecraft.world.item.Item;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.crafting.Recipe;
+import net.minecraft.world.item.crafting.RecipeHolder;
+import net.minecraft.world.item.crafting.RecipeManager;
+import net.minecraft.world.item.crafting.RecipeType;
+
+/**
+ * Reverse lookup from an output item to the recipes that produce it, restricted to the recipe types the mod can appraise and
+ * reverse-engineer (crafting, smelting, campfire cooking, stonecutting and the architect's cutter).
+ * <p>
+ * A {@link RecipeManager} is replaced on every datapack reload, so the index is keyed by the manager instance and rebuilt the first
+ * time a new manager is queried. Recipes keep the manager's iteration order in every list.
+ */
+public final class RecipeOutputIndex
+{
+    private static RecipeManager indexedManager;
+    private static List<RecipeHolder<?>> supported = List.of();
+    private static Map<Item, List<RecipeHolder<?>>> byOutput = Map.of();
+
+    /**
+     * Prevents instantiation of this utility class.
+     */
+    private RecipeOutputIndex() { }
+
+    /**
+     * Checks whether recipes of a type are indexed.
+     *
+     * @param type recipe type
+     * @return {@code true} for the recipe types used by recycling and value appraisal
+     */
+    public static boolean isSupportedType(final RecipeType<?> type)
+    {
+        return type == RecipeType.CRAFTING
+            || type == RecipeType.SMELTING
+            || type == RecipeType.CAMPFIRE_COOKING
+            || type == RecipeType.STONECUTTING
+            || type == ModRecipeTypes.ARCHITECTS_CUTTER.get();
+    }
+
+    /**
+     * Returns the supported recipes whose result is the given item.
+     *
+     * @param recipeManager recipe manager of the active datapack resources
+     * @param registryAccess registry access used to resolve recipe results
+     * @param item output item
+     * @return immutable list of matching recipe holders, possibly empty
+     */
+    public static synchronized List<RecipeHolder<?>> recipesFor(final RecipeManager recipeManager,
+        final RegistryAccess registryAccess,
+        final Item item)
+    {
+        if (recipeManager == null || registryAccess == null || item == null) return List.of();
+        if (indexedManager != recipeManager) rebuild(recipeManager, registryAccess);
+        return byOutput.getOrDefault(item, List.of());
+    }
+
+    /**
+     * Returns every supported recipe with a non-empty result.
+     *
+     * @param recipeManager recipe manager of the active datapack resources
+     * @param registryAccess registry access used to resolve recipe results
+     * @return immutable list of recipe holders in recipe manager order
+     */
+    public static synchronized List<RecipeHolder<?>> supportedRecipes(final RecipeManager recipeManager, final RegistryAccess registryAccess)
+    {
+        if (recipeManager == null || registryAccess == null) return List.of();
+        if (indexedManager != recipeManager) rebuild(recipeManager, registryAccess);
+        return supported;
+    }
+
+    /**
+     * Rebuilds the index from a recipe manager. Called after each datapack reload; queries also rebuild lazily when they see a new
+     * manager.
+     *
+     * @param recipeManager recipe manager of the active datapack resources
+     * @param registryAccess registry access used to resolve recipe results
+     */
+    public static synchronized void rebuild(final RecipeManager recipeManager, final RegistryAccess registryAccess)
+    {
+        if (recipeManager == null || registryAccess == null) return;
+
+        final List<RecipeHolder<?>> all = new ArrayList<>();
+        final Map<Item, List<RecipeHolder<?>>> mutable = new HashMap<>();
+
+        for (final RecipeHolder<?> holder : recipeManager.getRecipes())
+        {
+            final Recipe<?> recipe = holder.value();
+            if (!isSupportedType(recipe.getType())) continue;
+
+            final ItemStack result = recipe.getResultItem(registryAccess);
+            if (result == null || result.isEmpty()) continue;
+
+            all.add(holder);
+            mutable.computeIfAbsent(result.getItem(), ignored -> new ArrayList<>()).add(holder);
+        }
+
+        final Map<Item, List<RecipeHolder<?>>> frozen = new HashMap<>(mutable.size());
+        mutable.forEach((item, holders) -> frozen.put(item, Collections.unmodifiableList(holders)));
+
+        supported = Collections.unmodifiableList(all);
+        byOutput = frozen;
+        indexedManager = recipeManager;
+
+        MCTradePostMod.LOGGER.info("Indexed {} supported recipes producing {} distinct items.", all.size(), frozen.size());
+    }
+}
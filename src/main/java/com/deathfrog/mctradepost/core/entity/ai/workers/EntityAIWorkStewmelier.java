@@ -9,6 +9,7 @@ import com.deathfrog.mctradepost.api.util.NullnessBridge;
 import com.deathfrog.mctradepost.api.util.SoundUtils;
 import com.deathfrog.mctradepost.api.util.TraceUtils;
 import com.deathfrog.mctradepost.apiimp.initializer.MCTPInteractionInitializer;
+import com.deathfrog.mctradepost.core.colony.BlockFinder;
 import com.deathfrog.mctradepost.core.colony.buildings.modules.MCTPBuildingModules;
 import com.deathfrog.mctradepost.core.colony.buildings.modules.StewmelierIngredientModule;
 import com.deathfrog.mctradepost.core.colony.buildings.workerbuildings.BuildingOutpost;
@@ -42,6 +43,7 @@ import com.mojang.logging.LogUtils;
 
 import net.minecraft.core.BlockPos;
 import net.minecraft.network.chat.Component;
+import net.minecraft.server.level.ServerLevel;
 import net.minecraft.sounds.SoundEvents;
 import net.minecraft.world.InteractionHand;
 import net.minecraft.world.food.FoodProperties;
@@ -87,6 +89,11 @@ public class EntityAIWorkStewmelier extends AbstractEntityAIInteract<JobStewmeli
     protected static final double STEW_HANDOFF_RANGE = 4.0D;
     protected static final int KITCHEN_STEW_DELIVERY = 16;
 
+    /** A cauldron or filled stewpot standing on a lit campfire. */
+    private static final BlockFinder.Search STEWPOT_SEARCH = new BlockFinder.Search("stewpot",
+        EntityAIWorkStewmelier::isCauldronState,
+        (level, pos) -> isCauldronCandidate(level, pos) && isLitCampfire(level, NullnessBridge.assumeNonnull(pos.below())));
+
     protected int findHungryCounter = 0;
     protected long nextStewpotSearchTick = 0;
     protected int serveTryCounter = 0;
@@ -1610,62 +1617,34 @@ public class EntityAIWorkStewmelier extends AbstractEntityAIInteract<JobStewmeli
     }
 
     /**
-     * Finds a cauldron over a lit campfire within {@code radius} blocks of {@code origin}.
+     * Finds the cauldron over a lit campfire closest to {@code origin}, within {@code radius} blocks.
      *
      * Matches either:
      * - vanilla empty cauldron (Blocks.CAULDRON), OR
-     * - your filled stewpot block (e.g., ModBlocks.STEWPOT_FILLED.get()) if you pass it
+     * - the filled stewpot block (MCTradePostMod.STEWPOT_FILLED)
+     *
+     * The search goes through {@link BlockFinder}, which skips chunk sections without a cauldron and caches the result for the
+     * kitchen until a block near it changes.
      *
      * @param level the world
      * @param origin center of the search
      * @param radius max horizontal distance to search (30 requested)
      * @param yBelow number of blocks below origin.y to scan (terrain variance)
      * @param yAbove number of blocks above origin.y to scan
-     * @param filledStewpotBlock optional: your filled stewpot block, or null to ignore
      */
     public static @Nullable BlockPos findCauldronOverCampfire(
         final @Nonnull Level level,
-        final BlockPos origin,
+        final @Nonnull BlockPos origin,
         final int radius,
         final int yBelow,
         final int yAbove)
     {
-        final int ox = origin.getX();
-        final int oy = origin.getY();
-        final int oz = origin.getZ();
-
-        // Scan a square: (2r+1)^2 * (yBelow+yAbove+1). With r=30 and y band ~5, this is reasonable if gated.
-        for (int dy = -yBelow; dy <= yAbove; dy++)
+        if (!(level instanceof ServerLevel serverLevel))
         {
-            final int y = oy + dy;
-
-            for (int dx = -radius; dx <= radius; dx++)
-            {
-                for (int dz = -radius; dz <= radius; dz++)
-                {
-                    // Optional: enforce circular radius instead of square
-                    if ((dx * dx + dz * dz) > (radius * radius))
-                    {
-                        continue;
-                    }
-
-                    final BlockPos pos = new BlockPos(ox + dx, y, oz + dz);
-
-                    if (!isCauldronCandidate(level, pos))
-                    {
-                        continue;
-                    }
-
-                    BlockPos below = pos.below();
-                    if (below != null && isLitCampfire(level, below))
-                    {
-                        return pos;
-                    }
-                }
-            }
+            return null;
         }
 
-        return null;
+        return BlockFinder.find(serverLevel, STEWPOT_SEARCH, origin, radius, yBelow, yAbove);
     }
 
 
@@ -1696,7 +1675,16 @@ public class EntityAIWorkStewmelier extends AbstractEntityAIInteract<JobStewmeli
      */
     private static boolean isCauldronCandidate(final @Nonnull Level level, final @Nonnull BlockPos pos)
     {
-        final BlockState state = level.getBlockState(pos);
+        return isCauldronState(level.getBlockState(pos));
+    }
+
+    /**
+     * Determines if the given block state is a valid cauldron candidate. See {@link #isCauldronCandidate(Level, BlockPos)}.
+     * @param state the block state to check
+     * @return true if the block state is a valid cauldron candidate, false otherwise
+     */
+    private static boolean isCauldronState(final BlockState state)
+    {
         final Block block = state.getBlock();
         final Block filledStewpotBlock = MCTradePostMod.STEWPOT_FILLED.get();
 
@@ -11,6 +11,7 @@ import com.deathfrog.mctradepost.api.util.NullnessBridge;
 import com.deathfrog.mctradepost.api.util.SoundUtils;
 import com.deathfrog.mctradepost.api.util.TraceUtils;
 import com.deathfrog.mctradepost.core.client.gui.modules.WindowEconModule;
+import com.deathfrog.mctradepost.core.colony.ColonyBuildingIndex;
 import com.deathfrog.mctradepost.core.colony.buildings.workerbuildings.BuildingOutpost;
 import com.deathfrog.mctradepost.core.colony.buildings.workerbuildings.BuildingResort;
 import com.deathfrog.mctradepost.core.entity.ai.workers.minimal.Vacationer.VacationState;
@@ -223,29 +224,9 @@ public class EntityAIBurnoutTask
         }
         else
         {
-            // Otherwise, find the closest with space. Start with the closest.
-            BlockPos bestResortLocation = citizenData.getColony().getServerBuildingManager().getBestBuilding(citizen, BuildingResort.class);
-            resort = (BuildingResort) citizenData.getColony().getServerBuildingManager().getBuilding(bestResortLocation);
-
-            // Fall back to searching all resorts if the closest is full.
-            if (resort == null || resort.isFull())
-            {
-                resort = null;
-
-                for (IBuilding building : citizenData.getColony().getServerBuildingManager().getBuildings().values())
-                {
-                    if (!(building instanceof BuildingResort))
-                    {
-                        continue;
-                    }
-
-                    resort = (BuildingResort) building;
-                    if (resort != null && !resort.isFull())
-                    {
-                        break;
-                    }
-                }
-            }
+            // Otherwise, find the closest with space.
+            resort = ColonyBuildingIndex.get(citizenData.getColony())
+                .nearest(BuildingResort.class, citizen.blockPosition(), candidate -> !candidate.isFull());
         }
 
         return (BuildingResort) resort;
@@ -1,7 +1,6 @@
 package com.deathfrog.mctradepost.core.entity.ai.workers.minimal;
 
 import java.util.List;
-import java.util.Map;
 import java.util.concurrent.ThreadLocalRandom;
 import javax.annotation.Nullable;
 
@@ -12,17 +11,14 @@ import com.deathfrog.mctradepost.core.colony.buildings.workerbuildings.BuildingM
 import com.deathfrog.mctradepost.core.colony.buildings.workerbuildings.DisplayCase;
 import com.deathfrog.mctradepost.core.colony.buildings.workerbuildings.DisplayCase.SaleState;
 import com.minecolonies.api.colony.IVisitorData;
-import com.minecolonies.api.colony.buildings.IBuilding;
 import com.minecolonies.api.entity.ai.statemachine.states.IState;
 import com.minecolonies.api.entity.ai.statemachine.tickratestatemachine.ITickRateStateMachine;
 import com.minecolonies.api.entity.ai.statemachine.tickratestatemachine.TickingTransition;
-import com.minecolonies.api.util.BlockPosUtil;
 import com.minecolonies.api.util.WorldUtil;
 import com.minecolonies.core.entity.ai.visitor.EntityAIVisitor.VisitorState;
 import com.minecolonies.core.entity.pathfinding.navigation.EntityNavigationUtils;
 import com.mojang.logging.LogUtils;
 
-import net.minecraft.core.BlockPos;
 
 import static com.deathfrog.mctradepost.api.util.TraceUtils.TRACE_SHOPPER;
 
@@ -47,6 +43,12 @@ public class EntityAIShoppingTask
     // Initialize them to a random point in the low end of the cooldown, to promote better distribution of when shopping happens
     private int shoppingTimer = ThreadLocalRandom.current().nextInt(SHOPPING_COOLDOWN / 4);
 
+    // Daytime asks of the idle transitions since this visitor last made a shopping decision.
+    private int declinedAsks = 0;
+
+    /** Ticks between two evaluations of a shopping transition. */
+    static final int TRANSITION_TICKS = 150;
+
     public EntityAIShoppingTask(IVisitorData visitor)
     {
         this.visitor = visitor;
@@ -59,44 +61,43 @@ public class EntityAIShoppingTask
      */
     public void init(ITickRateStateMachine<IState> stateMachine)
     {
-        stateMachine.addTransition(new TickingTransition<>(VisitorState.IDLE, this::wantsToShop, this::goingShopping, 150));
-        stateMachine.addTransition(new TickingTransition<>(VisitorState.WANDERING, this::wantsToShop, this::goingShopping, 150));
-        stateMachine.addTransition(new TickingTransition<>(ShoppingState.GOING_SHOPPING, () -> true, this::goingShopping, 150));
-        stateMachine.addTransition(new TickingTransition<>(ShoppingState.PICK_DISPLAY, () -> true, this::pickDisplay, 150));
-        stateMachine.addTransition(new TickingTransition<>(ShoppingState.IS_SHOPPING, () -> true, this::isShopping, 150));
-        stateMachine.addTransition(new TickingTransition<>(ShoppingState.DONE_SHOPPING, () -> true, this::doneShopping, 150));
+        stateMachine.addTransition(new TickingTransition<>(VisitorState.IDLE, this::wakesToShop, this::goingShopping, TRANSITION_TICKS));
+        stateMachine.addTransition(new TickingTransition<>(VisitorState.WANDERING, this::wakesToShop, this::goingShopping, TRANSITION_TICKS));
+        stateMachine.addTransition(new TickingTransition<>(ShoppingState.GOING_SHOPPING, () -> true, this::goingShopping, TRANSITION_TICKS));
+        stateMachine.addTransition(new TickingTransition<>(ShoppingState.PICK_DISPLAY, () -> true, this::pickDisplay, TRANSITION_TICKS));
+        stateMachine.addTransition(new TickingTransition<>(ShoppingState.IS_SHOPPING, () -> true, this::isShopping, TRANSITION_TICKS));
+        stateMachine.addTransition(new TickingTransition<>(ShoppingState.DONE_SHOPPING, () -> true, this::doneShopping, TRANSITION_TICKS));
     }
 
 
     /**
-     * Finds the closest marketplace to the visitor that is open for business and has items for sale.
+     * Finds the closest marketplace to the visitor that is open for business and has items for sale. The choice is shared with the
+     * other visitors in the same area of the colony for a short time.
      * 
      * @return the closest marketplace, or null if none are found.
      */
     protected @Nullable BuildingMarketplace findBestMarketplace()
     {
-        Map<BlockPos,IBuilding> allBuildings = visitor.getColony().getServerBuildingManager().getBuildings();
-        BuildingMarketplace candidateMarketplace = null;
-        int distance = Integer.MAX_VALUE;
+        return VisitorShoppingScheduler.get(visitor.getColony()).bestMarketplace(visitor.getColony(), visitor.getLastPosition());
+    }
 
-        for (IBuilding building : allBuildings.values())
-        {
-            if (building instanceof BuildingMarketplace marketplace)
-            {
-                if (marketplace.isOpenForBusiness() && !marketplace.getDisplayShelvesWithItemsForSale().isEmpty())
-                {
-                    int newDistance =  BlockPosUtil.distManhattan(visitor.getLastPosition(), marketplace.getPosition());
+    /**
+     * Checks if an idle or wandering visitor starts a shopping trip. The decision is only made when the colony's shopping scheduler
+     * wakes this visitor, which spreads the shopping decisions of many visitors over time. The decision then covers every daytime
+     * ask since the previous one, so visitors shop as often as when every ask was decided on its own.
+     *
+     * @return true if the visitor should go shopping, false otherwise
+     */
+    public boolean wakesToShop()
+    {
+        if (!WorldUtil.isDayTime(visitor.getColony().getWorld())) return false;
 
-                    if (newDistance < distance)
-                    {
-                        candidateMarketplace = marketplace;
-                        distance = newDistance;
-                    }
-                }
-            }
-        }
+        declinedAsks++;
+        if (!VisitorShoppingScheduler.get(visitor.getColony()).tryWake(visitor)) return false;
 
-        return candidateMarketplace;
+        int asks = declinedAsks;
+        declinedAsks = 0;
+        return wantsToShop(asks);
     }
 
 
@@ -108,6 +109,18 @@ public class EntityAIShoppingTask
      * @return true if the visitor should go shopping, false otherwise
      */
     public boolean wantsToShop()
+    {
+        return wantsToShop(1);
+    }
+
+    /**
+     * Makes the decision of {@link #wantsToShop()} for several asks at once: the cooldown is reduced once per ask, and the shopping
+     * chance is rolled once for every ask that found the cooldown over.
+     *
+     * @param asks number of asks decided together, at least 1
+     * @return true if the visitor should go shopping, false otherwise
+     */
+    public boolean wantsToShop(int asks)
     {
         // No shopping at night.
         if (!WorldUtil.isDayTime(visitor.getColony().getWorld()))
@@ -127,9 +140,10 @@ public class EntityAIShoppingTask
         }
 
         activeMarketplace = marketplace;
-        shoppingTimer = shoppingTimer - marketplace.getBuildingLevel();
+        int rolls = VisitorShoppingScheduler.chanceRolls(shoppingTimer, marketplace.getBuildingLevel(), asks);
+        shoppingTimer = shoppingTimer - marketplace.getBuildingLevel() * asks;
 
-        if (shoppingTimer > 0)
+        if (rolls == 0)
         {
             TraceUtils.dynamicTrace(TRACE_SHOPPER,
                 () -> LOGGER.info("Visitor {} can't shop - taking a break with cooldown at: {}",
@@ -138,7 +152,7 @@ public class EntityAIShoppingTask
             return false;
         }
 
-        if (marketplace.shoppingChance() >= ThreadLocalRandom.current().nextDouble())
+        if (VisitorShoppingScheduler.chanceOverRolls(marketplace.shoppingChance(), rolls) >= ThreadLocalRandom.current().nextDouble())
         {
             LOGGER.trace("Visitor {} is taking a shopping trip!", visitor.getEntity().get().getName());
             return true;
@@ -0,0 +1,274 @@
+package com.deathfrog.mctradepost.core.entity.ai.workers.minimal;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.slf4j.Logger;
+
+import com.deathfrog.mctradepost.api.util.TraceUtils;
+import com.deathfrog.mctradepost.core.colony.ColonyBuildingIndex;
+import com.deathfrog.mctradepost.core.colony.buildings.workerbuildings.BuildingMarketplace;
+import com.minecolonies.api.colony.IColony;
+import com.minecolonies.api.colony.IVisitorData;
+import com.minecolonies.api.entity.ai.statemachine.states.IState;
+import com.minecolonies.api.entity.ai.statemachine.tickratestatemachine.ITickRateStateMachine;
+import com.minecolonies.core.entity.visitor.VisitorCitizen;
+import com.mojang.logging.LogUtils;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.core.BlockPos;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.Level;
+
+import static com.deathfrog.mctradepost.api.util.TraceUtils.TRACE_SHOPPER;
+
+/**
+ * Per-colony scheduler for the shopping behaviour marketplaces add to visitors.
+ * <p>
+ * Enrolled visitors are tracked by entity identity, so a visitor whose entity is reloaded is enrolled again, and an entity that has
+ * been removed (departed, dead or unloaded) is evicted on the next enrollment pass. Shoppers are spread over staggered batches and
+ * each decides at most once per {@link #WAKE_INTERVAL}, several times the rate at which the shopping transitions ask. A decision
+ * covers every ask since the previous one (see {@link #chanceRolls} and {@link #chanceOverRolls}), so batching changes when visitors
+ * shop but not how often. The best open
+ * marketplace is cached per {@link #AREA_SHIFT area} of the colony for {@link #MARKETPLACE_TTL_TICKS}, so a crowd of visitors shares
+ * one marketplace search.
+ * <p>
+ * All access happens on the server thread.
+ */
+public final class VisitorShoppingScheduler
+{
+    public static final Logger LOGGER = LogUtils.getLogger();
+
+    /** Areas are squares of 2^6 = 64 blocks. */
+    private static final int AREA_SHIFT = 6;
+
+    /** Ticks a cached marketplace choice is reused for an area. */
+    private static final int MARKETPLACE_TTL_TICKS = 100;
+
+    /**
+     * Ticks between two shopping decisions of one shopper. The idle transitions ask every {@link EntityAIShoppingTask#TRANSITION_TICKS},
+     * so a shopper defers three of every four asks to its next decision.
+     */
+    static final int WAKE_INTERVAL = 4 * EntityAIShoppingTask.TRANSITION_TICKS;
+
+    /** Number of batches shoppers are spread over. */
+    static final int WAKE_BATCHES = 8;
+
+    /** Ticks between two wake batches, spreading the batches evenly over one interval. */
+    private static final int WAKE_BATCH_SPACING = WAKE_INTERVAL / WAKE_BATCHES;
+
+    private static final Map<ColonyKey, VisitorShoppingScheduler> SCHEDULERS = new HashMap<>();
+
+    private record ColonyKey(ResourceKey<Level> dimension, int colonyId) { }
+
+    /**
+     * Cached marketplace choice of one area; a null marketplace records that no marketplace was open.
+     */
+    private record AreaChoice(@Nullable BuildingMarketplace marketplace, long expiresAt) { }
+
+    /**
+     * Scheduling state of one enrolled shopper.
+     */
+    private static final class Shopper
+    {
+        private final int visitorId;
+        private long nextWake;
+
+        private Shopper(int visitorId, long nextWake)
+        {
+            this.visitorId = visitorId;
+            this.nextWake = nextWake;
+        }
+    }
+
+    private final Map<VisitorCitizen, Shopper> shoppers = new IdentityHashMap<>();
+    private final Long2ObjectOpenHashMap<AreaChoice> areas = new Long2ObjectOpenHashMap<>();
+    private int enrolledCount = 0;
+
+    private VisitorShoppingScheduler()
+    {
+    }
+
+    /**
+     * Returns the scheduler of a colony.
+     *
+     * @param colony the colony
+     * @return the colony's scheduler
+     */
+    public static VisitorShoppingScheduler get(@Nonnull IColony colony)
+    {
+        return SCHEDULERS.computeIfAbsent(new ColonyKey(colony.getDimension(), colony.getID()), key -> new VisitorShoppingScheduler());
+    }
+
+    /**
+     * Discards every scheduler. Called when the server stops so that no visitor entity outlives its world.
+     */
+    public static void clearAll()
+    {
+        SCHEDULERS.clear();
+    }
+
+    /**
+     * Evicts shoppers whose entity is gone and adds the shopping task to every present visitor not yet enrolled.
+     *
+     * @param colony the colony whose visitors are enrolled
+     */
+    public void enrollVisitors(@Nonnull IColony colony)
+    {
+        long now = colony.getWorld() == null ? 0 : colony.getWorld().getGameTime();
+
+        Iterator<Map.Entry<VisitorCitizen, Shopper>> it = shoppers.entrySet().iterator();
+        while (it.hasNext())
+        {
+            Map.Entry<VisitorCitizen, Shopper> entry = it.next();
+            if (entry.getKey().isRemoved() || !entry.getKey().isAlive()
+                || colony.getVisitorManager().getVisitor(entry.getValue().visitorId) == null)
+            {
+                it.remove();
+            }
+        }
+
+        // Area choices expire long before the next pass; dropping them here keeps the cache bounded.
+        areas.clear();
+
+        for (Integer visitorID : colony.getVisitorManager().getCivilianDataMap().keySet())
+        {
+            if (!(colony.getVisitorManager().getVisitor(visitorID) instanceof IVisitorData visitor)) continue;
+            if (!(visitor.getEntity().orElse(null) instanceof VisitorCitizen entity) || entity.isRemoved()) continue;
+            if (shoppers.containsKey(entity)) continue;
+
+            TraceUtils.dynamicTrace(TRACE_SHOPPER,
+                () -> LOGGER.info("Adding visitor to advertising list: {}", entity.getName()));
+
+            ITickRateStateMachine<IState> stateMachine = entity.getEntityStateController();
+            EntityAIShoppingTask shoppingTask = new EntityAIShoppingTask(visitor);
+            shoppingTask.init(stateMachine);
+
+            shoppers.put(entity, new Shopper(visitorID, firstWake(now, enrolledCount++)));
+        }
+    }
+
+    /**
+     * Checks whether a shopper may make a shopping decision now, and if so schedules its next one.
+     *
+     * @param visitor the shopper
+     * @return true when it is the shopper's turn
+     */
+    public boolean tryWake(@Nonnull IVisitorData visitor)
+    {
+        if (!(visitor.getEntity().orElse(null) instanceof VisitorCitizen entity)) return false;
+
+        Shopper shopper = shoppers.get(entity);
+        if (shopper == null) return false;
+
+        long now = entity.level().getGameTime();
+        if (now < shopper.nextWake) return false;
+
+        shopper.nextWake = nextWake(shopper.nextWake, now);
+        return true;
+    }
+
+    /**
+     * Returns the first wake of a newly enrolled shopper, which places it in one of the {@link #WAKE_BATCHES} batches.
+     *
+     * @param now current game tick
+     * @param enrolled number of shoppers enrolled before this one
+     * @return the tick of the first wake
+     */
+    static long firstWake(long now, int enrolled)
+    {
+        return now + (long) (enrolled % WAKE_BATCHES) * WAKE_BATCH_SPACING;
+    }
+
+    /**
+     * Returns the wake following one that has just been used. Wakes advance by whole intervals from the first one, so a shopper keeps
+     * its batch however late it was asked.
+     *
+     * @param usedWake the wake that was due
+     * @param now current game tick
+     * @return the first wake after now in the shopper's batch
+     */
+    static long nextWake(long usedWake, long now)
+    {
+        return usedWake + ((now - usedWake) / WAKE_INTERVAL + 1) * WAKE_INTERVAL;
+    }
+
+    /**
+     * Returns how many of several consecutive asks find the shopping cooldown over, when each ask first reduces the cooldown.
+     *
+     * @param timer cooldown before the first ask
+     * @param drainPerAsk cooldown removed by each ask
+     * @param asks number of asks
+     * @return the number of asks that roll the shopping chance
+     */
+    static int chanceRolls(int timer, int drainPerAsk, int asks)
+    {
+        if (timer - (long) drainPerAsk <= 0) return asks;
+        if (drainPerAsk <= 0) return 0;
+
+        // The first ask that drains the cooldown to zero or below.
+        long first = (timer + (long) drainPerAsk - 1) / drainPerAsk;
+        return (int) Math.max(0, asks - first + 1);
+    }
+
+    /**
+     * Returns the chance that at least one of several independent rolls succeeds.
+     *
+     * @param chance chance of one roll
+     * @param rolls number of rolls
+     * @return the combined chance
+     */
+    static double chanceOverRolls(double chance, int rolls)
+    {
+        if (rolls <= 0) return 0;
+        if (chance >= 1) return chance;
+
+        return 1 - Math.pow(1 - Math.max(0, chance), rolls);
+    }
+
+    /**
+     * Returns the nearest marketplace that is open and has items for sale, as seen from the area around a position. The choice is
+     * shared by every visitor in the same area until it expires.
+     *
+     * @param colony the colony
+     * @param pos position of the visitor
+     * @return the marketplace, or null if none is open
+     */
+    public @Nullable BuildingMarketplace bestMarketplace(@Nonnull IColony colony, @Nonnull BlockPos pos)
+    {
+        long now = colony.getWorld() == null ? 0 : colony.getWorld().getGameTime();
+        int areaX = pos.getX() >> AREA_SHIFT;
+        int areaZ = pos.getZ() >> AREA_SHIFT;
+        long area = ChunkPos.asLong(areaX, areaZ);
+
+        AreaChoice cached = areas.get(area);
+        if (cached != null && now < cached.expiresAt() && (cached.marketplace() == null || isShoppable(cached.marketplace())))
+        {
+            return cached.marketplace();
+        }
+
+        BlockPos center = new BlockPos((areaX << AREA_SHIFT) + (1 << (AREA_SHIFT - 1)), pos.getY(),
+            (areaZ << AREA_SHIFT) + (1 << (AREA_SHIFT - 1)));
+        BuildingMarketplace marketplace = ColonyBuildingIndex.get(colony)
+            .nearest(BuildingMarketplace.class,
+                center,
+                VisitorShoppingScheduler::isShoppable);
+
+        areas.put(area, new AreaChoice(marketplace, now + MARKETPLACE_TTL_TICKS));
+        return marketplace;
+    }
+
+    /**
+     * A marketplace is worth walking to while it is open and has items on its display shelves.
+     */
+    private static boolean isShoppable(BuildingMarketplace marketplace)
+    {
+        return marketplace.isOpenForBusiness() && !marketplace.getDisplayShelvesWithItemsForSale().isEmpty();
+    }
+}
@@ -13,6 +13,7 @@ import com.deathfrog.mctradepost.core.colony.buildings.modules.BuildingStationEx
 import com.deathfrog.mctradepost.core.colony.buildings.modules.BuildingStationImportModule;
 import com.deathfrog.mctradepost.core.colony.buildings.modules.ExportData;
 import com.deathfrog.mctradepost.core.colony.buildings.modules.MCTPBuildingModules;
+import com.deathfrog.mctradepost.core.colony.buildings.modules.TrainConsist;
 import com.deathfrog.mctradepost.core.colony.buildings.workerbuildings.BuildingMarketplace;
 import com.deathfrog.mctradepost.core.colony.buildings.workerbuildings.BuildingOutpost;
 import com.deathfrog.mctradepost.core.colony.buildings.workerbuildings.BuildingStation;
@@ -79,6 +80,7 @@ public class EntityAIWorkStationMaster extends AbstractEntityAIInteract<JobStati
         ELIMINATE_OLD_ORDER,
         REQUEST_FUNDS,
         WALK_THE_TRACK,
+        AWAIT_ROUTE_DISCOVERY,
         HANDLE_OUTPOST_REQUESTS;
 
         @Override
@@ -92,7 +94,9 @@ public class EntityAIWorkStationMaster extends AbstractEntityAIInteract<JobStati
     private ExportData currentExport = null;
     private Integer currentFundRequest = null;
     private BlockPos currentTargetWalkingPosition = null;
+    private TrackRouteConnection.RouteDiscoveryJob routeDiscoveryJob = null;
     Queue<BlockPos> currentCheckingTrack = new ArrayDeque<>();
+    private final ExportPlanner exportPlanner = new ExportPlanner();
 
     @SuppressWarnings("unchecked")
     public EntityAIWorkStationMaster(@NotNull JobStationMaster job)
@@ -107,6 +111,7 @@ public class EntityAIWorkStationMaster extends AbstractEntityAIInteract<JobStati
           new AITarget<IAIState>(StationMasterStates.ELIMINATE_OLD_ORDER, this::eliminateOldOrder, 50),
           new AITarget<IAIState>(StationMasterStates.FIND_MATCHING_OFFERS, this::findMatchingOffers, 50),
           new AITarget<IAIState>(StationMasterStates.CHECK_CONNECTION, this::checkConnection, 50),
+          new AITarget<IAIState>(StationMasterStates.AWAIT_ROUTE_DISCOVERY, this::awaitRouteDiscovery, 1),
           new AITarget<IAIState>(StationMasterStates.REQUEST_FUNDS, this::requestFunds, 50),
           new AITarget<IAIState>(StationMasterStates.SEND_SHIPMENT, this::sendShipment, 50),
           new AITarget<IAIState>(StationMasterStates.WALK_THE_TRACK, this::walkTheTrack, 1)
@@ -218,6 +223,9 @@ public class EntityAIWorkStationMaster extends AbstractEntityAIInteract<JobStati
      * If all the above conditions are met, it will mark the export for shipment and return the next state.
      * If not all conditions are met, it will notify the remote station of insufficient funds and mark the export for cooldown.
      * If no exports are found to be shipped, it will return the next state.
+     * <p>
+     * Destination, import, supply and funds checks are answered from the {@link ExportPlanner} unless their inputs have changed since
+     * the previous pass.
      *
      * @return The next AI state to transition to.
      */
@@ -240,6 +248,7 @@ public class EntityAIWorkStationMaster extends AbstractEntityAIInteract<JobStati
         }
 
         int unsatisfiedNeeds = 0;
+        exportPlanner.beginPass(building.getColony().getDay(), exportsModule.getExports());
 
         for (ExportData exportData : exportsModule.getExports())
         {
@@ -259,12 +268,13 @@ public class EntityAIWorkStationMaster extends AbstractEntityAIInteract<JobStati
             if (isAlreadyShippingToday(exportData)) continue;
 
             // 1) Destination must exist or we eliminate the order
-            IAIState state = resolveDestinationOrEliminate(exportData);
+            final ITradeCapable remote = exportPlanner.remote(building, exportData);
+            IAIState state = resolveDestinationOrEliminate(remote, exportData);
             if (state != null) return state;
 
             // From here on, these are safe to dereference
             final StationData dest = exportData.getDestinationStationData();
-            final ITradeCapable remote = dest.getStation();
+            final boolean outpost = remote instanceof BuildingOutpost;
 
             // 2) Connection lookup or check
             final TrackConnectionResult conn = building.getTrackConnectionResult(dest);
@@ -274,18 +284,23 @@ public class EntityAIWorkStationMaster extends AbstractEntityAIInteract<JobStati
             final boolean stationConnected = conn.isConnected();
 
             // 3) If not an outpost, the remote must still offer the trade.
-            state = validateRemoteImportOrEliminate(dest, exportData);
-            if (state != null) return state;
+            if (!exportPlanner.isImportValidated(exportData, remote))
+            {
+                state = validateRemoteImportOrEliminate(remote, exportData);
+                if (state != null) return state;
+
+                exportPlanner.importValidated(exportData, remote);
+            }
 
             // 4) Do we have the goods locally?
-            final boolean hasExports = hasLocalSupply(exportData);
+            final boolean hasExports = exportPlanner.localSupply(building, exportData, () -> hasLocalSupply(exportData));
 
             // 5) Remote must be staffed, else eliminate
             state = ensureRemoteStaffedOrEliminate(remote, exportData);
             if (state != null) return state;
 
             // 6) Remote funds check
-            final boolean remoteHasFunds = remoteHasFunds(remote, exportData);
+            final boolean remoteHasFunds = exportPlanner.remoteFunds(remote, exportData, () -> remoteHasFunds(remote, exportData));
 
             // 7) Decide next state based on supply, connection, and funds
             if (hasExports)
@@ -318,7 +333,7 @@ public class EntityAIWorkStationMaster extends AbstractEntityAIInteract<JobStati
             }
             else
             {
-                if (dest.isOutpost())
+                if (outpost)
                 {
                     TraceUtils.dynamicTrace(TRACE_STATION,
                         () -> LOGGER.info("Colony {}: Outpost export of {} is waiting on outpost request logistics; not requesting generic station materials.",
@@ -371,12 +386,12 @@ public class EntityAIWorkStationMaster extends AbstractEntityAIInteract<JobStati
     /**
      * Resolves the destination station for a given export data object.
      * If the destination station no longer exists, the export is marked for removal and the AI state is set to ELIMINATE_OLD_ORDER.
+     * @param remote The resolved destination station, or null if it no longer exists.
      * @param e The export data object containing the trade item, cost, and destination station data.
      * @return The next AI state to transition to, or null if no transition is needed.
      */
-    protected IAIState resolveDestinationOrEliminate(final ExportData e)
+    protected IAIState resolveDestinationOrEliminate(final ITradeCapable remote, final ExportData e)
     {
-        final ITradeCapable remote = e.getDestinationStationData().getStation();
         if (remote == null)
         {
             TraceUtils.dynamicTrace(TRACE_STATION,
@@ -415,15 +430,15 @@ public class EntityAIWorkStationMaster extends AbstractEntityAIInteract<JobStati
      * Connectivity is treated as transient and only blocks shipment attempts.
      * Outposts skip import validation.
      * 
-     * @param dest the destination station to validate
+     * @param remote the resolved destination station to validate
      * @param e the export data to validate
      * @return the next AI state to transition to, or null if no transition is needed
      */
-    protected IAIState validateRemoteImportOrEliminate(final StationData dest, final ExportData e)
+    protected IAIState validateRemoteImportOrEliminate(final ITradeCapable remote, final ExportData e)
     {
-        if (dest.isOutpost()) return null; // outposts skip import validation
+        if (remote instanceof BuildingOutpost) return null; // outposts skip import validation
 
-        final BuildingStationImportModule remoteImport = dest.getStation().getModule(MCTPBuildingModules.IMPORTS);
+        final BuildingStationImportModule remoteImport = remote.getModule(MCTPBuildingModules.IMPORTS);
 
         if (remoteImport == null)
         {
@@ -521,11 +536,16 @@ public class EntityAIWorkStationMaster extends AbstractEntityAIInteract<JobStati
     /**
      * Initiates trade shipment by setting the shipment distance to 0 for the current export. 
      * If there is no current export, does nothing.
+     * <p>
+     * If the current export is packed in a train, every other member of the train whose goods are at hand is loaded as well and the
+     * train departs with the current export as its lead; members that cannot be loaded wait for a later train.
      * 
      * @return the next AI state to transition to, which is always IDLE.
      */
     protected IAIState sendShipment() 
     {
+        exportPlanner.invalidateSupply();
+
         if (currentExport != null && currentExport.getTradeItem() != null && !currentExport.getTradeItem().getItemStack().isEmpty())
         {   
             TrackConnectionResult tcr = ((BuildingStation) building).getTrackConnectionResult(currentExport.getDestinationStationData());
@@ -537,9 +557,6 @@ public class EntityAIWorkStationMaster extends AbstractEntityAIInteract<JobStati
 
 
             int trackDistance = tcr.getRouteDistance();
-            currentExport.setShipDistance(0);
-            currentExport.setTrackDistance(trackDistance);
-            currentExport.setLastShipDay(building.getColony().getDay());
 
             final ItemStack cargoCopy = currentExport.getTradeItem().getItemStack().copy();
             ItemStorage removeFromStorage = new ItemStorage(cargoCopy.copy(), currentExport.getQuantity());
@@ -566,6 +583,31 @@ public class EntityAIWorkStationMaster extends AbstractEntityAIInteract<JobStati
                 return AIWorkerState.DECIDE;
             }
 
+            currentExport.setShipDistance(0);
+            currentExport.setTrackDistance(trackDistance);
+            currentExport.setLastShipDay(building.getColony().getDay());
+
+            TrainConsist consist = currentExport.getConsist();
+            if (consist != null)
+            {
+                List<ExportData> loaded = new ArrayList<>();
+                for (ExportData member : consist.getMembers())
+                {
+                    if (member == currentExport || isAlreadyShippingToday(member) || member.getShipmentCountdown() == 0 || !loadCar(member))
+                    {
+                        continue;
+                    }
+
+                    member.setShipDistance(0);
+                    member.setTrackDistance(trackDistance);
+                    member.setLastShipDay(building.getColony().getDay());
+                    loaded.add(member);
+                }
+
+                consist.depart(currentExport, loaded);
+                TraceUtils.dynamicTrace(TRACE_STATION, () -> LOGGER.info("Colony {} send shipment: Train departing: {}", building.getColony().getID(), consist));
+            }
+
             worker.getCitizenExperienceHandler().addExperience(BASE_XP_EXISTING_TRACK);
             GhostCartEntity cart = currentExport.spawnCartForTrade(tcr.getRoute());
             if (cart == null) {
@@ -587,6 +629,30 @@ public class EntityAIWorkStationMaster extends AbstractEntityAIInteract<JobStati
         return AIWorkerState.DECIDE;
     }
 
+    /**
+     * Loads the goods of a train member and collects its payment from the destination.
+     *
+     * @param member the member to load
+     * @return true if the member was loaded; false if the goods or the payment are missing, in which case nothing is removed
+     */
+    private boolean loadCar(final ExportData member)
+    {
+        final ItemStack cargoCopy = member.getTradeItem().getItemStack().copy();
+
+        if (!MCTPInventoryUtils.combinedInventoryRemoval(building, new ItemStorage(cargoCopy.copy(), member.getQuantity()), member.getQuantity()))
+        {
+            return false;
+        }
+
+        if (!MCTPInventoryUtils.combinedInventoryRemoval(member.getDestinationStationData().getStation(), new ItemStorage(BuildingMarketplace.tradeCurrency()), member.getCost()))
+        {
+            MCTPInventoryUtils.insertOrDropByQuantity(building, new ItemStorage(cargoCopy.copy(), member.getQuantity()));
+            return false;
+        }
+
+        return true;
+    }
+
     /**
      * Determines whether there is a station with an unknown track connection status
      * that should be checked. Iterates through all colonies and their buildings to
@@ -707,62 +773,104 @@ public class EntityAIWorkStationMaster extends AbstractEntityAIInteract<JobStati
 
     /**
      * Checks if the remote station is connected to the current station.
-     * If the remote station is connected, sets its track connection status
-     * to CONNECTED, otherwise sets it to DISCONNECTED.
+     * A cached connection is validated immediately. Otherwise a route discovery
+     * job is started and the worker waits for it in AWAIT_ROUTE_DISCOVERY.
      *
-     * @return IDLE state.
+     * @return WALK_THE_TRACK, or AWAIT_ROUTE_DISCOVERY while a new route is being searched.
      */
     protected IAIState checkConnection()
     {
-        if (currentRemoteStation != null)
+        if (currentRemoteStation == null)
         {
-            TrackConnectionResult connectionResult = building.getTrackConnectionResult(currentRemoteStation);
+            return completeConnectionCheck(null);
+        }
 
-            if (connectionResult == null || !connectionResult.connected)
-            {
-                final boolean hasNoCachedResult = connectionResult == null;
-                TraceUtils.dynamicTrace(TRACE_STATION,
-                    () -> LOGGER.info("Colony {}: {} cached connection result. Checking connection to remote station: {} seeking endpoint: {}.",
-                        building.getColony().getID(),
-                        hasNoCachedResult ? "No" : "Disconnected",
-                        building.getRailStartPosition(),
-                        currentRemoteStation.getRailStartPosition()));
-                connectionResult = TrackRouteConnection.findRoute(building, currentRemoteStation, hasNoCachedResult);
-                building.putTrackConnectionResult(currentRemoteStation, connectionResult);
-            }
-            else
-            {
-                TraceUtils.dynamicTrace(TRACE_STATION, () -> LOGGER.info("Colony {}: Cached connection found. Validating it.",  building.getColony().getID()));
+        TrackConnectionResult connectionResult = building.getTrackConnectionResult(currentRemoteStation);
 
-                boolean isValid = connectionResult.route == null
-                    ? TrackPathConnection.validateExistingPath(world, connectionResult)
-                    : TrackRouteConnection.validateExistingRoute(world.getServer(), connectionResult);
+        if (connectionResult == null || !connectionResult.connected)
+        {
+            final boolean hasNoCachedResult = connectionResult == null;
+            TraceUtils.dynamicTrace(TRACE_STATION,
+                () -> LOGGER.info("Colony {}: {} cached connection result. Checking connection to remote station: {} seeking endpoint: {}.",
+                    building.getColony().getID(),
+                    hasNoCachedResult ? "No" : "Disconnected",
+                    building.getRailStartPosition(),
+                    currentRemoteStation.getRailStartPosition()));
+            if (routeDiscoveryJob != null) routeDiscoveryJob.cancel();
+            routeDiscoveryJob = TrackRouteConnection.beginRoute(building, currentRemoteStation, hasNoCachedResult,
+                MCTPConfig.offThreadRouteSearch.get());
+            return StationMasterStates.AWAIT_ROUTE_DISCOVERY;
+        }
 
-                currentCheckingTrack.addAll(connectionResult.path);
+        TraceUtils.dynamicTrace(TRACE_STATION, () -> LOGGER.info("Colony {}: Cached connection found. Validating it.",  building.getColony().getID()));
 
-                connectionResult.setConnected(isValid);
-                building.putTrackConnectionResult(currentRemoteStation, connectionResult);
-            }
+        boolean isValid = connectionResult.route == null
+            ? TrackPathConnection.validateExistingPath(world, connectionResult)
+            : TrackRouteConnection.validateExistingRoute(world.getServer(), connectionResult);
 
-            if (connectionResult.connected)
-            {
-                TraceUtils.dynamicTrace(TRACE_STATION, () -> LOGGER.info("Colony {}: Remote station {} is connected!", building.getColony().getID(), currentRemoteStation));
-
-                AdvancementUtils.TriggerAdvancementPlayersForColony(building.getColony(),
-                        player -> {
-                            if (player != null)
-                            {
-                                MCTPAdvancementTriggers.COLONY_CONNECTED.get().trigger(player);
-                            }
-                        });
-            }
-            else
-            {
-                final TrackConnectionResult logResult = connectionResult;
-                TraceUtils.dynamicTrace(TRACE_STATION, () -> LOGGER.info("Colony {}: Remote station {} is NOT connected. Closest track found at {}", building.getColony().getID(), currentRemoteStation, logResult.closestPoint));
-            }
+        currentCheckingTrack.addAll(connectionResult.path);
+
+        connectionResult.setConnected(isValid);
+        building.putTrackConnectionResult(currentRemoteStation, connectionResult);
+
+        return completeConnectionCheck(connectionResult);
+    }
+
+    /**
+     * Advances the in-progress route discovery job by one tick's worth of work.
+     * The search is spread over several ticks so that a long multimodal or
+     * cross-dimension search does not stall the server.
+     *
+     * @return AWAIT_ROUTE_DISCOVERY while the search continues, otherwise WALK_THE_TRACK.
+     */
+    protected IAIState awaitRouteDiscovery()
+    {
+        if (routeDiscoveryJob == null || currentRemoteStation == null)
+        {
+            if (routeDiscoveryJob != null) routeDiscoveryJob.cancel();
+            routeDiscoveryJob = null;
+            return completeConnectionCheck(null);
         }
-        
+
+        long budgetNanos = MCTPConfig.routeDiscoveryTickBudgetMs.get() * 1_000_000L;
+        if (!routeDiscoveryJob.step(budgetNanos))
+        {
+            return StationMasterStates.AWAIT_ROUTE_DISCOVERY;
+        }
+
+        TrackConnectionResult connectionResult = routeDiscoveryJob.result();
+        routeDiscoveryJob = null;
+        building.putTrackConnectionResult(currentRemoteStation, connectionResult);
+
+        return completeConnectionCheck(connectionResult);
+    }
+
+    /**
+     * Reports the outcome of a connection check and awards the worker for it.
+     *
+     * @param connectionResult the discovered or validated connection, or null if nothing was checked.
+     * @return WALK_THE_TRACK state.
+     */
+    private IAIState completeConnectionCheck(TrackConnectionResult connectionResult)
+    {
+        if (connectionResult != null && connectionResult.connected)
+        {
+            TraceUtils.dynamicTrace(TRACE_STATION, () -> LOGGER.info("Colony {}: Remote station {} is connected!", building.getColony().getID(), currentRemoteStation));
+
+            AdvancementUtils.TriggerAdvancementPlayersForColony(building.getColony(),
+                    player -> {
+                        if (player != null)
+                        {
+                            MCTPAdvancementTriggers.COLONY_CONNECTED.get().trigger(player);
+                        }
+                    });
+        }
+        else if (connectionResult != null)
+        {
+            final TrackConnectionResult logResult = connectionResult;
+            TraceUtils.dynamicTrace(TRACE_STATION, () -> LOGGER.info("Colony {}: Remote station {} is NOT connected. Closest track found at {}", building.getColony().getID(), currentRemoteStation, logResult.closestPoint));
+        }
+
         currentRemoteStation = null;
         worker.getCitizenExperienceHandler().addExperience(BASE_XP_EXISTING_TRACK);
         incrementActionsDoneAndDecSaturation();
@@ -857,6 +965,8 @@ public class EntityAIWorkStationMaster extends AbstractEntityAIInteract<JobStati
             return getState();
         }
 
+        exportPlanner.invalidateSupply();
+
         final ArrayList<ItemStack> itemList = new ArrayList<>();
         for (ExportData exportData : building.getModule(MCTPBuildingModules.EXPORTS).getExports())
         {
@@ -0,0 +1,196 @@
+package com.deathfrog.mctradepost.core.entity.ai.workers.trade;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+
+import com.deathfrog.mctradepost.core.colony.ContainerChangeLog;
+import com.deathfrog.mctradepost.core.colony.buildings.modules.ExportData;
+import com.deathfrog.mctradepost.core.colony.buildings.workerbuildings.BuildingOutpost;
+import com.deathfrog.mctradepost.core.colony.buildings.workerbuildings.BuildingStation;
+import com.minecolonies.api.colony.IColony;
+import com.minecolonies.api.colony.buildings.IBuilding;
+
+/**
+ * Cached readiness facts of a station's exports, so that a matching pass only re-evaluates the exports whose inputs changed.
+ * <p>
+ * Per export, the planner remembers the resolved destination and whether its import was validated, whether the local station had the
+ * goods, and whether the destination had the funds. Each fact carries what it depended on and is recomputed when that changes:
+ * <ul>
+ * <li>destination and import: the local station's connection generation and the destination station's trade generation</li>
+ * <li>local supply and remote funds: a rack change in the building concerned, or the worker moving goods itself</li>
+ * <li>everything: a new colony day</li>
+ * </ul>
+ * Hut blocks and worker inventories do not report changes, so inventory facts also expire after
+ * {@link #INVENTORY_FACT_TTL_TICKS}.
+ */
+final class ExportPlanner
+{
+    /** Ticks an inventory fact is trusted without a rack change. */
+    private static final int INVENTORY_FACT_TTL_TICKS = 1200;
+
+    /**
+     * Cached facts of one export.
+     */
+    private static final class Facts
+    {
+        private ITradeCapable remote = null;
+        private long routeConnections = Long.MIN_VALUE;
+        private long routeTrades = Long.MIN_VALUE;
+        private boolean importValidated = false;
+
+        private long supplyAt = Long.MIN_VALUE;
+        private boolean supply = false;
+
+        private long fundsAt = Long.MIN_VALUE;
+        private boolean funds = false;
+    }
+
+    private final Map<ExportData, Facts> facts = new IdentityHashMap<>();
+    private int day = Integer.MIN_VALUE;
+
+    /**
+     * Starts a matching pass: forgets exports no longer configured and, on a new colony day, every fact.
+     *
+     * @param colonyDay current colony day
+     * @param exports exports configured now
+     */
+    void beginPass(int colonyDay, Collection<ExportData> exports)
+    {
+        if (colonyDay != day)
+        {
+            facts.clear();
+            day = colonyDay;
+            return;
+        }
+
+        Set<ExportData> present = Collections.newSetFromMap(new IdentityHashMap<>());
+        present.addAll(exports);
+        facts.keySet().retainAll(present);
+    }
+
+    /**
+     * Forgets every local supply fact. Called after the worker has moved goods in or out of the station.
+     */
+    void invalidateSupply()
+    {
+        for (Facts f : facts.values())
+        {
+            f.supplyAt = Long.MIN_VALUE;
+        }
+    }
+
+    /**
+     * Returns the destination building of an export, resolving it again only when the station's connections have changed or the
+     * cached building has been removed from its colony.
+     *
+     * @param station local station
+     * @param e the export
+     * @return the destination, or null if it no longer exists
+     */
+    ITradeCapable remote(BuildingStation station, ExportData e)
+    {
+        Facts f = facts.computeIfAbsent(e, key -> new Facts());
+        if (f.remote == null || f.routeConnections != station.getConnectionGeneration() || !isRegistered(f.remote))
+        {
+            f.remote = e.getDestinationStationData().getStation();
+            f.routeConnections = station.getConnectionGeneration();
+            f.importValidated = false;
+        }
+        return f.remote;
+    }
+
+    /**
+     * Checks whether an export's import was validated since the destination's trades last changed. Outposts never need validation.
+     *
+     * @param e the export
+     * @param remote its destination
+     * @return true when the validation can be skipped
+     */
+    boolean isImportValidated(ExportData e, ITradeCapable remote)
+    {
+        if (remote instanceof BuildingOutpost) return true;
+
+        Facts f = facts.get(e);
+        return f != null && f.importValidated && remote instanceof BuildingStation station
+            && f.routeTrades == station.getTradeGeneration();
+    }
+
+    /**
+     * Records that an export's import was validated against the destination's current trades.
+     *
+     * @param e the export
+     * @param remote its destination
+     */
+    void importValidated(ExportData e, ITradeCapable remote)
+    {
+        Facts f = facts.computeIfAbsent(e, key -> new Facts());
+        f.importValidated = remote instanceof BuildingStation;
+        f.routeTrades = remote instanceof BuildingStation station ? station.getTradeGeneration() : Long.MIN_VALUE;
+    }
+
+    /**
+     * Returns whether the local station holds the goods of an export, checking again only when the cached answer may be stale.
+     *
+     * @param local local station
+     * @param e the export
+     * @param check full inventory check
+     * @return true if the goods are available
+     */
+    boolean localSupply(IBuilding local, ExportData e, BooleanSupplier check)
+    {
+        Facts f = facts.computeIfAbsent(e, key -> new Facts());
+        long now = gameTime(local);
+        if (isStale(f.supplyAt, local, now))
+        {
+            f.supply = check.getAsBoolean();
+            f.supplyAt = now;
+        }
+        return f.supply;
+    }
+
+    /**
+     * Returns whether the destination holds the funds for an export, checking again only when the cached answer may be stale.
+     *
+     * @param remote destination
+     * @param e the export
+     * @param check full funds check
+     * @return true if the funds are available
+     */
+    boolean remoteFunds(ITradeCapable remote, ExportData e, BooleanSupplier check)
+    {
+        Facts f = facts.computeIfAbsent(e, key -> new Facts());
+        long now = gameTime(remote);
+        if (isStale(f.fundsAt, remote, now))
+        {
+            f.funds = check.getAsBoolean();
+            f.fundsAt = now;
+        }
+        return f.funds;
+    }
+
+    /**
+     * An inventory fact is stale when it was never computed, has expired, or one of the building's racks changed at or after the tick
+     * it was computed.
+     */
+    private static boolean isStale(long computedAt, IBuilding building, long now)
+    {
+        return computedAt == Long.MIN_VALUE
+            || now - computedAt >= INVENTORY_FACT_TTL_TICKS
+            || ContainerChangeLog.lastChange(building) >= computedAt;
+    }
+
+    private static boolean isRegistered(ITradeCapable remote)
+    {
+        IColony colony = remote.getColony();
+        return colony != null && colony.getServerBuildingManager().getBuilding(remote.getPosition()) == remote;
+    }
+
+    private static long gameTime(IBuilding building)
+    {
+        return building.getColony().getWorld().getGameTime();
+    }
+}
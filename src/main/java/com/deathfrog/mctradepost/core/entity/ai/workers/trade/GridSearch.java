@@ -0,0 +1,450 @@
+package com.deathfrog.mctradepost.core.entity.ai.workers.trade;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.LongConsumer;
+import java.util.function.LongPredicate;
+import java.util.function.LongToIntFunction;
+
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+
+/**
+ * Allocation-light breadth-first and A* search over block positions packed with {@link BlockPos#asLong()}.
+ * <p>
+ * Nodes are numbered in discovery order. Each node's packed position, parent node and path distance live in parallel primitive arrays,
+ * and an open-addressing {@code long -> int} map resolves positions to node numbers. Breadth-first search needs no separate queue
+ * because discovery order is the queue; A* uses a primitive binary heap. {@link BlockPos} objects are only created when the final path
+ * is reconstructed.
+ * <p>
+ * An instance holds the state of a single search and may be inspected after it finishes, for example to record every rail it reached.
+ * A breadth-first search can also be paused at a deadline and resumed later, so one search may be spread over several server ticks.
+ * Instances are not thread-safe and are not reusable.
+ */
+final class GridSearch
+{
+    /** Returned by the search methods when no goal was reached. */
+    static final int NOT_FOUND = -1;
+
+    /** Returned by {@link #resumeBreadthFirst} when the deadline passed before the search finished. */
+    static final int PAUSED = -2;
+
+    /** Deadline value meaning a search should run to completion. */
+    static final long NO_DEADLINE = Long.MAX_VALUE;
+
+    private static final int NO_PARENT = -1;
+    private static final int INITIAL_CAPACITY = 256;
+
+    /** Nodes expanded between deadline checks, keeping {@link System#nanoTime()} off the per-node path. */
+    private static final int DEADLINE_CHECK_INTERVAL = 64;
+
+    private final Long2IntOpenHashMap nodeByPos;
+    private long[] positions;
+    private int[] parents;
+    private int[] distances;
+    private boolean[] closed;
+    private int nodeCount = 0;
+    private int expandedCount = 0;
+    private int breadthFirstCursor = 0;
+    private final long[] neighbourBuffer = new long[12];
+
+    /**
+     * Supplies the candidate neighbours of a packed position, in the order they should be tried.
+     */
+    @FunctionalInterface
+    interface NeighbourFunction
+    {
+        /**
+         * @param pos packed position being expanded
+         * @param out buffer of at least 12 entries to receive packed neighbour positions
+         * @return number of neighbours written
+         */
+        int neighbours(long pos, long[] out);
+    }
+
+    /** Four horizontal neighbours. */
+    static final NeighbourFunction HORIZONTAL = (pos, out) ->
+    {
+        int i = 0;
+        for (Direction dir : Direction.Plane.HORIZONTAL)
+        {
+            out[i++] = BlockPos.offset(pos, dir.getStepX(), 0, dir.getStepZ());
+        }
+        return i;
+    };
+
+    /** Each horizontal neighbour followed by the positions one block above and below it. */
+    static final NeighbourFunction HORIZONTAL_WITH_SLOPES = (pos, out) ->
+    {
+        int i = 0;
+        for (Direction dir : Direction.Plane.HORIZONTAL)
+        {
+            out[i++] = BlockPos.offset(pos, dir.getStepX(), 0, dir.getStepZ());
+            out[i++] = BlockPos.offset(pos, dir.getStepX(), 1, dir.getStepZ());
+            out[i++] = BlockPos.offset(pos, dir.getStepX(), -1, dir.getStepZ());
+        }
+        return i;
+    };
+
+    /** Rail adjacency: all level horizontal moves first, then rising and falling slopes. */
+    static final NeighbourFunction RAIL = (pos, out) ->
+    {
+        int i = 0;
+        for (Direction dir : Direction.Plane.HORIZONTAL)
+        {
+            out[i++] = BlockPos.offset(pos, dir.getStepX(), 0, dir.getStepZ());
+        }
+        for (Direction dir : Direction.Plane.HORIZONTAL)
+        {
+            out[i++] = BlockPos.offset(pos, dir.getStepX(), 1, dir.getStepZ());
+            out[i++] = BlockPos.offset(pos, dir.getStepX(), -1, dir.getStepZ());
+        }
+        return i;
+    };
+
+    GridSearch()
+    {
+        this(INITIAL_CAPACITY);
+    }
+
+    /**
+     * @param expectedNodes expected number of discovered nodes, used to size the initial arrays
+     */
+    GridSearch(int expectedNodes)
+    {
+        int capacity = Math.max(16, expectedNodes);
+        nodeByPos = new Long2IntOpenHashMap(capacity);
+        nodeByPos.defaultReturnValue(NOT_FOUND);
+        positions = new long[capacity];
+        parents = new int[capacity];
+        distances = new int[capacity];
+        closed = new boolean[capacity];
+    }
+
+    /**
+     * Runs a breadth-first search to completion.
+     * <p>
+     * The goal test runs when a node is dequeued, so the start itself may satisfy it. A neighbour is discovered at most once, the first
+     * time it is found traversable, which makes every reconstructed path a shortest path under the neighbour function.
+     *
+     * @param start packed start position; it need not be traversable
+     * @param goal test applied to each dequeued position
+     * @param neighbourFunction neighbour ordering
+     * @param traversable test applied once to each newly seen neighbour
+     * @param maxDistance maximum path distance from the start
+     * @param maxExpanded maximum number of nodes to expand before giving up
+     * @param onExpand optional callback receiving each expanded position, may be null
+     * @return node number of the goal, or {@link #NOT_FOUND}
+     */
+    int breadthFirst(long start, LongPredicate goal, NeighbourFunction neighbourFunction, LongPredicate traversable, int maxDistance,
+        int maxExpanded, LongConsumer onExpand)
+    {
+        beginBreadthFirst(start);
+        return resumeBreadthFirst(goal, neighbourFunction, traversable, maxDistance, maxExpanded, onExpand, NO_DEADLINE);
+    }
+
+    /**
+     * Queues the start of a breadth-first search that is then advanced by {@link #resumeBreadthFirst}.
+     *
+     * @param start packed start position; it need not be traversable
+     */
+    void beginBreadthFirst(long start)
+    {
+        discover(start, NO_PARENT, 0);
+    }
+
+    /**
+     * Advances a breadth-first search begun by {@link #beginBreadthFirst(long)} until it finishes or the deadline passes.
+     * <p>
+     * The queue position is kept between calls, so a paused search continues exactly where it stopped and reaches the same result as
+     * an uninterrupted one, provided every call passes the same tests and limits. The deadline is only checked every
+     * {@value #DEADLINE_CHECK_INTERVAL} expansions, so each call makes progress even when its deadline has already passed.
+     *
+     * @param goal test applied to each dequeued position
+     * @param neighbourFunction neighbour ordering
+     * @param traversable test applied once to each newly seen neighbour
+     * @param maxDistance maximum path distance from the start
+     * @param maxExpanded maximum number of nodes to expand before giving up
+     * @param onExpand optional callback receiving each expanded position, may be null
+     * @param deadlineNanos {@link System#nanoTime()} value after which the search should pause, or {@link #NO_DEADLINE}
+     * @return node number of the goal, {@link #NOT_FOUND}, or {@link #PAUSED}
+     */
+    int resumeBreadthFirst(LongPredicate goal, NeighbourFunction neighbourFunction, LongPredicate traversable, int maxDistance,
+        int maxExpanded, LongConsumer onExpand, long deadlineNanos)
+    {
+        int expandedThisCall = 0;
+
+        for (; breadthFirstCursor < nodeCount && expandedCount < maxExpanded; breadthFirstCursor++)
+        {
+            if (deadlineNanos != NO_DEADLINE
+                && expandedThisCall > 0
+                && expandedThisCall % DEADLINE_CHECK_INTERVAL == 0
+                && System.nanoTime() - deadlineNanos >= 0)
+            {
+                return PAUSED;
+            }
+
+            int cursor = breadthFirstCursor;
+            long current = positions[cursor];
+            if (goal.test(current)) return cursor;
+
+            expandedCount++;
+            expandedThisCall++;
+            if (onExpand != null) onExpand.accept(current);
+
+            int nextDistance = distances[cursor] + 1;
+            if (nextDistance > maxDistance) continue;
+
+            int count = neighbourFunction.neighbours(current, neighbourBuffer);
+            for (int i = 0; i < count; i++)
+            {
+                long next = neighbourBuffer[i];
+                if (nodeByPos.containsKey(next) || !traversable.test(next)) continue;
+                discover(next, cursor, nextDistance);
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    /**
+     * Runs an A* search with unit step costs.
+     * <p>
+     * Open nodes are ordered by estimated total cost, then by heuristic. A node may be re-queued with a shorter distance until it is
+     * expanded; stale heap entries are skipped when popped.
+     *
+     * @param start packed start position; it need not be traversable
+     * @param goal test applied to each expanded position
+     * @param neighbourFunction neighbour ordering
+     * @param traversable test applied to a neighbour whenever it could improve its known distance
+     * @param heuristic admissible estimate of the remaining distance
+     * @param maxDistance maximum path distance from the start
+     * @param maxExpanded maximum number of nodes to expand before giving up
+     * @return node number of the goal, or {@link #NOT_FOUND}
+     */
+    int aStar(long start, LongPredicate goal, NeighbourFunction neighbourFunction, LongPredicate traversable, LongToIntFunction heuristic,
+        int maxDistance, int maxExpanded)
+    {
+        NodeHeap open = new NodeHeap();
+
+        int startNode = discover(start, NO_PARENT, 0);
+        int startHeuristic = heuristic.applyAsInt(start);
+        open.push(startNode, startHeuristic, startHeuristic);
+
+        while (!open.isEmpty() && expandedCount < maxExpanded)
+        {
+            int node = open.pop();
+            if (closed[node]) continue;
+            closed[node] = true;
+
+            long current = positions[node];
+            if (distances[node] > maxDistance) continue;
+
+            expandedCount++;
+            if (goal.test(current)) return node;
+
+            int nextDistance = distances[node] + 1;
+            if (nextDistance > maxDistance) continue;
+
+            int count = neighbourFunction.neighbours(current, neighbourBuffer);
+            for (int i = 0; i < count; i++)
+            {
+                long next = neighbourBuffer[i];
+                int existing = nodeByPos.get(next);
+                if (existing != NOT_FOUND && (closed[existing] || nextDistance >= distances[existing])) continue;
+                if (!traversable.test(next)) continue;
+
+                int nextNode;
+                if (existing == NOT_FOUND)
+                {
+                    nextNode = discover(next, node, nextDistance);
+                }
+                else
+                {
+                    nextNode = existing;
+                    parents[nextNode] = node;
+                    distances[nextNode] = nextDistance;
+                }
+
+                int estimate = heuristic.applyAsInt(next);
+                open.push(nextNode, nextDistance + estimate, estimate);
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    /**
+     * Reconstructs the endpoint-inclusive path ending at a goal node. When the goal node only touches the requested end, the end is
+     * appended so callers see the full span.
+     *
+     * @param goalNode node returned by a search
+     * @param end packed requested end position
+     * @return immutable ordered path from the start
+     */
+    List<BlockPos> path(int goalNode, long end)
+    {
+        List<BlockPos> path = new ArrayList<>();
+        for (int node = goalNode; node != NO_PARENT; node = parents[node])
+        {
+            path.add(BlockPos.of(positions[node]));
+        }
+        Collections.reverse(path);
+
+        if (positions[goalNode] != end)
+        {
+            path.add(BlockPos.of(end));
+        }
+        return Collections.unmodifiableList(path);
+    }
+
+    /**
+     * @return number of nodes expanded by the search
+     */
+    int expandedCount()
+    {
+        return expandedCount;
+    }
+
+    /**
+     * @return number of nodes discovered but not yet expanded by a breadth-first search
+     */
+    int pendingCount()
+    {
+        return nodeCount - expandedCount;
+    }
+
+    /**
+     * Passes every discovered position, including the start, to a consumer in discovery order.
+     *
+     * @param consumer receiver of packed positions
+     */
+    void forEachDiscovered(LongConsumer consumer)
+    {
+        for (int i = 0; i < nodeCount; i++)
+        {
+            consumer.accept(positions[i]);
+        }
+    }
+
+    /**
+     * @param a first packed position
+     * @param b second packed position
+     * @return Manhattan distance between the positions, including the vertical axis
+     */
+    static int manhattan(long a, long b)
+    {
+        return Math.abs(BlockPos.getX(a) - BlockPos.getX(b))
+            + Math.abs(BlockPos.getY(a) - BlockPos.getY(b))
+            + Math.abs(BlockPos.getZ(a) - BlockPos.getZ(b));
+    }
+
+    /**
+     * @param a first packed position
+     * @param b second packed position
+     * @return true when the positions are equal or touch, including diagonally
+     */
+    static boolean touches(long a, long b)
+    {
+        return Math.abs(BlockPos.getX(a) - BlockPos.getX(b)) <= 1
+            && Math.abs(BlockPos.getY(a) - BlockPos.getY(b)) <= 1
+            && Math.abs(BlockPos.getZ(a) - BlockPos.getZ(b)) <= 1;
+    }
+
+    /**
+     * @param a first packed position
+     * @param b second packed position
+     * @return Euclidean distance between the positions
+     */
+    static double distance(long a, long b)
+    {
+        int dx = BlockPos.getX(a) - BlockPos.getX(b);
+        int dy = BlockPos.getY(a) - BlockPos.getY(b);
+        int dz = BlockPos.getZ(a) - BlockPos.getZ(b);
+        return Math.sqrt(dx * dx + dy * dy + dz * dz);
+    }
+
+    /**
+     * Registers a newly discovered node, growing the node arrays as needed.
+     */
+    private int discover(long pos, int parent, int distance)
+    {
+        if (nodeCount == positions.length)
+        {
+            int capacity = positions.length * 2;
+            positions = Arrays.copyOf(positions, capacity);
+            parents = Arrays.copyOf(parents, capacity);
+            distances = Arrays.copyOf(distances, capacity);
+            closed = Arrays.copyOf(closed, capacity);
+        }
+
+        int node = nodeCount++;
+        positions[node] = pos;
+        parents[node] = parent;
+        distances[node] = distance;
+        nodeByPos.put(pos, node);
+        return node;
+    }
+
+    /**
+     * Binary min-heap of node numbers ordered by estimated total cost, then heuristic. Both keys are packed into one {@code long}.
+     */
+    private static final class NodeHeap
+    {
+        private int[] nodes = new int[64];
+        private long[] keys = new long[64];
+        private int size = 0;
+
+        boolean isEmpty()
+        {
+            return size == 0;
+        }
+
+        void push(int node, int score, int heuristic)
+        {
+            if (size == nodes.length)
+            {
+                nodes = Arrays.copyOf(nodes, size * 2);
+                keys = Arrays.copyOf(keys, size * 2);
+            }
+
+            long key = ((long) score << 32) | (heuristic & 0xFFFFFFFFL);
+            int i = size++;
+            while (i > 0)
+            {
+                int up = (i - 1) >>> 1;
+                if (keys[up] <= key) break;
+                nodes[i] = nodes[up];
+                keys[i] = keys[up];
+                i = up;
+            }
+            nodes[i] = node;
+            keys[i] = key;
+        }
+
+        int pop()
+        {
+            int result = nodes[0];
+            size--;
+            if (size == 0) return result;
+
+            int node = nodes[size];
+            long key = keys[size];
+            int i = 0;
+            while (true)
+            {
+                int child = (i << 1) + 1;
+                if (child >= size) break;
+                if (child + 1 < size && keys[child + 1] < keys[child]) child++;
+                if (keys[child] >= key) break;
+                nodes[i] = nodes[child];
+                keys[i] = keys[child];
+                i = child;
+            }
+            nodes[i] = node;
+            keys[i] = key;
+            return result;
+        }
+    }
+}
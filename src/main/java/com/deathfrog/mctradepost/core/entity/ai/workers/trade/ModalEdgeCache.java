@@ -0,0 +1,185 @@
+package com.deathfrog.mctradepost.core.entity.ai.workers.trade;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.deathfrog.mctradepost.MCTradePostMod;
+import com.deathfrog.mctradepost.api.util.TraceUtils;
+
+import net.minecraft.core.BlockPos;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.Level;
+
+import static com.deathfrog.mctradepost.api.util.TraceUtils.TRACE_TRACKPATH;
+
+/**
+ * In-memory, per-dimension cache of modal edge searches between route-graph nodes.
+ * <p>
+ * {@link MultimodalRouteConnection} evaluates rail, road and water edges between endpoints, docks and interchanges, and the same node
+ * pairs recur across route requests and across the legs of one dimension-aware search. Entries are keyed by mode and packed endpoint
+ * positions and survive between route requests until they expire or a relevant change invalidates them:
+ * <ul>
+ * <li>dock or interchange registry changes clear the dimension;</li>
+ * <li>a broken rail or road drops connected entries whose path contains the position;</li>
+ * <li>a placed rail or road drops disconnected entries of that mode.</li>
+ * </ul>
+ * Blocks changed without an entity event (and water changes) are not observed, so every entry is only trusted for
+ * {@link #ENTRY_TTL_TICKS}. Cached routes are still validated by their consumers before use.
+ */
+public final class ModalEdgeCache
+{
+    /** Ticks for which a cached edge is trusted without re-searching. */
+    public static final long ENTRY_TTL_TICKS = 6000L;
+    private static final int MAX_ENTRIES_PER_DIMENSION = 4096;
+    private static final Map<ResourceKey<Level>, ModalEdgeCache> CACHES = new HashMap<>();
+
+    /** Transport mode searched for an edge. */
+    public enum Mode { RAIL, ROAD, WATER }
+
+    /**
+     * Cached outcome of one modal search.
+     *
+     * @param segment connecting segment, or null when the search did not connect
+     * @param loadedChunks whether the search was allowed to load chunks
+     * @param checkedAt game time of the search
+     */
+    public record Entry(TrackRoute.Segment segment, boolean loadedChunks, long checkedAt)
+    {
+        /** @return whether the cached search connected its endpoints */
+        public boolean connected()
+        {
+            return segment != null;
+        }
+    }
+
+    private record EdgeKey(Mode mode, long from, long to) { }
+
+    private final LinkedHashMap<EdgeKey, Entry> entries = new LinkedHashMap<>(64, 0.75f, true)
+    {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<EdgeKey, Entry> eldest)
+        {
+            return size() > MAX_ENTRIES_PER_DIMENSION;
+        }
+    };
+
+    private ModalEdgeCache() { }
+
+    /**
+     * Returns the edge cache for a level, creating it on first use.
+     *
+     * @param level level whose edges are cached
+     * @return the level's edge cache
+     */
+    public static ModalEdgeCache get(ServerLevel level)
+    {
+        return CACHES.computeIfAbsent(level.dimension(), key -> new ModalEdgeCache());
+    }
+
+    /**
+     * Discards every cached edge in every dimension. Called when the server stops so that one world's edges never leak into another.
+     */
+    public static void clearAll()
+    {
+        CACHES.clear();
+    }
+
+    /**
+     * Looks up a usable cached edge.
+     * <p>
+     * Disconnected entries recorded without chunk loading are not reused by a search that may load chunks, because the earlier search
+     * may have stopped at an unloaded chunk.
+     *
+     * @param mode transport mode
+     * @param from search start
+     * @param to search end
+     * @param loadChunks whether the requesting search may load chunks
+     * @param now current game time
+     * @return the cached entry, or null when the edge must be searched
+     */
+    public Entry lookup(Mode mode, BlockPos from, BlockPos to, boolean loadChunks, long now)
+    {
+        EdgeKey key = new EdgeKey(mode, from.asLong(), to.asLong());
+        Entry entry = entries.get(key);
+        if (entry == null) return null;
+
+        if (now - entry.checkedAt() > ENTRY_TTL_TICKS || now < entry.checkedAt())
+        {
+            entries.remove(key);
+            return null;
+        }
+
+        if (!entry.connected() && loadChunks && !entry.loadedChunks()) return null;
+
+        return entry;
+    }
+
+    /**
+     * Records the outcome of a modal search.
+     *
+     * @param mode transport mode
+     * @param from search start
+     * @param to search end
+     * @param segment connecting segment, or null when the search did not connect
+     * @param loadedChunks whether the search was allowed to load chunks
+     * @param now current game time
+     */
+    public void put(Mode mode, BlockPos from, BlockPos to, TrackRoute.Segment segment, boolean loadedChunks, long now)
+    {
+        entries.put(new EdgeKey(mode, from.asLong(), to.asLong()), new Entry(segment, loadedChunks, now));
+    }
+
+    /**
+     * Clears the cache after a dock or interchange is added or removed, since the route graph's nodes have changed.
+     */
+    public void onRegistryChanged()
+    {
+        entries.clear();
+    }
+
+    /**
+     * Drops disconnected entries that a newly placed rail or road may now connect.
+     *
+     * @param mode mode of the placed block
+     */
+    public void onTrackedBlockPlaced(Mode mode)
+    {
+        entries.entrySet().removeIf(e -> e.getKey().mode() == mode && !e.getValue().connected());
+    }
+
+    /**
+     * Drops connected entries whose path runs through a broken rail or road.
+     *
+     * @param pos position of the broken block
+     */
+    public void onTrackedBlockBroken(BlockPos pos)
+    {
+        int before = entries.size();
+        entries.values().removeIf(entry -> entry.connected() && contains(entry.segment().path(), pos));
+        int removed = before - entries.size();
+        if (removed > 0)
+        {
+            TraceUtils.dynamicTrace(TRACE_TRACKPATH, () -> MCTradePostMod.LOGGER.warn("Modal edge cache dropped {} edges through {}", removed, pos));
+        }
+    }
+
+    /**
+     * Checks whether an interior path position matches a block position. Endpoints are ignored for the same reason as in route
+     * validation: they are connection blocks rather than traversable material.
+     *
+     * @param path endpoint-inclusive path
+     * @param pos position to find
+     * @return true when the position lies on the path interior
+     */
+    private static boolean contains(List<BlockPos> path, BlockPos pos)
+    {
+        for (int i = 1; i < path.size() - 1; i++)
+        {
+            if (pos.equals(path.get(i))) return true;
+        }
+        return false;
+    }
+}
@@ -1,24 +1,15 @@
 package com.deathfrog.mctradepost.core.entity.ai.workers.trade;
 
-import java.util.ArrayDeque;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
-import java.util.Queue;
-import java.util.Set;
-import java.util.PriorityQueue;
-import java.util.Comparator;
 import java.util.function.BiPredicate;
+import java.util.function.Predicate;
 
 import javax.annotation.Nonnull;
 
 import com.deathfrog.mctradepost.core.ModTags;
 import net.minecraft.core.BlockPos;
-import net.minecraft.core.Direction;
 import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.BlockGetter;
 import net.minecraft.tags.FluidTags;
 
 /**
@@ -41,8 +32,20 @@ public final class ModalPathConnection
      */
     public static List<BlockPos> road(ServerLevel level, @Nonnull BlockPos start, @Nonnull BlockPos end)
     {
-        return search(level, start, end, 10_000, true,
-            (world, pos) -> pos != null && world.getBlockState(pos).is(ModTags.BLOCKS.TRADE_ROADS_TAG));
+        return search(level, level::isLoaded, start, end, 10_000, true, ModalPathConnection::isRoad);
+    }
+
+    /**
+     * Finds a trade-road path between two positions in a world snapshot. Safe to call off the server thread.
+     *
+     * @param snapshot captured blocks containing the route
+     * @param start first position in the requested route
+     * @param end final position in the requested route
+     * @return an immutable ordered path including both endpoints, or an empty list when no path is found within the snapshot
+     */
+    public static List<BlockPos> road(RouteWorldSnapshot snapshot, @Nonnull BlockPos start, @Nonnull BlockPos end)
+    {
+        return search(snapshot, snapshot::isLoaded, start, end, 10_000, true, ModalPathConnection::isRoad);
     }
 
     /**
@@ -56,54 +59,59 @@ public final class ModalPathConnection
      */
     public static List<BlockPos> water(ServerLevel level, @Nonnull BlockPos start, @Nonnull BlockPos end, int maximumDistance)
     {
-        return waterAStar(level, start, end, maximumDistance);
+        return waterAStar(level, pos ->
+        {
+            if (!level.isLoaded(pos)) level.getChunkAt(pos);
+            return true;
+        }, start, end, maximumDistance);
+    }
+
+    /**
+     * Finds a surface-water path between two positions in a world snapshot. Safe to call off the server thread.
+     *
+     * @param snapshot captured blocks containing the route
+     * @param start first position in the requested route
+     * @param end final position in the requested route
+     * @param maximumDistance maximum number of horizontal steps to explore from the start
+     * @return an immutable ordered path including both endpoints, or an empty list when no path is found within the snapshot
+     */
+    public static List<BlockPos> water(RouteWorldSnapshot snapshot, @Nonnull BlockPos start, @Nonnull BlockPos end, int maximumDistance)
+    {
+        return waterAStar(snapshot, snapshot::isLoaded, start, end, maximumDistance);
     }
 
     /**
      * Performs a bounded A* search over unobstructed surface-water blocks.
+     *
+     * @param loaded makes a position readable, returning false when it cannot be
      */
     @SuppressWarnings("null")
-    private static List<BlockPos> waterAStar(ServerLevel level, @Nonnull BlockPos start, @Nonnull BlockPos end, int maximumDistance)
+    private static List<BlockPos> waterAStar(BlockGetter level, Predicate<BlockPos> loaded, @Nonnull BlockPos start, @Nonnull BlockPos end,
+        int maximumDistance)
     {
-        PriorityQueue<WaterNode> open = new PriorityQueue<>(Comparator.comparingInt(WaterNode::score).thenComparingInt(WaterNode::heuristic));
-        Map<BlockPos, BlockPos> parent = new HashMap<>();
-        Map<BlockPos, Integer> best = new HashMap<>();
-        Set<BlockPos> visited = new HashSet<>();
-        best.put(start.immutable(), 0);
-        open.add(new WaterNode(start.immutable(), 0, start.distManhattan(end), start.distManhattan(end)));
-        while (!open.isEmpty() && visited.size() < MAX_VISITED)
-        {
-            WaterNode node = open.remove();
-            BlockPos current = node.position();
-            if (!visited.add(current) || node.distance() > maximumDistance) continue;
-            if (current.equals(end) || current.distManhattan(end) == 1) return rebuild(parent, current, start, end);
-            for (Direction direction : Direction.Plane.HORIZONTAL)
+        GridSearch search = new GridSearch(4096);
+        BlockPos.MutableBlockPos cursor = new BlockPos.MutableBlockPos();
+        BlockPos.MutableBlockPos above = new BlockPos.MutableBlockPos();
+        long endKey = end.asLong();
+
+        int goal = search.aStar(start.asLong(),
+            pos -> pos == endKey || GridSearch.manhattan(pos, endKey) == 1,
+            GridSearch.HORIZONTAL,
+            pos ->
             {
-                if (direction == null) continue;
-
-                BlockPos next = current.relative(direction);
-
-                if (next == null) continue;
-
-                int nextDistance = node.distance() + 1;
-                if (nextDistance > maximumDistance || visited.contains(next)) continue;
-                if (!level.isLoaded(next)) level.getChunkAt(next);
-                boolean navigable = next.equals(end) ||
-                    (level.getFluidState(next).is(FluidTags.WATER) && level.getBlockState(next.above()).getCollisionShape(level, next.above()).isEmpty());
-                if (!navigable || nextDistance >= best.getOrDefault(next, Integer.MAX_VALUE)) continue;
-                BlockPos immutable = next.immutable();
-                best.put(immutable, nextDistance);
-                parent.put(immutable, current);
-                int heuristic = immutable.distManhattan(end);
-                open.add(new WaterNode(immutable, nextDistance, nextDistance + heuristic, heuristic));
-            }
-        }
-        return List.of();
+                if (pos == endKey) return true;
+                cursor.set(pos);
+                if (!loaded.test(cursor)) return false;
+                above.setWithOffset(cursor, 0, 1, 0);
+                return level.getFluidState(cursor).is(FluidTags.WATER) && level.getBlockState(above).getCollisionShape(level, above).isEmpty();
+            },
+            pos -> GridSearch.manhattan(pos, endKey),
+            maximumDistance,
+            MAX_VISITED);
+
+        return goal == GridSearch.NOT_FOUND ? List.of() : search.path(goal, endKey);
     }
 
-    /** Search state for the water-path priority queue. */
-    private record WaterNode(BlockPos position, int distance, int score, int heuristic) { }
-
     /**
      * Checks whether the loaded interior positions of a cached road or water segment remain traversable.
      * <p>
@@ -147,67 +155,39 @@ public final class ModalPathConnection
     }
 
     /**
-     * Performs a bounded breadth-first search using the supplied traversal rule.
+     * Checks whether a position holds a tagged trade-road block.
      */
     @SuppressWarnings("null")
-    private static List<BlockPos> search(ServerLevel level, @Nonnull BlockPos start, @Nonnull BlockPos end, int maxDistance, boolean slopes,
-        BiPredicate<ServerLevel, BlockPos> traversable)
+    private static boolean isRoad(BlockGetter world, BlockPos pos)
     {
-        Queue<BlockPos> queue = new ArrayDeque<>();
-        Map<BlockPos, BlockPos> parent = new HashMap<>();
-        Map<BlockPos, Integer> distance = new HashMap<>();
-        Set<BlockPos> visited = new HashSet<>();
-        queue.add(start.immutable());
-        distance.put(start.immutable(), 0);
-        while (!queue.isEmpty() && visited.size() < MAX_VISITED)
-        {
-            BlockPos current = queue.remove();
-            int currentDistance = distance.getOrDefault(current, 0);
-            if (!visited.add(current) || currentDistance > maxDistance) continue;
-            if (current.equals(end) || current.distManhattan(end) == 1) return rebuild(parent, current, start, end);
-            for (Direction direction : Direction.Plane.HORIZONTAL)
-            {
-                if (direction == null) continue;
-
-                enqueue(level, current.relative(direction), current, currentDistance, maxDistance, end, traversable, queue, visited, parent, distance);
-                if (slopes)
-                {
-                    enqueue(level, current.relative(direction).above(), current, currentDistance, maxDistance, end, traversable, queue, visited, parent, distance);
-                    enqueue(level, current.relative(direction).below(), current, currentDistance, maxDistance, end, traversable, queue, visited, parent, distance);
-                }
-            }
-        }
-        return List.of();
+        return pos != null && world.getBlockState(pos).is(ModTags.BLOCKS.TRADE_ROADS_TAG);
     }
 
     /**
-     * Adds a neighboring position to a breadth-first search when it is loaded, traversable, and not already discovered.
-     */
-    private static void enqueue(ServerLevel level, @Nonnull BlockPos next, @Nonnull BlockPos from, int currentDistance, int maxDistance, BlockPos end,
-        BiPredicate<ServerLevel, BlockPos> traversable, Queue<BlockPos> queue, Set<BlockPos> visited, Map<BlockPos, BlockPos> parent,
-        Map<BlockPos, Integer> distance)
-    {
-        int nextDistance = currentDistance + 1;
-        if (nextDistance > maxDistance || visited.contains(next) || !level.isLoaded(next)) return;
-        if (!next.equals(end) && !traversable.test(level, next)) return;
-        BlockPos immutable = next.immutable();
-        if (distance.putIfAbsent(immutable, nextDistance) == null)
-        {
-            parent.put(immutable, from);
-            queue.add(immutable);
-        }
-    }
-
-    /**
-     * Reconstructs an immutable endpoint-inclusive path from a search's parent map.
+     * Performs a bounded breadth-first search using the supplied traversal rule.
+     *
+     * @param loaded whether a position may be read; unreadable positions are not traversed
      */
-    private static List<BlockPos> rebuild(Map<BlockPos, BlockPos> parent, BlockPos current, BlockPos start, BlockPos end)
+    @SuppressWarnings("null")
+    private static List<BlockPos> search(BlockGetter level, Predicate<BlockPos> loaded, @Nonnull BlockPos start, @Nonnull BlockPos end,
+        int maxDistance, boolean slopes, BiPredicate<BlockGetter, BlockPos> traversable)
     {
-        List<BlockPos> path = new ArrayList<>();
-        for (BlockPos cursor = current; cursor != null && !cursor.equals(start); cursor = parent.get(cursor)) path.add(cursor);
-        path.add(start);
-        Collections.reverse(path);
-        if (!path.get(path.size() - 1).equals(end)) path.add(end);
-        return Collections.unmodifiableList(path);
+        GridSearch search = new GridSearch(1024);
+        BlockPos.MutableBlockPos cursor = new BlockPos.MutableBlockPos();
+        long endKey = end.asLong();
+
+        int goal = search.breadthFirst(start.asLong(),
+            pos -> pos == endKey || GridSearch.manhattan(pos, endKey) == 1,
+            slopes ? GridSearch.HORIZONTAL_WITH_SLOPES : GridSearch.HORIZONTAL,
+            pos ->
+            {
+                cursor.set(pos);
+                return loaded.test(cursor) && (pos == endKey || traversable.test(level, cursor));
+            },
+            maxDistance,
+            MAX_VISITED,
+            null);
+
+        return goal == GridSearch.NOT_FOUND ? List.of() : search.path(goal, endKey);
     }
 }
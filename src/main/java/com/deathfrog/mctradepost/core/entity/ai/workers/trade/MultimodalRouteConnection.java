@@ -1,11 +1,13 @@
 package com.deathfrog.mctradepost.core.entity.ai.workers.trade;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
 
 import javax.annotation.Nonnull;
 
@@ -13,8 +15,12 @@ import com.deathfrog.mctradepost.MCTradePostMod;
 import com.deathfrog.mctradepost.MCTPConfig;
 import com.deathfrog.mctradepost.core.blocks.BlockTradeDock;
 import com.deathfrog.mctradepost.core.entity.ai.workers.trade.TrackPathConnection.TrackConnectionResult;
+import net.minecraft.Util;
 import net.minecraft.core.BlockPos;
+import net.minecraft.resources.ResourceKey;
 import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.BlockGetter;
+import net.minecraft.world.level.Level;
 import net.minecraft.world.level.block.state.BlockState;
 
 /**
@@ -26,6 +32,7 @@ import net.minecraft.world.level.block.state.BlockState;
 public final class MultimodalRouteConnection
 {
     private static final int MAX_DOCK_CANDIDATES = 32;
+    private static final int SNAPSHOT_MARGIN_CHUNKS = 2;
     private MultimodalRouteConnection() { }
 
     /**
@@ -50,137 +57,567 @@ public final class MultimodalRouteConnection
      *
      * @param allowWater whether dock-to-dock water edges may be considered
      */
-    @SuppressWarnings("null")
     public static TrackConnectionResult findRoute(ServerLevel level, @Nonnull BlockPos start, @Nonnull BlockPos end,
         boolean loadChunks, boolean allowWater)
     {
-        List<Node> nodes = new ArrayList<>();
-        nodes.add(endpointNode(level, start));
-
-        TradeDockRegistry.get(level).docks().stream()
-            .filter(pos -> !pos.equals(start) && !pos.equals(end) && level.getBlockState(pos).is(MCTradePostMod.TRADE_DOCK.get()))
-            .sorted(Comparator.comparingDouble(pos -> Math.min(pos.distSqr(start), pos.distSqr(end))))
-            .limit(MAX_DOCK_CANDIDATES)
-            .forEach(pos -> nodes.add(new Node(pos, level.getBlockState(pos), NodeType.DOCK)));
-
-        TradeInterchangeRegistry.get(level).interchanges().stream()
-            .filter(pos -> !pos.equals(start) && !pos.equals(end) && level.getBlockState(pos).is(MCTradePostMod.TRADE_INTERCHANGE.get()))
-            .sorted(Comparator.comparingDouble(pos -> Math.min(pos.distSqr(start), pos.distSqr(end))))
-            .limit(MAX_DOCK_CANDIDATES)
-            .forEach(pos -> nodes.add(new Node(pos, level.getBlockState(pos), NodeType.INTERCHANGE)));
-            
-        nodes.add(endpointNode(level, end));
-
-        int destination = nodes.size() - 1;
-        Map<Integer, Integer> best = new HashMap<>();
-        Map<Integer, Previous> previous = new HashMap<>();
-        PriorityQueue<QueueEntry> open = new PriorityQueue<>(Comparator.comparingInt(QueueEntry::distance));
-        best.put(0, 0);
-        open.add(new QueueEntry(0, 0));
-
-        while (!open.isEmpty())
-        {
-            QueueEntry current = open.remove();
-            if (current.distance() != best.getOrDefault(current.index(), Integer.MAX_VALUE)) continue;
-            if (current.index() == destination) break;
-
-            for (int next = 0; next < nodes.size(); next++)
+        Search search = new Search(level, start, end, loadChunks, allowWater);
+        search.step(Search.UNBOUNDED);
+        return search.result();
+    }
+
+    /**
+     * Starts a multimodal route search on a background worker against a snapshot of the loaded chunks around the route.
+     * <p>
+     * The snapshot covers the endpoints and the dock and interchange candidates a live search would consider, plus a small margin. It
+     * is captured on the calling (server) thread; nothing else touches the level, the rail network index or the edge cache.
+     *
+     * @param level level containing both route endpoints
+     * @param start starting position of the route
+     * @param end destination position of the route
+     * @param allowWater whether dock-to-dock water edges may be considered
+     * @return a future completing with a connected result, a disconnected result the snapshot fully explains, or null when the search
+     *         left the snapshot and must be repeated live; null instead of a future when the area is too large to capture
+     */
+    public static CompletableFuture<TrackConnectionResult> findRouteOffThread(ServerLevel level, @Nonnull BlockPos start,
+        @Nonnull BlockPos end, boolean allowWater)
+    {
+        List<BlockPos> anchors = new ArrayList<>();
+        anchors.add(start);
+        anchors.add(end);
+        Comparator<BlockPos> nearest = Comparator.comparingDouble(pos -> Math.min(pos.distSqr(start), pos.distSqr(end)));
+        TradeDockRegistry.get(level).docks().stream().sorted(nearest).limit(MAX_DOCK_CANDIDATES).forEach(anchors::add);
+        TradeInterchangeRegistry.get(level).interchanges().stream().sorted(nearest).limit(MAX_DOCK_CANDIDATES).forEach(anchors::add);
+
+        RouteWorldSnapshot snapshot = RouteWorldSnapshot.capture(level, anchors, SNAPSHOT_MARGIN_CHUNKS, MCTPConfig.routeSnapshotMaxChunks.get());
+        if (snapshot == null) return null;
+
+        return CompletableFuture.supplyAsync(() ->
+        {
+            Search search = new Search(snapshot, start, end, allowWater);
+            search.step(Search.UNBOUNDED);
+            TrackConnectionResult found = search.result();
+            return found.isConnected() || !snapshot.incomplete() ? found : null;
+        }, Util.backgroundExecutor());
+    }
+
+    /**
+     * Resumable shortest-path search over the multimodal route graph.
+     * <p>
+     * Graph nodes are gathered when the search is created and ordered by A* using a horizontal Manhattan lower bound, so hubs that
+     * cannot lie on a shorter route than the best one found are never expanded and their edges are never searched. Each call to
+     * {@link #step(long)} then evaluates edges one at a time, each being a rail, road or water pathfind unless cached, until the
+     * route is resolved or the deadline passes. A live rail pathfind can itself pause at the deadline and resume on the next call.
+     * Search state is kept between calls so a caller can spread one route search over several server ticks.
+     */
+    public static final class Search
+    {
+        /** Deadline value meaning the search should run to completion. */
+        public static final long UNBOUNDED = Long.MAX_VALUE;
+
+        private final ResourceKey<Level> dimension;
+        private final long gameTime;
+        private final EdgeFunction edges;
+        private final BlockPos start;
+        private final BlockPos end;
+        private final List<Node> nodes = new ArrayList<>();
+        private final int destination;
+        private final Map<Integer, Integer> best = new HashMap<>();
+        private final Map<Integer, Previous> previous = new HashMap<>();
+        private final PriorityQueue<QueueEntry> open =
+            new PriorityQueue<>(Comparator.comparingInt(QueueEntry::priority).thenComparingInt(QueueEntry::distance));
+        private QueueEntry current = null;
+        private int nextIndex = 0;
+        private EdgeEvaluation pendingEdge = null;
+        private int pendingTarget = 0;
+        private TrackConnectionResult result = null;
+
+        /**
+         * Gathers graph nodes for a route search without evaluating any edges.
+         *
+         * @param level level containing both route endpoints
+         * @param start starting position of the route
+         * @param end destination position of the route
+         * @param loadChunks whether rail pathfinding may load chunks while searching
+         * @param allowWater whether dock-to-dock water edges may be considered
+         */
+        public Search(ServerLevel level, @Nonnull BlockPos start, @Nonnull BlockPos end, boolean loadChunks, boolean allowWater)
+        {
+            this(level.dimension(), level.getGameTime(), level, TradeDockRegistry.get(level).docks(),
+                TradeInterchangeRegistry.get(level).interchanges(), start, end,
+                (from, to) -> new LiveEdge(level, from, to, loadChunks, allowWater));
+        }
+
+        /**
+         * Gathers graph nodes for a route search over a world snapshot. The search may then be stepped off the server thread; edges are
+         * neither read from nor written to the {@link ModalEdgeCache}.
+         *
+         * @param snapshot captured blocks and registries containing both route endpoints
+         * @param start starting position of the route
+         * @param end destination position of the route
+         * @param allowWater whether dock-to-dock water edges may be considered
+         */
+        public Search(RouteWorldSnapshot snapshot, @Nonnull BlockPos start, @Nonnull BlockPos end, boolean allowWater)
+        {
+            this(snapshot.dimension(), snapshot.gameTime(), snapshot, snapshot.docks(), snapshot.interchanges(), start, end,
+                (from, to) -> EdgeEvaluation.finished(edge(snapshot, from, to, allowWater)));
+        }
+
+        @SuppressWarnings("null")
+        private Search(ResourceKey<Level> dimension,
+            long gameTime,
+            BlockGetter world,
+            Collection<BlockPos> docks,
+            Collection<BlockPos> interchanges,
+            @Nonnull BlockPos start,
+            @Nonnull BlockPos end,
+            EdgeFunction edges)
+        {
+            this.dimension = dimension;
+            this.gameTime = gameTime;
+            this.edges = edges;
+            this.start = start;
+            this.end = end;
+
+            nodes.add(endpointNode(world, start));
+
+            docks.stream()
+                .filter(pos -> !pos.equals(start) && !pos.equals(end) && world.getBlockState(pos).is(MCTradePostMod.TRADE_DOCK.get()))
+                .sorted(Comparator.comparingDouble(pos -> Math.min(pos.distSqr(start), pos.distSqr(end))))
+                .limit(MAX_DOCK_CANDIDATES)
+                .forEach(pos -> nodes.add(new Node(pos, world.getBlockState(pos), NodeType.DOCK)));
+
+            interchanges.stream()
+                .filter(pos -> !pos.equals(start) && !pos.equals(end) && world.getBlockState(pos).is(MCTradePostMod.TRADE_INTERCHANGE.get()))
+                .sorted(Comparator.comparingDouble(pos -> Math.min(pos.distSqr(start), pos.distSqr(end))))
+                .limit(MAX_DOCK_CANDIDATES)
+                .forEach(pos -> nodes.add(new Node(pos, world.getBlockState(pos), NodeType.INTERCHANGE)));
+
+            nodes.add(endpointNode(world, end));
+
+            destination = nodes.size() - 1;
+            best.put(0, 0);
+            open.add(new QueueEntry(0, 0, remainingLowerBound(start, end)));
+        }
+
+        /**
+         * Evaluates edges until the search finishes or the deadline passes. Each call makes progress on at least one edge; an edge
+         * whose rail pathfind paused is continued by the next call.
+         *
+         * @param deadlineNanos {@link System#nanoTime()} value after which the search should pause, or {@link #UNBOUNDED}
+         * @return true when the search has finished and {@link #result()} is available
+         */
+        public boolean step(long deadlineNanos)
+        {
+            while (result == null)
             {
-                if (next == current.index()) continue;
+                if (pendingEdge == null)
+                {
+                    if (current == null)
+                    {
+                        if (open.isEmpty())
+                        {
+                            result = buildResult();
+                            break;
+                        }
+
+                        QueueEntry entry = open.remove();
+                        if (entry.distance() != best.getOrDefault(entry.index(), Integer.MAX_VALUE)) continue;
+                        if (entry.index() == destination)
+                        {
+                            result = buildResult();
+                            break;
+                        }
+                        current = entry;
+                        nextIndex = 0;
+                    }
+
+                    if (nextIndex >= nodes.size())
+                    {
+                        current = null;
+                        continue;
+                    }
+
+                    // The destination edge is tried first so that its distance can prune every other candidate.
+                    int next = nextIndex == 0 ? destination : nextIndex - 1;
+                    nextIndex++;
+                    if (next == current.index() || !canImprove(current, next)) continue;
+
+                    pendingTarget = next;
+                    pendingEdge = edges.begin(nodes.get(current.index()), nodes.get(next));
+                }
 
-                TrackRoute.Segment edge = edge(level, nodes.get(current.index()), nodes.get(next), loadChunks, allowWater);
+                if (!pendingEdge.step(deadlineNanos)) return false;
 
-                if (edge == null) continue;
+                TrackRoute.Segment edge = pendingEdge.segment();
+                int next = pendingTarget;
+                pendingEdge = null;
 
-                int candidate = current.distance() + edge.distance();
+                if (edge != null)
+                {
+                    int candidate = current.distance() + edge.distance();
+
+                    if (candidate < best.getOrDefault(next, Integer.MAX_VALUE))
+                    {
+                        best.put(next, candidate);
+                        previous.put(next, new Previous(current.index(), edge));
+                        open.add(new QueueEntry(next, candidate, candidate + remainingLowerBound(nodes.get(next).position(), end)));
+                    }
+                }
 
-                if (candidate < best.getOrDefault(next, Integer.MAX_VALUE))
+                if (deadlineNanos != UNBOUNDED && System.nanoTime() - deadlineNanos >= 0)
                 {
-                    best.put(next, candidate);
-                    previous.put(next, new Previous(current.index(), edge));
-                    open.add(new QueueEntry(next, candidate));
+                    return result != null;
                 }
             }
+            return true;
         }
 
-        if (!best.containsKey(destination)) return new TrackConnectionResult(false, start, List.of(), level.getGameTime());
-        List<TrackRoute.Segment> segments = new ArrayList<>();
-        List<Integer> routeNodes = new ArrayList<>();
-        routeNodes.add(destination);
+        /**
+         * Abandons an unfinished search, releasing any chunk tickets held by a paused rail pathfind.
+         */
+        public void cancel()
+        {
+            if (pendingEdge != null)
+            {
+                pendingEdge.cancel();
+                pendingEdge = null;
+            }
+        }
 
-        for (int cursor = destination; cursor != 0; )
+        /**
+         * Checks, without pathfinding, whether an edge from the current node could still shorten the route to its target node or to
+         * the destination.
+         *
+         * @param from queue entry being expanded
+         * @param next candidate target node index
+         * @return false when the edge can be skipped
+         */
+        private boolean canImprove(QueueEntry from, int next)
         {
-            Previous step = previous.get(cursor);
-            if (step == null) return new TrackConnectionResult(false, start, List.of(), level.getGameTime());
-            segments.add(0, step.segment());
-            cursor = step.node();
-            routeNodes.add(0, cursor);
+            BlockPos fromPos = nodes.get(from.index()).position();
+            BlockPos nextPos = nodes.get(next).position();
+            int reach = from.distance() + edgeLowerBound(fromPos, nextPos);
+            if (reach >= best.getOrDefault(next, Integer.MAX_VALUE)) return false;
+            return next == destination || reach + remainingLowerBound(nextPos, end) < best.getOrDefault(destination, Integer.MAX_VALUE);
         }
 
-        List<TrackRoute.Segment> withDocks = new ArrayList<>();
-        for (int i = 0; i < segments.size(); i++)
+        /**
+         * @return the finished route result, or null while the search is still in progress
+         */
+        public TrackConnectionResult result()
         {
-            if (i > 0 && nodes.get(routeNodes.get(i)).isDock())
+            return result;
+        }
+
+        /**
+         * Reconstructs the selected route once the search has settled the destination or exhausted the graph.
+         *
+         * @return a connected result containing the segmented route, or a disconnected result when no route is available
+         */
+        @SuppressWarnings("null")
+        private TrackConnectionResult buildResult()
+        {
+            if (!best.containsKey(destination)) return new TrackConnectionResult(false, start, List.of(), gameTime);
+            List<TrackRoute.Segment> segments = new ArrayList<>();
+            List<Integer> routeNodes = new ArrayList<>();
+            routeNodes.add(destination);
+
+            for (int cursor = destination; cursor != 0; )
             {
-                withDocks.add(TrackRoute.Segment.dock(level.dimension(), nodes.get(routeNodes.get(i)).position()));
+                Previous step = previous.get(cursor);
+                if (step == null) return new TrackConnectionResult(false, start, List.of(), gameTime);
+                segments.add(0, step.segment());
+                cursor = step.node();
+                routeNodes.add(0, cursor);
             }
-            else if (i > 0 && nodes.get(routeNodes.get(i)).isInterchange())
+
+            List<TrackRoute.Segment> withDocks = new ArrayList<>();
+            for (int i = 0; i < segments.size(); i++)
             {
-                withDocks.add(TrackRoute.Segment.interchange(level.dimension(), nodes.get(routeNodes.get(i)).position()));
+                if (i > 0 && nodes.get(routeNodes.get(i)).isDock())
+                {
+                    withDocks.add(TrackRoute.Segment.dock(dimension, nodes.get(routeNodes.get(i)).position()));
+                }
+                else if (i > 0 && nodes.get(routeNodes.get(i)).isInterchange())
+                {
+                    withDocks.add(TrackRoute.Segment.interchange(dimension, nodes.get(routeNodes.get(i)).position()));
+                }
+                withDocks.add(segments.get(i));
             }
-            withDocks.add(segments.get(i));
-        }
 
-        TrackRoute route = new TrackRoute(withDocks);
-        return new TrackConnectionResult(true, end, route.firstPath(), level.getGameTime(), route);
+            TrackRoute route = new TrackRoute(withDocks);
+            return new TrackConnectionResult(true, end, route.firstPath(), gameTime, route);
+        }
     }
 
     /**
      * Finds the shortest direct modal connection between two graph nodes.
      * <p>
      * Two docks may connect by water. All node pairs may connect by rail or road, with the shorter available land path selected.
+     * Each modal search is answered from the level's {@link ModalEdgeCache} when possible and recorded there otherwise. The rail
+     * pathfind, which may cover thousands of blocks and load chunks, pauses at the step deadline; water and road pathfinds are
+     * bounded by their own visit limits and run in a single step.
+     */
+    private static final class LiveEdge implements EdgeEvaluation
+    {
+        private final ServerLevel level;
+        private final Node from;
+        private final Node to;
+        private final boolean loadChunks;
+        private final ModalEdgeCache cache;
+        private final long now;
+        private TrackPathConnection.RailSearch railSearch = null;
+        private TrackRoute.Segment rail = null;
+        private TrackRoute.Segment segment = null;
+        private boolean done = false;
+
+        /**
+         * Starts evaluating an edge, finishing at once when it is a water edge or its rail leg is cached.
+         *
+         * @param level level containing the nodes
+         * @param from origin graph node
+         * @param to destination graph node
+         * @param loadChunks whether rail pathfinding may load chunks
+         * @param allowWater whether dock-to-dock water edges may be considered
+         */
+        @SuppressWarnings("null")
+        private LiveEdge(ServerLevel level, Node from, Node to, boolean loadChunks, boolean allowWater)
+        {
+            this.level = level;
+            this.from = from;
+            this.to = to;
+            this.loadChunks = loadChunks;
+            this.cache = ModalEdgeCache.get(level);
+            this.now = level.getGameTime();
+
+            if (allowWater && from.isDock() && to.isDock())
+            {
+                segment = water();
+                done = true;
+                return;
+            }
+
+            ModalEdgeCache.Entry cachedRail = cache.lookup(ModalEdgeCache.Mode.RAIL, from.rail(), to.rail(), loadChunks, now);
+            if (cachedRail != null)
+            {
+                rail = cachedRail.segment();
+            }
+            else
+            {
+                railSearch = new TrackPathConnection.RailSearch(level, from.rail(), to.rail(), loadChunks);
+            }
+        }
+
+        @Override
+        @SuppressWarnings("null")
+        public boolean step(long deadlineNanos)
+        {
+            if (done) return true;
+
+            if (railSearch != null)
+            {
+                if (!railSearch.step(deadlineNanos)) return false;
+
+                TrackConnectionResult result = railSearch.result();
+                railSearch = null;
+                rail = result.isConnected() ? TrackRoute.Segment.rail(level.dimension(), result.path) : null;
+                cache.put(ModalEdgeCache.Mode.RAIL, from.rail(), to.rail(), rail, loadChunks, now);
+            }
+
+            TrackRoute.Segment road = road();
+            segment = road != null && (rail == null || road.distance() < rail.distance()) ? road : rail;
+            done = true;
+            return true;
+        }
+
+        @Override
+        public TrackRoute.Segment segment()
+        {
+            return segment;
+        }
+
+        @Override
+        public void cancel()
+        {
+            if (railSearch != null)
+            {
+                railSearch.cancel();
+                railSearch = null;
+            }
+        }
+
+        /**
+         * @return the water segment between two docks, or {@code null} when they cannot be connected by water
+         */
+        @SuppressWarnings("null")
+        private TrackRoute.Segment water()
+        {
+            int limit = MCTPConfig.maximumWaterRouteDistance.get();
+            BlockPos waterFrom = from.water(level);
+            BlockPos waterTo = to.water(level);
+
+            if (waterTo == null || waterFrom == null) return null;
+            if (waterFrom.distSqr(waterTo) > (double) limit * limit) return null;
+
+            ModalEdgeCache.Entry cached = cache.lookup(ModalEdgeCache.Mode.WATER, waterFrom, waterTo, true, now);
+            if (cached != null) return cached.segment();
+
+            List<BlockPos> water = ModalPathConnection.water(level, waterFrom, waterTo, limit);
+            TrackRoute.Segment waterSegment = water.isEmpty() ? null : TrackRoute.Segment.water(level.dimension(), water);
+            cache.put(ModalEdgeCache.Mode.WATER, waterFrom, waterTo, waterSegment, true, now);
+            return waterSegment;
+        }
+
+        /**
+         * @return the road segment between the nodes, or {@code null} when they cannot be connected by road
+         */
+        @SuppressWarnings("null")
+        private TrackRoute.Segment road()
+        {
+            ModalEdgeCache.Entry cachedRoad = cache.lookup(ModalEdgeCache.Mode.ROAD, from.road(), to.road(), false, now);
+            if (cachedRoad != null) return cachedRoad.segment();
+
+            List<BlockPos> roadPath = ModalPathConnection.road(level, from.road(), to.road());
+            TrackRoute.Segment road = roadPath.isEmpty() ? null : TrackRoute.Segment.road(level.dimension(), roadPath);
+            cache.put(ModalEdgeCache.Mode.ROAD, from.road(), to.road(), road, false, now);
+            return road;
+        }
+    }
+
+    /**
+     * Finds the shortest direct modal connection between two graph nodes in a world snapshot, with the same mode rules as
+     * {@link LiveEdge}. Safe to call off the server thread.
      *
-     * @param level level containing the nodes
+     * @param snapshot captured blocks containing the nodes
      * @param from origin graph node
      * @param to destination graph node
-     * @param loadChunks whether rail pathfinding may load chunks
-     * @return the shortest connecting segment, or {@code null} when the nodes cannot be connected
+     * @return the shortest connecting segment, or {@code null} when the nodes cannot be connected within the snapshot
      */
     @SuppressWarnings("null")
-    private static TrackRoute.Segment edge(ServerLevel level, Node from, Node to, boolean loadChunks, boolean allowWater)
+    private static TrackRoute.Segment edge(RouteWorldSnapshot snapshot, Node from, Node to, boolean allowWater)
     {
         if (allowWater && from.isDock() && to.isDock())
         {
             int limit = MCTPConfig.maximumWaterRouteDistance.get();
-            BlockPos waterFrom = from.water(level);
-            BlockPos waterTo = to.water(level);
+            BlockPos waterFrom = from.water(snapshot);
+            BlockPos waterTo = to.water(snapshot);
 
             if (waterTo == null || waterFrom == null) return null;
             if (waterFrom.distSqr(waterTo) > (double) limit * limit) return null;
-            
-            List<BlockPos> water = ModalPathConnection.water(level, waterFrom, waterTo, limit);
-            return water.isEmpty() ? null : TrackRoute.Segment.water(level.dimension(), water);
+
+            List<BlockPos> water = ModalPathConnection.water(snapshot, waterFrom, waterTo, limit);
+            return water.isEmpty() ? null : TrackRoute.Segment.water(snapshot.dimension(), water);
         }
 
-        TrackConnectionResult rail = TrackPathConnection.arePointsConnectedByTracks(level, from.rail(), to.rail(), loadChunks);
-        TrackRoute.Segment best = rail.isConnected() ? TrackRoute.Segment.rail(level.dimension(), rail.path) : null;
-        List<BlockPos> road = ModalPathConnection.road(level, from.road(), to.road());
-        if (!road.isEmpty() && (best == null || road.size() - 1 < best.distance())) best = TrackRoute.Segment.road(level.dimension(), road);
+        TrackConnectionResult rail = TrackPathConnection.arePointsConnectedByTracks(snapshot, from.rail(), to.rail());
+        TrackRoute.Segment best = rail.isConnected() ? TrackRoute.Segment.rail(snapshot.dimension(), rail.path) : null;
+        List<BlockPos> road = ModalPathConnection.road(snapshot, from.road(), to.road());
+        if (!road.isEmpty() && (best == null || road.size() - 1 < best.distance())) best = TrackRoute.Segment.road(snapshot.dimension(), road);
         return best;
     }
 
+    /**
+     * Lower bound on the distance of any modal edge between two nodes.
+     * <p>
+     * Every rail, road and water step moves at most one block horizontally, except the final step of a path: the search accepts a
+     * cell diagonally touching the end and then appends the end, so that step can span two blocks. Each node's connection positions
+     * also lie at most one block from the node, so an edge is at least its horizontal Manhattan span less three, and never shorter
+     * than one step.
+     *
+     * @param from origin node position
+     * @param to destination node position
+     * @return minimum possible edge distance
+     */
+    static int edgeLowerBound(BlockPos from, BlockPos to)
+    {
+        return Math.max(1, horizontalManhattan(from, to) - 3);
+    }
+
+    /**
+     * Consistent A* heuristic for the remaining route distance from a node to the destination.
+     * <p>
+     * Because {@link #edgeLowerBound(BlockPos, BlockPos)} is at least a quarter of the horizontal span for every span, a quarter of
+     * the horizontal Manhattan distance never overestimates a route through any number of handoff nodes. A third would not do: an edge
+     * spanning four blocks may cost a single step while a third of the span drops by up to two.
+     *
+     * @param from node position
+     * @param end destination node position
+     * @return admissible estimate of the remaining distance
+     */
+    static int remainingLowerBound(BlockPos from, BlockPos end)
+    {
+        return horizontalManhattan(from, end) / 4;
+    }
+
+    /**
+     * @return horizontal Manhattan distance between two positions
+     */
+    private static int horizontalManhattan(BlockPos a, BlockPos b)
+    {
+        return Math.abs(a.getX() - b.getX()) + Math.abs(a.getZ() - b.getZ());
+    }
+
+    /** Begins evaluating the direct modal connection between two graph nodes for a {@link Search}. */
+    @FunctionalInterface
+    private interface EdgeFunction
+    {
+        EdgeEvaluation begin(Node from, Node to);
+    }
+
+    /** Evaluation of one graph edge, which may be spread over several {@link Search#step(long)} calls. */
+    private interface EdgeEvaluation
+    {
+        /**
+         * @param deadlineNanos {@link System#nanoTime()} value after which the evaluation should pause, or {@link Search#UNBOUNDED}
+         * @return true once {@link #segment()} is available
+         */
+        boolean step(long deadlineNanos);
+
+        /**
+         * @return the shortest connecting segment, or {@code null} when the nodes cannot be connected
+         */
+        TrackRoute.Segment segment();
+
+        /**
+         * Releases resources held by an unfinished evaluation.
+         */
+        default void cancel() { }
+
+        /**
+         * @param segment edge evaluated up front
+         * @return a finished evaluation of that edge
+         */
+        static EdgeEvaluation finished(TrackRoute.Segment segment)
+        {
+            return new EdgeEvaluation()
+            {
+                @Override
+                public boolean step(long deadlineNanos)
+                {
+                    return true;
+                }
+
+                @Override
+                public TrackRoute.Segment segment()
+                {
+                    return segment;
+                }
+            };
+        }
+    }
+
     /** Identifies the transport role of a route-graph node. */
     private enum NodeType { ENDPOINT, DOCK, INTERCHANGE }
 
     /**
      * Classifies a route endpoint according to the block currently occupying its position.
      *
-     * @param level level containing the endpoint
+     * @param level level or snapshot containing the endpoint
      * @param position endpoint position
      * @return a graph node representing an ordinary endpoint, dock, or interchange
      */
     @SuppressWarnings("null")
-    private static Node endpointNode(ServerLevel level, @Nonnull BlockPos position)
+    private static Node endpointNode(BlockGetter level, @Nonnull BlockPos position)
     {
         BlockState state = level.getBlockState(position);
         if (state.is(MCTradePostMod.TRADE_DOCK.get())) return new Node(position, state, NodeType.DOCK);
@@ -220,14 +657,18 @@ public final class MultimodalRouteConnection
         /**
          * Resolves the position from which water pathfinding should enter or leave this node.
          *
-         * @param level level containing the node
+         * @param level level or snapshot containing the node
          * @return the dock's water endpoint, or this node's position when it is not a dock
          */
-        BlockPos water(ServerLevel level) { return isDock() ? BlockTradeDock.waterEndpoint(level, state, position) : position; }
+        BlockPos water(BlockGetter level) { return isDock() ? BlockTradeDock.waterEndpoint(level, state, position) : position; }
     }
 
-    /** Priority-queue entry associating a graph node index with its best known route distance. */
-    private record QueueEntry(int index, int distance) { }
+    /**
+     * Priority-queue entry associating a graph node index with its best known route distance.
+     *
+     * @param priority route distance plus the admissible estimate of the distance still to go
+     */
+    private record QueueEntry(int index, int distance, int priority) { }
 
     /** Predecessor information used to reconstruct the selected route. */
     private record Previous(int node, TrackRoute.Segment segment) { }
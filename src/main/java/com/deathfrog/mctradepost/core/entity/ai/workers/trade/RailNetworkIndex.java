@@ -0,0 +1,402 @@
+package com.deathfrog.mctradepost.core.entity.ai.workers.trade;
+
+import java.util.List;
+
+import javax.annotation.Nonnull;
+
+import com.deathfrog.mctradepost.MCTradePostMod;
+
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.HolderLookup;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.ListTag;
+import net.minecraft.nbt.LongArrayTag;
+import net.minecraft.nbt.Tag;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.saveddata.SavedData;
+
+/**
+ * Persistent per-dimension index of known rail networks.
+ * <p>
+ * Rails are grouped into connected components using the same adjacency rules as the rail breadth-first search in
+ * {@link TrackPathConnection}: horizontal neighbours and one-block slopes. Components are seeded by exhaustive searches and kept
+ * current by rail place/break events and by {@link #onBlockChanged block changes that notify their neighbours}, which also covers rails
+ * laid by builders, pistons and commands. Most connectivity questions can therefore be answered from memory without reading block
+ * states or adding chunk tickets.
+ * <p>
+ * The index is advisory. Rails can still change without any event, for example in generated structures or through placements that
+ * skip neighbour updates, so:
+ * <ul>
+ * <li>Connected answers are checked against the loaded portion of the world before they are returned.</li>
+ * <li>Disconnected answers are only trusted for {@link #NEGATIVE_TRUST_TICKS} after a component was last verified by a full search;
+ * that window bounds how long a silent change can leave a stale negative answer standing.</li>
+ * <li>Breaking an indexed rail discards its whole component, since it may have split; the next search re-seeds it.</li>
+ * </ul>
+ */
+public final class RailNetworkIndex extends SavedData
+{
+    private static final String DATA_NAME = MCTradePostMod.MODID + "_rail_network";
+    private static final String TAG_COMPONENTS = "components";
+    private static final String TAG_RAILS = "rails";
+    private static final String TAG_COMPLETE = "complete";
+    private static final String TAG_VERIFIED = "verified";
+
+    /** How long an exhaustive search keeps a component authoritative for disconnected answers. */
+    public static final long NEGATIVE_TRUST_TICKS = 20L * 60L * 5L;
+
+    private static final int NO_COMPONENT = -1;
+
+    private final Long2IntOpenHashMap componentByRail = new Long2IntOpenHashMap();
+    private final Int2ObjectOpenHashMap<Component> components = new Int2ObjectOpenHashMap<>();
+    private int nextComponentId = 0;
+
+    private static final @Nonnull Factory<RailNetworkIndex> FACTORY = new Factory<>(RailNetworkIndex::new, RailNetworkIndex::load);
+
+    /**
+     * One connected group of rail positions.
+     * <p>
+     * A complete component was recorded by a search that exhausted every reachable rail, or grown from one by placements that did not
+     * touch unindexed rails. Incomplete components are retained so later placements can merge into them, but are never used to answer
+     * queries.
+     */
+    private static final class Component
+    {
+        private final int id;
+        private final LongOpenHashSet rails;
+        private boolean complete;
+        private long verifiedAt;
+
+        private Component(int id, LongOpenHashSet rails, boolean complete, long verifiedAt)
+        {
+            this.id = id;
+            this.rails = rails;
+            this.complete = complete;
+            this.verifiedAt = verifiedAt;
+        }
+    }
+
+    /** Outcome classification for an index lookup. */
+    public enum Answer
+    {
+        /** The index found a rail path between the endpoints. */
+        CONNECTED,
+        /** The index is authoritative and no rail path exists. */
+        DISCONNECTED,
+        /** The index cannot answer; the caller must search the world. */
+        UNKNOWN
+    }
+
+    /**
+     * Result of an index lookup.
+     *
+     * @param answer outcome classification
+     * @param path endpoint-inclusive rail path for connected answers, otherwise empty
+     * @param closestPoint closest indexed rail to the destination for disconnected answers
+     */
+    public record Lookup(@Nonnull Answer answer, @Nonnull List<BlockPos> path, BlockPos closestPoint)
+    {
+        private static final Lookup UNKNOWN = new Lookup(Answer.UNKNOWN, List.of(), null);
+    }
+
+    public RailNetworkIndex()
+    {
+        componentByRail.defaultReturnValue(NO_COMPONENT);
+    }
+
+    public static RailNetworkIndex get(ServerLevel level)
+    {
+        return level.getDataStorage().computeIfAbsent(FACTORY, DATA_NAME);
+    }
+
+    /**
+     * Attempts to answer a rail connectivity query from the index.
+     * <p>
+     * The search mirrors {@link TrackPathConnection#arePointsConnectedByTracks}: the start position need not be a rail, expansion
+     * proceeds breadth-first in the same neighbour order, and the search stops when it reaches or touches the end position.
+     *
+     * @param start search start position
+     * @param end search end position
+     * @param now current game time
+     * @param maxVisited visited-node cap matching the world search
+     * @return the lookup result; {@link Answer#UNKNOWN} when any component adjacent to the start is missing, incomplete, or stale
+     */
+    public Lookup lookup(@Nonnull BlockPos start, @Nonnull BlockPos end, long now, int maxVisited)
+    {
+        if (GridSearch.touches(start.asLong(), end.asLong()))
+        {
+            return Lookup.UNKNOWN;
+        }
+
+        long startKey = start.asLong();
+        long endKey = end.asLong();
+        boolean trustNegative = true;
+        boolean anySeed = false;
+
+        long[] neighbours = new long[12];
+        int neighbourCount = GridSearch.RAIL.neighbours(startKey, neighbours);
+        for (int i = 0; i < neighbourCount; i++)
+        {
+            long neighbour = neighbours[i];
+            int componentId = componentByRail.get(neighbour);
+            if (componentId == NO_COMPONENT) continue;
+
+            Component component = components.get(componentId);
+            if (component == null || !component.complete) return Lookup.UNKNOWN;
+
+            anySeed = true;
+            if (now - component.verifiedAt > NEGATIVE_TRUST_TICKS) trustNegative = false;
+        }
+
+        if (!anySeed) return Lookup.UNKNOWN;
+
+        GridSearch search = new GridSearch(1024);
+        long[] closest = { startKey };
+        double[] closestDist = { GridSearch.distance(startKey, endKey) };
+        int goal = search.breadthFirst(startKey,
+            pos -> GridSearch.touches(pos, endKey),
+            GridSearch.RAIL,
+            componentByRail::containsKey,
+            Integer.MAX_VALUE,
+            maxVisited,
+            pos ->
+            {
+                double dist = GridSearch.distance(pos, endKey);
+                if (dist < closestDist[0])
+                {
+                    closestDist[0] = dist;
+                    closest[0] = pos;
+                }
+            });
+
+        if (goal != GridSearch.NOT_FOUND)
+        {
+            return new Lookup(Answer.CONNECTED, search.path(goal, endKey), end);
+        }
+
+        if (!trustNegative) return Lookup.UNKNOWN;
+
+        return new Lookup(Answer.DISCONNECTED, List.of(), BlockPos.of(closest[0]));
+    }
+
+    /**
+     * Records the rails reached by a search that exhausted its connected network.
+     * <p>
+     * Any existing components overlapping the supplied rails are replaced by a single complete component.
+     *
+     * @param rails every rail position reached by the search
+     * @param now game time of the search
+     */
+    public void recordExhaustiveSearch(@Nonnull LongSet rails, long now)
+    {
+        if (rails.isEmpty()) return;
+
+        LongOpenHashSet merged = new LongOpenHashSet(rails);
+        IntArrayList replaced = new IntArrayList();
+        for (LongIterator it = rails.iterator(); it.hasNext(); )
+        {
+            int componentId = componentByRail.get(it.nextLong());
+            if (componentId != NO_COMPONENT && !replaced.contains(componentId)) replaced.add(componentId);
+        }
+
+        for (int i = 0; i < replaced.size(); i++)
+        {
+            discard(replaced.getInt(i));
+        }
+
+        create(merged, true, now);
+        setDirty();
+    }
+
+    /**
+     * Adds a newly placed rail, merging it with any indexed neighbouring components.
+     * <p>
+     * When the new rail touches a rail the index does not know about (or an unloaded neighbour), the merged component is marked
+     * incomplete because it now joins a network of unknown extent.
+     *
+     * @param level level containing the rail
+     * @param pos position of the placed rail
+     */
+    public void onRailPlaced(@Nonnull ServerLevel level, @Nonnull BlockPos pos)
+    {
+        long key = pos.asLong();
+        if (componentByRail.containsKey(key)) return;
+
+        IntArrayList touching = new IntArrayList();
+        boolean unknownNeighbour = false;
+
+        long[] neighbours = new long[12];
+        int neighbourCount = GridSearch.RAIL.neighbours(key, neighbours);
+        for (int n = 0; n < neighbourCount; n++)
+        {
+            long neighbour = neighbours[n];
+            int componentId = componentByRail.get(neighbour);
+            if (componentId != NO_COMPONENT)
+            {
+                if (!touching.contains(componentId)) touching.add(componentId);
+                continue;
+            }
+
+            BlockPos neighbourPos = BlockPos.of(neighbour);
+            if (!level.isLoaded(neighbourPos) || TrackPathConnection.isTrackState(level.getBlockState(neighbourPos)))
+            {
+                unknownNeighbour = true;
+            }
+        }
+
+        if (touching.isEmpty())
+        {
+            // An isolated rail is trivially a complete network; one touching unindexed rails is left for the next full search.
+            if (!unknownNeighbour)
+            {
+                LongOpenHashSet rails = new LongOpenHashSet();
+                rails.add(key);
+                create(rails, true, level.getGameTime());
+                setDirty();
+            }
+            return;
+        }
+
+        Component target = components.get(touching.getInt(0));
+        for (int i = 1; i < touching.size(); i++)
+        {
+            Component other = components.get(touching.getInt(i));
+            if (other.rails.size() > target.rails.size()) target = other;
+        }
+
+        boolean complete = !unknownNeighbour;
+        long verifiedAt = target.verifiedAt;
+        for (int i = 0; i < touching.size(); i++)
+        {
+            Component other = components.get(touching.getInt(i));
+            complete &= other.complete;
+            verifiedAt = Math.min(verifiedAt, other.verifiedAt);
+            if (other == target) continue;
+
+            for (LongIterator it = other.rails.iterator(); it.hasNext(); )
+            {
+                long rail = it.nextLong();
+                target.rails.add(rail);
+                componentByRail.put(rail, target.id);
+            }
+            components.remove(other.id);
+        }
+
+        target.rails.add(key);
+        componentByRail.put(key, target.id);
+        target.complete = complete;
+        target.verifiedAt = verifiedAt;
+        setDirty();
+    }
+
+    /**
+     * Brings the index in line with a changed block: track appearing at an unindexed position is added, and an indexed position that
+     * no longer holds track is removed. Called for every block change that notifies its neighbours, so it only costs a lookup unless
+     * the rail network actually changed.
+     *
+     * @param level level containing the block
+     * @param pos position of the changed block
+     * @param state the block's new state
+     */
+    public void onBlockChanged(@Nonnull ServerLevel level, @Nonnull BlockPos pos, @Nonnull BlockState state)
+    {
+        boolean indexed = componentByRail.containsKey(pos.asLong());
+        boolean track = TrackPathConnection.isTrackState(state);
+
+        if (track && !indexed)
+        {
+            onRailPlaced(level, pos);
+        }
+        else if (!track && indexed)
+        {
+            onRailRemoved(pos);
+        }
+    }
+
+    /**
+     * Removes a broken rail. Its component is discarded entirely because the break may have split it.
+     *
+     * @param pos position of the removed rail
+     */
+    public void onRailRemoved(@Nonnull BlockPos pos)
+    {
+        int componentId = componentByRail.get(pos.asLong());
+        if (componentId == NO_COMPONENT) return;
+
+        discard(componentId);
+        setDirty();
+    }
+
+    /**
+     * Discards the component containing a rail that the world no longer agrees with.
+     *
+     * @param pos indexed position found to be stale
+     */
+    public void invalidate(@Nonnull BlockPos pos)
+    {
+        onRailRemoved(pos);
+    }
+
+    /**
+     * Creates and registers a component.
+     */
+    private void create(LongOpenHashSet rails, boolean complete, long verifiedAt)
+    {
+        Component component = new Component(nextComponentId++, rails, complete, verifiedAt);
+        components.put(component.id, component);
+        for (LongIterator it = rails.iterator(); it.hasNext(); )
+        {
+            componentByRail.put(it.nextLong(), component.id);
+        }
+    }
+
+    /**
+     * Removes a component and all of its rail mappings.
+     */
+    private void discard(int componentId)
+    {
+        Component component = components.remove(componentId);
+        if (component == null) return;
+
+        for (LongIterator it = component.rails.iterator(); it.hasNext(); )
+        {
+            componentByRail.remove(it.nextLong());
+        }
+    }
+
+    private static RailNetworkIndex load(CompoundTag tag, HolderLookup.Provider provider)
+    {
+        RailNetworkIndex data = new RailNetworkIndex();
+        ListTag list = tag.getList(TAG_COMPONENTS, Tag.TAG_COMPOUND);
+        for (int i = 0; i < list.size(); i++)
+        {
+            CompoundTag entry = list.getCompound(i);
+            LongOpenHashSet rails = new LongOpenHashSet(entry.getLongArray(TAG_RAILS));
+            if (rails.isEmpty()) continue;
+            data.create(rails, entry.getBoolean(TAG_COMPLETE), entry.getLong(TAG_VERIFIED));
+        }
+        return data;
+    }
+
+    @Override
+    public @Nonnull CompoundTag save(@Nonnull CompoundTag tag, @Nonnull HolderLookup.Provider provider)
+    {
+        ListTag list = new ListTag();
+        for (Component component : components.values())
+        {
+            CompoundTag entry = new CompoundTag();
+            entry.put(TAG_RAILS, new LongArrayTag(component.rails.toLongArray()));
+            entry.putBoolean(TAG_COMPLETE, component.complete);
+            entry.putLong(TAG_VERIFIED, component.verifiedAt);
+            list.add(entry);
+        }
+        tag.put(TAG_COMPONENTS, list);
+        return tag;
+    }
+}
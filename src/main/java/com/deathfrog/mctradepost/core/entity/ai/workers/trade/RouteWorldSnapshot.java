@@ -0,0 +1,207 @@
+package com.deathfrog.mctradepost.core.entity.ai.workers.trade;
+
+import java.util.Collection;
+import java.util.Set;
+
+import javax.annotation.Nonnull;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.SectionPos;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.BlockGetter;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.entity.BlockEntity;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.LevelChunk;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+import net.minecraft.world.level.chunk.PalettedContainer;
+import net.minecraft.world.level.material.FluidState;
+
+/**
+ * Immutable copy of the block palettes of a rectangle of loaded chunks, used to run route searches off the server thread.
+ * <p>
+ * The snapshot is captured on the server thread from chunks that are already loaded; it never loads chunks. Sections that contain only
+ * air are not copied. Positions outside the captured chunks read as air and report {@link #isLoaded(BlockPos)} false; the first such
+ * query, through either method, marks the snapshot {@link #incomplete()} so a caller can tell a genuine disconnection from one caused
+ * by the snapshot's edge. A snapshot missing the chunk of any anchor is incomplete from the start.
+ * <p>
+ * Block entities are not captured. The dock and interchange registries of the level are copied alongside the blocks.
+ */
+public final class RouteWorldSnapshot implements BlockGetter
+{
+    private static final @Nonnull BlockState AIR = Blocks.AIR.defaultBlockState();
+
+    private final ResourceKey<Level> dimension;
+    private final long gameTime;
+    private final int minBuildHeight;
+    private final int height;
+    private final int minSection;
+    private final Long2ObjectOpenHashMap<PalettedContainer<BlockState>[]> chunks = new Long2ObjectOpenHashMap<>();
+    private final Set<BlockPos> docks;
+    private final Set<BlockPos> interchanges;
+    private volatile boolean incomplete = false;
+
+    private RouteWorldSnapshot(ServerLevel level)
+    {
+        this.dimension = level.dimension();
+        this.gameTime = level.getGameTime();
+        this.minBuildHeight = level.getMinBuildHeight();
+        this.height = level.getHeight();
+        this.minSection = level.getMinSection();
+        this.docks = Set.copyOf(TradeDockRegistry.get(level).docks());
+        this.interchanges = Set.copyOf(TradeInterchangeRegistry.get(level).interchanges());
+    }
+
+    /**
+     * Captures the loaded chunks covering a set of anchor positions. Must be called on the server thread.
+     *
+     * @param level level to copy
+     * @param anchors positions the route must be able to reach, such as route endpoints, docks and interchanges
+     * @param marginChunks chunks added around the anchors' bounding rectangle
+     * @param maxChunks largest rectangle, in chunks, that may be captured
+     * @return the snapshot, or null when the rectangle would exceed {@code maxChunks}; it is incomplete when an anchor's chunk was not
+     *         loaded
+     */
+    @SuppressWarnings({"unchecked", "null"})
+    public static RouteWorldSnapshot capture(ServerLevel level, Collection<BlockPos> anchors, int marginChunks, int maxChunks)
+    {
+        if (anchors.isEmpty()) return null;
+
+        int minX = Integer.MAX_VALUE;
+        int minZ = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE;
+        int maxZ = Integer.MIN_VALUE;
+        for (BlockPos anchor : anchors)
+        {
+            minX = Math.min(minX, SectionPos.blockToSectionCoord(anchor.getX()));
+            minZ = Math.min(minZ, SectionPos.blockToSectionCoord(anchor.getZ()));
+            maxX = Math.max(maxX, SectionPos.blockToSectionCoord(anchor.getX()));
+            maxZ = Math.max(maxZ, SectionPos.blockToSectionCoord(anchor.getZ()));
+        }
+        minX -= marginChunks;
+        minZ -= marginChunks;
+        maxX += marginChunks;
+        maxZ += marginChunks;
+
+        if ((long) (maxX - minX + 1) * (maxZ - minZ + 1) > maxChunks) return null;
+
+        RouteWorldSnapshot snapshot = new RouteWorldSnapshot(level);
+        for (int cx = minX; cx <= maxX; cx++)
+        {
+            for (int cz = minZ; cz <= maxZ; cz++)
+            {
+                LevelChunk chunk = level.getChunkSource().getChunkNow(cx, cz);
+                if (chunk == null) continue;
+
+                LevelChunkSection[] sections = chunk.getSections();
+                PalettedContainer<BlockState>[] copies = new PalettedContainer[sections.length];
+                for (int i = 0; i < sections.length; i++)
+                {
+                    if (sections[i] != null && !sections[i].hasOnlyAir()) copies[i] = sections[i].getStates().copy();
+                }
+                snapshot.chunks.put(ChunkPos.asLong(cx, cz), copies);
+            }
+        }
+
+        for (BlockPos anchor : anchors)
+        {
+            snapshot.isLoaded(anchor);
+        }
+        return snapshot;
+    }
+
+    /** @return dimension the snapshot was captured from */
+    public ResourceKey<Level> dimension()
+    {
+        return dimension;
+    }
+
+    /** @return game time at which the snapshot was captured */
+    public long gameTime()
+    {
+        return gameTime;
+    }
+
+    /** @return registered dock positions at capture time */
+    public Set<BlockPos> docks()
+    {
+        return docks;
+    }
+
+    /** @return registered interchange positions at capture time */
+    public Set<BlockPos> interchanges()
+    {
+        return interchanges;
+    }
+
+    /** @return whether a search has queried a position outside the captured chunks */
+    public boolean incomplete()
+    {
+        return incomplete;
+    }
+
+    /**
+     * Checks whether a position lies in a captured chunk, marking the snapshot incomplete when it does not.
+     *
+     * @param pos position to check
+     * @return true when the position's chunk was loaded and captured
+     */
+    public boolean isLoaded(BlockPos pos)
+    {
+        if (chunks.containsKey(ChunkPos.asLong(SectionPos.blockToSectionCoord(pos.getX()), SectionPos.blockToSectionCoord(pos.getZ()))))
+        {
+            return true;
+        }
+        incomplete = true;
+        return false;
+    }
+
+    /**
+     * Returns the captured state at a position. A position outside the captured chunks reads as air and marks the snapshot incomplete.
+     */
+    @Override
+    public @Nonnull BlockState getBlockState(@Nonnull BlockPos pos)
+    {
+        PalettedContainer<BlockState>[] sections =
+            chunks.get(ChunkPos.asLong(SectionPos.blockToSectionCoord(pos.getX()), SectionPos.blockToSectionCoord(pos.getZ())));
+        if (sections == null)
+        {
+            incomplete = true;
+            return AIR;
+        }
+
+        int index = SectionPos.blockToSectionCoord(pos.getY()) - minSection;
+        if (index < 0 || index >= sections.length || sections[index] == null) return AIR;
+
+        BlockState state = sections[index].get(pos.getX() & 15, pos.getY() & 15, pos.getZ() & 15);
+        return state == null ? AIR : state;
+    }
+
+    @Override
+    public @Nonnull FluidState getFluidState(@Nonnull BlockPos pos)
+    {
+        return getBlockState(pos).getFluidState();
+    }
+
+    @Override
+    public BlockEntity getBlockEntity(@Nonnull BlockPos pos)
+    {
+        return null;
+    }
+
+    @Override
+    public int getHeight()
+    {
+        return height;
+    }
+
+    @Override
+    public int getMinBuildHeight()
+    {
+        return minBuildHeight;
+    }
+}
@@ -13,6 +13,7 @@ import com.minecolonies.api.util.BlockPosUtil;
 import net.minecraft.core.BlockPos;
 import net.minecraft.core.registries.Registries;
 import net.minecraft.nbt.CompoundTag;
+import net.minecraft.network.FriendlyByteBuf;
 import net.minecraft.resources.ResourceKey;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.world.level.Level;
@@ -194,6 +195,42 @@ public class StationData
         return data;
     }
 
+    /**
+     * Writes the station data to a network buffer: the dimension, the colony ID as a varint and the packed building position. Much
+     * smaller than sending {@link #toNBT()}.
+     *
+     * @param buf the buffer to write to.
+     */
+    @SuppressWarnings("null")
+    public void toBuffer(@Nonnull FriendlyByteBuf buf)
+    {
+        buf.writeResourceLocation(dimension.location());
+        buf.writeVarInt(colonyId);
+        buf.writeLong(buildingposition == null ? BlockPos.ZERO.asLong() : buildingposition.asLong());
+    }
+
+    /**
+     * Reads station data written by {@link #toBuffer(FriendlyByteBuf)}.
+     *
+     * @param buf the buffer to read from.
+     * @return the station data, or null if it has no position.
+     */
+    @SuppressWarnings("null")
+    public static StationData fromBuffer(@Nonnull FriendlyByteBuf buf)
+    {
+        ResourceKey<Level> levelKey = ResourceKey.create(NullnessBridge.assumeNonnull(Registries.DIMENSION), buf.readResourceLocation());
+        int colonyId = buf.readVarInt();
+        BlockPos buildingposition = BlockPos.of(buf.readLong());
+
+        if (BlockPos.ZERO.equals(buildingposition))
+        {
+            BuildingStation.LOGGER.warn("Failed to read station data from buffer - no position found.");
+            return null;
+        }
+
+        return new StationData(levelKey, colonyId, buildingposition);
+    }
+
     /**
      * Returns a string representation of the object.
      *
@@ -0,0 +1,214 @@
+package com.deathfrog.mctradepost.core.entity.ai.workers.trade;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.annotation.Nonnull;
+
+import net.minecraft.core.BlockPos;
+
+/**
+ * Compact binary form of a route path, stored as a single byte array instead of one tag per position.
+ * <p>
+ * Layout, after a leading {@link #FORMAT_VERSION format byte}: the number of positions as a varint, the first position as three
+ * zig-zag varints, then the steps between consecutive positions as runs. Each run starts with a varint header {@code count << 4 | code}.
+ * Codes 0 to 11 are single-block horizontal steps, direction {@code code / 3} (east, west, south, north) rising by
+ * {@code code % 3 - 1}, which covers almost every rail, road and water step. Code {@link #CODE_DELTA} is followed by an arbitrary
+ * delta as three zig-zag varints. The run repeats its step {@code count} times.
+ * <p>
+ * Null positions are skipped, as they are by the tag-per-position form.
+ */
+public final class TrackPathCodec
+{
+    /** Current format; decoding rejects any other. */
+    public static final int FORMAT_VERSION = 1;
+
+    private static final int CODE_DELTA = 15;
+    private static final int CODE_BITS = 4;
+
+    private static final int[] STEP_X = { 1, -1, 0, 0 };
+    private static final int[] STEP_Z = { 0, 0, 1, -1 };
+
+    /**
+     * Prevents instantiation of this utility class.
+     */
+    private TrackPathCodec()
+    {
+    }
+
+    /**
+     * Encodes a path.
+     *
+     * @param path ordered positions; may be null or contain nulls
+     * @return encoded path
+     */
+    public static byte[] encode(List<BlockPos> path)
+    {
+        List<BlockPos> positions = new ArrayList<>();
+        if (path != null)
+        {
+            for (BlockPos pos : path)
+            {
+                if (pos != null) positions.add(pos);
+            }
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(16 + positions.size() / 4);
+        out.write(FORMAT_VERSION);
+        writeVarInt(out, positions.size());
+        if (positions.isEmpty()) return out.toByteArray();
+
+        BlockPos first = positions.getFirst();
+        writeVarInt(out, zigZag(first.getX()));
+        writeVarInt(out, zigZag(first.getY()));
+        writeVarInt(out, zigZag(first.getZ()));
+
+        int i = 1;
+        while (i < positions.size())
+        {
+            int dx = positions.get(i).getX() - positions.get(i - 1).getX();
+            int dy = positions.get(i).getY() - positions.get(i - 1).getY();
+            int dz = positions.get(i).getZ() - positions.get(i - 1).getZ();
+
+            int run = 1;
+            while (i + run < positions.size()
+                && positions.get(i + run).getX() - positions.get(i + run - 1).getX() == dx
+                && positions.get(i + run).getY() - positions.get(i + run - 1).getY() == dy
+                && positions.get(i + run).getZ() - positions.get(i + run - 1).getZ() == dz)
+            {
+                run++;
+            }
+
+            int code = stepCode(dx, dy, dz);
+            writeVarInt(out, run << CODE_BITS | code);
+            if (code == CODE_DELTA)
+            {
+                writeVarInt(out, zigZag(dx));
+                writeVarInt(out, zigZag(dy));
+                writeVarInt(out, zigZag(dz));
+            }
+
+            i += run;
+        }
+
+        return out.toByteArray();
+    }
+
+    /**
+     * Decodes a path written by {@link #encode(List)}.
+     *
+     * @param data encoded path
+     * @return the positions, in order
+     * @throws IllegalArgumentException when the data has another format version or is malformed
+     */
+    public static @Nonnull List<BlockPos> decode(byte[] data)
+    {
+        if (data == null || data.length == 0) throw new IllegalArgumentException("Empty route path data");
+
+        int[] cursor = { 0 };
+        int version = data[cursor[0]++];
+        if (version != FORMAT_VERSION) throw new IllegalArgumentException("Unsupported route path format " + version);
+
+        int count = readVarInt(data, cursor);
+        if (count < 0) throw new IllegalArgumentException("Negative route path length");
+
+        List<BlockPos> positions = new ArrayList<>(Math.min(count, data.length * 16));
+        if (count == 0) return positions;
+
+        int x = unZigZag(readVarInt(data, cursor));
+        int y = unZigZag(readVarInt(data, cursor));
+        int z = unZigZag(readVarInt(data, cursor));
+        positions.add(new BlockPos(x, y, z));
+
+        while (positions.size() < count)
+        {
+            int header = readVarInt(data, cursor);
+            int code = header & ((1 << CODE_BITS) - 1);
+            int run = header >>> CODE_BITS;
+
+            int dx;
+            int dy;
+            int dz;
+            if (code == CODE_DELTA)
+            {
+                dx = unZigZag(readVarInt(data, cursor));
+                dy = unZigZag(readVarInt(data, cursor));
+                dz = unZigZag(readVarInt(data, cursor));
+            }
+            else if (code < 12)
+            {
+                dx = STEP_X[code / 3];
+                dy = code % 3 - 1;
+                dz = STEP_Z[code / 3];
+            }
+            else
+            {
+                throw new IllegalArgumentException("Unknown route step code " + code);
+            }
+
+            if (run <= 0 || run > count - positions.size()) throw new IllegalArgumentException("Invalid route step run " + run);
+
+            for (int step = 0; step < run; step++)
+            {
+                x += dx;
+                y += dy;
+                z += dz;
+                positions.add(new BlockPos(x, y, z));
+            }
+        }
+
+        if (cursor[0] != data.length) throw new IllegalArgumentException("Trailing route path data");
+
+        return positions;
+    }
+
+    /**
+     * Returns the code of a single-block horizontal step rising at most one block, or {@link #CODE_DELTA} for any other step.
+     */
+    private static int stepCode(int dx, int dy, int dz)
+    {
+        if (dy < -1 || dy > 1) return CODE_DELTA;
+
+        for (int direction = 0; direction < STEP_X.length; direction++)
+        {
+            if (STEP_X[direction] == dx && STEP_Z[direction] == dz) return direction * 3 + dy + 1;
+        }
+
+        return CODE_DELTA;
+    }
+
+    private static int zigZag(int value)
+    {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static int unZigZag(int value)
+    {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarInt(ByteArrayOutputStream out, int value)
+    {
+        while ((value & ~0x7F) != 0)
+        {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int readVarInt(byte[] data, int[] cursor)
+    {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7)
+        {
+            if (cursor[0] >= data.length) throw new IllegalArgumentException("Truncated route path data");
+
+            byte b = data[cursor[0]++];
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IllegalArgumentException("Route path varint too long");
+    }
+}
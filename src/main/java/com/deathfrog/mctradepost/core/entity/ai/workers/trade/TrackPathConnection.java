@@ -1,11 +1,6 @@
 package com.deathfrog.mctradepost.core.entity.ai.workers.trade;
 
-import java.util.ArrayDeque;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -17,10 +12,10 @@ import com.deathfrog.mctradepost.api.util.NullnessBridge;
 import com.deathfrog.mctradepost.api.util.TraceUtils;
 import com.deathfrog.mctradepost.core.ModTags;
 
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+
 import java.util.List;
-import java.util.Map;
 import net.minecraft.core.BlockPos;
-import net.minecraft.core.Direction;
 import net.minecraft.server.level.ServerLevel;
 import net.minecraft.world.level.ChunkPos;
 import net.minecraft.world.level.Level;
@@ -140,75 +135,255 @@ public class TrackPathConnection
      * @param end   the end point of the track path
      * @return a TrackConnectionResult describing the result of the traversal
      */
-    @SuppressWarnings("null")
     public static TrackConnectionResult arePointsConnectedByTracks(ServerLevel level, BlockPos start, BlockPos end, boolean loadChunks)
     {
-        ServerLevel localLevel = level;
+        RailSearch search = new RailSearch(level, start, end, loadChunks);
+        try
+        {
+            search.step(GridSearch.NO_DEADLINE);
+            return search.result();
+        }
+        finally
+        {
+            search.cancel();
+        }
+    }
 
-        if (localLevel == null || start == null || end == null) return new TrackConnectionResult(false, null, null, level.getGameTime());
+    /**
+     * Resumable form of {@link #arePointsConnectedByTracks(ServerLevel, BlockPos, BlockPos, boolean)}.
+     * <p>
+     * The breadth-first search pauses when a deadline passes and continues from the same queue position on the next call, so a long
+     * rail search can be spread over several server ticks. Chunk tickets taken by the search are released when it finishes, or by
+     * {@link #cancel()} when it is abandoned.
+     */
+    static final class RailSearch
+    {
+        private final ServerLevel level;
+        private final BlockPos start;
+        private final BlockPos end;
+        private final long endKey;
+        private final boolean loadChunks;
+        private final Set<ChunkPos> addedRailTickets = new HashSet<>();
+        private final BlockPos.MutableBlockPos cursor = new BlockPos.MutableBlockPos();
+        private GridSearch search = null;
+        private RailSearchDiagnostics diagnostics = null;
+        private TrackConnectionResult result = null;
 
-        RailSearchDiagnostics diagnostics = new RailSearchDiagnostics(localLevel, start, end, loadChunks);
-        Set<BlockPos> visited = new HashSet<>();
-        Set<ChunkPos> addedRailTickets = new HashSet<>();
-        Queue<BlockPos> toVisit = new ArrayDeque<>();
-        Map<BlockPos, BlockPos> parent = new HashMap<>();  // <child , parent>
+        /**
+         * Prepares a rail search, answering it immediately from the {@link RailNetworkIndex} when possible.
+         *
+         * @param level the level in which to traverse the track path
+         * @param start the start point of the track path
+         * @param end the end point of the track path
+         * @param loadChunks whether unloaded chunks may be synchronously loaded
+         */
+        @SuppressWarnings("null")
+        RailSearch(ServerLevel level, BlockPos start, BlockPos end, boolean loadChunks)
+        {
+            this.level = level;
+            this.start = start;
+            this.end = end;
+            this.endKey = end == null ? 0L : end.asLong();
+            this.loadChunks = loadChunks;
 
-        toVisit.add(start.immutable());
+            if (level == null || start == null || end == null)
+            {
+                result = new TrackConnectionResult(false, null, null, level.getGameTime());
+                return;
+            }
 
-        BlockPos closestSoFar = start;
-        double closestDist = distance(start, end);
+            result = lookupIndexedNetwork(level, start, end);
+        }
 
-        try
-        {
-        diagnostics.logStart();
-        while (!toVisit.isEmpty() && visited.size() < MAX_DEPTH)
+        /**
+         * Advances the search until it finishes or the deadline passes. At least one node is expanded per call.
+         *
+         * @param deadlineNanos {@link System#nanoTime()} value after which the search should pause, or {@link GridSearch#NO_DEADLINE}
+         * @return true when the search has finished and {@link #result()} is available
+         */
+        @SuppressWarnings("null")
+        boolean step(long deadlineNanos)
         {
-            BlockPos current = toVisit.poll();
+            if (result != null) return true;
 
-            // reached or touched the goal?
-            if (current.equals(end) || isAdjacent(current, end))
+            if (search == null)
             {
-                List<BlockPos> path = rebuildPath(parent, current, start, end);
-                diagnostics.logFinished("connected", visited.size(), toVisit.size(), addedRailTickets.size(), closestSoFar);
-                return new TrackConnectionResult(true, end, path, localLevel.getGameTime(), TrackRoute.singleDimension(localLevel.dimension(), path));
+                search = new GridSearch(1024);
+                diagnostics = new RailSearchDiagnostics(level, start, end, loadChunks);
+                diagnostics.logStart();
+                search.beginBreadthFirst(start.asLong());
             }
 
-            if (!visited.add(current)) continue;   // already handled
-            diagnostics.logProgressIfNeeded(visited.size(), toVisit.size(), current, closestSoFar, addedRailTickets.size());
+            int goal = search.resumeBreadthFirst(pos -> GridSearch.touches(pos, endKey),
+                GridSearch.RAIL,
+                pos -> tryMove(level, cursor.set(pos), loadChunks, addedRailTickets, diagnostics),
+                Integer.MAX_VALUE,
+                MAX_DEPTH,
+                pos -> diagnostics.expanded(pos, search.expandedCount(), search.pendingCount(), addedRailTickets.size()),
+                deadlineNanos);
 
-            double dist = distance(current, end);
-            if (dist < closestDist)
+            if (goal == GridSearch.PAUSED) return false;
+
+            try
             {
-                closestDist = dist;
-                closestSoFar = current.immutable();
+                result = finish(goal);
             }
+            finally
+            {
+                cancel();
+            }
+            return true;
+        }
 
-            /* cardinal moves – same Y */
-            for (Direction dir : Direction.Plane.HORIZONTAL)
+        /**
+         * Builds the result of a finished search and records an exhausted network in the rail index.
+         *
+         * @param goal node number of the goal, or {@link GridSearch#NOT_FOUND}
+         * @return the connection result
+         */
+        @SuppressWarnings("null")
+        private TrackConnectionResult finish(int goal)
+        {
+            // reached or touched the goal?
+            if (goal != GridSearch.NOT_FOUND)
             {
-                if (dir == null) continue;
-                tryMove(localLevel, current, dir, 0, toVisit, visited, parent, loadChunks, addedRailTickets, diagnostics);
+                List<BlockPos> path = search.path(goal, endKey);
+                diagnostics.logFinished("connected", search.expandedCount(), search.pendingCount(), addedRailTickets.size(), diagnostics.closest());
+                return new TrackConnectionResult(true, end, path, level.getGameTime(), TrackRoute.singleDimension(level.dimension(), path));
             }
 
-            /* upward / downward slopes */
-            for (Direction dir : Direction.Plane.HORIZONTAL)
+            // not connected
+            boolean maxDepth = search.expandedCount() >= MAX_DEPTH;
+            diagnostics.logFinished(maxDepth ? "max-depth" : "disconnected", search.expandedCount(), search.pendingCount(), addedRailTickets.size(), diagnostics.closest());
+
+            if (!maxDepth && diagnostics.unloadedNeighbors == 0)
             {
-                if (dir == null) continue;
-                tryMove(localLevel, current, dir, +1, toVisit, visited, parent, loadChunks, addedRailTickets, diagnostics);
-                tryMove(localLevel, current, dir, -1, toVisit, visited, parent, loadChunks, addedRailTickets, diagnostics);
+                recordExhaustedNetwork(level, start, search);
             }
+            return new TrackConnectionResult(false, diagnostics.closest(), List.of(), level.getGameTime());
         }
 
-        // not connected
-        diagnostics.logFinished(visited.size() >= MAX_DEPTH ? "max-depth" : "disconnected", visited.size(), toVisit.size(), addedRailTickets.size(), closestSoFar);
-        return new TrackConnectionResult(false, closestSoFar, List.of(), localLevel.getGameTime());
+        /**
+         * @return the finished connection result, or null while the search is still in progress
+         */
+        TrackConnectionResult result()
+        {
+            return result;
         }
-        finally
+
+        /**
+         * Releases the chunk tickets taken so far. Called when the search finishes, and by owners abandoning an unfinished search.
+         */
+        @SuppressWarnings("null")
+        void cancel()
+        {
+            if (level == null) return;
+
+            releaseRailSearchTickets(level, addedRailTickets);
+            addedRailTickets.clear();
+        }
+    }
+
+    /**
+     * Checks if two points are connected by track blocks in a world snapshot. Safe to call off the server thread.
+     * <p>
+     * This is the same bounded breadth-first search as {@link #arePointsConnectedByTracks(ServerLevel, BlockPos, BlockPos, boolean)},
+     * without the rail network index, chunk tickets or progress diagnostics. Positions outside the snapshot are not traversed.
+     *
+     * @param snapshot captured blocks containing the track
+     * @param start the start point of the track path
+     * @param end the end point of the track path
+     * @return a TrackConnectionResult describing the result of the traversal
+     */
+    @SuppressWarnings("null")
+    public static TrackConnectionResult arePointsConnectedByTracks(RouteWorldSnapshot snapshot, BlockPos start, BlockPos end)
+    {
+        if (start == null || end == null) return new TrackConnectionResult(false, null, null, snapshot.gameTime());
+
+        GridSearch search = new GridSearch(1024);
+        BlockPos.MutableBlockPos cursor = new BlockPos.MutableBlockPos();
+        long endKey = end.asLong();
+
+        int goal = search.breadthFirst(start.asLong(),
+            pos -> GridSearch.touches(pos, endKey),
+            GridSearch.RAIL,
+            pos -> snapshot.isLoaded(cursor.set(pos)) && isTrackState(snapshot.getBlockState(cursor)),
+            Integer.MAX_VALUE,
+            MAX_DEPTH,
+            null);
+
+        if (goal == GridSearch.NOT_FOUND) return new TrackConnectionResult(false, start, List.of(), snapshot.gameTime());
+
+        List<BlockPos> path = search.path(goal, endKey);
+        return new TrackConnectionResult(true, end, path, snapshot.gameTime(), TrackRoute.singleDimension(snapshot.dimension(), path));
+    }
+
+    /**
+     * Answers a rail connectivity query from the persistent {@link RailNetworkIndex} when it is authoritative for the start position.
+     * <p>
+     * Connected answers are re-checked against the loaded portion of the world; a mismatch discards the stale component and falls back
+     * to a full search.
+     *
+     * @param level level being searched
+     * @param start rail search start position
+     * @param end rail search end position
+     * @return a result when the index could answer, or null when the caller must search the world
+     */
+    private static TrackConnectionResult lookupIndexedNetwork(@Nonnull ServerLevel level, @Nonnull BlockPos start, @Nonnull BlockPos end)
+    {
+        RailNetworkIndex index = RailNetworkIndex.get(level);
+        RailNetworkIndex.Lookup lookup = index.lookup(start, end, level.getGameTime(), MAX_DEPTH);
+
+        switch (lookup.answer())
         {
-            releaseRailSearchTickets(localLevel, addedRailTickets);
+            case CONNECTED ->
+            {
+                List<BlockPos> path = lookup.path();
+                for (int i = 1; i < path.size() - 1; i++)
+                {
+                    BlockPos step = path.get(i);
+                    if (step != null && level.isLoaded(step) && !isTrackBlock(level, step))
+                    {
+                        index.invalidate(step);
+                        return null;
+                    }
+                }
+                TraceUtils.dynamicTrace(TRACE_TRACKPATH, () -> MCTradePostMod.LOGGER.info("Rail index hit dim={} start={} end={} connected=true length={}",
+                    level.dimension().location(), start, end, path.size()));
+                return new TrackConnectionResult(true, end, path, level.getGameTime(), TrackRoute.singleDimension(level.dimension(), path));
+            }
+            case DISCONNECTED ->
+            {
+                TraceUtils.dynamicTrace(TRACE_TRACKPATH, () -> MCTradePostMod.LOGGER.info("Rail index hit dim={} start={} end={} connected=false closest={}",
+                    level.dimension().location(), start, end, lookup.closestPoint()));
+                return new TrackConnectionResult(false, lookup.closestPoint(), List.of(), level.getGameTime());
+            }
+            default ->
+            {
+                return null;
+            }
         }
     }
 
+    /**
+     * Records a fully explored rail network in the persistent index so later queries touching it can skip the world search.
+     *
+     * @param level level that was searched
+     * @param start search start position, which is only indexed when it is itself a rail
+     * @param search the exhausted search whose discovered positions are the network's rails
+     */
+    private static void recordExhaustedNetwork(@Nonnull ServerLevel level, @Nonnull BlockPos start, GridSearch search)
+    {
+        LongOpenHashSet rails = new LongOpenHashSet();
+        long startKey = start.asLong();
+        boolean startIsTrack = isTrackBlock(level, start);
+        search.forEachDiscovered(pos ->
+        {
+            if (pos != startKey || startIsTrack) rails.add(pos);
+        });
+        RailNetworkIndex.get(level).recordExhaustiveSearch(rails, level.getGameTime());
+    }
+
     /**
      * Releases rail-search chunk tickets added during a single BFS pass.
      *
@@ -236,6 +411,9 @@ public class TrackPathConnection
         private final boolean loadChunks;
         private final long startNanos = System.nanoTime();
         private int chunkLoadAttempts = 0;
+        private int unloadedNeighbors = 0;
+        private long closest;
+        private double closestDist;
 
         /**
          * Creates diagnostics for one rail path search.
@@ -251,6 +429,35 @@ public class TrackPathConnection
             this.start = start;
             this.end = end;
             this.loadChunks = loadChunks;
+            this.closest = start.asLong();
+            this.closestDist = GridSearch.distance(closest, end.asLong());
+        }
+
+        /**
+         * Records an expanded rail position, tracking the closest approach to the destination and logging periodic progress.
+         *
+         * @param pos packed position being expanded
+         * @param visited number of expanded rail positions
+         * @param queued number of discovered positions awaiting expansion
+         * @param ticketCount number of chunk tickets added by the search
+         */
+        private void expanded(long pos, int visited, int queued, int ticketCount)
+        {
+            double dist = GridSearch.distance(pos, end.asLong());
+            if (dist < closestDist)
+            {
+                closestDist = dist;
+                closest = pos;
+            }
+            logProgressIfNeeded(visited, queued, pos, ticketCount);
+        }
+
+        /**
+         * @return closest reached position to the destination
+         */
+        private BlockPos closest()
+        {
+            return BlockPos.of(closest);
         }
 
         /**
@@ -271,11 +478,10 @@ public class TrackPathConnection
          *
          * @param visited number of visited rail positions
          * @param queued number of queued rail positions
-         * @param current current position being expanded
-         * @param closest current closest reached position to the destination
+         * @param current packed position being expanded
          * @param ticketCount number of chunk tickets added by the search
          */
-        private void logProgressIfNeeded(int visited, int queued, BlockPos current, BlockPos closest, int ticketCount)
+        private void logProgressIfNeeded(int visited, int queued, long current, int ticketCount)
         {
             if (visited % BFS_PROGRESS_LOG_INTERVAL != 0)
             {
@@ -287,8 +493,8 @@ public class TrackPathConnection
                 level.dimension().location(),
                 visited,
                 queued,
-                current,
-                closest,
+                BlockPos.of(current),
+                closest(),
                 chunkLoadAttempts,
                 ticketCount,
                 elapsedMillis()));
@@ -411,84 +617,41 @@ public class TrackPathConnection
     }
 
     /**
-     * Tries to move in the given direction from the given BlockPos to find the next block on the track path. If the next block is a
-     * track block and has not been visited before, it is added to the queue to be visited and the parent map is updated to remember
-     * where we came from.
+     * Tests whether the rail search may step onto a newly seen position. Unloaded positions are loaded by ticket first when the search
+     * allows it; positions that stay unloaded are counted so a failed search is not mistaken for an exhaustive one.
      *
      * @param level   the level in which to traverse the track path
-     * @param from    the BlockPos from which to move
-     * @param dir     the direction in which to move
-     * @param dy      the vertical offset to apply to the BlockPos
-     * @param q       the queue of BlockPos to visit
-     * @param visited the set of BlockPos that have already been visited
-     * @param parent  the map of BlockPos to BlockPos that tracks the parent of each BlockPos in the path
+     * @param nxt     the candidate position; may be a reused mutable position
      * @param loadChunks whether unloaded chunks may be synchronously loaded
      * @param addedRailTickets chunks that received tickets during this search
      * @param diagnostics logging state for this search
+     * @return true if the candidate is a track block
      */
-    private static void tryMove(ServerLevel level,
-        BlockPos from,
-        @Nonnull Direction dir,
-        int dy,
-        Queue<BlockPos> q,
-        Set<BlockPos> visited,
-        Map<BlockPos, BlockPos> parent,
+    private static boolean tryMove(@Nonnull ServerLevel level,
+        @Nonnull BlockPos nxt,
         boolean loadChunks,
         Set<ChunkPos> addedRailTickets,
         RailSearchDiagnostics diagnostics)
     {
-        BlockPos nxt = from.relative(dir).offset(0, dy, 0);
-
-        if (nxt == null) return;
-
         if (!level.isLoaded(nxt))
         {
             if (loadChunks)
             {
-                diagnostics.logBeforeChunkLoad(nxt);
-                ChunkUtil.ensureChunkLoadedByTicket(level, nxt, RAIL_CHUNK_RADIUS, ChunkUtil.RAIL_TICKET, addedRailTickets);
-                diagnostics.logAfterChunkLoad(nxt, level.isLoaded(nxt), addedRailTickets.size());
+                BlockPos loadPos = nxt.immutable();
+                diagnostics.logBeforeChunkLoad(loadPos);
+                ChunkUtil.ensureChunkLoadedByTicket(level, loadPos, RAIL_CHUNK_RADIUS, ChunkUtil.RAIL_TICKET, addedRailTickets);
+                diagnostics.logAfterChunkLoad(loadPos, level.isLoaded(loadPos), addedRailTickets.size());
             }
-        }
 
-        if (!visited.contains(nxt) && isTrackBlock(level, nxt))
-        {
-            q.add(nxt.immutable());
-            parent.put(nxt.immutable(), from);   // remember where we came from
-        }
-    }
-
-    /**
-     * Rebuilds the path from the given current BlockPos to the start BlockPos, inclusive of both, using the parent map to traverse
-     * backwards from current to start. If the current BlockPos is adjacent to the end BlockPos, the end BlockPos is appended to the
-     * returned list so that the caller can see the full span of the path from start to end.
-     *
-     * @param parent  a map of BlockPos to BlockPos, where each key has the value of its parent BlockPos on the path from current to
-     *                start
-     * @param current the BlockPos at which to start the path reconstruction
-     * @param start   the BlockPos at which the path reconstruction should terminate
-     * @param end     the BlockPos adjacent to which the path reconstruction may terminate
-     * @return a List of BlockPos representing the path from start to current, inclusive of both, and possibly including the end
-     *         BlockPos if it was adjacent to the current BlockPos
-     */
-    private static List<BlockPos> rebuildPath(Map<BlockPos, BlockPos> parent, BlockPos current, BlockPos start, BlockPos end)
-    {
-        List<BlockPos> rev = new ArrayList<>();
-        BlockPos iter = current;
-        while (iter != null && !iter.equals(start))
-        {
-            rev.add(iter);
-            iter = parent.get(iter);
+            if (!level.isLoaded(nxt))
+            {
+                // The network may continue beyond this chunk, so a failed search here is not exhaustive.
+                diagnostics.unloadedNeighbors++;
+                return false;
+            }
         }
-        rev.add(start);                // include the origin
-        Collections.reverse(rev);      // now in start → goal order
 
-        if (!rev.get(rev.size() - 1).equals(end))
-        {
-            // we stopped adjacent to a non-track “end”; append it so caller sees full span
-            rev.add(end);
-        }
-        return Collections.unmodifiableList(rev);
+        return isTrackBlock(level, nxt);
     }
 
     /**
@@ -501,7 +664,17 @@ public class TrackPathConnection
      */
     private static boolean isTrackBlock(@Nonnull ServerLevel level, @Nonnull BlockPos pos)
     {
-        BlockState state = level.getBlockState(pos);
+        return isTrackState(level.getBlockState(pos));
+    }
+
+    /**
+     * Determines if a block state is traversable by the rail search, either as a vanilla rail or a block in the track tag.
+     *
+     * @param state block state to check
+     * @return true if the state is a track block, false otherwise
+     */
+    public static boolean isTrackState(@Nonnull BlockState state)
+    {
         Block block = state.getBlock();
 
         if (block instanceof BaseRailBlock || state.is(NullnessBridge.assumeNonnull(ModTags.BLOCKS.TRACK_TAG)))
@@ -511,34 +684,4 @@ public class TrackPathConnection
 
         return false;
     }
-
-    /**
-     * Calculates the Euclidean distance between two BlockPos objects. This is used to determine the closest point on the track path to
-     * the end point.
-     * 
-     * @param a the first BlockPos
-     * @param b the second BlockPos
-     * @return the Euclidean distance between the two BlockPos objects
-     */
-    private static double distance(BlockPos a, BlockPos b)
-    {
-        int dx = a.getX() - b.getX();
-        int dy = a.getY() - b.getY();
-        int dz = a.getZ() - b.getZ();
-        return Math.sqrt(dx * dx + dy * dy + dz * dz);
-    }
-
-    /**
-     * Determines if two BlockPos objects are adjacent to each other. This is used during the track path traversal to determine if a
-     * block is directly adjacent to another block. Two BlockPos objects are considered adjacent if the absolute difference in each
-     * dimension (x, y, z) is less than or equal to 1.
-     * 
-     * @param a the first BlockPos
-     * @param b the second BlockPos
-     * @return true if the two BlockPos objects are adjacent, false otherwise
-     */
-    private static boolean isAdjacent(BlockPos a, BlockPos b)
-    {
-        return Math.abs(a.getX() - b.getX()) <= 1 && Math.abs(a.getY() - b.getY()) <= 1 && Math.abs(a.getZ() - b.getZ()) <= 1;
-    }
 }
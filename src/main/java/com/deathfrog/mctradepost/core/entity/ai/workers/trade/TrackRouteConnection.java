@@ -1,5 +1,6 @@
 package com.deathfrog.mctradepost.core.entity.ai.workers.trade;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
@@ -7,10 +8,11 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.atomic.AtomicLong;
 
-import javax.annotation.Nonnull;
-
 import com.deathfrog.mctradepost.MCTradePostMod;
 import com.deathfrog.mctradepost.api.items.datacomponent.DimensionalLinkageRecord;
 import com.deathfrog.mctradepost.api.research.MCTPResearchConstants;
@@ -119,252 +121,492 @@ public class TrackRouteConnection
      * <p>
      * A direct same-dimension multimodal path is attempted first. If no direct path exists, installed valid dimensional linkages on
      * both endpoint buildings are used to build one-transfer or Overworld-Nether-Overworld segmented routes.
+     * <p>
+     * The whole search runs synchronously. Callers on a hot path should prefer {@link #beginRoute(ITradeCapable, StationData, boolean)}
+     * and spread the work over several ticks.
      *
      * @param source source station or outpost
      * @param destination destination station data
      * @param loadChunks whether BFS searches may load chunks while exploring rails
      * @return connection result containing the route when one is found
      */
-    @SuppressWarnings("null")
     public static TrackPathConnection.TrackConnectionResult findRoute(ITradeCapable source,
         StationData destination,
         boolean loadChunks)
+    {
+        RouteDiscoveryJob job = beginRoute(source, destination, loadChunks);
+        job.step(RouteDiscoveryJob.UNBOUNDED);
+        return job.result();
+    }
+
+    /**
+     * Creates a resumable route search from a source trade-capable building to a destination station. No pathfinding is performed
+     * until the job is stepped.
+     *
+     * @param source source station or outpost
+     * @param destination destination station data
+     * @param loadChunks whether BFS searches may load chunks while exploring rails
+     * @return a route discovery job; it may already be finished when the endpoints cannot be resolved
+     */
+    public static RouteDiscoveryJob beginRoute(ITradeCapable source, StationData destination, boolean loadChunks)
+    {
+        return beginRoute(source, destination, loadChunks, false);
+    }
+
+    /**
+     * Creates a resumable route search, optionally running the direct same-dimension leg on a background worker.
+     * <p>
+     * With {@code offThread}, the direct leg is searched against a snapshot of the loaded chunks around the route and the job waits
+     * for it without using tick time. The result is only committed by the caller on the server thread. A disconnected answer that
+     * the snapshot cannot fully explain, or a route too large to snapshot, falls back to the live search.
+     *
+     * @param source source station or outpost
+     * @param destination destination station data
+     * @param loadChunks whether BFS searches may load chunks while exploring rails
+     * @param offThread whether the direct leg may be searched on a background worker
+     * @return a route discovery job; it may already be finished when the endpoints cannot be resolved
+     */
+    @SuppressWarnings("null")
+    public static RouteDiscoveryJob beginRoute(ITradeCapable source, StationData destination, boolean loadChunks, boolean offThread)
     {
         if (source == null || destination == null || source.getColony() == null || source.getColony().getWorld() == null)
         {
-            return new TrackPathConnection.TrackConnectionResult(false, null, List.of(), 0L);
+            return RouteDiscoveryJob.finished(new TrackPathConnection.TrackConnectionResult(false, null, List.of(), 0L));
         }
 
         MinecraftServer server = source.getColony().getWorld().getServer();
         if (server == null)
         {
-            return new TrackPathConnection.TrackConnectionResult(false, null, List.of(), source.getColony().getWorld().getGameTime());
+            return RouteDiscoveryJob.finished(
+                new TrackPathConnection.TrackConnectionResult(false, null, List.of(), source.getColony().getWorld().getGameTime()));
         }
 
         ServerLevel sourceLevel = server.getLevel(source.getColony().getDimension());
         ServerLevel destinationLevel = server.getLevel(destination.getDimension());
         if (sourceLevel == null || destinationLevel == null)
         {
-            return new TrackPathConnection.TrackConnectionResult(false, source.getRailStartPosition(), List.of(), source.getColony().getWorld().getGameTime());
+            return RouteDiscoveryJob.finished(new TrackPathConnection.TrackConnectionResult(false,
+                source.getRailStartPosition(),
+                List.of(),
+                source.getColony().getWorld().getGameTime()));
         }
 
-        BlockPos sourceRail = source.getRailStartPosition();
-        BlockPos destinationRail = destination.getRailStartPosition();
         boolean allowWater = source.getColony().getResearchManager().getResearchEffects()
             .getEffectStrength(MCTPResearchConstants.MARITIME_TRADE) > 0;
         RouteSearchContext context = new RouteSearchContext(loadChunks, allowWater);
         context.logRouteStart(source, destination, sourceLevel, destinationLevel);
 
-        TrackPathConnection.TrackConnectionResult direct =
-            new TrackPathConnection.TrackConnectionResult(false, sourceRail, List.of(), source.getColony().getWorld().getGameTime());
-        if (sourceLevel.dimension().equals(destinationLevel.dimension()))
+        return new RouteDiscoveryJob(context, source, destination, sourceLevel, destinationLevel, offThread);
+    }
+
+    /**
+     * One local leg of a candidate route.
+     *
+     * @param level level containing the leg
+     * @param start leg start position
+     * @param end leg end position
+     */
+    private record RouteLeg(ServerLevel level, BlockPos start, BlockPos end) { }
+
+    /**
+     * A candidate route shape: local legs separated by dimensional transfers.
+     *
+     * @param legs local legs in travel order
+     * @param transfers transfer segments; {@code transfers.get(i)} joins {@code legs.get(i)} to {@code legs.get(i + 1)}
+     * @param linkagePair whether this candidate counts against the linkage-pair attempt limit
+     */
+    private record RoutePlan(List<RouteLeg> legs, List<TrackRoute.Segment> transfers, boolean linkagePair) { }
+
+    /**
+     * Resumable dimension-aware route search.
+     * <p>
+     * The job tries the direct same-dimension route first, then each dimensional linkage composition in the same order as a
+     * synchronous search. Work is performed one multimodal graph edge at a time, so {@link #step(long)} can stop at a per-tick budget
+     * and continue on the next tick. Leg results are shared through the job's {@link RouteSearchContext} segment cache for the
+     * lifetime of the job.
+     */
+    public static final class RouteDiscoveryJob
+    {
+        /** Budget value meaning the job should run to completion. */
+        public static final long UNBOUNDED = Long.MAX_VALUE;
+
+        private final RouteSearchContext context;
+        private final ITradeCapable source;
+        private final StationData destination;
+        private final ServerLevel sourceLevel;
+        private final ServerLevel destinationLevel;
+        private final ArrayDeque<RoutePlan> plans = new ArrayDeque<>();
+        private boolean linkagePlansBuilt = false;
+
+        private RoutePlan currentPlan = null;
+        private final List<TrackPathConnection.TrackConnectionResult> legResults = new ArrayList<>();
+        private ModalSegmentKey pendingKey = null;
+        private MultimodalRouteConnection.Search pendingSearch = null;
+        private boolean offThread;
+        private CompletableFuture<TrackPathConnection.TrackConnectionResult> pendingOffThread = null;
+
+        private TrackPathConnection.TrackConnectionResult direct;
+        private TrackPathConnection.TrackConnectionResult result = null;
+
+        /**
+         * Creates a job that needs no searching.
+         *
+         * @param result final result
+         * @return finished job
+         */
+        private static RouteDiscoveryJob finished(TrackPathConnection.TrackConnectionResult result)
         {
-            direct = MultimodalRouteConnection.findRoute(sourceLevel, sourceRail, destinationRail, loadChunks, allowWater);
+            RouteDiscoveryJob job = new RouteDiscoveryJob(null, null, null, null, null, false);
+            job.result = result;
+            return job;
         }
 
-        if (direct.isConnected())
+        private RouteDiscoveryJob(RouteSearchContext context,
+            ITradeCapable source,
+            StationData destination,
+            ServerLevel sourceLevel,
+            ServerLevel destinationLevel,
+            boolean offThread)
         {
-            return finishRouteSearch(context, direct, source, destination);
+            this.context = context;
+            this.offThread = offThread;
+            this.source = source;
+            this.destination = destination;
+            this.sourceLevel = sourceLevel;
+            this.destinationLevel = destinationLevel;
+
+            if (sourceLevel == null) return;
+
+            BlockPos sourceRail = source.getRailStartPosition();
+            this.direct = new TrackPathConnection.TrackConnectionResult(false, sourceRail, List.of(), source.getColony().getWorld().getGameTime());
+            if (sourceLevel.dimension().equals(destinationLevel.dimension()))
+            {
+                plans.add(new RoutePlan(List.of(new RouteLeg(sourceLevel, sourceRail, destination.getRailStartPosition())), List.of(), false));
+            }
         }
 
-        ITradeCapable destinationBuilding = destination.getStation();
-        List<DimensionalLinkageRecord> sourceLinkages = installedValidLinkages(source);
-        List<DimensionalLinkageRecord> destinationLinkages = installedValidLinkages(destinationBuilding);
-        List<DimensionalLinkageRecord> combinedLinkages = combineLinkages(sourceLinkages, destinationLinkages);
-        context.logLinkages(sourceLinkages, destinationLinkages, combinedLinkages);
-        TrackPathConnection.TrackConnectionResult routed = findLinkedRoute(sourceLevel,
-            sourceRail,
-            destinationLevel,
-            destinationRail,
-            sourceLinkages,
-            destinationLinkages,
-            combinedLinkages,
-            context);
-        if (routed != null && routed.isConnected())
+        /**
+         * @return true once the search has produced a result
+         */
+        public boolean isDone()
         {
-            return finishRouteSearch(context, routed, source, destination);
+            return result != null;
         }
 
-        return finishRouteSearch(context, direct, source, destination);
-    }
+        /**
+         * @return the finished connection result, or null while the search is still in progress
+         */
+        public TrackPathConnection.TrackConnectionResult result()
+        {
+            return result;
+        }
 
-    /**
-     * Selects the supported dimensional route shape and tries the available linkage candidates.
-     *
-     * @param sourceLevel level containing the source endpoint
-     * @param sourceRail source route position
-     * @param destinationLevel level containing the destination endpoint
-     * @param destinationRail destination route position
-     * @param sourceLinkages valid linkages installed at the source
-     * @param destinationLinkages valid linkages installed at the destination
-     * @param combinedLinkages unique linkage candidates from both endpoints
-     * @param context per-search cache, limits, and diagnostics
-     * @return a connected segmented result, or {@code null} when no supported linked route is found
-     */
-    private static TrackPathConnection.TrackConnectionResult findLinkedRoute(ServerLevel sourceLevel,
-        BlockPos sourceRail,
-        ServerLevel destinationLevel,
-        BlockPos destinationRail,
-        List<DimensionalLinkageRecord> sourceLinkages,
-        List<DimensionalLinkageRecord> destinationLinkages,
-        List<DimensionalLinkageRecord> combinedLinkages,
-        RouteSearchContext context)
-    {
-        if (combinedLinkages.isEmpty())
+        /**
+         * Advances the search until it finishes or the budget is spent. At least one unit of work is performed per call unless the job
+         * is waiting for a background search.
+         *
+         * @param budgetNanos wall-clock budget for this call in nanoseconds, or {@link #UNBOUNDED}
+         * @return true when the search has finished and {@link #result()} is available
+         */
+        public boolean step(long budgetNanos)
         {
-            return null;
+            long deadline = budgetNanos == UNBOUNDED ? MultimodalRouteConnection.Search.UNBOUNDED : System.nanoTime() + budgetNanos;
+
+            while (result == null)
+            {
+                if (pendingOffThread != null)
+                {
+                    if (!pendingOffThread.isDone()) return false;
+
+                    TrackPathConnection.TrackConnectionResult offThreadResult = takeOffThreadResult();
+                    if (offThreadResult != null) acceptLeg(offThreadResult);
+                }
+                else if (pendingSearch != null)
+                {
+                    if (!pendingSearch.step(deadline)) return false;
+
+                    TrackPathConnection.TrackConnectionResult legResult = pendingSearch.result();
+                    context.finishSegment(pendingKey, legResult);
+                    pendingSearch = null;
+                    pendingKey = null;
+                    acceptLeg(legResult);
+                }
+                else if (currentPlan != null)
+                {
+                    startLeg(currentPlan.legs().get(legResults.size()));
+                }
+                else
+                {
+                    startNextPlan();
+                }
+
+                if (result == null && deadline != MultimodalRouteConnection.Search.UNBOUNDED && System.nanoTime() - deadline >= 0)
+                {
+                    return false;
+                }
+            }
+            return true;
         }
 
-        if (sourceLevel.dimension().equals(Level.OVERWORLD) && destinationLevel.dimension().equals(Level.OVERWORLD))
+        /**
+         * Abandons an unfinished job, releasing any chunk tickets held by a paused rail search. A background search is left to finish
+         * on its own.
+         */
+        public void cancel()
         {
-            return findOverworldToOverworldRoute(sourceLevel,
-                sourceRail,
-                destinationRail,
-                sourceLinkages,
-                destinationLinkages,
-                combinedLinkages,
-                context);
+            if (pendingSearch != null)
+            {
+                pendingSearch.cancel();
+                pendingSearch = null;
+                pendingKey = null;
+            }
         }
 
-        for (DimensionalLinkageRecord linkage : combinedLinkages)
+        /**
+         * Begins the next leg of the current plan, answering it immediately from the segment cache when possible.
+         *
+         * @param leg leg to search
+         */
+        @SuppressWarnings("null")
+        private void startLeg(RouteLeg leg)
         {
-            if (!context.tryBeginPairAttempt())
+            if (leg.start() == null || leg.end() == null)
             {
-                return null;
+                acceptLeg(new TrackPathConnection.TrackConnectionResult(false, leg.start(), List.of(), leg.level().getGameTime()));
+                return;
             }
 
-            if (sourceLevel.dimension().equals(Level.OVERWORLD) && destinationLevel.dimension().equals(Level.NETHER))
+            if (offThread && !currentPlan.linkagePair())
             {
-                TrackPathConnection.TrackConnectionResult route = tryOneTransferRoute(sourceLevel,
-                    sourceRail,
-                    linkage.overworldEndpoint().get(),
-                    linkage.netherEndpoint().get(),
-                    destinationLevel,
-                    destinationRail,
-                    context);
-                if (route != null && route.isConnected()) return route;
+                offThread = false;
+                pendingOffThread = MultimodalRouteConnection.findRouteOffThread(leg.level(), leg.start(), leg.end(), context.allowWater);
+                if (pendingOffThread != null) return;
             }
-            else if (sourceLevel.dimension().equals(Level.NETHER) && destinationLevel.dimension().equals(Level.OVERWORLD))
+
+            ModalSegmentKey key = new ModalSegmentKey(leg.level().dimension(), leg.start(), leg.end());
+            TrackPathConnection.TrackConnectionResult cached = context.cachedSegment(key);
+            if (cached != null)
             {
-                TrackPathConnection.TrackConnectionResult route = tryOneTransferRoute(sourceLevel,
-                    sourceRail,
-                    linkage.netherEndpoint().get(),
-                    linkage.overworldEndpoint().get(),
-                    destinationLevel,
-                    destinationRail,
-                    context);
-                if (route != null && route.isConnected()) return route;
+                acceptLeg(cached);
+                return;
             }
-        }
 
-        return null;
-    }
+            pendingKey = key;
+            pendingSearch = context.beginSegment(key, leg.level());
+        }
 
-    /**
-     * Tries to connect two Overworld endpoints through distinct entry and exit linkages in the Nether.
-     * <p>
-     * Linkages installed at the respective endpoints are preferred. If those candidates fail, the combined linkage set is used as a
-     * fallback unless it is identical to both preferred sets.
-     *
-     * @param overworld level containing both route endpoints
-     * @param sourceRail source route position
-     * @param destinationRail destination route position
-     * @param sourceLinkages preferred entry linkages installed at the source
-     * @param destinationLinkages preferred exit linkages installed at the destination
-     * @param combinedLinkages unique fallback linkages from both endpoints
-     * @param context per-search cache, limits, and diagnostics
-     * @return a connected Overworld-Nether-Overworld result, or {@code null} when no linkage pair connects
-     */
-    private static TrackPathConnection.TrackConnectionResult findOverworldToOverworldRoute(ServerLevel overworld,
-        BlockPos sourceRail,
-        BlockPos destinationRail,
-        List<DimensionalLinkageRecord> sourceLinkages,
-        List<DimensionalLinkageRecord> destinationLinkages,
-        List<DimensionalLinkageRecord> combinedLinkages,
-        RouteSearchContext context)
-    {
-        MinecraftServer server = overworld.getServer();
-        ServerLevel nether = server.getLevel(NullnessBridge.assumeNonnull(Level.NETHER));
-        if (nether == null)
+        /**
+         * Collects the finished background search for the direct leg.
+         *
+         * @return the background result, or null when the leg must be searched live
+         */
+        private TrackPathConnection.TrackConnectionResult takeOffThreadResult()
         {
-            return null;
+            TrackPathConnection.TrackConnectionResult offThreadResult = null;
+            try
+            {
+                offThreadResult = pendingOffThread.join();
+            }
+            catch (CompletionException | CancellationException e)
+            {
+                MCTradePostMod.LOGGER.warn("Background route search failed; repeating it on the server thread.", e);
+            }
+            pendingOffThread = null;
+
+            final boolean conclusive = offThreadResult != null;
+            TraceUtils.dynamicTrace(TRACE_TRACKPATH, () -> MCTradePostMod.LOGGER.warn("Track route #{} OFF_THREAD conclusive={}",
+                context.routeSearchId,
+                conclusive));
+            return offThreadResult;
         }
 
-        TrackPathConnection.TrackConnectionResult endpointOwnedRoute =
-            tryOverworldToOverworldLinkagePairs(overworld, nether, sourceRail, destinationRail, sourceLinkages, destinationLinkages, context);
-        if (endpointOwnedRoute != null && endpointOwnedRoute.isConnected())
+        /**
+         * Records a finished leg, abandoning the plan when it failed and completing the job when the plan is fully connected.
+         *
+         * @param legResult result of the leg search
+         */
+        private void acceptLeg(TrackPathConnection.TrackConnectionResult legResult)
         {
-            return endpointOwnedRoute;
+            boolean directPlan = !currentPlan.linkagePair();
+            if (directPlan && legResult != null)
+            {
+                direct = legResult;
+            }
+
+            if (legResult == null || !legResult.isConnected())
+            {
+                currentPlan = null;
+                legResults.clear();
+                return;
+            }
+
+            legResults.add(legResult);
+            if (legResults.size() < currentPlan.legs().size())
+            {
+                return;
+            }
+
+            if (directPlan)
+            {
+                finish(legResult);
+                return;
+            }
+
+            List<TrackRoute.Segment> segments = new ArrayList<>(routeSegments(legResults.get(0)));
+            for (int i = 1; i < legResults.size(); i++)
+            {
+                segments.add(currentPlan.transfers().get(i - 1));
+                segments.addAll(routeSegments(legResults.get(i)));
+            }
+            TrackRoute route = new TrackRoute(segments);
+            finish(new TrackPathConnection.TrackConnectionResult(true, destination.getRailStartPosition(), route.firstPath(),
+                sourceLevel.getGameTime(), route));
         }
 
-        if (sameLinkageSet(sourceLinkages, combinedLinkages) && sameLinkageSet(destinationLinkages, combinedLinkages))
+        /**
+         * Selects the next candidate plan, building the linkage compositions once the direct route has failed.
+         */
+        private void startNextPlan()
         {
-            return null;
-        }
+            legResults.clear();
 
-        return tryOverworldToOverworldLinkagePairs(overworld, nether, sourceRail, destinationRail, combinedLinkages, combinedLinkages, context);
-    }
+            if (plans.isEmpty() && !linkagePlansBuilt)
+            {
+                linkagePlansBuilt = true;
+                buildLinkagePlans();
+            }
 
-    /**
-     * Attempts to build an Overworld-Nether-Overworld route from one set of entry linkages and one set of exit linkages.
-     *
-     * @param overworld Overworld level
-     * @param nether Nether level
-     * @param sourceRail source rail start position
-     * @param destinationRail destination rail start position
-     * @param entryLinkages candidate linkages reachable from the source side
-     * @param exitLinkages candidate linkages reachable from the destination side
-     * @param context per-search cache and safety limits
-     * @return connected route result, or null when no linkage pair connects both endpoints
-     */
-    private static TrackPathConnection.TrackConnectionResult tryOverworldToOverworldLinkagePairs(ServerLevel overworld,
-        ServerLevel nether,
-        BlockPos sourceRail,
-        BlockPos destinationRail,
-        List<DimensionalLinkageRecord> entryLinkages,
-        List<DimensionalLinkageRecord> exitLinkages,
-        RouteSearchContext context)
-    {
-        if (sourceRail == null || destinationRail == null) return null;
+            RoutePlan next = plans.poll();
+            if (next == null)
+            {
+                finish(direct);
+                return;
+            }
 
-        for (DimensionalLinkageRecord entry : entryLinkages)
+            if (next.linkagePair() && !context.tryBeginPairAttempt())
+            {
+                finish(direct);
+                return;
+            }
+
+            currentPlan = next;
+        }
+
+        /**
+         * Queues the supported dimensional route shapes for the available linkage candidates.
+         * <p>
+         * Overworld-to-Overworld routes prefer linkages installed at the respective endpoints and fall back to the combined set unless
+         * it is identical to both preferred sets.
+         */
+        @SuppressWarnings("null")
+        private void buildLinkagePlans()
         {
-            for (DimensionalLinkageRecord exit : exitLinkages)
+            ITradeCapable destinationBuilding = destination.getStation();
+            List<DimensionalLinkageRecord> sourceLinkages = installedValidLinkages(source);
+            List<DimensionalLinkageRecord> destinationLinkages = installedValidLinkages(destinationBuilding);
+            List<DimensionalLinkageRecord> combinedLinkages = combineLinkages(sourceLinkages, destinationLinkages);
+            context.logLinkages(sourceLinkages, destinationLinkages, combinedLinkages);
+
+            BlockPos sourceRail = source.getRailStartPosition();
+            BlockPos destinationRail = destination.getRailStartPosition();
+            if (combinedLinkages.isEmpty() || sourceRail == null || destinationRail == null)
             {
-                if (entry.id().equals(exit.id()))
+                return;
+            }
+
+            if (sourceLevel.dimension().equals(Level.OVERWORLD) && destinationLevel.dimension().equals(Level.OVERWORLD))
+            {
+                ServerLevel nether = sourceLevel.getServer().getLevel(NullnessBridge.assumeNonnull(Level.NETHER));
+                if (nether == null)
                 {
-                    continue;
+                    return;
                 }
 
-                if (!context.tryBeginPairAttempt())
+                addOverworldToOverworldPlans(nether, sourceRail, destinationRail, sourceLinkages, destinationLinkages);
+                if (!(sameLinkageSet(sourceLinkages, combinedLinkages) && sameLinkageSet(destinationLinkages, combinedLinkages)))
                 {
-                    return null;
+                    addOverworldToOverworldPlans(nether, sourceRail, destinationRail, combinedLinkages, combinedLinkages);
                 }
+                return;
+            }
 
-                TrackPathConnection.TrackConnectionResult startToEntry =
-                    context.tryModalSegment(overworld, sourceRail, entry.overworldEndpoint().get().pos());
-                if (!startToEntry.isConnected()) continue;
-
-                TrackPathConnection.TrackConnectionResult netherSegment =
-                    context.tryModalSegment(nether, entry.netherEndpoint().get().pos(), exit.netherEndpoint().get().pos());
-                if (!netherSegment.isConnected()) continue;
-
-                TrackPathConnection.TrackConnectionResult exitToDestination =
-                    context.tryModalSegment(overworld, exit.overworldEndpoint().get().pos(), destinationRail);
-                if (!exitToDestination.isConnected()) continue;
-
-                @SuppressWarnings("null")
-                TrackRoute route = joinedRoute(startToEntry,
-                    TrackRoute.Segment.transfer(entry.overworldEndpoint().get(), entry.netherEndpoint().get()),
-                    netherSegment,
-                    TrackRoute.Segment.transfer(exit.netherEndpoint().get(), exit.overworldEndpoint().get()),
-                    exitToDestination);
+            for (DimensionalLinkageRecord linkage : combinedLinkages)
+            {
+                if (sourceLevel.dimension().equals(Level.OVERWORLD) && destinationLevel.dimension().equals(Level.NETHER))
+                {
+                    addOneTransferPlan(sourceRail, linkage.overworldEndpoint().get(), linkage.netherEndpoint().get(), destinationRail);
+                }
+                else if (sourceLevel.dimension().equals(Level.NETHER) && destinationLevel.dimension().equals(Level.OVERWORLD))
+                {
+                    addOneTransferPlan(sourceRail, linkage.netherEndpoint().get(), linkage.overworldEndpoint().get(), destinationRail);
+                }
+            }
+        }
 
-                return new TrackPathConnection.TrackConnectionResult(true, destinationRail, route.firstPath(), overworld.getGameTime(), route);
+        /**
+         * Queues Overworld-Nether-Overworld plans for each distinct entry and exit linkage pair.
+         *
+         * @param nether Nether level
+         * @param sourceRail source rail start position
+         * @param destinationRail destination rail start position
+         * @param entryLinkages candidate linkages reachable from the source side
+         * @param exitLinkages candidate linkages reachable from the destination side
+         */
+        @SuppressWarnings("null")
+        private void addOverworldToOverworldPlans(ServerLevel nether,
+            BlockPos sourceRail,
+            BlockPos destinationRail,
+            List<DimensionalLinkageRecord> entryLinkages,
+            List<DimensionalLinkageRecord> exitLinkages)
+        {
+            for (DimensionalLinkageRecord entry : entryLinkages)
+            {
+                for (DimensionalLinkageRecord exit : exitLinkages)
+                {
+                    if (entry.id().equals(exit.id()))
+                    {
+                        continue;
+                    }
+
+                    plans.add(new RoutePlan(
+                        List.of(new RouteLeg(sourceLevel, sourceRail, entry.overworldEndpoint().get().pos()),
+                            new RouteLeg(nether, entry.netherEndpoint().get().pos(), exit.netherEndpoint().get().pos()),
+                            new RouteLeg(sourceLevel, exit.overworldEndpoint().get().pos(), destinationRail)),
+                        List.of(TrackRoute.Segment.transfer(entry.overworldEndpoint().get(), entry.netherEndpoint().get()),
+                            TrackRoute.Segment.transfer(exit.netherEndpoint().get(), exit.overworldEndpoint().get())),
+                        true));
+                }
             }
         }
 
-        return null;
+        /**
+         * Queues a plan containing one dimensional transfer and a multimodal leg on each side.
+         *
+         * @param sourceRail source route position
+         * @param transferFrom transfer endpoint in the source dimension
+         * @param transferTo paired transfer endpoint in the destination dimension
+         * @param destinationRail final route position
+         */
+        @SuppressWarnings("null")
+        private void addOneTransferPlan(BlockPos sourceRail, DimPos transferFrom, DimPos transferTo, BlockPos destinationRail)
+        {
+            plans.add(new RoutePlan(
+                List.of(new RouteLeg(sourceLevel, sourceRail, transferFrom.pos()), new RouteLeg(destinationLevel, transferTo.pos(), destinationRail)),
+                List.of(TrackRoute.Segment.transfer(transferFrom, transferTo)),
+                true));
+        }
+
+        /**
+         * Records the final result and emits route-search diagnostics.
+         *
+         * @param selected result selected for the route search
+         */
+        private void finish(TrackPathConnection.TrackConnectionResult selected)
+        {
+            currentPlan = null;
+            plans.clear();
+            result = finishRouteSearch(context, selected, source, destination);
+        }
     }
 
     /**
@@ -419,80 +661,6 @@ public class TrackRouteConnection
         return List.copyOf(combined.values());
     }
 
-    /**
-     * Builds a route containing one dimensional transfer and a multimodal leg on each side.
-     *
-     * @param sourceLevel level containing the source and transfer origin
-     * @param sourceRail source route position
-     * @param transferFrom transfer endpoint in the source dimension
-     * @param transferTo paired transfer endpoint in the destination dimension
-     * @param destinationLevel level containing the transfer destination and final endpoint
-     * @param destinationRail final route position
-     * @param context per-search cache, limits, and diagnostics
-     * @return a connected composed result, or {@code null} when either local leg does not connect
-     */
-    private static TrackPathConnection.TrackConnectionResult tryOneTransferRoute(ServerLevel sourceLevel,
-        BlockPos sourceRail,
-        DimPos transferFrom,
-        DimPos transferTo,
-        ServerLevel destinationLevel,
-        BlockPos destinationRail,
-        RouteSearchContext context)
-    {
-        if (sourceRail == null || destinationRail == null) return null;
-
-        TrackPathConnection.TrackConnectionResult startToTransfer =
-            context.tryModalSegment(sourceLevel, sourceRail, transferFrom.pos());
-        if (!startToTransfer.isConnected()) return null;
-
-        TrackPathConnection.TrackConnectionResult transferToDestination =
-            context.tryModalSegment(destinationLevel, transferTo.pos(), destinationRail);
-        if (!transferToDestination.isConnected()) return null;
-
-        TrackRoute route = joinedRoute(startToTransfer, TrackRoute.Segment.transfer(transferFrom, transferTo), transferToDestination);
-
-        return new TrackPathConnection.TrackConnectionResult(true, destinationRail, route.firstPath(), sourceLevel.getGameTime(), route);
-    }
-
-    /**
-     * Joins two local route results around one dimensional transfer.
-     *
-     * @param first local route before the transfer
-     * @param transfer dimensional transfer segment
-     * @param second local route after the transfer
-     * @return combined segmented route
-     */
-    private static TrackRoute joinedRoute(TrackPathConnection.TrackConnectionResult first, TrackRoute.Segment transfer,
-        TrackPathConnection.TrackConnectionResult second)
-    {
-        List<TrackRoute.Segment> segments = new ArrayList<>(routeSegments(first));
-        segments.add(transfer);
-        segments.addAll(routeSegments(second));
-        return new TrackRoute(segments);
-    }
-
-    /**
-     * Joins three local route results around an outbound and return dimensional transfer.
-     *
-     * @param first local route before entering the intermediate dimension
-     * @param firstTransfer transfer into the intermediate dimension
-     * @param middle route across the intermediate dimension
-     * @param secondTransfer transfer back from the intermediate dimension
-     * @param last local route to the final endpoint
-     * @return combined segmented route
-     */
-    private static TrackRoute joinedRoute(TrackPathConnection.TrackConnectionResult first, TrackRoute.Segment firstTransfer,
-        TrackPathConnection.TrackConnectionResult middle, TrackRoute.Segment secondTransfer,
-        TrackPathConnection.TrackConnectionResult last)
-    {
-        List<TrackRoute.Segment> segments = new ArrayList<>(routeSegments(first));
-        segments.add(firstTransfer);
-        segments.addAll(routeSegments(middle));
-        segments.add(secondTransfer);
-        segments.addAll(routeSegments(last));
-        return new TrackRoute(segments);
-    }
-
     /**
      * Extracts the canonical segment list from a local connection result.
      *
@@ -559,9 +727,10 @@ public class TrackRouteConnection
         private int cacheHitCount = 0;
         private int pairAttempts = 0;
         private boolean pairLimitReached = false;
+        private long segmentStartNanos = 0L;
 
         /**
-         * Creates a route search context for one call to {@link #findRoute(ITradeCapable, StationData, boolean)}.
+         * Creates a route search context for one route discovery job.
          *
          * @param loadChunks whether rail searches within new modal searches may chunk-load while exploring
          */
@@ -657,51 +826,70 @@ public class TrackRouteConnection
         }
 
         /**
-         * Finds or reuses a same-dimension multimodal connection for the current route search.
+         * Looks up a same-dimension multimodal connection already searched by this route search.
          *
-         * @param level level containing the segment
-         * @param start segment start position
-         * @param end segment end position
-         * @return track connection result for this segment
+         * @param key segment request
+         * @return cached result, or null when the segment has not been searched
          */
-        private TrackPathConnection.TrackConnectionResult tryModalSegment(ServerLevel level, @Nonnull BlockPos start, @Nonnull BlockPos end)
+        private TrackPathConnection.TrackConnectionResult cachedSegment(ModalSegmentKey key)
         {
-            ModalSegmentKey key = new ModalSegmentKey(level.dimension(), start, end);
             TrackPathConnection.TrackConnectionResult cached = segmentCache.get(key);
             if (cached != null)
             {
                 cacheHitCount++;
                 TraceUtils.dynamicTrace(TRACE_TRACKPATH, () -> MCTradePostMod.LOGGER.warn("Track route #{} SEGMENT_CACHE dim={} start={} end={} connected={}",
                     routeSearchId,
-                    level.dimension().location(),
-                    start,
-                    end,
+                    key.dimension().location(),
+                    key.start(),
+                    key.end(),
                     cached.isConnected()));
-                return cached;
             }
+            return cached;
+        }
 
+        /**
+         * Starts a same-dimension multimodal search for a segment that is not cached.
+         *
+         * @param key segment request
+         * @param level level containing the segment
+         * @return resumable search for the segment
+         */
+        @SuppressWarnings("null")
+        private MultimodalRouteConnection.Search beginSegment(ModalSegmentKey key, ServerLevel level)
+        {
             segmentSearchCount++;
+            segmentStartNanos = System.nanoTime();
             int segmentIndex = segmentSearchCount;
-            long segmentStartNanos = System.nanoTime();
             TraceUtils.dynamicTrace(TRACE_TRACKPATH, () -> MCTradePostMod.LOGGER.warn("Track route #{} SEGMENT_BEGIN index={} dim={} start={} end={} loadChunks={}",
                 routeSearchId,
                 segmentIndex,
-                level.dimension().location(),
-                start,
-                end,
+                key.dimension().location(),
+                key.start(),
+                key.end(),
                 loadChunks));
-            TrackPathConnection.TrackConnectionResult result = MultimodalRouteConnection.findRoute(level, start, end, loadChunks, allowWater);
+            return new MultimodalRouteConnection.Search(level, key.start(), key.end(), loadChunks, allowWater);
+        }
+
+        /**
+         * Caches the result of a finished segment search.
+         *
+         * @param key segment request
+         * @param result finished search result
+         */
+        private void finishSegment(ModalSegmentKey key, TrackPathConnection.TrackConnectionResult result)
+        {
+            int segmentIndex = segmentSearchCount;
+            long elapsedNanos = System.nanoTime() - segmentStartNanos;
             TraceUtils.dynamicTrace(TRACE_TRACKPATH, () -> MCTradePostMod.LOGGER.warn("Track route #{} SEGMENT_END index={} dim={} start={} end={} connected={} pathSize={} elapsedMs={}",
                 routeSearchId,
                 segmentIndex,
-                level.dimension().location(),
-                start,
-                end,
+                key.dimension().location(),
+                key.start(),
+                key.end(),
                 result != null && result.isConnected(),
                 result == null || result.path == null ? 0 : result.path.size(),
-                (System.nanoTime() - segmentStartNanos) / 1_000_000L));
+                elapsedNanos / 1_000_000L));
             segmentCache.put(key, result);
-            return result;
         }
     }
 
@@ -30,14 +30,18 @@ public final class TradeDockRegistry extends SavedData
         return level.getDataStorage().computeIfAbsent(FACTORY, DATA_NAME);
     }
 
-    public void add(BlockPos pos)
+    public boolean add(BlockPos pos)
     {
-        if (docks.add(pos.immutable())) setDirty();
+        if (!docks.add(pos.immutable())) return false;
+        setDirty();
+        return true;
     }
 
-    public void remove(BlockPos pos)
+    public boolean remove(BlockPos pos)
     {
-        if (docks.remove(pos)) setDirty();
+        if (!docks.remove(pos)) return false;
+        setDirty();
+        return true;
     }
 
     public Set<BlockPos> docks()
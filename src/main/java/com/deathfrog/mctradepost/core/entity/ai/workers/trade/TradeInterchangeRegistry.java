@@ -30,14 +30,18 @@ public final class TradeInterchangeRegistry extends SavedData
         return level.getDataStorage().computeIfAbsent(FACTORY, DATA_NAME);
     }
 
-    public void add(BlockPos pos)
+    public boolean add(BlockPos pos)
     {
-        if (interchanges.add(pos.immutable())) setDirty();
+        if (!interchanges.add(pos.immutable())) return false;
+        setDirty();
+        return true;
     }
 
-    public void remove(BlockPos pos)
+    public boolean remove(BlockPos pos)
     {
-        if (interchanges.remove(pos)) setDirty();
+        if (!interchanges.remove(pos)) return false;
+        setDirty();
+        return true;
     }
 
     public Set<BlockPos> interchanges()
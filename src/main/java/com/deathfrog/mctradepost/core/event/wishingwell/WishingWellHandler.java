@@ -17,15 +17,12 @@ import com.deathfrog.mctradepost.core.event.wishingwell.ritual.SummonRitualProce
 import com.deathfrog.mctradepost.core.event.wishingwell.ritual.TransformRitualProcessor;
 import com.deathfrog.mctradepost.core.event.wishingwell.ritual.WeatherRitualProcessor;
 import com.deathfrog.mctradepost.item.CoinItem;
-import com.minecolonies.api.colony.IColony;
-import com.minecolonies.api.colony.IColonyManager;
-import com.minecolonies.api.colony.buildings.IBuilding;
 import com.minecolonies.api.crafting.ItemStorage;
 import com.minecolonies.core.util.AdvancementUtils;
 import com.mojang.logging.LogUtils;
 import net.minecraft.core.BlockPos;
+import net.minecraft.core.SectionPos;
 import net.minecraft.core.particles.ParticleTypes;
-import net.minecraft.core.registries.BuiltInRegistries;
 import net.minecraft.server.level.ServerLevel;
 import net.minecraft.sounds.SoundEvents;
 import net.minecraft.sounds.SoundSource;
@@ -40,7 +37,10 @@ import net.minecraft.world.level.Level;
 import net.minecraft.world.level.block.LiquidBlock;
 import net.minecraft.world.level.block.state.BlockState;
 import net.minecraft.world.phys.AABB;
+import net.neoforged.bus.api.SubscribeEvent;
 import net.neoforged.fml.common.EventBusSubscriber;
+import net.neoforged.neoforge.event.entity.EntityEvent;
+import net.neoforged.neoforge.event.entity.EntityJoinLevelEvent;
 import net.neoforged.neoforge.event.tick.LevelTickEvent;
 import java.util.*;
 import javax.annotation.Nonnull;
@@ -52,54 +52,66 @@ public class WishingWellHandler
     public static final Logger LOGGER = LogUtils.getLogger();
 
     private static final int MAX_WISHINGWELL_COOLDOWN = 100;
-    private static int wishingWellCooldown = MAX_WISHINGWELL_COOLDOWN;
 
     /**
-     * Handles level tick events for server-side wishing well structures. This method checks each registered wishing well location to
-     * ensure it is a valid structure. It identifies items within the well's vicinity, differentiating between coin items and companion
-     * items. If both types of items are present, it triggers an effect, removes the items, and updates the ritual state for the well.
+     * Handles level tick events for server-side wishing well structures. Every {@link #MAX_WISHINGWELL_COOLDOWN} ticks of a level,
+     * the wells of that level woken by nearby item entities are evaluated; wells with no item activity are not looked at.
      * 
      * @param event The level tick event containing the level data.
      */
-    @net.neoforged.bus.api.SubscribeEvent
+    @SubscribeEvent
     public static void onLevelTick(LevelTickEvent.Post event)
     {
-        if (event.getLevel().isClientSide())
+        if (!(event.getLevel() instanceof ServerLevel level))
         {
             return;
         }
 
-        if (wishingWellCooldown > 0)
+        if (level.getGameTime() % MAX_WISHINGWELL_COOLDOWN != 0)
         {
-            wishingWellCooldown--;
             return;
         }
 
-        ServerLevel level = (ServerLevel) event.getLevel();
-
-        if (level == null)
-        {
-            return;
-        }
-
-        IColonyManager colonyManager = IColonyManager.getInstance();
-        List<IColony> colonyList = colonyManager.getAllColonies();
-
-        if (colonyList != null)
+        for (WishingWellRegistry.Well well : WishingWellRegistry.awakeWells(level))
         {
-            for (IColony colony : colonyList)
+            if (!WishingWellRegistry.isOwnerPresent(well))
             {
-                for (IBuilding building : colony.getServerBuildingManager().getBuildings().values())
-                {
-                    if (building instanceof BuildingMarketplace)
-                    {
-                        processMarketplaceRituals(level, (BuildingMarketplace) building);
-                    }
-                }
+                WishingWellRegistry.unregister(well.marketplace(), well.pos());
+                continue;
             }
+
+            boolean occupied = processWell(level, well.marketplace(), well.pos());
+            WishingWellRegistry.evaluated(level, well, occupied);
         }
+    }
 
-        wishingWellCooldown = MAX_WISHINGWELL_COOLDOWN;
+    /**
+     * Wakes the wells around an item entity that joins a server level, including items thrown by players and items loaded with a
+     * chunk.
+     *
+     * @param event the entity join event
+     */
+    @SubscribeEvent
+    public static void onItemJoinLevel(EntityJoinLevelEvent event)
+    {
+        if (!(event.getLevel() instanceof ServerLevel level)) return;
+        if (!(event.getEntity() instanceof ItemEntity item)) return;
+
+        WishingWellRegistry.wake(level, SectionPos.asLong(item.blockPosition()));
+    }
+
+    /**
+     * Wakes the wells around the chunk section an item entity moves into.
+     *
+     * @param event the section change event
+     */
+    @SubscribeEvent
+    public static void onItemEnteringSection(EntityEvent.EnteringSection event)
+    {
+        if (!(event.getEntity() instanceof ItemEntity item)) return;
+        if (!(item.level() instanceof ServerLevel level)) return;
+
+        WishingWellRegistry.wake(level, event.getNewPos().asLong());
     }
 
     /**
@@ -110,12 +122,27 @@ public class WishingWellHandler
      * @param level       The server level containing the marketplace building.
      * @param marketplace The marketplace building containing the wishing wells.
      */
-    @SuppressWarnings("null")
     protected static void processMarketplaceRituals(@Nonnull ServerLevel level, @Nonnull BuildingMarketplace marketplace)
     {
-        WellLocations data = marketplace.getRitualData();
-        Set<BlockPos> wells = data.getKnownWells();
-        Map<BlockPos, RitualState> rituals = data.getActiveRituals();
+        for (BlockPos pos : marketplace.getRitualData().getKnownWells())
+        {
+            processWell(level, marketplace, pos);
+        }
+    }
+
+    /**
+     * Processes the ritual at a single wishing well of a marketplace, checking for the presence of both coin items and companion items.
+     * If both are present, it triggers an effect and updates the ritual state for the well.
+     *
+     * @param level       The server level containing the well.
+     * @param marketplace The marketplace building owning the well.
+     * @param pos         The center of the well.
+     * @return true if any item entities were found in the well.
+     */
+    @SuppressWarnings("null")
+    protected static boolean processWell(@Nonnull ServerLevel level, @Nonnull BuildingMarketplace marketplace, BlockPos pos)
+    {
+        Map<BlockPos, RitualState> rituals = marketplace.getRitualData().getActiveRituals();
 
         CoinItem coinItem = MCTradePostMod.MCTP_COIN_ITEM.get();
         CoinItem goldCoin = MCTradePostMod.MCTP_COIN_GOLD.get();
@@ -126,106 +153,105 @@ public class WishingWellHandler
             throw new IllegalStateException("Trade Post Coin items not initialized. This should never happen. Please report.");
         }
 
-        for (BlockPos pos : wells)
+        if (pos == null || BlockPos.ZERO.equals(pos))
         {
-            if (pos == null || BlockPos.ZERO.equals(pos))
-            {
-                continue;
-            }
+            return false;
+        }
 
-            AABB wellBox = new AABB(pos).inflate(1.5);
-            List<ItemEntity> items = level.getEntitiesOfClass(ItemEntity.class, NullnessBridge.assumeNonnull(wellBox));
+        AABB wellBox = new AABB(pos).inflate(1.5);
+        List<ItemEntity> items = level.getEntitiesOfClass(ItemEntity.class, NullnessBridge.assumeNonnull(wellBox));
 
-            final List<ItemEntity> baseCoinItems = new ArrayList<>();
-            final List<ItemEntity> goldCoinItems = new ArrayList<>();
-            final List<ItemEntity> diamondCoinItems = new ArrayList<>();
-            final List<ItemEntity> companions = new ArrayList<>();
+        final List<ItemEntity> baseCoinItems = new ArrayList<>();
+        final List<ItemEntity> goldCoinItems = new ArrayList<>();
+        final List<ItemEntity> diamondCoinItems = new ArrayList<>();
+        final List<ItemEntity> companions = new ArrayList<>();
 
-            for (ItemEntity ent : items)
+        for (ItemEntity ent : items)
+        {
+            ItemStack stack = ent.getItem();
+            if (ent instanceof CoinEntity)
             {
-                ItemStack stack = ent.getItem();
-                if (ent instanceof CoinEntity)
+                if (stack.is(coinItem))
                 {
-                    if (stack.is(coinItem))
-                    {
-                        baseCoinItems.add(ent);
-                    }
-                    else if (stack.is(goldCoin))
-                    {
-                        goldCoinItems.add(ent);
-                    }
-                    else if (stack.is(diamondCoin))
-                    {
-                        diamondCoinItems.add(ent);
-                    }
+                    baseCoinItems.add(ent);
                 }
-                else
+                else if (stack.is(goldCoin))
                 {
-                    companions.add(ent);
+                    goldCoinItems.add(ent);
+                }
+                else if (stack.is(diamondCoin))
+                {
+                    diamondCoinItems.add(ent);
                 }
             }
-
-            int totalCoinStacks = baseCoinItems.size() + goldCoinItems.size() + diamondCoinItems.size();
-
-            if (totalCoinStacks > 0 && !companions.isEmpty())
+            else
             {
-                Item companionType = companions.getFirst().getItem().getItem();
+                companions.add(ent);
+            }
+        }
 
-                List<ItemEntity> sameTypeCompanions = companions.stream().filter(e -> e.getItem().getItem() == companionType).toList();
+        int totalCoinStacks = baseCoinItems.size() + goldCoinItems.size() + diamondCoinItems.size();
 
-                BlockPos center = pos.immutable();
+        if (totalCoinStacks > 0 && !companions.isEmpty())
+        {
+            Item companionType = companions.getFirst().getItem().getItem();
 
-                if (center == null || center.equals(BlockPos.ZERO))
-                {
-                    continue;
-                }
+            List<ItemEntity> sameTypeCompanions = companions.stream().filter(e -> e.getItem().getItem() == companionType).toList();
 
-                RitualState state = rituals.computeIfAbsent(center, k -> new RitualState());
+            BlockPos center = pos.immutable();
 
-                state.baseCoins = baseCoinItems;
-                state.goldCoins = goldCoinItems;
-                state.diamondCoins = diamondCoinItems;
-                state.companionItems = sameTypeCompanions;
-                state.lastUsed = System.currentTimeMillis();
+            if (center == null || center.equals(BlockPos.ZERO))
+            {
+                return true;
+            }
 
-                RitualResult result = triggerRitual(marketplace, state, center, companionType);
+            RitualState state = rituals.computeIfAbsent(center, k -> new RitualState());
 
-                switch (result)
-                {
-                    case FAILED:
-                        ejectItems(level, baseCoinItems, center);
-                        ejectItems(level, goldCoinItems, center);
-                        ejectItems(level, diamondCoinItems, center);
-                        ejectItems(level, sameTypeCompanions, center);
-                        break;
+            state.baseCoins = baseCoinItems;
+            state.goldCoins = goldCoinItems;
+            state.diamondCoins = diamondCoinItems;
+            state.companionItems = sameTypeCompanions;
+            state.lastUsed = System.currentTimeMillis();
 
-                    case COMPLETED:
-                        LOGGER.info("Wishing well {} at {} with companion item {}", result, center, companionType);
-                        sameTypeCompanions.forEach(Entity::discard); // remove every companion
-                        rituals.remove(pos);
+            RitualResult result = triggerRitual(marketplace, state, center, companionType);
 
-                        AdvancementUtils.TriggerAdvancementPlayersForColony(marketplace.getColony(), player -> {
-                            if (player != null)
-                            {
-                                MCTPAdvancementTriggers.MAKE_WISH.get().trigger(player);
-                            }
-                        });
+            switch (result)
+            {
+                case FAILED:
+                    ejectItems(level, baseCoinItems, center);
+                    ejectItems(level, goldCoinItems, center);
+                    ejectItems(level, diamondCoinItems, center);
+                    ejectItems(level, sameTypeCompanions, center);
+                    break;
+
+                case COMPLETED:
+                    LOGGER.info("Wishing well {} at {} with companion item {}", result, center, companionType);
+                    sameTypeCompanions.forEach(Entity::discard); // remove every companion
+                    rituals.remove(pos);
+
+                    AdvancementUtils.TriggerAdvancementPlayersForColony(marketplace.getColony(), player -> {
+                        if (player != null)
+                        {
+                            MCTPAdvancementTriggers.MAKE_WISH.get().trigger(player);
+                        }
+                    });
 
-                        break;
+                    break;
 
-                    case UNRECOGNIZED:
-                        // An unrecognized companion item has been used, or something else caused the ritual to fail.
-                        // Discard the companion item, but leave the ritual active for a valid companion item to be added.
-                        LOGGER.warn("Wishing well activated with unknown ritual at {} with companion item {}", center, companionType);
-                        ejectItems(level, sameTypeCompanions, center);
-                        break;
+                case UNRECOGNIZED:
+                    // An unrecognized companion item has been used, or something else caused the ritual to fail.
+                    // Discard the companion item, but leave the ritual active for a valid companion item to be added.
+                    LOGGER.warn("Wishing well activated with unknown ritual at {} with companion item {}", center, companionType);
+                    ejectItems(level, sameTypeCompanions, center);
+                    break;
 
-                    case NEEDS_INGREDIENTS:
-                        // We're just waiting for more coins to be added...
-                        break;
-                }
+                case NEEDS_INGREDIENTS:
+                    // We're just waiting for more coins to be added...
+                    break;
             }
         }
+
+        return !items.isEmpty();
     }
 
     /**
@@ -262,6 +288,7 @@ public class WishingWellHandler
     {
         Set<BlockPos> wells = marketplace.getRitualData().getKnownWells();
         wells.add(pos);
+        WishingWellRegistry.register(marketplace, pos);
 
         ServerLevel level = (ServerLevel) marketplace.getColony().getWorld();
 
@@ -285,6 +312,7 @@ public class WishingWellHandler
         if (wells.contains(pos))
         {
             wells.remove(pos);
+            WishingWellRegistry.unregister(marketplace, pos);
             LOGGER.info("Removed invalid wishing well at {}", pos);
         }
         else
@@ -415,16 +443,12 @@ public class WishingWellHandler
             return RitualResult.FAILED;
         }
 
-        Collection<RitualDefinitionHelper> rituals = RitualManager.getAllRituals().values();
-
-        for (RitualDefinitionHelper ritual : rituals)
+        for (RitualDefinitionHelper ritual : RitualManager.getRitualsFor(companionItem))
         {
-            Item effectCompanion = BuiltInRegistries.ITEM.get(ritual.companionItem());
+            ItemStorage requiredCoins = ritual.getRequiredCoins();
 
-            if (effectCompanion.equals(companionItem))
+            if (requiredCoins != null)
             {
-                ItemStorage requiredCoins = new ItemStorage(ritual.getCoinAsItem(), ritual.requiredCoins());
-
                 if (!state.meetsRequirements(requiredCoins))
                 {
                     return RitualResult.NEEDS_INGREDIENTS;
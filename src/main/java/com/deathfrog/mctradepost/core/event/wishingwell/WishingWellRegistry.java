@@ -0,0 +1,310 @@
+package com.deathfrog.mctradepost.core.event.wishingwell;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongConsumer;
+
+import com.deathfrog.mctradepost.core.colony.ColonyBuildingIndex;
+import com.deathfrog.mctradepost.core.colony.buildings.workerbuildings.BuildingMarketplace;
+import com.minecolonies.api.colony.IColony;
+import com.minecolonies.api.colony.IColonyManager;
+import com.minecolonies.api.colony.buildings.IBuilding;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectLinkedOpenHashSet;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.SectionPos;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.Level;
+
+/**
+ * Per-dimension registry of known wishing wells, indexed by the chunk sections their ritual volume touches.
+ * <p>
+ * Wells sleep until an item entity joins the level in, or moves into, one of those sections. An awake well is evaluated on the
+ * normal ritual cadence and goes back to sleep once its wake window has passed and no items remain in its volume, so idle
+ * marketplaces cost nothing per tick. The registry is fed by well registration as wells are discovered, and is re-synchronised
+ * from the colonies of a dimension every {@link #RESYNC_TICKS} ticks to pick up loaded colonies and drop removed marketplaces.
+ * <p>
+ * All access happens on the server thread.
+ */
+public final class WishingWellRegistry
+{
+    /** Ticks an item event keeps a well awake, long enough for a thrown item to come to rest in the water. */
+    private static final int WAKE_TICKS = 200;
+
+    /** Ticks between full re-synchronisations of a dimension's wells from its colonies. */
+    private static final int RESYNC_TICKS = 6000;
+
+    /** Blocks around a well's center that are searched for ritual items. Must cover the ritual volume. */
+    private static final int VOLUME_RADIUS = 2;
+
+    private static final Map<ResourceKey<Level>, DimensionWells> DIMENSIONS = new HashMap<>();
+
+    /**
+     * Prevents instantiation of this utility class.
+     */
+    private WishingWellRegistry()
+    {
+    }
+
+    /**
+     * A registered well and the marketplace that owns it.
+     */
+    public static final class Well
+    {
+        private final BlockPos pos;
+        private final BuildingMarketplace marketplace;
+        private long awakeUntil = Long.MIN_VALUE;
+
+        private Well(BlockPos pos, BuildingMarketplace marketplace)
+        {
+            this.pos = pos;
+            this.marketplace = marketplace;
+        }
+
+        /** @return center of the well */
+        public BlockPos pos()
+        {
+            return pos;
+        }
+
+        /** @return marketplace that discovered the well */
+        public BuildingMarketplace marketplace()
+        {
+            return marketplace;
+        }
+    }
+
+    /**
+     * Wells of one dimension.
+     */
+    private static final class DimensionWells
+    {
+        private final Map<BlockPos, Well> wells = new HashMap<>();
+        private final Long2ObjectOpenHashMap<List<Well>> bySection = new Long2ObjectOpenHashMap<>();
+        private final ObjectLinkedOpenHashSet<Well> awake = new ObjectLinkedOpenHashSet<>();
+        private long syncedAt = Long.MIN_VALUE;
+
+        private void add(Well well)
+        {
+            Well previous = wells.get(well.pos);
+            if (previous != null) remove(previous);
+
+            wells.put(well.pos, well);
+
+            forEachSection(well.pos, section -> bySection.computeIfAbsent(section, key -> new ArrayList<>(1)).add(well));
+        }
+
+        private void remove(Well well)
+        {
+            wells.remove(well.pos, well);
+            awake.remove(well);
+            forEachSection(well.pos, section -> {
+                List<Well> list = bySection.get(section);
+                if (list == null) return;
+
+                list.remove(well);
+                if (list.isEmpty()) bySection.remove(section);
+            });
+        }
+    }
+
+    /**
+     * Adds a well, replacing any well previously registered at the same position. The well starts awake, since wells are discovered
+     * by a coin landing in them.
+     *
+     * @param marketplace marketplace that owns the well
+     * @param pos center of the well
+     */
+    public static void register(BuildingMarketplace marketplace, BlockPos pos)
+    {
+        IColony colony = marketplace.getColony();
+        if (colony == null || pos == null) return;
+
+        DimensionWells dimension = DIMENSIONS.computeIfAbsent(colony.getDimension(), key -> new DimensionWells());
+        Well well = new Well(pos.immutable(), marketplace);
+        dimension.add(well);
+
+        if (colony.getWorld() != null)
+        {
+            well.awakeUntil = colony.getWorld().getGameTime() + WAKE_TICKS;
+            dimension.awake.add(well);
+        }
+    }
+
+    /**
+     * Removes a well.
+     *
+     * @param marketplace marketplace that owned the well
+     * @param pos center of the well
+     */
+    public static void unregister(BuildingMarketplace marketplace, BlockPos pos)
+    {
+        IColony colony = marketplace.getColony();
+        if (colony == null || pos == null) return;
+
+        DimensionWells dimension = DIMENSIONS.get(colony.getDimension());
+        if (dimension == null) return;
+
+        Well well = dimension.wells.get(pos);
+        if (well != null) dimension.remove(well);
+    }
+
+    /**
+     * Wakes every well whose ritual volume touches a chunk section. Called when an item entity joins or enters that section.
+     *
+     * @param level level of the section
+     * @param section packed section position
+     */
+    public static void wake(ServerLevel level, long section)
+    {
+        DimensionWells dimension = DIMENSIONS.get(level.dimension());
+        if (dimension == null) return;
+
+        List<Well> wells = dimension.bySection.get(section);
+        if (wells == null) return;
+
+        long until = level.getGameTime() + WAKE_TICKS;
+        for (Well well : wells)
+        {
+            well.awakeUntil = until;
+            dimension.awake.add(well);
+        }
+    }
+
+    /**
+     * Returns the wells of a level that are awake, re-synchronising the level's wells from its colonies first when due.
+     *
+     * @param level level being ticked
+     * @return copy of the awake wells, in wake order
+     */
+    public static List<Well> awakeWells(ServerLevel level)
+    {
+        DimensionWells dimension = DIMENSIONS.computeIfAbsent(level.dimension(), key -> new DimensionWells());
+        long now = level.getGameTime();
+        if (dimension.syncedAt == Long.MIN_VALUE || now - dimension.syncedAt >= RESYNC_TICKS)
+        {
+            // The first pass wakes every well once, so that items saved in a well before a restart are found again.
+            resync(level, dimension, dimension.syncedAt == Long.MIN_VALUE);
+            dimension.syncedAt = now;
+        }
+
+        return dimension.awake.isEmpty() ? List.of() : new ArrayList<>(dimension.awake);
+    }
+
+    /**
+     * Puts a well back to sleep unless it is still inside its wake window or still holds ritual items.
+     *
+     * @param level level of the well
+     * @param well well that has just been evaluated
+     * @param occupied true if items were found in the well's volume
+     */
+    public static void evaluated(ServerLevel level, Well well, boolean occupied)
+    {
+        if (occupied || level.getGameTime() < well.awakeUntil) return;
+
+        DimensionWells dimension = DIMENSIONS.get(level.dimension());
+        if (dimension != null) dimension.awake.remove(well);
+    }
+
+    /**
+     * Checks whether the marketplace owning a well is still part of its colony.
+     *
+     * @param well well to check
+     * @return true if the marketplace is still registered with its colony
+     */
+    public static boolean isOwnerPresent(Well well)
+    {
+        IColony colony = well.marketplace.getColony();
+        if (colony == null || colony.getServerBuildingManager() == null) return false;
+
+        IBuilding building = colony.getServerBuildingManager().getBuilding(well.marketplace.getPosition());
+        return building == well.marketplace;
+    }
+
+    /**
+     * Discards every registered well. Called when the server stops so that one world's wells never leak into another.
+     */
+    public static void clearAll()
+    {
+        DIMENSIONS.clear();
+    }
+
+    /**
+     * Rebuilds a dimension's wells from the marketplaces of the colonies in that dimension, keeping the wake state of wells that are
+     * still present.
+     *
+     * @param level level being synchronised
+     * @param dimension registry of the level's dimension
+     * @param wakeAll true to wake every well for a single evaluation
+     */
+    private static void resync(ServerLevel level, DimensionWells dimension, boolean wakeAll)
+    {
+        Map<BlockPos, Long> wakeStates = new HashMap<>();
+        for (Well well : dimension.awake)
+        {
+            wakeStates.put(well.pos, well.awakeUntil);
+        }
+
+        for (Well well : new ArrayList<>(dimension.wells.values()))
+        {
+            dimension.remove(well);
+        }
+
+        List<IColony> colonies = IColonyManager.getInstance().getAllColonies();
+        if (colonies == null) return;
+
+        for (IColony colony : colonies)
+        {
+            if (colony == null || !level.dimension().equals(colony.getDimension()) || colony.getServerBuildingManager() == null) continue;
+
+            for (BuildingMarketplace marketplace : ColonyBuildingIndex.get(colony).ofType(BuildingMarketplace.class))
+            {
+                for (BlockPos pos : marketplace.getRitualData().getKnownWells())
+                {
+                    if (pos == null || BlockPos.ZERO.equals(pos)) continue;
+
+                    Well well = new Well(pos.immutable(), marketplace);
+                    dimension.add(well);
+
+                    Long awakeUntil = wakeStates.get(well.pos);
+                    if (awakeUntil != null || wakeAll)
+                    {
+                        well.awakeUntil = awakeUntil == null ? level.getGameTime() : awakeUntil;
+                        dimension.awake.add(well);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Visits every chunk section touched by a well's ritual volume.
+     *
+     * @param pos center of the well
+     * @param consumer receives each packed section position
+     */
+    private static void forEachSection(BlockPos pos, LongConsumer consumer)
+    {
+        int minX = SectionPos.blockToSectionCoord(pos.getX() - VOLUME_RADIUS);
+        int maxX = SectionPos.blockToSectionCoord(pos.getX() + VOLUME_RADIUS);
+        int minY = SectionPos.blockToSectionCoord(pos.getY() - VOLUME_RADIUS);
+        int maxY = SectionPos.blockToSectionCoord(pos.getY() + VOLUME_RADIUS);
+        int minZ = SectionPos.blockToSectionCoord(pos.getZ() - VOLUME_RADIUS);
+        int maxZ = SectionPos.blockToSectionCoord(pos.getZ() + VOLUME_RADIUS);
+
+        for (int x = minX; x <= maxX; x++)
+        {
+            for (int y = minY; y <= maxY; y++)
+            {
+                for (int z = minZ; z <= maxZ; z++)
+                {
+                    consumer.accept(SectionPos.asLong(x, y, z));
+                }
+            }
+        }
+    }
+}
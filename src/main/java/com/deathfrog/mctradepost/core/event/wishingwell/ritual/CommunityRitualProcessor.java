@@ -1,12 +1,14 @@
 package com.deathfrog.mctradepost.core.event.wishingwell.ritual;
 
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 import javax.annotation.Nonnull;
 
@@ -37,8 +39,9 @@ import com.minecolonies.core.datalistener.model.Disease;
 import com.minecolonies.core.network.messages.client.CircleParticleEffectMessage;
 import com.mojang.logging.LogUtils;
 import net.minecraft.core.BlockPos;
+import net.minecraft.Util;
 import net.minecraft.core.particles.ParticleTypes;
-import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.level.ServerLevel;
 import net.minecraft.sounds.SoundEvents;
 import net.minecraft.world.item.Item;
@@ -47,8 +50,6 @@ import com.minecolonies.core.colony.buildings.modules.LivingBuildingModule;
 
 public class CommunityRitualProcessor 
 {
-    final static int MIN_IMPROVEMENT = 10;
-    final static int CANDIDATE_HOUSES = 50;
     public static final Logger LOGGER = LogUtils.getLogger();
 
     /**
@@ -115,7 +116,7 @@ public class CommunityRitualProcessor
             return RitualResult.NEEDS_INGREDIENTS;
         }
 
-        Item companionItem = BuiltInRegistries.ITEM.get(ritual.companionItem());
+        Item companionItem = ritual.getCompanionAsItem();
         if (companionItem.equals(MCTradePostMod.WISH_SHELTER.get()))
         {
             return processRitualShelter(marketplace, pos, ritual, state);
@@ -201,12 +202,11 @@ public class CommunityRitualProcessor
 
 
     /**
-     * Processes a shelter ritual at the specified BlockPos within the ServerLevel. This ritual assigns the nearest available houses to workers
-     * with the highest job priority first. If a worker already has a house assigned, it will only be reassigned if the new house is a
-     * meaningful improvement over the current one. If no houses can be found that are closer to the worker's workplace than their current
-     * house, the worker is skipped. After all workers have been processed, any unassigned citizens are tried to be assigned to any remaining
-     * available housing. If no housing is available, the citizen is left unassigned. Finally, the ritual will display a visual effect at the
-     * BlockPos specified and return a RitualResult indicating whether the ritual was completed, needed ingredients, or failed due to an error.
+     * Processes a shelter ritual at the specified BlockPos within the ServerLevel. This ritual re-plans the colony's housing as a whole:
+     * outpost workers move into their outposts first, then a snapshot of the remaining citizens and houses is solved off the server
+     * thread by {@link ShelterAssignmentEngine}. The solver houses as many citizens as possible, favours short commutes for the highest
+     * priority jobs, and only relocates a housed citizen for a meaningful saving. The result is applied back on the server thread and
+     * reported to the colony's players once it is ready.
      */
     public static RitualResult processRitualShelter(@Nonnull BuildingMarketplace marketplace,
         @Nonnull BlockPos pos,
@@ -254,20 +254,13 @@ public class CommunityRitualProcessor
         }
 
         final ShelterTotals totals = new ShelterTotals();
+        final ShelterSnapshot snapshot;
 
         try
         {
-            sortAssignmentsByPriority(assignments);
-
-            final Set<ICitizenData> unassignedCitizens = new HashSet<>();
             final Set<ICitizenData> excludedCitizens = new HashSet<>();
-            final List<BlockPos> allHouses = new ArrayList<>(housingMap.keySet());
-
             assignOutpostResidents(marketplace, assignments, excludedCitizens, totals);
-            collectCurrentlyUnassigned(assignments, excludedCitizens, unassignedCitizens);
-            assignByJobPriority(assignments, excludedCitizens, unassignedCitizens, allHouses, housingMap, totals);
-            resolveUnassignedCitizens(unassignedCitizens, allHouses, housingMap, totals);
-            cleanupRemainingCommutes(assignments, excludedCitizens, allHouses, housingMap, totals);
+            snapshot = captureShelterSnapshot(assignments, excludedCitizens, housingMap);
         }
         catch (Exception e)
         {
@@ -275,6 +268,33 @@ public class CommunityRitualProcessor
             return RitualResult.FAILED;
         }
 
+        final MinecraftServer server = currentLevel.getServer();
+
+        CompletableFuture.supplyAsync(() -> ShelterAssignmentEngine.assign(snapshot.houses(), snapshot.residents()), Util.backgroundExecutor())
+            .thenAcceptAsync(result -> {
+                applyShelterAssignment(marketplace, snapshot, result, totals);
+                reportShelterResults(marketplace, citizens, initiallyHomelessCitizens, initialHomePositions, initialDistances, totals);
+            }, server)
+            .exceptionally(e -> {
+                LOGGER.error("Failed to optimize colony housing for the shelter ritual.", e);
+                return null;
+            });
+
+        WishingWellHandler.showRitualEffect(currentLevel, pos);
+        return RitualResult.COMPLETED;
+    }
+
+    /**
+     * Reports the outcome of a shelter ritual to the colony's players, comparing the housing and commutes recorded before the ritual
+     * with the citizens' current homes.
+     */
+    protected static void reportShelterResults(@Nonnull BuildingMarketplace marketplace,
+        @Nonnull List<ICitizenData> citizens,
+        @Nonnull Set<ICitizenData> initiallyHomelessCitizens,
+        @Nonnull Map<ICitizenData, BlockPos> initialHomePositions,
+        @Nonnull Map<ICitizenData, Integer> initialDistances,
+        @Nonnull ShelterTotals totals)
+    {
         int homelessAssigned = 0;
         int remainingHomeless = 0;
         int relocatedCitizens = 0;
@@ -373,8 +393,8 @@ public class CommunityRitualProcessor
 
         MessageUtils.format(message.toString()).sendTo(marketplace.getColony()).forAllPlayers();
 
-        WishingWellHandler.showRitualEffect(currentLevel, pos);
-        return RitualResult.COMPLETED;
+        LOGGER.info("Shelter ritual assigned {} citizens, saving {} blocks of commute over {} relocations.",
+            totals.getTotalAssigned(), totals.getTotalSavings(), totals.getTotalSavingsAssignments());
     }
 
     /**
@@ -400,17 +420,6 @@ public class CommunityRitualProcessor
         return housingMap;
     }
 
-    /**
-     * Sorts citizens so higher-priority jobs are handled first, and among those, the worst commute is handled first.
-     */
-    @SuppressWarnings("null")
-    protected static void sortAssignmentsByPriority(@Nonnull List<HomeAssignment> assignments)
-    {
-        assignments.sort(Comparator
-            .comparingInt(HomeAssignment::getJobPriority).reversed()
-            .thenComparing(Comparator.comparingInt(HomeAssignment::getDistanceToWork).reversed()));
-    }
-
     /**
      * Moves outpost workers into their outpost housing before general colony housing is considered.
      */
@@ -473,227 +482,185 @@ public class CommunityRitualProcessor
     }
 
     /**
-     * Records citizens who should later be handled by the free-bed resolution passes.
+     * Houses and residents handed to the assignment engine, with the colony objects they stand for.
+     *
+     * @param housePositions position of each snapshot house
+     * @param houses engine view of the houses
+     * @param citizens citizen of each snapshot resident
+     * @param residents engine view of the residents
      */
-    protected static void collectCurrentlyUnassigned(@Nonnull List<HomeAssignment> assignments,
-        @Nonnull Set<ICitizenData> excludedCitizens,
-        @Nonnull Set<ICitizenData> unassignedCitizens)
-    {
-        for (HomeAssignment assignment : assignments)
-        {
-            if (excludedCitizens.contains(assignment.getCitizen()))
-            {
-                continue;
-            }
-
-            if (assignment.getCitizen().getHomeBuilding() == null)
-            {
-                unassignedCitizens.add(assignment.getCitizen());
-            }
-        }
-    }
+    protected record ShelterSnapshot(List<BlockPos> housePositions,
+        List<ShelterAssignmentEngine.House> houses,
+        List<ICitizenData> citizens,
+        List<ShelterAssignmentEngine.Resident> residents) { }
 
     /**
-     * Runs the main housing optimization pass using job priority, limited candidate houses, and eviction when helpful.
+     * Captures the housing state that the shelter ritual may rearrange. Citizens handled by the outpost pass, and citizens living in
+     * housing the ritual does not manage, keep their homes and only take up beds.
      */
-    protected static void assignByJobPriority(@Nonnull List<HomeAssignment> assignments,
+    protected static ShelterSnapshot captureShelterSnapshot(@Nonnull List<HomeAssignment> assignments,
         @Nonnull Set<ICitizenData> excludedCitizens,
-        @Nonnull Set<ICitizenData> unassignedCitizens,
-        @Nonnull List<BlockPos> allHouses,
-        @Nonnull Map<BlockPos, IAssignsCitizen> housingMap,
-        @Nonnull ShelterTotals totals)
+        @Nonnull Map<BlockPos, IAssignsCitizen> housingMap)
     {
+        final List<BlockPos> housePositions = new ArrayList<>(housingMap.keySet());
+        final Map<BlockPos, Integer> houseIndex = new HashMap<>();
+        for (int i = 0; i < housePositions.size(); i++)
+        {
+            houseIndex.put(housePositions.get(i), i);
+        }
+
+        final List<ICitizenData> citizens = new ArrayList<>();
+        final List<ShelterAssignmentEngine.Resident> residents = new ArrayList<>();
+        final Set<ICitizenData> movable = new HashSet<>();
+
         for (HomeAssignment assignment : assignments)
         {
-            if (excludedCitizens.contains(assignment.getCitizen()))
+            ICitizenData citizen = assignment.getCitizen();
+            if (excludedCitizens.contains(citizen))
             {
                 continue;
             }
 
-            HomeAssignment currentAssignment = new HomeAssignment(assignment.getCitizen());
-
-            if (currentAssignment.getWorkPos() == null)
+            // Re-read the citizen, since the outpost pass may have changed homes.
+            HomeAssignment current = new HomeAssignment(citizen);
+            BlockPos home = current.getCurrentHome();
+            Integer currentHouse = home == null ? Integer.valueOf(-1) : houseIndex.get(home);
+            if (currentHouse == null)
             {
-                // The unemployed are handled after workers so the priority pass focuses on commute optimization.
-                unassignedCitizens.add(currentAssignment.getCitizen());
                 continue;
             }
 
-            List<BlockPos> candidates = allHouses.stream()
-                .sorted(Comparator.comparingInt(h -> BlockPosUtil.distManhattan(currentAssignment.getWorkPos(), h)))
-                .limit(CANDIDATE_HOUSES)
-                .toList();
-
-            int currentDist = currentAssignment.getDistanceToWork();
-            boolean isHomeless = (currentAssignment.getCurrentHome() == null);
-            int requiredSavings = isHomeless ? 0 : MIN_IMPROVEMENT;
+            BlockPos work = current.getWorkPos();
+            citizens.add(citizen);
+            movable.add(citizen);
+            residents.add(work == null
+                ? new ShelterAssignmentEngine.Resident(false, 0, 0, 0, current.getJobPriority(), currentHouse)
+                : new ShelterAssignmentEngine.Resident(true, work.getX(), work.getY(), work.getZ(), current.getJobPriority(), currentHouse));
+        }
 
-            for (BlockPos possibleNewHousePos : candidates)
+        final List<ShelterAssignmentEngine.House> houses = new ArrayList<>();
+        for (BlockPos housePos : housePositions)
+        {
+            IAssignsCitizen module = housingMap.get(housePos);
+            int fixedResidents = 0;
+            for (ICitizenData resident : module.getAssignedCitizen())
             {
-                IAssignsCitizen livingModule = housingMap.get(possibleNewHousePos);
-                int newDist = BlockPosUtil.distManhattan(currentAssignment.getWorkPos(), possibleNewHousePos);
-                int savings = currentDist - newDist;
-
-                if (savings < requiredSavings)
+                if (!movable.contains(resident))
                 {
-                    // Houses are sorted nearest-first, so later candidates cannot improve the savings.
-                    break;
-                }
-
-                ICitizenData evicted = insertToHouseIfCloser(livingModule, assignment.getCitizen(), newDist);
-
-                if (evicted != null)
-                {
-                    if (evicted.equals(assignment.getCitizen()))
-                    {
-                        unassignedCitizens.add(assignment.getCitizen());
-                    }
-                    else
-                    {
-                        unassignedCitizens.add(evicted);
-                    }
-                }
-
-                if (evicted == null || !evicted.equals(assignment.getCitizen()))
-                {
-                    if (isHomeless)
-                    {
-                        totals.recordHomelessAssignment();
-                        unassignedCitizens.remove(assignment.getCitizen());
-                    }
-                    else
-                    {
-                        totals.recordRelocation(savings);
-                    }
-                    break;
+                    fixedResidents++;
                 }
             }
+
+            houses.add(new ShelterAssignmentEngine.House(housePos.getX(), housePos.getY(), housePos.getZ(),
+                Math.max(0, module.getModuleMax() - fixedResidents)));
         }
+
+        return new ShelterSnapshot(housePositions, houses, citizens, residents);
     }
 
     /**
-     * Gives any still-unhoused citizen the first currently open bed that can accept them.
+     * Applies a solved housing plan on the server thread. Citizens whose home changed while the plan was being solved are left alone.
+     * <p>
+     * A citizen only gives up their bed once their new house has room, and takes it back at once if the new house still refuses them,
+     * so nobody is left homeless by a house that filled up since the snapshot. Moves are retried while any of them frees a bed another
+     * is waiting on; citizens in a cycle of full houses stay where they are.
      */
-    protected static void resolveUnassignedCitizens(@Nonnull Set<ICitizenData> unassignedCitizens,
-        @Nonnull List<BlockPos> allHouses,
-        @Nonnull Map<BlockPos, IAssignsCitizen> housingMap,
+    protected static void applyShelterAssignment(@Nonnull BuildingMarketplace marketplace,
+        @Nonnull ShelterSnapshot snapshot,
+        @Nonnull int[] plan,
         @Nonnull ShelterTotals totals)
     {
-        for (ICitizenData unassigned : unassignedCitizens)
+        final Map<BlockPos, IAssignsCitizen> housingMap = collectEligibleHousing(marketplace);
+        final List<Integer> moving = new ArrayList<>();
+
+        for (int r = 0; r < plan.length; r++)
         {
-            if (unassigned.getHomeBuilding() != null)
+            int currentHouse = snapshot.residents().get(r).currentHouse();
+            if (plan[r] < 0 || plan[r] == currentHouse)
             {
                 continue;
             }
 
-            for (BlockPos possibleNewHousePos : allHouses)
+            BlockPos expectedHome = currentHouse < 0 ? null : snapshot.housePositions().get(currentHouse);
+            if (!Objects.equals(new HomeAssignment(snapshot.citizens().get(r)).getCurrentHome(), expectedHome))
             {
-                IAssignsCitizen livingModule = housingMap.get(possibleNewHousePos);
-                if (!livingModule.isFull())
-                {
-                    livingModule.assignCitizen(unassigned);
-                    totals.recordHomelessAssignment();
-                    break;
-                }
+                continue;
             }
+
+            moving.add(r);
         }
-    }
 
-    /**
-     * Uses any remaining open beds to take significant commute wins for already-housed workers, without evictions.
-     */
-    protected static void cleanupRemainingCommutes(@Nonnull List<HomeAssignment> assignments,
-        @Nonnull Set<ICitizenData> excludedCitizens,
-        @Nonnull List<BlockPos> allHouses,
-        @Nonnull Map<BlockPos, IAssignsCitizen> housingMap,
-        @Nonnull ShelterTotals totals)
-    {
-        @SuppressWarnings("null")
-        List<HomeAssignment> cleanupCandidates = assignments.stream()
-            .map(assignment -> new HomeAssignment(assignment.getCitizen()))
-            .filter(assignment -> !excludedCitizens.contains(assignment.getCitizen()))
-            .filter(assignment -> assignment.getWorkPos() != null)
-            .filter(assignment -> assignment.getCurrentHome() != null)
-            .sorted(Comparator.comparingInt(HomeAssignment::getDistanceToWork).reversed())
-            .toList();
-
-        for (HomeAssignment assignment : cleanupCandidates)
+        boolean progressed = true;
+        while (progressed && !moving.isEmpty())
         {
-            int currentDist = assignment.getDistanceToWork();
-
-            for (BlockPos possibleNewHousePos : allHouses)
+            progressed = false;
+            for (Iterator<Integer> it = moving.iterator(); it.hasNext(); )
             {
-                IAssignsCitizen livingModule = housingMap.get(possibleNewHousePos);
-                if (livingModule.isFull())
+                int r = it.next();
+                IAssignsCitizen targetModule = housingMap.get(snapshot.housePositions().get(plan[r]));
+                if (targetModule != null && targetModule.isFull())
                 {
                     continue;
                 }
 
-                int newDist = BlockPosUtil.distManhattan(assignment.getWorkPos(), possibleNewHousePos);
-                int savings = currentDist - newDist;
-
-                if (savings >= MIN_IMPROVEMENT && livingModule.assignCitizen(assignment.getCitizen()))
+                it.remove();
+                progressed = true;
+                if (targetModule != null)
                 {
-                    totals.recordRelocation(savings);
-                    break;
+                    moveResident(housingMap, snapshot, r, targetModule, plan[r], totals);
                 }
             }
         }
     }
 
-
     /**
-     * Insert a citizen into a house if they are closer to the house than the citizens currently living there.
-     * If there is room in the house, just assign the citizen (don't kick anyone out).
-     * If there is no room in the house, determine which citizen currently living there has the longest commute and evict them.
-     * If the new resident has a longer commute than the evicted citizen, do not change the housing, and return the new resident as not housed.
-     * @param houseModule The house to insert the citizen into.
-     * @param newResident The citizen to insert into the house.
-     * @param distance new resident commute to work from this house.
-     * @return The citizen that was evicted from the house, or the new resident if no citizen was evicted.
+     * Moves one citizen into a house that has room, returning them to their previous house if the new one refuses them.
+     *
+     * @param housingMap eligible housing modules by building position
+     * @param snapshot snapshot the plan was solved from
+     * @param r index of the moving resident in the snapshot
+     * @param targetModule housing module of the planned house
+     * @param targetHouse index of the planned house in the snapshot
+     * @param totals ritual totals to update when the move succeeds
      */
-    protected static ICitizenData insertToHouseIfCloser(IAssignsCitizen houseModule, ICitizenData newResident, int newResidentDistance)
+    private static void moveResident(@Nonnull Map<BlockPos, IAssignsCitizen> housingMap,
+        @Nonnull ShelterSnapshot snapshot,
+        int r,
+        @Nonnull IAssignsCitizen targetModule,
+        int targetHouse,
+        @Nonnull ShelterTotals totals)
     {
-        // If there is room, just assign the new resident
-        if (!houseModule.isFull())
+        ICitizenData citizen = snapshot.citizens().get(r);
+        ShelterAssignmentEngine.Resident resident = snapshot.residents().get(r);
+        int currentHouse = resident.currentHouse();
+        IAssignsCitizen previousModule = currentHouse < 0 ? null : housingMap.get(snapshot.housePositions().get(currentHouse));
+
+        if (previousModule != null)
         {
-            houseModule.assignCitizen(newResident);
-            return null;
+            previousModule.removeCitizen(citizen);
         }
 
-        ICitizenData evictedCitizen = null;
-        int worstDistance = Integer.MIN_VALUE;
-
-        for (ICitizenData citizen : houseModule.getAssignedCitizen())
+        if (!targetModule.assignCitizen(citizen))
         {
-            IBuilding workBuilding = citizen.getWorkBuilding();
-
-            // If the citizen has no workplace, evict them immediately and assign the new resident
-            if (workBuilding == null)
-            {
-                houseModule.removeCitizen(citizen);
-                houseModule.assignCitizen(newResident);
-                return citizen;
-            }
-
-            HomeAssignment testAssignment = new HomeAssignment(citizen);
-            int dist = BlockPosUtil.distManhattan(houseModule.getBuilding().getPosition(), testAssignment.getWorkPos());
-            if (dist > newResidentDistance && dist > worstDistance)
+            // The bed just given up is still free: nothing else has run since.
+            if (previousModule != null)
             {
-                worstDistance = dist;
-                evictedCitizen = citizen;
+                previousModule.assignCitizen(citizen);
             }
+            return;
         }
 
-        if (evictedCitizen == null)
+        if (currentHouse < 0)
         {
-            // No one to evict, new resident cannot be housed
-            return newResident;
+            totals.recordHomelessAssignment();
+        }
+        else
+        {
+            int savings = resident.employed()
+                ? ShelterAssignmentEngine.distance(resident, snapshot.houses().get(currentHouse))
+                    - ShelterAssignmentEngine.distance(resident, snapshot.houses().get(targetHouse))
+                : 0;
+            totals.recordRelocation(Math.max(0, savings));
         }
-
-        // Evict the citizen with the worst commute and assign the new resident
-        houseModule.removeCitizen(evictedCitizen);
-        houseModule.assignCitizen(newResident);
-        return evictedCitizen;
     }
 }
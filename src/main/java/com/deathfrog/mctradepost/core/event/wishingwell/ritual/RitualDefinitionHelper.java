@@ -6,6 +6,7 @@ import javax.annotation.Nullable;
 import com.deathfrog.mctradepost.MCTradePostMod;
 import com.deathfrog.mctradepost.api.util.StringUtils;
 import com.deathfrog.mctradepost.item.CoinItem;
+import com.minecolonies.api.crafting.ItemStorage;
 
 import net.minecraft.core.registries.BuiltInRegistries;
 import net.minecraft.resources.ResourceLocation;
@@ -21,11 +22,22 @@ public class RitualDefinitionHelper
     protected String fileName;
     protected RitualDefinition ritualDefinition;
 
+    // Registry lookups resolved once when the ritual is loaded or synchronized.
+    protected final Item companionAsItem;
+    protected final Item coinAsItem;
+    protected final Item targetAsItem;
+    protected final ItemStorage requiredCoinStorage;
+
     public RitualDefinitionHelper(ResourceLocation id, @Nonnull RitualDefinition definition) 
     {
         this.ritualDefinition = definition;
         this.originatingModId = id.getNamespace();
         this.fileName = id.getPath();
+
+        this.companionAsItem = BuiltInRegistries.ITEM.get(definition.companionItem());
+        this.coinAsItem = resolveCoinItem();
+        this.targetAsItem = resolveTargetItem();
+        this.requiredCoinStorage = coinAsItem == null ? null : new ItemStorage(coinAsItem, definition.requiredCoins());
     }
 
     /**
@@ -39,14 +51,48 @@ public class RitualDefinitionHelper
     }
 
     /**
-     * Retrieves the target item for the ritual as an Item object.
+     * Retrieves the companion item for the ritual as an Item object, resolved when the ritual was loaded.
+     *
+     * @return The Item corresponding to the ritual companion item; air if the companion item is unknown.
+     */
+    @Nonnull
+    public Item getCompanionAsItem()
+    {
+        return this.companionAsItem;
+    }
+
+    /**
+     * Retrieves the coins needed to complete the ritual, resolved when the ritual was loaded. The returned storage is shared and must
+     * not be modified.
+     *
+     * @return The required coin item and amount, or null if the ritual's coin is invalid or unknown.
+     */
+    @Nullable
+    public ItemStorage getRequiredCoins()
+    {
+        return this.requiredCoinStorage;
+    }
+
+    /**
+     * Retrieves the target item for the ritual as an Item object, resolved when the ritual was loaded.
+     * 
+     * @return The Item corresponding to the ritual target, or null if the target is invalid or unknown.
+     */
+    @Nullable
+    public Item getTargetAsItem() 
+    {
+        return this.targetAsItem;
+    }
+
+    /**
+     * Resolves the target item for the ritual as an Item object.
      * If the target specified in the ritual definition is invalid or not found,
      * logs a warning and returns null.
      * 
      * @return The Item corresponding to the ritual target, or null if the target is invalid or unknown.
      */
     @Nullable
-    public Item getTargetAsItem() 
+    private Item resolveTargetItem() 
     {
         String target = this.ritualDefinition.target();
 
@@ -75,7 +121,18 @@ public class RitualDefinitionHelper
     }
 
     /**
-     * Retrieves the coin item for the ritual as an Item object.
+     * Retrieves the coin item for the ritual as an Item object, resolved when the ritual was loaded.
+     * 
+     * @return The Item corresponding to the ritual coin, or null if the coin is invalid or unknown.
+     */
+    @Nullable
+    public Item getCoinAsItem() 
+    {
+        return this.coinAsItem;
+    }
+
+    /**
+     * Resolves the coin item for the ritual as an Item object.
      * If the coin specified in the ritual definition is invalid or not found,
      * logs a warning and returns null.
      * If the coin type matches the internal coin item ID, returns the internal coin.
@@ -85,7 +142,7 @@ public class RitualDefinitionHelper
      * @return The Item corresponding to the ritual coin, or null if the coin is invalid or unknown.
      */
     @Nullable
-    public Item getCoinAsItem() 
+    private Item resolveCoinItem() 
     {
         Item coinItem = null;
         String coinType = this.ritualDefinition.coinType();
@@ -222,7 +279,7 @@ public class RitualDefinitionHelper
 
             case RitualManager.RITUAL_EFFECT_COMMUNITY:
                 String benefit = "";
-                Item companionItem = BuiltInRegistries.ITEM.get(companionItem());
+                Item companionItem = getCompanionAsItem();
 
                 if (companionItem.equals(MCTradePostMod.WISH_PLENTY.get())) 
                 {
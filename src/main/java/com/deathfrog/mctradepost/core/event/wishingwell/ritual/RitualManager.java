@@ -6,8 +6,11 @@ import net.minecraft.resources.ResourceLocation;
 import net.minecraft.server.packs.resources.SimpleJsonResourceReloadListener;
 import net.minecraft.server.packs.resources.ResourceManager;
 import net.minecraft.util.profiling.ProfilerFiller;
+import net.minecraft.world.item.Item;
 import com.google.gson.JsonElement;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import javax.annotation.Nonnull;
 
@@ -15,6 +18,7 @@ public class RitualManager extends SimpleJsonResourceReloadListener
 {
     private static final String RITUAL_FOLDER = "rituals";
     private static final Map<ResourceLocation, RitualDefinitionHelper> rituals = new HashMap<>();
+    private static volatile Map<Item, List<RitualDefinitionHelper>> ritualsByCompanion = Map.of();
 
     public static final String RITUAL_EFFECT_SLAY = "slay";
     public static final String RITUAL_EFFECT_WEATHER = "weather";
@@ -58,6 +62,7 @@ public class RitualManager extends SimpleJsonResourceReloadListener
             });
         });
 
+        reindex();
         MCTradePostMod.LOGGER.info("Loaded {} ritual definitions", rituals.size());
     }
 
@@ -81,6 +86,7 @@ public class RitualManager extends SimpleJsonResourceReloadListener
     public static void putRitual(ResourceLocation id, RitualDefinitionHelper helper)
     {
         rituals.put(id, helper);
+        reindex();
     }
 
     /**
@@ -97,6 +103,34 @@ public class RitualManager extends SimpleJsonResourceReloadListener
                 rituals.put(id, new RitualDefinitionHelper(id, definition));
             }
         });
+        reindex();
+    }
+
+    /**
+     * Retrieves the rituals started by a companion item, in the same order as {@link #getAllRituals()}.
+     *
+     * @param companionItem the companion item thrown into the wishing well.
+     * @return the rituals using that companion item, or an empty list if there are none.
+     */
+    public static List<RitualDefinitionHelper> getRitualsFor(Item companionItem)
+    {
+        return ritualsByCompanion.getOrDefault(companionItem, List.of());
+    }
+
+    /**
+     * Rebuilds the companion item index after the set of rituals has changed.
+     */
+    private static void reindex()
+    {
+        Map<Item, List<RitualDefinitionHelper>> index = new HashMap<>();
+
+        for (RitualDefinitionHelper ritual : rituals.values())
+        {
+            index.computeIfAbsent(ritual.getCompanionAsItem(), item -> new ArrayList<>()).add(ritual);
+        }
+
+        index.replaceAll((item, list) -> List.copyOf(list));
+        ritualsByCompanion = Map.copyOf(index);
     }
 
     /**
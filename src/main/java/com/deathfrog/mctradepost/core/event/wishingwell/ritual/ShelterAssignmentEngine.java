@@ -0,0 +1,430 @@
+package com.deathfrog.mctradepost.core.event.wishingwell.ritual;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+
+/**
+ * Batch housing solver for the shelter ritual. It works on a plain snapshot of houses and residents, so it can run off the server
+ * thread, and answers with the house each resident should live in.
+ * <p>
+ * The assignment is a minimum-cost flow: each resident sends one unit either to a house or to "homeless", and each house accepts up
+ * to its free capacity. Being homeless costs more than any commute, so as many residents as possible are housed. A worker's commute
+ * is weighted by job priority, and leaving the current house costs an extra {@link #MIN_IMPROVEMENT} blocks of commute, so a
+ * resident only moves for a meaningful saving. Workers are connected to their {@link #CANDIDATE_HOUSES} nearest houses found through
+ * a grid index, plus a shared overflow node that reaches every house; the unemployed keep their house or use the overflow node.
+ */
+public final class ShelterAssignmentEngine
+{
+    /** Commute distance a worker must save before being moved out of the current house. */
+    public static final int MIN_IMPROVEMENT = 10;
+
+    /** Nearest houses offered directly to each worker. */
+    public static final int CANDIDATE_HOUSES = 50;
+
+    /** Horizontal size of a grid cell of the house index, in blocks. */
+    private static final int CELL_SIZE = 32;
+
+    /** Cost of leaving a resident homeless; larger than any weighted commute. */
+    private static final long HOMELESS_COST = 1L << 40;
+
+    private static final long INFINITE = Long.MAX_VALUE / 4;
+
+    /**
+     * A house in the snapshot.
+     *
+     * @param x x coordinate of the house
+     * @param y y coordinate of the house
+     * @param z z coordinate of the house
+     * @param capacity beds available to the residents being assigned
+     */
+    public record House(int x, int y, int z, int capacity) { }
+
+    /**
+     * A resident in the snapshot.
+     *
+     * @param employed whether the resident has a workplace
+     * @param workX x coordinate of the workplace
+     * @param workY y coordinate of the workplace
+     * @param workZ z coordinate of the workplace
+     * @param priority job priority; higher priorities weigh their commute more heavily
+     * @param currentHouse index of the resident's current house in the snapshot, or -1 if homeless
+     */
+    public record Resident(boolean employed, int workX, int workY, int workZ, int priority, int currentHouse) { }
+
+    /**
+     * Prevents instantiation of this utility class.
+     */
+    private ShelterAssignmentEngine()
+    {
+    }
+
+    /**
+     * Computes the housing assignment for a snapshot.
+     *
+     * @param houses houses available to the residents
+     * @param residents residents to house
+     * @return for each resident, the index of the assigned house, or -1 if the resident stays homeless
+     */
+    public static int[] assign(List<House> houses, List<Resident> residents)
+    {
+        int residentCount = residents.size();
+        int houseCount = houses.size();
+
+        // Node layout: source, residents, overflow, houses, homeless, sink.
+        int source = 0;
+        int firstResident = 1;
+        int overflow = firstResident + residentCount;
+        int firstHouse = overflow + 1;
+        int homeless = firstHouse + houseCount;
+        int sink = homeless + 1;
+
+        FlowNetwork network = new FlowNetwork(sink + 1);
+        HouseGrid grid = new HouseGrid(houses);
+
+        int[] overflowEdges = new int[residentCount];
+        for (int r = 0; r < residentCount; r++)
+        {
+            Resident resident = residents.get(r);
+            int node = firstResident + r;
+            network.addEdge(source, node, 1, 0);
+
+            if (!resident.employed())
+            {
+                // Unemployed residents have no commute: keep their house if possible, otherwise take any free bed.
+                if (resident.currentHouse() >= 0)
+                {
+                    network.addEdge(node, firstHouse + resident.currentHouse(), 1, 0);
+                }
+                overflowEdges[r] = network.addEdge(node, overflow, 1, 1);
+                network.addEdge(node, homeless, 1, HOMELESS_COST);
+                continue;
+            }
+
+            long weight = resident.priority() + 10L;
+            int[] candidates = grid.nearest(resident.workX(), resident.workY(), resident.workZ(), CANDIDATE_HOUSES);
+            int farthest = 0;
+            boolean currentOffered = false;
+
+            for (int h : candidates)
+            {
+                int distance = distance(resident, houses.get(h));
+                farthest = Math.max(farthest, distance);
+                boolean current = h == resident.currentHouse();
+                currentOffered |= current;
+                network.addEdge(node, firstHouse + h, 1, weight * (distance + (current ? 0 : MIN_IMPROVEMENT)));
+            }
+
+            if (resident.currentHouse() >= 0 && !currentOffered)
+            {
+                network.addEdge(node, firstHouse + resident.currentHouse(), 1, weight * distance(resident, houses.get(resident.currentHouse())));
+            }
+
+            // Houses beyond the candidates are at least as far as the farthest candidate.
+            overflowEdges[r] = network.addEdge(node, overflow, 1, weight * (farthest + 1 + MIN_IMPROVEMENT));
+            network.addEdge(node, homeless, 1, HOMELESS_COST);
+        }
+
+        for (int h = 0; h < houseCount; h++)
+        {
+            int capacity = Math.max(0, houses.get(h).capacity());
+            network.addEdge(overflow, firstHouse + h, capacity, 0);
+            network.addEdge(firstHouse + h, sink, capacity, 0);
+        }
+        network.addEdge(homeless, sink, residentCount, 0);
+
+        network.minCostFlow(source, sink, residentCount);
+
+        int[] assignment = new int[residentCount];
+        Arrays.fill(assignment, -1);
+
+        List<Integer> viaOverflow = new ArrayList<>();
+        for (int r = 0; r < residentCount; r++)
+        {
+            if (network.flow(overflowEdges[r]) > 0)
+            {
+                viaOverflow.add(r);
+                continue;
+            }
+
+            for (int e = network.head[firstResident + r]; e != -1; e = network.next[e])
+            {
+                int target = network.to[e];
+                if (network.flow(e) > 0 && target >= firstHouse && target < homeless)
+                {
+                    assignment[r] = target - firstHouse;
+                }
+            }
+        }
+
+        if (!viaOverflow.isEmpty())
+        {
+            int[] overflowBeds = new int[houseCount];
+            for (int e = network.head[overflow]; e != -1; e = network.next[e])
+            {
+                int target = network.to[e];
+                if (target >= firstHouse && target < homeless)
+                {
+                    overflowBeds[target - firstHouse] += network.flow(e);
+                }
+            }
+
+            // The flow only fixes how many overflow beds each house gives; hand them out nearest-first.
+            for (int r : viaOverflow)
+            {
+                Resident resident = residents.get(r);
+                int best = -1;
+                int bestDistance = Integer.MAX_VALUE;
+                for (int h = 0; h < houseCount; h++)
+                {
+                    if (overflowBeds[h] <= 0) continue;
+
+                    int distance = resident.employed() ? distance(resident, houses.get(h)) : 0;
+                    if (distance < bestDistance)
+                    {
+                        best = h;
+                        bestDistance = distance;
+                    }
+                }
+
+                if (best >= 0)
+                {
+                    overflowBeds[best]--;
+                    assignment[r] = best;
+                }
+            }
+        }
+
+        return assignment;
+    }
+
+    /**
+     * Manhattan distance between a resident's workplace and a house.
+     *
+     * @param resident employed resident
+     * @param house house
+     * @return commute distance in blocks
+     */
+    public static int distance(Resident resident, House house)
+    {
+        return Math.abs(resident.workX() - house.x()) + Math.abs(resident.workY() - house.y()) + Math.abs(resident.workZ() - house.z());
+    }
+
+    /**
+     * Grid of house indices by horizontal cell, answering nearest-house queries by searching rings of cells outwards.
+     */
+    private static final class HouseGrid
+    {
+        private final List<House> houses;
+        private final Long2ObjectOpenHashMap<List<Integer>> cells = new Long2ObjectOpenHashMap<>();
+        private int minCellX = Integer.MAX_VALUE;
+        private int maxCellX = Integer.MIN_VALUE;
+        private int minCellZ = Integer.MAX_VALUE;
+        private int maxCellZ = Integer.MIN_VALUE;
+
+        private HouseGrid(List<House> houses)
+        {
+            this.houses = houses;
+
+            for (int h = 0; h < houses.size(); h++)
+            {
+                House house = houses.get(h);
+                int cellX = Math.floorDiv(house.x(), CELL_SIZE);
+                int cellZ = Math.floorDiv(house.z(), CELL_SIZE);
+                cells.computeIfAbsent(cellKey(cellX, cellZ), key -> new ArrayList<>()).add(h);
+                minCellX = Math.min(minCellX, cellX);
+                maxCellX = Math.max(maxCellX, cellX);
+                minCellZ = Math.min(minCellZ, cellZ);
+                maxCellZ = Math.max(maxCellZ, cellZ);
+            }
+        }
+
+        /**
+         * Finds the houses nearest to a position.
+         *
+         * @param x x coordinate
+         * @param y y coordinate
+         * @param z z coordinate
+         * @param limit maximum number of houses to return
+         * @return indices of up to {@code limit} nearest houses, nearest first
+         */
+        private int[] nearest(int x, int y, int z, int limit)
+        {
+            if (houses.isEmpty()) return new int[0];
+
+            int centerX = Math.floorDiv(x, CELL_SIZE);
+            int centerZ = Math.floorDiv(z, CELL_SIZE);
+            Resident probe = new Resident(true, x, y, z, 0, -1);
+            List<int[]> found = new ArrayList<>();
+
+            int lastRing = Math.max(Math.max(Math.abs(centerX - minCellX), Math.abs(centerX - maxCellX)),
+                Math.max(Math.abs(centerZ - minCellZ), Math.abs(centerZ - maxCellZ)));
+            for (int ring = 0; ring <= lastRing && found.size() < houses.size(); ring++)
+            {
+                if (found.size() >= limit)
+                {
+                    found.sort((a, b) -> Integer.compare(a[1], b[1]));
+                    // Every house in this ring or beyond is at least (ring - 1) cells away horizontally.
+                    if (found.get(limit - 1)[1] <= (ring - 1) * CELL_SIZE) break;
+                }
+
+                for (int dx = -ring; dx <= ring; dx++)
+                {
+                    for (int dz = -ring; dz <= ring; dz++)
+                    {
+                        if (Math.abs(dx) != ring && Math.abs(dz) != ring) continue;
+
+                        List<Integer> cell = cells.get(cellKey(centerX + dx, centerZ + dz));
+                        if (cell == null) continue;
+
+                        for (int h : cell)
+                        {
+                            found.add(new int[] {h, distance(probe, houses.get(h))});
+                        }
+                    }
+                }
+            }
+
+            found.sort((a, b) -> a[1] != b[1] ? Integer.compare(a[1], b[1]) : Integer.compare(a[0], b[0]));
+            int count = Math.min(limit, found.size());
+            int[] result = new int[count];
+            for (int i = 0; i < count; i++)
+            {
+                result[i] = found.get(i)[0];
+            }
+            return result;
+        }
+
+        private static long cellKey(int cellX, int cellZ)
+        {
+            return ((long) cellX << 32) | (cellZ & 0xFFFFFFFFL);
+        }
+    }
+
+    /**
+     * Residual network solved by successive shortest paths with Dijkstra and node potentials. All edge costs are non-negative.
+     */
+    private static final class FlowNetwork
+    {
+        private final int nodeCount;
+        private final int[] head;
+        private int[] to = new int[64];
+        private int[] next = new int[64];
+        private int[] capacity = new int[64];
+        private long[] cost = new long[64];
+        private int edgeCount = 0;
+
+        private FlowNetwork(int nodeCount)
+        {
+            this.nodeCount = nodeCount;
+            this.head = new int[nodeCount];
+            Arrays.fill(head, -1);
+        }
+
+        /**
+         * Adds an edge and its residual twin.
+         *
+         * @return index of the forward edge
+         */
+        private int addEdge(int from, int target, int edgeCapacity, long edgeCost)
+        {
+            int forward = push(from, target, edgeCapacity, edgeCost);
+            push(target, from, 0, -edgeCost);
+            return forward;
+        }
+
+        private int push(int from, int target, int edgeCapacity, long edgeCost)
+        {
+            if (edgeCount == to.length)
+            {
+                int size = edgeCount * 2;
+                to = Arrays.copyOf(to, size);
+                next = Arrays.copyOf(next, size);
+                capacity = Arrays.copyOf(capacity, size);
+                cost = Arrays.copyOf(cost, size);
+            }
+
+            to[edgeCount] = target;
+            capacity[edgeCount] = edgeCapacity;
+            cost[edgeCount] = edgeCost;
+            next[edgeCount] = head[from];
+            head[from] = edgeCount;
+            return edgeCount++;
+        }
+
+        /**
+         * @return units of flow on a forward edge
+         */
+        private int flow(int edge)
+        {
+            return capacity[edge ^ 1];
+        }
+
+        /**
+         * Sends up to {@code demand} units from source to sink at minimum cost.
+         */
+        private void minCostFlow(int source, int sink, int demand)
+        {
+            long[] potential = new long[nodeCount];
+            long[] dist = new long[nodeCount];
+            int[] viaEdge = new int[nodeCount];
+            int sent = 0;
+
+            while (sent < demand)
+            {
+                Arrays.fill(dist, INFINITE);
+                Arrays.fill(viaEdge, -1);
+                dist[source] = 0;
+
+                PriorityQueue<long[]> queue = new PriorityQueue<>((a, b) -> Long.compare(a[0], b[0]));
+                queue.add(new long[] {0, source});
+
+                while (!queue.isEmpty())
+                {
+                    long[] top = queue.poll();
+                    int node = (int) top[1];
+                    if (top[0] > dist[node]) continue;
+
+                    for (int e = head[node]; e != -1; e = next[e])
+                    {
+                        if (capacity[e] <= 0) continue;
+
+                        int target = to[e];
+                        long candidate = dist[node] + cost[e] + potential[node] - potential[target];
+                        if (candidate < dist[target])
+                        {
+                            dist[target] = candidate;
+                            viaEdge[target] = e;
+                            queue.add(new long[] {candidate, target});
+                        }
+                    }
+                }
+
+                if (dist[sink] >= INFINITE) return;
+
+                // Capping at the sink distance keeps reduced costs non-negative for nodes the search did not reach.
+                for (int node = 0; node < nodeCount; node++)
+                {
+                    potential[node] += Math.min(dist[node], dist[sink]);
+                }
+
+                int amount = demand - sent;
+                for (int node = sink; node != source; node = to[viaEdge[node] ^ 1])
+                {
+                    amount = Math.min(amount, capacity[viaEdge[node]]);
+                }
+
+                for (int node = sink; node != source; node = to[viaEdge[node] ^ 1])
+                {
+                    capacity[viaEdge[node]] -= amount;
+                    capacity[viaEdge[node] ^ 1] += amount;
+                }
+
+                sent += amount;
+            }
+        }
+    }
+}
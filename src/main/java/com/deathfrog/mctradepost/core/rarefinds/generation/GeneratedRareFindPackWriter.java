@@ -103,8 +103,22 @@ public final class GeneratedRareFindPackWriter
         summary.addProperty("undefined_structures", report.undefinedStructures().size());
         summary.addProperty("structure_loot_references", report.structureLootReferences().size());
         summary.addProperty("manual_conflicts", report.manualConflicts().size());
+        summary.addProperty("generation_millis", report.totalMillis());
+        summary.addProperty("evidence_cache_hit_rate", report.cacheHitRate());
         root.add("summary", summary);
 
+        final JsonArray phases = new JsonArray();
+        for (final RareFindGenerationReport.PhaseTiming phase : report.phases())
+        {
+            final JsonObject value = new JsonObject();
+            value.addProperty("phase", phase.name());
+            value.addProperty("millis", phase.millis());
+            value.addProperty("cache_hits", phase.cacheHits());
+            value.addProperty("cache_misses", phase.cacheMisses());
+            phases.add(value);
+        }
+        root.add("phases", phases);
+
         final JsonArray blacklistedNamespaces = new JsonArray();
         report.blacklistedNamespaces().stream().sorted().forEach(blacklistedNamespaces::add);
         root.add("blacklisted_namespaces", blacklistedNamespaces);
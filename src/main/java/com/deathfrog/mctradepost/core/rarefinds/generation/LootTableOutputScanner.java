@@ -1,6 +1,7 @@
 package com.deathfrog.mctradepost.core.rarefinds.generation;
 
 import com.deathfrog.mctradepost.MCTradePostMod;
+import com.google.common.hash.Hashing;
 import com.google.gson.Gson;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
@@ -12,27 +13,36 @@ import net.minecraft.tags.ItemTags;
 import net.minecraft.tags.TagKey;
 import net.minecraft.world.item.Item;
 
-import java.io.Reader;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 
-/** Conservative static extraction of standard item, tag, and nested-table loot entries. */
+/**
+ * Conservative static extraction of standard item, tag, and nested-table loot entries. The direct entries of each table file are
+ * read through the evidence cache; tags and nested tables are resolved against the live registries on every run.
+ */
 final class LootTableOutputScanner
 {
     private static final Gson GSON = new Gson();
     private final ResourceManager resources;
+    private final RareFindEvidenceCache evidenceCache;
     private final Map<ResourceLocation, Set<ResourceLocation>> cache = new HashMap<>();
+    private int cacheHits = 0;
+    private int cacheMisses = 0;
 
     /**
      * Creates a scanner over effective server data resources.
      *
      * @param resources resolved resource manager
+     * @param evidenceCache persisted direct entries of previously read tables
      */
-    LootTableOutputScanner(final ResourceManager resources)
+    LootTableOutputScanner(final ResourceManager resources, final RareFindEvidenceCache evidenceCache)
     {
         this.resources = resources;
+        this.evidenceCache = evidenceCache;
     }
 
     /**
@@ -46,6 +56,18 @@ final class LootTableOutputScanner
         return outputs(table, new HashSet<>());
     }
 
+    /** @return loot table files whose direct entries were reused from the evidence cache */
+    int cacheHits()
+    {
+        return cacheHits;
+    }
+
+    /** @return loot table files that had to be parsed */
+    int cacheMisses()
+    {
+        return cacheMisses;
+    }
+
     /**
      * Resolves one table while preventing recursive table-reference cycles.
      *
@@ -64,13 +86,20 @@ final class LootTableOutputScanner
         final java.util.Optional<Resource> resource = resources.getResource(file);
         if (resource.isPresent())
         {
-            try (Reader reader = resource.get().openAsReader())
+            final RareFindEvidenceCache.LootTableEntry entry = entries(table, resource.get());
+            if (entry != null)
             {
-                collect(GSON.fromJson(reader, JsonElement.class), result, visiting);
-            }
-            catch (Exception ex)
-            {
-                MCTradePostMod.LOGGER.warn("Unable to statically inspect loot table {}", table, ex);
+                for (final ResourceLocation item : entry.items())
+                {
+                    if (BuiltInRegistries.ITEM.containsKey(item)) result.add(item);
+                }
+                for (final ResourceLocation tagId : entry.tags())
+                {
+                    final TagKey<Item> tag = ItemTags.create(tagId);
+                    BuiltInRegistries.ITEM.getTag(tag).ifPresent(set -> set.forEach(holder ->
+                        result.add(BuiltInRegistries.ITEM.getKey(holder.value()))));
+                }
+                for (final ResourceLocation nested : entry.tables()) result.addAll(outputs(nested, visiting));
             }
         }
         visiting.remove(table);
@@ -80,21 +109,60 @@ final class LootTableOutputScanner
     }
 
     /**
-     * Traverses loot JSON and handles standard item, tag, and nested-table entries.
+     * Returns the direct entries of a table file, from the evidence cache when the file is unchanged.
+     *
+     * @param table loot table ID
+     * @param resource the table's effective resource
+     * @return direct entries, or {@code null} when the file cannot be read
+     */
+    @SuppressWarnings("null")
+    private RareFindEvidenceCache.LootTableEntry entries(final ResourceLocation table, final Resource resource)
+    {
+        try (InputStream input = resource.open())
+        {
+            final byte[] bytes = input.readAllBytes();
+            final String hash = Hashing.murmur3_128().hashBytes(bytes).toString();
+            final RareFindEvidenceCache.LootTableEntry cached = evidenceCache.lootTable(table, resource.sourcePackId(), hash);
+            if (cached != null)
+            {
+                cacheHits++;
+                return cached;
+            }
+
+            cacheMisses++;
+            final Set<ResourceLocation> items = new HashSet<>();
+            final Set<ResourceLocation> tags = new HashSet<>();
+            final Set<ResourceLocation> tables = new HashSet<>();
+            collect(GSON.fromJson(new String(bytes, StandardCharsets.UTF_8), JsonElement.class), items, tags, tables);
+            final RareFindEvidenceCache.LootTableEntry entry = new RareFindEvidenceCache.LootTableEntry(resource.sourcePackId(), hash,
+                Set.copyOf(items), Set.copyOf(tags), Set.copyOf(tables));
+            evidenceCache.putLootTable(table, entry);
+            return entry;
+        }
+        catch (Exception ex)
+        {
+            MCTradePostMod.LOGGER.warn("Unable to statically inspect loot table {}", table, ex);
+            return null;
+        }
+    }
+
+    /**
+     * Traverses loot JSON and records standard item, tag, and nested-table entries.
      * Unknown or dynamic entry types are traversed conservatively.
      *
      * @param element current JSON node
-     * @param items output accumulator
-     * @param visiting nested-table recursion stack
+     * @param items item entry accumulator
+     * @param tags item tag entry accumulator
+     * @param tables nested-table entry accumulator
      */
     @SuppressWarnings("null")
-    private void collect(final JsonElement element, final Set<ResourceLocation> items,
-                         final Set<ResourceLocation> visiting)
+    private static void collect(final JsonElement element, final Set<ResourceLocation> items, final Set<ResourceLocation> tags,
+                                final Set<ResourceLocation> tables)
     {
         if (element == null || element.isJsonNull()) return;
         if (element.isJsonArray())
         {
-            for (final JsonElement child : element.getAsJsonArray()) collect(child, items, visiting);
+            for (final JsonElement child : element.getAsJsonArray()) collect(child, items, tags, tables);
             return;
         }
         if (!element.isJsonObject()) return;
@@ -104,28 +172,23 @@ final class LootTableOutputScanner
         if (("minecraft:item".equals(type) || "item".equals(type)) && name != null)
         {
             final ResourceLocation id = ResourceLocation.tryParse(name);
-            if (id != null && BuiltInRegistries.ITEM.containsKey(id)) items.add(id);
+            if (id != null) items.add(id);
         }
         else if (("minecraft:tag".equals(type) || "tag".equals(type)) && name != null)
         {
             final ResourceLocation id = ResourceLocation.tryParse(name);
-            if (id != null)
-            {
-                final TagKey<Item> tag = ItemTags.create(id);
-                BuiltInRegistries.ITEM.getTag(tag).ifPresent(set -> set.forEach(holder ->
-                    items.add(BuiltInRegistries.ITEM.getKey(holder.value()))));
-            }
+            if (id != null) tags.add(id);
         }
         else if (("minecraft:loot_table".equals(type) || "loot_table".equals(type)))
         {
             String nestedName = name;
             if (nestedName == null) nestedName = string(object, "value");
             final ResourceLocation nested = nestedName == null ? null : ResourceLocation.tryParse(nestedName);
-            if (nested != null) items.addAll(outputs(nested, visiting));
+            if (nested != null) tables.add(nested);
         }
         for (final Map.Entry<String, JsonElement> child : object.entrySet())
         {
-            if (!"name".equals(child.getKey()) && !"value".equals(child.getKey())) collect(child.getValue(), items, visiting);
+            if (!"name".equals(child.getKey()) && !"value".equals(child.getKey())) collect(child.getValue(), items, tags, tables);
         }
     }
 
@@ -0,0 +1,263 @@
+package com.deathfrog.mctradepost.core.rarefinds.generation;
+
+import com.deathfrog.mctradepost.MCTradePostMod;
+import com.deathfrog.mctradepost.api.util.NullnessBridge;
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import net.minecraft.SharedConstants;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.world.level.storage.LevelResource;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Persisted per-source evidence reused between generator runs.
+ * <p>
+ * Each entry is keyed by the resource it was read from and fingerprinted by the pack that supplied the resource and a hash of the
+ * resource's bytes, so an entry is reused only while the same pack still provides identical content. Only pack-derived facts are
+ * cached: the loot-table references of structure templates, and the direct entries of loot tables. Generator rules, tags, values
+ * and recipes are applied to these facts on every run, so editing rules never invalidates the cache. The cache file lives in the
+ * world folder, outside the datapacks directory, and is discarded when its format or the game version changes.
+ */
+final class RareFindEvidenceCache
+{
+    private static final int FORMAT = 1;
+    private static final Gson GSON = new Gson();
+
+    private static RareFindEvidenceCache loaded = null;
+
+    /**
+     * Loot-table references of one structure template.
+     *
+     * @param pack pack that supplied the template
+     * @param hash hash of the compressed template
+     * @param references references in file order
+     */
+    record StructureEntry(String pack, String hash, List<StructureNbtLootReader.Found> references) { }
+
+    /**
+     * Direct entries of one loot table, before tags and nested tables are resolved.
+     *
+     * @param pack pack that supplied the table
+     * @param hash hash of the table JSON
+     * @param items item entries
+     * @param tags item tag entries
+     * @param tables nested loot table entries
+     */
+    record LootTableEntry(String pack, String hash, Set<ResourceLocation> items, Set<ResourceLocation> tags,
+                          Set<ResourceLocation> tables) { }
+
+    private final Path file;
+    private final Map<ResourceLocation, StructureEntry> structures = new ConcurrentHashMap<>();
+    private final Map<ResourceLocation, LootTableEntry> lootTables = new ConcurrentHashMap<>();
+
+    private RareFindEvidenceCache(final Path file)
+    {
+        this.file = file;
+    }
+
+    /**
+     * Returns the cache of a server's world, reading it from disk unless it is already loaded.
+     *
+     * @param server server whose world folder holds the cache
+     * @return the cache; empty when no usable cache file exists
+     */
+    static synchronized RareFindEvidenceCache load(final MinecraftServer server)
+    {
+        final Path path = server.getWorldPath(NullnessBridge.assumeNonnull(LevelResource.ROOT)).resolve(MCTradePostMod.MODID)
+            .resolve("rare_find_evidence_cache.json").toAbsolutePath().normalize();
+        if (loaded != null && loaded.file.equals(path)) return loaded;
+
+        final RareFindEvidenceCache cache = new RareFindEvidenceCache(path);
+        if (Files.isRegularFile(path))
+        {
+            try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8))
+            {
+                cache.read(GSON.fromJson(reader, JsonObject.class));
+            }
+            catch (Exception ex)
+            {
+                MCTradePostMod.LOGGER.warn("Discarding unreadable Rare Finds evidence cache {}", path, ex);
+                cache.structures.clear();
+                cache.lootTables.clear();
+            }
+        }
+        loaded = cache;
+        return cache;
+    }
+
+    /**
+     * Writes the cache to the world folder. Failures are logged; the generator result does not depend on the cache being saved.
+     */
+    synchronized void save()
+    {
+        try
+        {
+            Files.createDirectories(file.getParent());
+            try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8))
+            {
+                GSON.toJson(write(), writer);
+            }
+        }
+        catch (Exception ex)
+        {
+            MCTradePostMod.LOGGER.warn("Unable to save Rare Finds evidence cache {}", file, ex);
+        }
+    }
+
+    /**
+     * Returns the cached references of a structure template when its pack and content are unchanged.
+     *
+     * @param structure structure template ID
+     * @param pack pack supplying the template now
+     * @param hash hash of the template's current bytes
+     * @return cached entry, or null on a miss
+     */
+    StructureEntry structure(final ResourceLocation structure, final String pack, final String hash)
+    {
+        final StructureEntry entry = structures.get(structure);
+        return entry != null && entry.pack().equals(pack) && entry.hash().equals(hash) ? entry : null;
+    }
+
+    void putStructure(final ResourceLocation structure, final StructureEntry entry)
+    {
+        structures.put(structure, entry);
+    }
+
+    /**
+     * Drops the entries of structure templates that no longer exist.
+     *
+     * @param present every structure template found by the current scan
+     */
+    void retainStructures(final Set<ResourceLocation> present)
+    {
+        structures.keySet().retainAll(present);
+    }
+
+    /**
+     * Returns the cached direct entries of a loot table when its pack and content are unchanged.
+     *
+     * @param table loot table ID
+     * @param pack pack supplying the table now
+     * @param hash hash of the table's current bytes
+     * @return cached entry, or null on a miss
+     */
+    LootTableEntry lootTable(final ResourceLocation table, final String pack, final String hash)
+    {
+        final LootTableEntry entry = lootTables.get(table);
+        return entry != null && entry.pack().equals(pack) && entry.hash().equals(hash) ? entry : null;
+    }
+
+    void putLootTable(final ResourceLocation table, final LootTableEntry entry)
+    {
+        lootTables.put(table, entry);
+    }
+
+    @SuppressWarnings("null")
+    private void read(final JsonObject root)
+    {
+        if (root == null || !root.has("format") || root.get("format").getAsInt() != FORMAT) return;
+        if (!gameVersion().equals(root.has("game_version") ? root.get("game_version").getAsString() : null)) return;
+
+        for (final Map.Entry<String, JsonElement> entry : root.getAsJsonObject("structures").entrySet())
+        {
+            final ResourceLocation id = ResourceLocation.tryParse(entry.getKey());
+            if (id == null) continue;
+
+            final JsonObject value = entry.getValue().getAsJsonObject();
+            final List<StructureNbtLootReader.Found> references = new ArrayList<>();
+            for (final JsonElement reference : value.getAsJsonArray("references"))
+            {
+                final JsonArray pair = reference.getAsJsonArray();
+                references.add(new StructureNbtLootReader.Found(pair.get(0).getAsString(), pair.get(1).getAsString()));
+            }
+            structures.put(id, new StructureEntry(value.get("pack").getAsString(), value.get("hash").getAsString(),
+                List.copyOf(references)));
+        }
+
+        for (final Map.Entry<String, JsonElement> entry : root.getAsJsonObject("loot_tables").entrySet())
+        {
+            final ResourceLocation id = ResourceLocation.tryParse(entry.getKey());
+            if (id == null) continue;
+
+            final JsonObject value = entry.getValue().getAsJsonObject();
+            lootTables.put(id, new LootTableEntry(value.get("pack").getAsString(), value.get("hash").getAsString(),
+                ids(value.getAsJsonArray("items")), ids(value.getAsJsonArray("tags")), ids(value.getAsJsonArray("tables"))));
+        }
+    }
+
+    private JsonObject write()
+    {
+        final JsonObject root = new JsonObject();
+        root.addProperty("format", FORMAT);
+        root.addProperty("game_version", gameVersion());
+
+        final JsonObject structureJson = new JsonObject();
+        new TreeMap<>(structures).forEach((id, entry) -> {
+            final JsonObject value = new JsonObject();
+            value.addProperty("pack", entry.pack());
+            value.addProperty("hash", entry.hash());
+            final JsonArray references = new JsonArray();
+            for (final StructureNbtLootReader.Found found : entry.references())
+            {
+                final JsonArray pair = new JsonArray();
+                pair.add(found.lootTable());
+                pair.add(found.nbtPath());
+                references.add(pair);
+            }
+            value.add("references", references);
+            structureJson.add(id.toString(), value);
+        });
+        root.add("structures", structureJson);
+
+        final JsonObject lootJson = new JsonObject();
+        new TreeMap<>(lootTables).forEach((id, entry) -> {
+            final JsonObject value = new JsonObject();
+            value.addProperty("pack", entry.pack());
+            value.addProperty("hash", entry.hash());
+            value.add("items", json(entry.items()));
+            value.add("tags", json(entry.tags()));
+            value.add("tables", json(entry.tables()));
+            lootJson.add(id.toString(), value);
+        });
+        root.add("loot_tables", lootJson);
+        return root;
+    }
+
+    private static Set<ResourceLocation> ids(final JsonArray array)
+    {
+        final List<ResourceLocation> ids = new ArrayList<>(array.size());
+        for (final JsonElement element : array)
+        {
+            @SuppressWarnings("null")
+            final ResourceLocation id = ResourceLocation.tryParse(element.getAsString());
+            if (id != null) ids.add(id);
+        }
+        return Set.copyOf(ids);
+    }
+
+    private static JsonArray json(final Set<ResourceLocation> ids)
+    {
+        final JsonArray array = new JsonArray();
+        ids.stream().map(ResourceLocation::toString).sorted().forEach(array::add);
+        return array;
+    }
+
+    private static String gameVersion()
+    {
+        return SharedConstants.getCurrentVersion().getId();
+    }
+}
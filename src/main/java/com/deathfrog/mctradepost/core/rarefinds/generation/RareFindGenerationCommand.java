@@ -80,6 +80,8 @@ public final class RareFindGenerationCommand
             + ", spawn-eggs=" + report.spawnEggs().size()
             + ", tier-without-value=" + report.tierWithoutValue().size()
             + ", undefined structures=" + report.undefinedStructures().size()
-            + ", manual conflicts=" + report.manualConflicts().size();
+            + ", manual conflicts=" + report.manualConflicts().size()
+            + ", time=" + report.totalMillis() + "ms"
+            + ", evidence cache hits=" + Math.round(report.cacheHitRate() * 100) + "%";
     }
 }
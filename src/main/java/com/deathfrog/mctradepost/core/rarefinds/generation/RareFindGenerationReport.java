@@ -19,6 +19,7 @@ import java.util.Set;
  * @param undefinedStructures scanned templates not covered by a structure-tier rule
  * @param structureLootReferences reverse-map records discovered in structure NBT
  * @param manualConflicts items manually assigned to more than one definitive tier
+ * @param phases duration and evidence cache use of each generation phase, in execution order
  */
 public record RareFindGenerationReport(
     Map<ResourceLocation, ItemResult> items,
@@ -30,8 +31,33 @@ public record RareFindGenerationReport(
     Set<ResourceLocation> tierWithoutValue,
     Set<ResourceLocation> undefinedStructures,
     List<StructureLootScanner.Reference> structureLootReferences,
-    Map<ResourceLocation, List<RareFindTier>> manualConflicts)
+    Map<ResourceLocation, List<RareFindTier>> manualConflicts,
+    List<RareFindGenerationReport.PhaseTiming> phases)
 {
+    /**
+     * Duration and evidence cache use of one generation phase.
+     *
+     * @param name phase name
+     * @param millis wall-clock duration in milliseconds
+     * @param cacheHits sources whose evidence was reused from the cache
+     * @param cacheMisses sources that had to be read
+     */
+    public record PhaseTiming(String name, long millis, int cacheHits, int cacheMisses) { }
+
+    /** @return total duration of all phases in milliseconds */
+    public long totalMillis()
+    {
+        return phases.stream().mapToLong(PhaseTiming::millis).sum();
+    }
+
+    /** @return share of cacheable sources reused from the evidence cache, from 0 to 1; 0 when nothing was cacheable */
+    public double cacheHitRate()
+    {
+        final int hits = phases.stream().mapToInt(PhaseTiming::cacheHits).sum();
+        final int total = hits + phases.stream().mapToInt(PhaseTiming::cacheMisses).sum();
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
     /**
      * The classification and provenance retained for one item.
      *
@@ -42,6 +42,9 @@ public final class RareFindGenerator
     @SuppressWarnings("null")
     public static RareFindGenerationReport generate(final MinecraftServer server)
     {
+        final List<RareFindGenerationReport.PhaseTiming> phases = new ArrayList<>();
+        long phaseStart = System.nanoTime();
+        final RareFindEvidenceCache cache = RareFindEvidenceCache.load(server);
         final RareFindGenerationRules rules = RareFindGenerationRules.load(server);
         final ManualRareFindTagResolver tags = new ManualRareFindTagResolver(server.getResourceManager());
         final Map<ResourceLocation, List<RareFindTier>> manual = tags.resolveDefinitiveTiers();
@@ -62,15 +65,29 @@ public final class RareFindGenerator
         effectiveBlacklist.addAll(spawnEggs);
         final Map<ResourceLocation, Integer> values = GenerationDataReader.itemValues(server);
         final Map<ResourceLocation, List<TierEvidence>> evidence = new HashMap<>();
+        phaseStart = phase(phases, "inputs", phaseStart, 0, 0);
 
         collectBaseEvidence(rules, values, evidence);
+        phaseStart = phase(phases, "base_evidence", phaseStart, 0, 0);
 
-        final StructureLootScanner.Result structures = StructureLootScanner.scan(server.getResourceManager());
-        collectStructureEvidence(server, rules, structures, evidence);
+        final StructureLootScanner.Result structures = StructureLootScanner.scan(server.getResourceManager(), cache);
+        phaseStart = phase(phases, "structure_scan", phaseStart, structures.cacheHits(), structures.cacheMisses());
 
-        Map<ResourceLocation, RareFindTier> provisional = decideAll(evidence);
-        collectRecipeEvidence(server, provisional, evidence);
-        provisional = decideAll(evidence);
+        final LootTableOutputScanner loot = new LootTableOutputScanner(server.getResourceManager(), cache);
+        collectStructureEvidence(rules, structures, loot, evidence);
+        phaseStart = phase(phases, "structure_loot_evidence", phaseStart, loot.cacheHits(), loot.cacheMisses());
+        cache.save();
+
+        final Map<ResourceLocation, RareFindTier> provisional = decideAll(evidence);
+        final Set<ResourceLocation> recipeOutputs = collectRecipeEvidence(server, provisional, evidence);
+        // Recipe evidence only touches recipe outputs, so only their decisions can change.
+        for (final ResourceLocation id : recipeOutputs)
+        {
+            final RareFindTier tier = decide(evidence.get(id));
+            if (tier != null) provisional.put(id, tier);
+            else provisional.remove(id);
+        }
+        phaseStart = phase(phases, "recipe_evidence", phaseStart, 0, 0);
 
         final Map<ResourceLocation, RareFindGenerationReport.ItemResult> results = new TreeMap<>();
         final Map<RareFindTier, Set<ResourceLocation>> generated = new EnumMap<>(RareFindTier.class);
@@ -141,6 +158,7 @@ public final class RareFindGenerator
 
         final Set<ResourceLocation> undefined = new TreeSet<>(structures.allStructures());
         undefined.removeIf(id -> rules.tierForStructure(id) != null);
+        phase(phases, "classification", phaseStart, 0, 0);
         return new RareFindGenerationReport(Map.copyOf(results),
             immutableTierMap(generated),
             rules.blacklistedNamespaces(),
@@ -150,7 +168,29 @@ public final class RareFindGenerator
             Set.copyOf(tierWithoutValue),
             Set.copyOf(undefined),
             structures.references(),
-            Map.copyOf(conflicts));
+            Map.copyOf(conflicts),
+            List.copyOf(phases));
+    }
+
+    /**
+     * Records the duration of a generation phase.
+     *
+     * @param phases   phase accumulator
+     * @param name     phase name
+     * @param start    {@link System#nanoTime()} at the start of the phase
+     * @param hits     evidence cache hits during the phase
+     * @param misses   evidence cache misses during the phase
+     * @return {@link System#nanoTime()} at the end of the phase, which starts the next one
+     */
+    private static long phase(final List<RareFindGenerationReport.PhaseTiming> phases,
+        final String name,
+        final long start,
+        final int hits,
+        final int misses)
+    {
+        final long end = System.nanoTime();
+        phases.add(new RareFindGenerationReport.PhaseTiming(name, (end - start) / 1_000_000L, hits, misses));
+        return end;
     }
 
     /**
@@ -203,14 +243,14 @@ public final class RareFindGenerator
     /**
      * Converts classified structure-template loot references into easiest-source item evidence.
      *
-     * @param server   resource source used to inspect loot tables
      * @param rules    structure tier assignments
      * @param scan     structure NBT scan results
+     * @param loot     loot table inspector
      * @param evidence evidence accumulator by item ID
      */
-    private static void collectStructureEvidence(final MinecraftServer server,
-        final RareFindGenerationRules rules,
+    private static void collectStructureEvidence(final RareFindGenerationRules rules,
         final StructureLootScanner.Result scan,
+        final LootTableOutputScanner loot,
         final Map<ResourceLocation, List<TierEvidence>> evidence)
     {
         final Map<ResourceLocation, RareFindTier> easiestTableTier = new HashMap<>();
@@ -223,7 +263,6 @@ public final class RareFindGenerator
             tableStructures.computeIfAbsent(reference.lootTable(), ignored -> new HashSet<>()).add(reference.structure());
         }
 
-        final LootTableOutputScanner loot = new LootTableOutputScanner(server.getResourceManager());
         final Map<ResourceLocation, RareFindTier> easiestItemTier = new HashMap<>();
         final Map<ResourceLocation, String> itemDetail = new HashMap<>();
         for (final Map.Entry<ResourceLocation, RareFindTier> entry : easiestTableTier.entrySet())
@@ -253,9 +292,10 @@ public final class RareFindGenerator
      * @param server   source of loaded recipes and registries
      * @param known    provisional item tiers
      * @param evidence evidence accumulator by item ID
+     * @return items that received recipe evidence
      */
     @SuppressWarnings("null")
-    private static void collectRecipeEvidence(final MinecraftServer server,
+    private static Set<ResourceLocation> collectRecipeEvidence(final MinecraftServer server,
         final Map<ResourceLocation, RareFindTier> known,
         final Map<ResourceLocation, List<TierEvidence>> evidence)
     {
@@ -302,6 +342,7 @@ public final class RareFindGenerator
             }
         }
         easiestRecipes.forEach((item, tier) -> add(evidence, item, new TierEvidence("recipe", tier, 2, recipeDetails.get(item))));
+        return easiestRecipes.keySet();
     }
 
     /**
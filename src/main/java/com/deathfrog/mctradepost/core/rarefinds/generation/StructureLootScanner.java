@@ -1,14 +1,13 @@
 package com.deathfrog.mctradepost.core.rarefinds.generation;
 
 import com.deathfrog.mctradepost.MCTradePostMod;
-import net.minecraft.nbt.CompoundTag;
-import net.minecraft.nbt.NbtAccounter;
-import net.minecraft.nbt.NbtIo;
-import net.minecraft.nbt.Tag;
+import com.google.common.hash.Hashing;
+import net.minecraft.Util;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.server.packs.resources.Resource;
 import net.minecraft.server.packs.resources.ResourceManager;
 
+import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Comparator;
@@ -16,6 +15,8 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
 
 /** Builds the structure-template to loot-table reverse map absent from vanilla. */
 public final class StructureLootScanner
@@ -34,75 +35,99 @@ public final class StructureLootScanner
      *
      * @param references every discovered loot-table occurrence
      * @param allStructures every successfully enumerated structure template ID
+     * @param cacheHits templates whose references were reused from the evidence cache
+     * @param cacheMisses templates that had to be read
      */
-    public record Result(List<Reference> references, Set<ResourceLocation> allStructures) { }
+    public record Result(List<Reference> references, Set<ResourceLocation> allStructures, int cacheHits, int cacheMisses) { }
+
+    /**
+     * References found in one template, and whether they came from the evidence cache.
+     *
+     * @param references references found in the template
+     * @param cached true if the template was not read
+     */
+    private record FileScan(List<Reference> references, boolean cached) { }
 
     /** Prevents instantiation of this utility class. */
     private StructureLootScanner() { }
 
     /**
-     * Scans every effective compressed structure NBT resource.
+     * Scans every effective compressed structure NBT resource. Files are read in parallel on the background executor and merged in
+     * resource order; files whose pack and content are unchanged since a previous run reuse that run's references.
      *
      * @param manager resolved server resource manager
+     * @param cache evidence cache consulted and updated for every template
      * @return deterministic reverse-map records and all scanned structures
      */
     @SuppressWarnings("null")
-    public static Result scan(final ResourceManager manager)
+    static Result scan(final ResourceManager manager, final RareFindEvidenceCache cache)
     {
-        final List<Reference> references = new ArrayList<>();
-        final Set<ResourceLocation> structures = new HashSet<>();
-        final Map<ResourceLocation, Resource> files = manager.listResources("structure", id -> id.getPath().endsWith(".nbt"));
+        final Map<ResourceLocation, Resource> files =
+            new TreeMap<>(manager.listResources("structure", id -> id.getPath().endsWith(".nbt")));
+        final List<CompletableFuture<FileScan>> scans = new ArrayList<>(files.size());
         for (final Map.Entry<ResourceLocation, Resource> entry : files.entrySet())
         {
-            final ResourceLocation structure = structureId(entry.getKey());
-            structures.add(structure);
-            try (InputStream input = entry.getValue().open())
-            {
-                if (input == null) continue;
+            scans.add(CompletableFuture.supplyAsync(() -> scanFile(structureId(entry.getKey()), entry.getValue(), cache),
+                Util.backgroundExecutor()));
+        }
 
-                final CompoundTag root = NbtIo.readCompressed(input, NbtAccounter.unlimitedHeap());
-                scanTag(root, structure, "$", references);
-            }
-            catch (Exception ex)
-            {
-                MCTradePostMod.LOGGER.warn("Unable to scan structure template {}", structure, ex);
-            }
+        final List<Reference> references = new ArrayList<>();
+        final Set<ResourceLocation> structures = new HashSet<>();
+        int hits = 0;
+        int index = 0;
+        for (final ResourceLocation file : files.keySet())
+        {
+            structures.add(structureId(file));
+            final FileScan scan = scans.get(index++).join();
+            references.addAll(scan.references());
+            if (scan.cached()) hits++;
         }
+        cache.retainStructures(structures);
+
         references.sort(Comparator.comparing((Reference r) -> r.lootTable().toString())
             .thenComparing(r -> r.structure().toString()).thenComparing(Reference::nbtPath));
-        return new Result(List.copyOf(references), Set.copyOf(structures));
+        return new Result(List.copyOf(references), Set.copyOf(structures), hits, files.size() - hits);
     }
 
     /**
-     * Recursively visits compound and list tags to find block-entity and entity loot references.
+     * Reads one structure template and extracts its loot-table references, or reuses the cached references if the template is
+     * unchanged.
      *
-     * @param tag current NBT node
-     * @param structure owning structure template
-     * @param path diagnostic path within the NBT tree
-     * @param output discovered-reference accumulator
+     * @param structure structure template ID
+     * @param resource structure resource
+     * @param cache evidence cache
+     * @return references found in the template; empty if it cannot be read
      */
     @SuppressWarnings("null")
-    private static void scanTag(final Tag tag, final ResourceLocation structure, final String path,
-                                final List<Reference> output)
+    private static FileScan scanFile(final ResourceLocation structure, final Resource resource, final RareFindEvidenceCache cache)
     {
-        if (tag instanceof CompoundTag compound)
+        try (InputStream input = resource.open())
         {
-            for (final String key : compound.getAllKeys())
+            if (input == null) return new FileScan(List.of(), false);
+
+            final byte[] bytes = input.readAllBytes();
+            final String hash = Hashing.murmur3_128().hashBytes(bytes).toString();
+            RareFindEvidenceCache.StructureEntry entry = cache.structure(structure, resource.sourcePackId(), hash);
+            final boolean cached = entry != null;
+            if (!cached)
             {
-                if (key == null) continue;
+                entry = new RareFindEvidenceCache.StructureEntry(resource.sourcePackId(), hash,
+                    List.copyOf(StructureNbtLootReader.read(new ByteArrayInputStream(bytes))));
+                cache.putStructure(structure, entry);
+            }
 
-                final Tag child = compound.get(key);
-                if ("LootTable".equals(key) && child != null)
-                {
-                    final ResourceLocation table = ResourceLocation.tryParse(child.getAsString());
-                    if (table != null) output.add(new Reference(structure, table, path + ".LootTable"));
-                }
-                if (child != null) scanTag(child, structure, path + "." + key, output);
+            final List<Reference> references = new ArrayList<>(entry.references().size());
+            for (final StructureNbtLootReader.Found found : entry.references())
+            {
+                final ResourceLocation table = ResourceLocation.tryParse(found.lootTable());
+                if (table != null) references.add(new Reference(structure, table, found.nbtPath()));
             }
+            return new FileScan(references, cached);
         }
-        else if (tag instanceof net.minecraft.nbt.ListTag list)
+        catch (Exception ex)
         {
-            for (int i = 0; i < list.size(); i++) scanTag(list.get(i), structure, path + "[" + i + "]", output);
+            MCTradePostMod.LOGGER.warn("Unable to scan structure template {}", structure, ex);
+            return new FileScan(List.of(), false);
         }
     }
 
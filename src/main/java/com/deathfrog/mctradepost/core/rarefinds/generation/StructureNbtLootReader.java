@@ -0,0 +1,203 @@
+package com.deathfrog.mctradepost.core.rarefinds.generation;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Streaming reader that extracts {@code LootTable} references from a compressed structure template without building its tag tree.
+ * <p>
+ * Tags are read straight from the decompressed stream. Numeric payloads, arrays and strings other than {@code LootTable} values are
+ * skipped, and the diagnostic path of a node is only rendered when a reference is found beneath it. Paths use the same notation as
+ * the tree walk they replace: {@code $} for the root, {@code .key} for compound entries and {@code [i]} for list elements.
+ */
+final class StructureNbtLootReader
+{
+    /** Deepest nesting accepted, matching the vanilla NBT reader. */
+    private static final int MAX_DEPTH = 512;
+
+    private static final byte TAG_END = 0;
+    private static final byte TAG_BYTE = 1;
+    private static final byte TAG_SHORT = 2;
+    private static final byte TAG_INT = 3;
+    private static final byte TAG_LONG = 4;
+    private static final byte TAG_FLOAT = 5;
+    private static final byte TAG_DOUBLE = 6;
+    private static final byte TAG_BYTE_ARRAY = 7;
+    private static final byte TAG_STRING = 8;
+    private static final byte TAG_LIST = 9;
+    private static final byte TAG_COMPOUND = 10;
+    private static final byte TAG_INT_ARRAY = 11;
+    private static final byte TAG_LONG_ARRAY = 12;
+
+    private static final String LOOT_TABLE_KEY = "LootTable";
+
+    /**
+     * One loot-table reference in file order.
+     *
+     * @param lootTable referenced loot table, as written in the file
+     * @param nbtPath diagnostic path to the reference
+     */
+    record Found(String lootTable, String nbtPath) { }
+
+    private final DataInputStream input;
+    private final StringBuilder path = new StringBuilder("$");
+    private final List<Found> found = new ArrayList<>();
+
+    private StructureNbtLootReader(final DataInputStream input)
+    {
+        this.input = input;
+    }
+
+    /**
+     * Reads a gzip-compressed NBT document and returns its loot-table references.
+     *
+     * @param compressed gzip-compressed NBT stream; not closed
+     * @return references in the order they appear in the file
+     * @throws IOException if the stream is truncated or is not a compound NBT document
+     */
+    static List<Found> read(final InputStream compressed) throws IOException
+    {
+        final DataInputStream input = new DataInputStream(new BufferedInputStream(new GZIPInputStream(compressed), 8192));
+        final StructureNbtLootReader reader = new StructureNbtLootReader(input);
+
+        final byte rootType = input.readByte();
+        if (rootType != TAG_COMPOUND) throw new IOException("Root tag must be a compound, found type " + rootType);
+
+        skipString(input);
+        reader.readCompound(0);
+        return reader.found;
+    }
+
+    /**
+     * Reads the entries of a compound up to its end tag.
+     *
+     * @param depth nesting depth of the compound
+     */
+    private void readCompound(final int depth) throws IOException
+    {
+        checkDepth(depth);
+        while (true)
+        {
+            final byte type = input.readByte();
+            if (type == TAG_END) return;
+
+            final String key = input.readUTF();
+            if (type == TAG_STRING && LOOT_TABLE_KEY.equals(key))
+            {
+                found.add(new Found(input.readUTF(), path + "." + LOOT_TABLE_KEY));
+                continue;
+            }
+
+            if (!isContainer(type))
+            {
+                skipPayload(type);
+                continue;
+            }
+
+            final int mark = path.length();
+            path.append('.').append(key);
+            readPayload(type, depth + 1);
+            path.setLength(mark);
+        }
+    }
+
+    /**
+     * Reads the elements of a list, descending only into lists of compounds or lists.
+     *
+     * @param depth nesting depth of the list
+     */
+    private void readList(final int depth) throws IOException
+    {
+        checkDepth(depth);
+        final byte elementType = input.readByte();
+        final int length = input.readInt();
+        if (length < 0) throw new IOException("Negative list length " + length);
+
+        if (!isContainer(elementType))
+        {
+            for (int i = 0; i < length; i++) skipPayload(elementType);
+            return;
+        }
+
+        final int mark = path.length();
+        for (int i = 0; i < length; i++)
+        {
+            path.append('[').append(i).append(']');
+            readPayload(elementType, depth + 1);
+            path.setLength(mark);
+        }
+    }
+
+    private void readPayload(final byte type, final int depth) throws IOException
+    {
+        if (type == TAG_COMPOUND) readCompound(depth);
+        else readList(depth);
+    }
+
+    /**
+     * Skips the payload of a tag that cannot contain a compound.
+     *
+     * @param type tag type
+     */
+    private void skipPayload(final byte type) throws IOException
+    {
+        switch (type)
+        {
+            case TAG_BYTE -> skipFully(input, 1);
+            case TAG_SHORT -> skipFully(input, 2);
+            case TAG_INT, TAG_FLOAT -> skipFully(input, 4);
+            case TAG_LONG, TAG_DOUBLE -> skipFully(input, 8);
+            case TAG_BYTE_ARRAY -> skipFully(input, arrayLength());
+            case TAG_STRING -> skipString(input);
+            case TAG_INT_ARRAY -> skipFully(input, arrayLength() * 4L);
+            case TAG_LONG_ARRAY -> skipFully(input, arrayLength() * 8L);
+            default -> throw new IOException("Unknown tag type " + type);
+        }
+    }
+
+    private int arrayLength() throws IOException
+    {
+        final int length = input.readInt();
+        if (length < 0) throw new IOException("Negative array length " + length);
+
+        return length;
+    }
+
+    private static boolean isContainer(final byte type)
+    {
+        return type == TAG_COMPOUND || type == TAG_LIST;
+    }
+
+    private static void checkDepth(final int depth) throws IOException
+    {
+        if (depth > MAX_DEPTH) throw new IOException("NBT nested deeper than " + MAX_DEPTH);
+    }
+
+    private static void skipString(final DataInputStream input) throws IOException
+    {
+        skipFully(input, input.readUnsignedShort());
+    }
+
+    private static void skipFully(final DataInputStream input, final long count) throws IOException
+    {
+        long remaining = count;
+        while (remaining > 0)
+        {
+            final int skipped = input.skipBytes((int) Math.min(remaining, Integer.MAX_VALUE));
+            if (skipped <= 0)
+            {
+                if (input.read() < 0) throw new EOFException("Truncated NBT payload");
+
+                remaining--;
+                continue;
+            }
+            remaining -= skipped;
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.deathfrog.mctradepost.core.recycling;
+
+import java.util.Optional;
+import java.util.function.Function;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import com.deathfrog.mctradepost.core.recycling.blacklist.RecyclingBlacklistManager;
+import com.deathfrog.mctradepost.recipe.DeconstructionRecipe;
+import com.minecolonies.api.crafting.ItemStorage;
+
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Object2ObjectOpenCustomHashMap;
+import net.minecraft.core.component.DataComponents;
+import net.minecraft.util.Tuple;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.ItemStackLinkedSet;
+import net.minecraft.world.item.crafting.RecipeHolder;
+import net.minecraft.world.item.crafting.RecipeManager;
+import net.minecraft.world.level.Level;
+
+/**
+ * Server-wide cache of the item-dependent parts of recycling: the blacklist decision, the matching deconstruction recipe and the
+ * reverse-engineered ingredient template. Entries are keyed by item and data components, ignoring stack size and damage, since
+ * damage is applied later as output scaling.
+ * <p>
+ * The cache is discarded when the recipe manager is replaced by a datapack reload or when the blacklist rules are reloaded.
+ * Worker skill, research and random rolls are never cached; callers apply them to copies of the cached templates.
+ */
+public final class RecyclingTemplateCache
+{
+    /**
+     * Upper bound on cached item variants. Items with unique components can otherwise grow the cache without limit.
+     */
+    private static final int MAX_ENTRIES = 8192;
+
+    private static final Object2ObjectOpenCustomHashMap<ItemStack, Entry> ENTRIES =
+        new Object2ObjectOpenCustomHashMap<>(ItemStackLinkedSet.TYPE_AND_TAG);
+    private static RecipeManager cachedManager = null;
+    private static int cachedBlacklistGeneration = -1;
+
+    /**
+     * Prevents instantiation of this utility class.
+     */
+    private RecyclingTemplateCache()
+    {
+    }
+
+    /**
+     * Cached recycling facts for one item variant. Recipe-derived values are resolved on first use.
+     */
+    public static final class Entry
+    {
+        private final ItemStack key;
+        private final boolean blacklisted;
+        private Optional<RecipeHolder<DeconstructionRecipe>> deconstruction = null;
+        private boolean reverseResolved = false;
+        private Tuple<Object2IntOpenHashMap<ItemStorage>, ItemStack> reverseTemplate = null;
+
+        private Entry(@Nonnull final ItemStack key, @Nonnull final Level level)
+        {
+            this.key = key;
+            this.blacklisted = RecyclingBlacklistManager.isBlacklisted(key, level);
+        }
+
+        /**
+         * @return {@code true} if the item variant is blacklisted from recycling
+         */
+        public boolean isBlacklisted()
+        {
+            return blacklisted;
+        }
+
+        /**
+         * Returns the deconstruction recipe for this item variant, resolving it on first use.
+         *
+         * @param resolver looks up the deconstruction recipe for a single-item stack
+         * @return the matching deconstruction recipe, or an empty Optional
+         */
+        public Optional<RecipeHolder<DeconstructionRecipe>> deconstruction(
+            @Nonnull final Function<ItemStack, Optional<RecipeHolder<DeconstructionRecipe>>> resolver)
+        {
+            if (deconstruction == null)
+            {
+                deconstruction = resolver.apply(key.copy());
+            }
+
+            return deconstruction;
+        }
+
+        /**
+         * Returns a copy of the reverse-engineered ingredient template for this item variant, resolving it on first use.
+         *
+         * @param resolver reverse-engineers the ingredient outputs and reference result for a single-item stack
+         * @return a mutable copy of the ingredient counts and reference result, or {@code null} if no recipe applies
+         */
+        @Nullable
+        public Tuple<Object2IntOpenHashMap<ItemStorage>, ItemStack> reverseTemplate(
+            @Nonnull final Function<ItemStack, Tuple<Object2IntOpenHashMap<ItemStorage>, ItemStack>> resolver)
+        {
+            if (!reverseResolved)
+            {
+                reverseTemplate = resolver.apply(key.copy());
+                reverseResolved = true;
+            }
+
+            if (reverseTemplate == null)
+            {
+                return null;
+            }
+
+            return new Tuple<>(new Object2IntOpenHashMap<>(reverseTemplate.getA()), reverseTemplate.getB().copy());
+        }
+    }
+
+    /**
+     * Returns the cached recycling facts for the supplied stack, creating them on first use.
+     *
+     * @param stack the stack whose item variant is looked up
+     * @param level the active level supplying the recipe manager and blacklist context
+     * @return the cache entry for the stack's item and components
+     */
+    @Nonnull
+    public static synchronized Entry get(@Nonnull final ItemStack stack, @Nonnull final Level level)
+    {
+        final RecipeManager manager = level.getRecipeManager();
+        final int blacklistGeneration = RecyclingBlacklistManager.generation();
+        if (manager != cachedManager || blacklistGeneration != cachedBlacklistGeneration || ENTRIES.size() >= MAX_ENTRIES)
+        {
+            ENTRIES.clear();
+            cachedManager = manager;
+            cachedBlacklistGeneration = blacklistGeneration;
+        }
+
+        final ItemStack key = stack.copyWithCount(1);
+        key.remove(DataComponents.DAMAGE);
+
+        Entry entry = ENTRIES.get(key);
+        if (entry == null)
+        {
+            entry = new Entry(key, level);
+            ENTRIES.put(key, entry);
+        }
+
+        return entry;
+    }
+
+    /**
+     * Checks the blacklist through the cache when a level is available.
+     *
+     * @param stack the item stack to test
+     * @param level the active level, or {@code null} when no level is available
+     * @return {@code true} if the stack is blacklisted, otherwise {@code false}
+     */
+    public static boolean isBlacklisted(@Nonnull final ItemStack stack, @Nullable final Level level)
+    {
+        if (level == null || stack.isEmpty())
+        {
+            return RecyclingBlacklistManager.isBlacklisted(stack, level);
+        }
+
+        return get(stack, level).isBlacklisted();
+    }
+
+    /**
+     * Discards every cached entry. Called when the server stops.
+     */
+    public static synchronized void clear()
+    {
+        ENTRIES.clear();
+        cachedManager = null;
+        cachedBlacklistGeneration = -1;
+    }
+}
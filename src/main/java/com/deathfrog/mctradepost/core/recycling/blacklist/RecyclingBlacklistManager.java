@@ -42,6 +42,7 @@ public final class RecyclingBlacklistManager extends SimpleJsonResourceReloadLis
     private static final Logger LOGGER = LogUtils.getLogger();
     private static final List<CompiledRule> DENY_RULES = new ArrayList<>();
     private static final List<CompiledRule> ALLOW_RULES = new ArrayList<>();
+    private static volatile int generation = 0;
 
     /**
      * Creates the reload listener used to load recycling blacklist files from
@@ -100,9 +101,21 @@ public final class RecyclingBlacklistManager extends SimpleJsonResourceReloadLis
             }
         }
 
+        generation++;
         LOGGER.info("Loaded {} recycling blacklist deny rules and {} allow rules.", DENY_RULES.size(), ALLOW_RULES.size());
     }
 
+    /**
+     * Returns a counter that changes whenever the rule lists are reloaded, so
+     * that cached blacklist decisions can be discarded.
+     *
+     * @return the current rule generation
+     */
+    public static int generation()
+    {
+        return generation;
+    }
+
     /**
      * Registers the blacklist manager as a server resource reload listener so it
      * updates whenever datapacks are reloaded.
@@ -0,0 +1,32 @@
+package com.deathfrog.mctradepost.mixin;
+
+import com.deathfrog.mctradepost.core.colony.ContainerChangeLog;
+import com.deathfrog.mctradepost.core.colony.WarehouseContentIndex;
+import com.minecolonies.core.tileentities.TileEntityRack;
+import net.minecraft.world.level.Level;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+/**
+ * Forwards rack content recounts to the {@link WarehouseContentIndex} so that warehouse contents can be queried without walking
+ * every rack, and to the {@link ContainerChangeLog} so that cached inventory facts of any building can be checked for staleness.
+ */
+@Mixin(value = TileEntityRack.class, remap = false)
+public abstract class WarehouseRackContentMixin
+{
+    @Inject(method = "updateItemStorage", at = @At("TAIL"))
+    private void mctp$onUpdateItemStorage(CallbackInfo ci)
+    {
+        final TileEntityRack rack = (TileEntityRack) (Object) this;
+        final Level level = rack.getLevel();
+        if (level == null || level.isClientSide())
+        {
+            return;
+        }
+
+        WarehouseContentIndex.onRackChanged(level, rack);
+        ContainerChangeLog.onContainerChanged(level, rack.getBlockPos());
+    }
+}
@@ -3,6 +3,8 @@ package com.deathfrog.mctradepost.network;
 import com.deathfrog.mctradepost.MCTradePostMod;
 import com.deathfrog.mctradepost.api.util.ItemValueManager;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
 import net.minecraft.core.registries.BuiltInRegistries;
 import net.minecraft.network.codec.ByteBufCodecs;
 import net.minecraft.network.codec.StreamCodec;
@@ -16,21 +18,57 @@ import net.neoforged.api.distmarker.OnlyIn;
 import net.neoforged.neoforge.network.PacketDistributor;
 import net.neoforged.neoforge.network.handling.IPayloadContext;
 
-import java.util.ArrayList;
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
 import java.util.BitSet;
 import java.util.HashMap;
-import java.util.List;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
 
 import javax.annotation.Nonnull;
 
-/** Chunked synchronization of the complete server-authoritative item-value table. */
-public record ItemValueSyncPacket(long generation, int chunkIndex, int chunkCount, List<ValueEntry> entries)
+/**
+ * Versioned synchronization of the server-authoritative item-value table.
+ * <p>
+ * Items are identified by their network registry id. Every change of the server table starts a new generation whose full
+ * snapshot is encoded and deflated once and shared by every player that needs it. After a datapack reload, players known to hold
+ * the previous generation receive only the changed and removed values. A client that receives a delta for a generation it does
+ * not hold asks the server for a full snapshot instead; such requests are ignored when the client already holds the current
+ * generation and are answered at most once per {@link #FULL_REQUEST_COOLDOWN_TICKS} per player; a request arriving sooner is
+ * answered when the cooldown ends. Large payloads are split into chunks that stay well below the clientbound
+ * payload limit.
+ */
+public record ItemValueSyncPacket(byte kind, long generation, long baseGeneration, int chunkIndex, int chunkCount, byte[] data)
     implements CustomPacketPayload
 {
-    /** Keeps every uncompressed custom payload comfortably below the one MiB clientbound limit. */
-    private static final int CHUNK_ENTRY_LIMIT = 20_000;
+    /** Complete snapshot; the client discards its current table. */
+    public static final byte KIND_FULL = 0;
+
+    /** Changes relative to {@link #baseGeneration}. */
+    public static final byte KIND_DELTA = 1;
+
+    /** Serverbound request for a full snapshot. */
+    public static final byte KIND_REQUEST = 2;
+
+    /** Generation of a side that holds no synchronized table. */
+    public static final long NO_GENERATION = Long.MIN_VALUE;
+
+    /** Keeps every custom payload comfortably below the one MiB clientbound limit. */
+    private static final int CHUNK_BYTE_LIMIT = 512 * 1024;
+
+    /** Upper bound on a decompressed payload, guarding the client against malformed data. */
+    private static final int MAX_INFLATED_BYTES = 32 * 1024 * 1024;
+
+    /** Smallest gap between two full snapshots sent on request to the same player. */
+    private static final long FULL_REQUEST_COOLDOWN_TICKS = 20L * 5L;
+
     private static final AtomicLong NEXT_GENERATION = new AtomicLong(System.nanoTime());
 
     @SuppressWarnings("null")
@@ -41,10 +79,20 @@ public record ItemValueSyncPacket(long generation, int chunkIndex, int chunkCoun
         ItemValueSyncPacket::encode,
         ItemValueSyncPacket::decode);
 
-    private static long pendingGeneration = Long.MIN_VALUE;
+    // Server side: the current and previous encoded tables, and the generation each online player was sent.
+    private static Snapshot current = null;
+    private static Snapshot previous = null;
+    private static Delta delta = null;
+    private static final Map<UUID, Long> SENT_GENERATIONS = new HashMap<>();
+    private static final Map<UUID, Long> LAST_FULL_REQUESTS = new HashMap<>();
+    private static final Map<UUID, Long> DEFERRED_FULL_REQUESTS = new HashMap<>();
+
+    // Client side: the generation of the installed table and the chunks of the transfer being received.
+    private static long clientGeneration = NO_GENERATION;
+    private static long pendingGeneration = NO_GENERATION;
     private static int pendingChunkCount;
     private static BitSet pendingChunks = new BitSet();
-    private static Map<ResourceLocation, Integer> pendingValues = new HashMap<>();
+    private static byte[][] pendingData = new byte[0][];
 
     @Override
     public Type<ItemValueSyncPacket> type()
@@ -54,113 +102,492 @@ public record ItemValueSyncPacket(long generation, int chunkIndex, int chunkCoun
 
     private static void encode(ByteBuf buf, ItemValueSyncPacket packet)
     {
+        buf.writeByte(packet.kind);
         buf.writeLong(packet.generation);
+        buf.writeLong(packet.baseGeneration);
         ByteBufCodecs.VAR_INT.encode(buf, packet.chunkIndex);
         ByteBufCodecs.VAR_INT.encode(buf, packet.chunkCount);
-        ByteBufCodecs.VAR_INT.encode(buf, packet.entries.size());
-        for (ValueEntry entry : packet.entries)
-        {
-            ByteBufCodecs.VAR_INT.encode(buf, entry.itemId());
-            ByteBufCodecs.VAR_INT.encode(buf, entry.value());
-        }
+        ByteBufCodecs.VAR_INT.encode(buf, packet.data.length);
+        buf.writeBytes(packet.data);
     }
 
     private static ItemValueSyncPacket decode(ByteBuf buf)
     {
+        byte kind = buf.readByte();
         long generation = buf.readLong();
+        long baseGeneration = buf.readLong();
         int chunkIndex = ByteBufCodecs.VAR_INT.decode(buf);
         int chunkCount = ByteBufCodecs.VAR_INT.decode(buf);
-        int entryCount = ByteBufCodecs.VAR_INT.decode(buf);
-        if (chunkCount <= 0 || chunkIndex < 0 || chunkIndex >= chunkCount
-            || entryCount < 0 || entryCount > CHUNK_ENTRY_LIMIT)
+        int length = ByteBufCodecs.VAR_INT.decode(buf);
+        if (kind < KIND_FULL || kind > KIND_REQUEST || chunkCount <= 0 || chunkIndex < 0 || chunkIndex >= chunkCount
+            || length < 0 || length > CHUNK_BYTE_LIMIT || length > buf.readableBytes())
         {
             throw new IllegalArgumentException("Invalid item-value synchronization chunk");
         }
 
-        List<ValueEntry> entries = new ArrayList<>(entryCount);
-        for (int i = 0; i < entryCount; i++)
+        byte[] data = new byte[length];
+        buf.readBytes(data);
+        return new ItemValueSyncPacket(kind, generation, baseGeneration, chunkIndex, chunkCount, data);
+    }
+
+    /** Collects this chunk and atomically publishes the new table once all chunks arrive. */
+    @OnlyIn(Dist.CLIENT)
+    public static void handleDataInClientOnMain(final ItemValueSyncPacket packet, final IPayloadContext context)
+    {
+        context.enqueueWork(() -> acceptClientChunk(packet));
+    }
+
+    /** Answers a client's request for a full snapshot. */
+    public static void handleDataInServerOnMain(final ItemValueSyncPacket packet, final IPayloadContext context)
+    {
+        if (packet.kind != KIND_REQUEST) return;
+
+        context.enqueueWork(() -> {
+            if (context.player() instanceof ServerPlayer player)
+            {
+                answerFullRequest(player, packet.generation);
+            }
+        });
+    }
+
+    /**
+     * Sends a requested full snapshot, unless the requesting client already holds the current generation. A player answered too
+     * recently is answered by {@link #answerDeferredRequests} once the cooldown ends, and is meanwhile marked as holding no known
+     * generation so a table change sends it a full snapshot rather than a delta.
+     *
+     * @param player requesting player
+     * @param clientGeneration generation the client reports holding
+     */
+    private static void answerFullRequest(@Nonnull ServerPlayer player, long clientGeneration)
+    {
+        Snapshot snapshot = currentSnapshot();
+        if (clientGeneration == snapshot.generation) return;
+
+        UUID id = player.getUUID();
+        long now = player.server.getTickCount();
+        Long last = LAST_FULL_REQUESTS.get(id);
+        if (last != null && now - last < FULL_REQUEST_COOLDOWN_TICKS)
         {
-            entries.add(new ValueEntry(ByteBufCodecs.VAR_INT.decode(buf), ByteBufCodecs.VAR_INT.decode(buf)));
+            SENT_GENERATIONS.remove(id);
+            DEFERRED_FULL_REQUESTS.put(id, last + FULL_REQUEST_COOLDOWN_TICKS);
+            MCTradePostMod.LOGGER.debug("Deferring item value snapshot request from {}; last answered {} ticks ago",
+                player.getName().getString(), now - last);
+            return;
         }
-        return new ItemValueSyncPacket(generation, chunkIndex, chunkCount, List.copyOf(entries));
+
+        LAST_FULL_REQUESTS.put(id, now);
+        sendFull(player, snapshot);
     }
 
-    /** Collects this chunk and atomically publishes the snapshot once all chunks arrive. */
-    @OnlyIn(Dist.CLIENT)
-    public void handleDataInClientOnMain(IPayloadContext context)
+    /**
+     * Answers the snapshot requests whose cooldown has ended. Called every server tick.
+     *
+     * @param server running server
+     */
+    public static void answerDeferredRequests(@Nonnull MinecraftServer server)
     {
-        context.enqueueWork(() -> acceptClientChunk(this));
+        if (DEFERRED_FULL_REQUESTS.isEmpty()) return;
+
+        long now = server.getTickCount();
+        Iterator<Map.Entry<UUID, Long>> deferred = DEFERRED_FULL_REQUESTS.entrySet().iterator();
+        while (deferred.hasNext())
+        {
+            Map.Entry<UUID, Long> request = deferred.next();
+            if (request.getValue() > now) continue;
+
+            deferred.remove();
+            ServerPlayer player = server.getPlayerList().getPlayer(request.getKey());
+            if (player == null) continue;
+
+            Snapshot snapshot = currentSnapshot();
+            Long sent = SENT_GENERATIONS.get(request.getKey());
+            if (sent != null && sent == snapshot.generation) continue;
+
+            LAST_FULL_REQUESTS.put(request.getKey(), now);
+            sendFull(player, snapshot);
+        }
     }
 
     @OnlyIn(Dist.CLIENT)
     private static synchronized void acceptClientChunk(ItemValueSyncPacket packet)
     {
+        if (packet.kind == KIND_REQUEST) return;
+
         if (packet.generation != pendingGeneration)
         {
             pendingGeneration = packet.generation;
             pendingChunkCount = packet.chunkCount;
             pendingChunks = new BitSet(packet.chunkCount);
-            pendingValues = new HashMap<>();
+            pendingData = new byte[packet.chunkCount][];
         }
         if (packet.chunkCount != pendingChunkCount || pendingChunks.get(packet.chunkIndex)) return;
 
-        for (ValueEntry entry : packet.entries)
-        {
-            if (entry.itemId() >= 0 && entry.itemId() < BuiltInRegistries.ITEM.size())
-            {
-                Item item = BuiltInRegistries.ITEM.byId(entry.itemId());
-                pendingValues.put(BuiltInRegistries.ITEM.getKey(item), entry.value());
-            }
-        }
+        pendingData[packet.chunkIndex] = packet.data;
         pendingChunks.set(packet.chunkIndex);
 
-        if (pendingChunks.cardinality() == pendingChunkCount)
+        if (pendingChunks.cardinality() < pendingChunkCount) return;
+
+        byte[][] chunks = pendingData;
+        pendingGeneration = NO_GENERATION;
+        pendingChunks = new BitSet();
+        pendingData = new byte[0][];
+
+        if (packet.kind == KIND_DELTA && packet.baseGeneration != clientGeneration)
         {
-            ItemValueManager.replaceFromServer(pendingValues);
-            MCTradePostMod.LOGGER.info("Received {} server item values in {} chunks", pendingValues.size(), pendingChunkCount);
-            pendingValues = new HashMap<>();
-            pendingChunks = new BitSet();
+            MCTradePostMod.LOGGER.info("Item value delta does not match the local table; requesting a full snapshot.");
+            PacketDistributor.sendToServer(new ItemValueSyncPacket(KIND_REQUEST, clientGeneration, NO_GENERATION, 0, 1, new byte[0]));
+            return;
         }
+
+        Map<ResourceLocation, Integer> values = packet.kind == KIND_FULL ? new HashMap<>()
+            : new HashMap<>(ItemValueManager.getBaseValues());
+        int changes = applyBody(inflate(join(chunks)), values);
+        ItemValueManager.replaceFromServer(values);
+        clientGeneration = packet.generation;
+        MCTradePostMod.LOGGER.info("Received {} item value {} ({} values) in {} chunks",
+            packet.kind == KIND_FULL ? "snapshot" : "delta", changes, values.size(), chunks.length);
     }
 
-    /** Sends a new complete snapshot to one player. */
+    /**
+     * Sends the current table to one player, unless the player has already been sent it since logging in.
+     *
+     * @param player player to synchronize
+     */
     public static void sendPacketsToPlayer(@Nonnull ServerPlayer player)
     {
-        List<ValueEntry> values = encodedValues();
-        int chunkCount = Math.max(1, (values.size() + CHUNK_ENTRY_LIMIT - 1) / CHUNK_ENTRY_LIMIT);
-        long generation = NEXT_GENERATION.incrementAndGet();
+        Snapshot snapshot = currentSnapshot();
+        Long sent = SENT_GENERATIONS.get(player.getUUID());
+        if (sent != null && sent == snapshot.generation) return;
+
+        sendFull(player, snapshot);
+    }
+
+    /**
+     * Sends the current table to every connected player after a datapack reload. Players that hold the previous generation
+     * receive only the changes, when that is smaller than the full snapshot.
+     *
+     * @param server running server
+     */
+    public static void sendPacketsToAllPlayers(MinecraftServer server)
+    {
+        Snapshot snapshot = currentSnapshot();
+        Set<UUID> online = new HashSet<>();
+
+        for (ServerPlayer player : server.getPlayerList().getPlayers())
+        {
+            if (player == null) continue;
+
+            online.add(player.getUUID());
+            Long sent = SENT_GENERATIONS.get(player.getUUID());
+            if (sent != null && sent == snapshot.generation) continue;
+
+            Delta changes = sent == null ? null : deltaTo(snapshot, sent);
+            if (changes != null)
+            {
+                send(player, KIND_DELTA, snapshot.generation, changes.baseGeneration, changes.payload);
+                SENT_GENERATIONS.put(player.getUUID(), snapshot.generation);
+            }
+            else
+            {
+                sendFull(player, snapshot);
+            }
+        }
+
+        SENT_GENERATIONS.keySet().retainAll(online);
+        LAST_FULL_REQUESTS.keySet().retainAll(online);
+        DEFERRED_FULL_REQUESTS.keySet().retainAll(online);
+    }
+
+    /**
+     * Forgets which generation a player holds. Called when the player logs out, since the next login may come from a fresh client.
+     *
+     * @param player player that left
+     */
+    public static void forgetPlayer(@Nonnull ServerPlayer player)
+    {
+        SENT_GENERATIONS.remove(player.getUUID());
+        LAST_FULL_REQUESTS.remove(player.getUUID());
+        DEFERRED_FULL_REQUESTS.remove(player.getUUID());
+    }
+
+    /**
+     * Discards the server-side synchronization state. Called when the server stops.
+     */
+    public static void clearAll()
+    {
+        current = null;
+        previous = null;
+        delta = null;
+        SENT_GENERATIONS.clear();
+        LAST_FULL_REQUESTS.clear();
+        DEFERRED_FULL_REQUESTS.clear();
+    }
+
+    private static void sendFull(ServerPlayer player, Snapshot snapshot)
+    {
+        send(player, KIND_FULL, snapshot.generation, NO_GENERATION, snapshot.payload);
+        SENT_GENERATIONS.put(player.getUUID(), snapshot.generation);
+        MCTradePostMod.LOGGER.debug("Sent {} item values ({} compressed bytes) to {}",
+            snapshot.ids.length, snapshot.payload.length, player.getName().getString());
+    }
+
+    private static void send(ServerPlayer player, byte kind, long generation, long baseGeneration, byte[] payload)
+    {
+        int chunkCount = Math.max(1, (payload.length + CHUNK_BYTE_LIMIT - 1) / CHUNK_BYTE_LIMIT);
         for (int chunk = 0; chunk < chunkCount; chunk++)
         {
-            int from = chunk * CHUNK_ENTRY_LIMIT;
-            int to = Math.min(values.size(), from + CHUNK_ENTRY_LIMIT);
+            int from = chunk * CHUNK_BYTE_LIMIT;
+            int to = Math.min(payload.length, from + CHUNK_BYTE_LIMIT);
             PacketDistributor.sendToPlayer(player, new ItemValueSyncPacket(
-                generation, chunk, chunkCount, List.copyOf(values.subList(from, to))));
+                kind, generation, baseGeneration, chunk, chunkCount, Arrays.copyOfRange(payload, from, to)));
         }
-        MCTradePostMod.LOGGER.info("Sent {} item values to {} in {} chunks", values.size(), player.getName().getString(), chunkCount);
     }
 
-    /** Sends a fresh snapshot to every connected player after a datapack reload. */
-    public static void sendPacketsToAllPlayers(MinecraftServer server)
+    /**
+     * Returns the encoded form of the server's current value table, starting a new generation when the table has been replaced.
+     */
+    private static Snapshot currentSnapshot()
     {
-        for (ServerPlayer player : server.getPlayerList().getPlayers()) 
+        Map<ResourceLocation, Integer> values = ItemValueManager.getBaseValues();
+        if (current != null && current.source == values) return current;
+
+        // In single player the client installs a copy of the same table into the shared manager; that is not a new generation.
+        if (current != null && current.source.equals(values))
         {
-            if (player == null) continue;
+            current = new Snapshot(values, current.generation, current.ids, current.values, current.payload);
+            return current;
+        }
+
+        Int2IntOpenHashMap byId = new Int2IntOpenHashMap(values.size());
+        values.forEach((key, value) -> {
+            if (key != null && value != null && BuiltInRegistries.ITEM.containsKey(key))
+            {
+                byId.put(BuiltInRegistries.ITEM.getId(BuiltInRegistries.ITEM.get(key)), value.intValue());
+            }
+        });
 
-            sendPacketsToPlayer(player);
+        int[] ids = byId.keySet().toIntArray();
+        Arrays.sort(ids);
+        int[] sortedValues = new int[ids.length];
+        for (int i = 0; i < ids.length; i++)
+        {
+            sortedValues[i] = byId.get(ids[i]);
         }
+
+        previous = current;
+        delta = null;
+        current = new Snapshot(values, NEXT_GENERATION.incrementAndGet(), ids, sortedValues,
+            deflate(encodeBody(ids, sortedValues, new int[0])));
+        return current;
     }
 
-    private static List<ValueEntry> encodedValues()
+    /**
+     * Returns the compressed changes from a player's generation to the current snapshot, or null when the player's generation is
+     * unknown or the changes would not be smaller than the full snapshot.
+     */
+    private static Delta deltaTo(Snapshot snapshot, long baseGeneration)
     {
-        List<ValueEntry> result = new ArrayList<>(ItemValueManager.getBaseValues().size());
-        ItemValueManager.getBaseValues().forEach((key, value) -> {
-            if (key != null && BuiltInRegistries.ITEM.containsKey(key))
+        if (previous == null || previous.generation != baseGeneration) return null;
+
+        if (delta == null)
+        {
+            delta = new Delta(baseGeneration, diff(previous, snapshot));
+        }
+
+        return delta.payload.length < snapshot.payload.length ? delta : null;
+    }
+
+    /**
+     * Encodes the values of {@code to} that are new or changed relative to {@code from}, and the ids it no longer holds.
+     */
+    private static byte[] diff(Snapshot from, Snapshot to)
+    {
+        int[] changedIds = new int[to.ids.length];
+        int[] changedValues = new int[to.ids.length];
+        int[] removedIds = new int[from.ids.length];
+        int changed = 0;
+        int removed = 0;
+        int i = 0;
+        int j = 0;
+
+        while (i < from.ids.length || j < to.ids.length)
+        {
+            if (j >= to.ids.length || (i < from.ids.length && from.ids[i] < to.ids[j]))
             {
-                result.add(new ValueEntry(BuiltInRegistries.ITEM.getId(BuiltInRegistries.ITEM.get(key)), value));
+                removedIds[removed++] = from.ids[i++];
             }
-        });
-        return result;
+            else if (i >= from.ids.length || to.ids[j] < from.ids[i])
+            {
+                changedIds[changed] = to.ids[j];
+                changedValues[changed++] = to.values[j++];
+            }
+            else
+            {
+                if (from.values[i] != to.values[j])
+                {
+                    changedIds[changed] = to.ids[j];
+                    changedValues[changed++] = to.values[j];
+                }
+                i++;
+                j++;
+            }
+        }
+
+        return deflate(encodeBody(Arrays.copyOf(changedIds, changed), Arrays.copyOf(changedValues, changed),
+            Arrays.copyOf(removedIds, removed)));
+    }
+
+    /**
+     * Writes sorted ids as gaps from the previous id, each followed by its zig-zag encoded value, then the sorted removed ids.
+     */
+    private static byte[] encodeBody(int[] ids, int[] values, int[] removedIds)
+    {
+        ByteBuf buf = Unpooled.buffer(ids.length * 4 + removedIds.length * 2 + 10);
+        try
+        {
+            ByteBufCodecs.VAR_INT.encode(buf, ids.length);
+            int last = 0;
+            for (int i = 0; i < ids.length; i++)
+            {
+                ByteBufCodecs.VAR_INT.encode(buf, ids[i] - last);
+                ByteBufCodecs.VAR_INT.encode(buf, (values[i] << 1) ^ (values[i] >> 31));
+                last = ids[i];
+            }
+
+            ByteBufCodecs.VAR_INT.encode(buf, removedIds.length);
+            last = 0;
+            for (int id : removedIds)
+            {
+                ByteBufCodecs.VAR_INT.encode(buf, id - last);
+                last = id;
+            }
+
+            byte[] body = new byte[buf.readableBytes()];
+            buf.readBytes(body);
+            return body;
+        }
+        finally
+        {
+            buf.release();
+        }
+    }
+
+    /**
+     * Applies an encoded body to a client value table.
+     *
+     * @return number of values set or removed
+     */
+    private static int applyBody(byte[] body, Map<ResourceLocation, Integer> values)
+    {
+        ByteBuf buf = Unpooled.wrappedBuffer(body);
+        int itemCount = BuiltInRegistries.ITEM.size();
+
+        int count = ByteBufCodecs.VAR_INT.decode(buf);
+        int id = 0;
+        for (int i = 0; i < count; i++)
+        {
+            id += ByteBufCodecs.VAR_INT.decode(buf);
+            int zigzag = ByteBufCodecs.VAR_INT.decode(buf);
+            if (id >= 0 && id < itemCount)
+            {
+                Item item = BuiltInRegistries.ITEM.byId(id);
+                values.put(BuiltInRegistries.ITEM.getKey(item), (zigzag >>> 1) ^ -(zigzag & 1));
+            }
+        }
+
+        int removals = ByteBufCodecs.VAR_INT.decode(buf);
+        id = 0;
+        for (int i = 0; i < removals; i++)
+        {
+            id += ByteBufCodecs.VAR_INT.decode(buf);
+            if (id >= 0 && id < itemCount)
+            {
+                values.remove(BuiltInRegistries.ITEM.getKey(BuiltInRegistries.ITEM.byId(id)));
+            }
+        }
+
+        return count + removals;
+    }
+
+    private static byte[] deflate(byte[] body)
+    {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try
+        {
+            deflater.setInput(body);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, body.length / 4));
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished())
+            {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        }
+        finally
+        {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] payload)
+    {
+        Inflater inflater = new Inflater();
+        try
+        {
+            inflater.setInput(payload);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(payload.length * 4);
+            byte[] buffer = new byte[8192];
+            while (!inflater.finished())
+            {
+                int read = inflater.inflate(buffer);
+                if (read == 0 && (inflater.needsInput() || inflater.needsDictionary()))
+                {
+                    throw new IllegalArgumentException("Truncated item-value synchronization payload");
+                }
+                if (out.size() + read > MAX_INFLATED_BYTES)
+                {
+                    throw new IllegalArgumentException("Oversized item-value synchronization payload");
+                }
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        }
+        catch (DataFormatException e)
+        {
+            throw new IllegalArgumentException("Corrupt item-value synchronization payload", e);
+        }
+        finally
+        {
+            inflater.end();
+        }
     }
 
-    public record ValueEntry(int itemId, int value) { }
+    private static byte[] join(byte[][] chunks)
+    {
+        int length = 0;
+        for (byte[] chunk : chunks)
+        {
+            length += chunk.length;
+        }
+
+        byte[] joined = new byte[length];
+        int offset = 0;
+        for (byte[] chunk : chunks)
+        {
+            System.arraycopy(chunk, 0, joined, offset, chunk.length);
+            offset += chunk.length;
+        }
+        return joined;
+    }
+
+    /**
+     * One generation of the server table, sorted by registry id, with its compressed full payload.
+     *
+     * @param source the value map the snapshot was taken from
+     */
+    private record Snapshot(Map<ResourceLocation, Integer> source, long generation, int[] ids, int[] values, byte[] payload) { }
+
+    /** Compressed changes from {@code baseGeneration} to the current snapshot. */
+    private record Delta(long baseGeneration, byte[] payload) { }
 }
@@ -2,11 +2,16 @@ package com.deathfrog.mctradepost.core.economy;
 
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class DerivedItemValueGeneratorTest
 {
@@ -34,4 +39,90 @@ class DerivedItemValueGeneratorTest
         assertEquals(Map.of("item", 10), DerivedItemValueGenerator.selectEmittedValues(
             known, Set.of("item"), Set.of("item")));
     }
+
+    @Test
+    void parallelPropagationMatchesSequentialRun()
+    {
+        // A layered recipe graph large enough for waves to be split across workers.
+        final Random random = new Random(42L);
+        final List<DerivedItemValueGenerator.CompiledRecipe<String>> recipes = new ArrayList<>();
+        for (int layer = 1; layer <= 6; layer++)
+        {
+            for (int i = 0; i < 800; i++)
+            {
+                final List<List<String>> ingredients = new ArrayList<>();
+                final int slots = 1 + random.nextInt(4);
+                for (int slot = 0; slot < slots; slot++)
+                {
+                    final int from = random.nextInt(layer);
+                    ingredients.add(List.of("item-" + from + "-" + random.nextInt(800), "item-" + from + "-" + random.nextInt(800)));
+                }
+                recipes.add(new DerivedItemValueGenerator.CompiledRecipe<>(
+                    "item-" + layer + "-" + random.nextInt(800), 1 + random.nextInt(4), 1.0, ingredients));
+            }
+        }
+
+        final Map<String, Integer> seeds = new HashMap<>();
+        for (int i = 0; i < 800; i += 3)
+        {
+            seeds.put("item-0-" + i, 1 + random.nextInt(64));
+        }
+
+        final DerivedItemValueGenerator.Report<String> sequential =
+            DerivedItemValueGenerator.derive(recipes, Map.of(), seeds, 50, 1, item -> item);
+        final DerivedItemValueGenerator.Report<String> parallel =
+            DerivedItemValueGenerator.derive(recipes, Map.of(), seeds, 50, 4, item -> item);
+
+        assertEquals(sequential, parallel);
+        assertTrue(sequential.derivedCount() > 0);
+        assertEquals(0, sequential.pendingRecipes());
+    }
+
+    @Test
+    void chainsDeeperThanMaxIterationsReachTheFixpoint()
+    {
+        // Each recipe consumes the previous one's output, listed last link first so recipe order alone cannot help.
+        final int depth = 120;
+        final List<DerivedItemValueGenerator.CompiledRecipe<String>> recipes = new ArrayList<>();
+        for (int i = depth; i > 0; i--)
+        {
+            recipes.add(new DerivedItemValueGenerator.CompiledRecipe<>(
+                "link-" + i, 1, 1.0, List.of(List.of("link-" + (i - 1)), List.of("nail"))));
+        }
+
+        final Map<String, Integer> values = new HashMap<>(Map.of("link-0", 3, "nail", 1));
+        final DerivedItemValueGenerator.Propagation run =
+            DerivedItemValueGenerator.propagate(recipes, values, Set.of("link-0", "nail"), 50, 1);
+
+        assertEquals(0, run.pendingRecipes());
+        assertEquals(depth, run.derivedCount());
+        assertEquals(1, run.iterations());
+        assertEquals(depth, run.recipesConsidered());
+        assertEquals(3 + depth, values.get("link-" + depth));
+    }
+
+    @Test
+    void maxIterationsCapsSweepsAroundCycles()
+    {
+        // Halving one way and copying back lowers both values on every trip around the cycle.
+        final List<DerivedItemValueGenerator.CompiledRecipe<String>> recipes = List.of(
+            new DerivedItemValueGenerator.CompiledRecipe<>("copper", 1, 1.0, List.of(List.of("ore"))),
+            new DerivedItemValueGenerator.CompiledRecipe<>("nugget", 2, 1.0, List.of(List.of("copper"))),
+            new DerivedItemValueGenerator.CompiledRecipe<>("copper", 1, 1.0, List.of(List.of("nugget"))));
+
+        final Map<String, Integer> capped = new HashMap<>(Map.of("ore", 1000));
+        final DerivedItemValueGenerator.Propagation cappedRun =
+            DerivedItemValueGenerator.propagate(recipes, capped, Set.of("ore"), 3, 1);
+
+        assertEquals(3, cappedRun.iterations());
+        assertTrue(cappedRun.pendingRecipes() > 0);
+
+        final Map<String, Integer> settled = new HashMap<>(Map.of("ore", 1000));
+        final DerivedItemValueGenerator.Propagation settledRun =
+            DerivedItemValueGenerator.propagate(recipes, settled, Set.of("ore"), 50, 1);
+
+        assertEquals(0, settledRun.pendingRecipes());
+        assertTrue(settledRun.iterations() > 3 && settledRun.iterations() < 50, settledRun.iterations() + " sweeps");
+        assertEquals(1, settled.get("copper"));
+    }
 }
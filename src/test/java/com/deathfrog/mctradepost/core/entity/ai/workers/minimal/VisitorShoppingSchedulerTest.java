@@ -0,0 +1,82 @@
+package com.deathfrog.mctradepost.core.entity.ai.workers.minimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class VisitorShoppingSchedulerTest
+{
+    private static final int SHOPPERS = 64;
+    private static final int TICKS = 6000;
+
+    @Test
+    void wakesFewerShoppersPerAskThanTheTransitionsAsk()
+    {
+        // Worst case: every shopper's transitions are asked on the same ticks.
+        long[] nextWake = new long[SHOPPERS];
+        for (int i = 0; i < SHOPPERS; i++)
+        {
+            nextWake[i] = VisitorShoppingScheduler.firstWake(0, i);
+        }
+
+        int asks = 0;
+        int decisions = 0;
+        int peak = 0;
+        for (long now = 0; now < TICKS; now += EntityAIShoppingTask.TRANSITION_TICKS)
+        {
+            int decisionsNow = 0;
+            for (int i = 0; i < SHOPPERS; i++)
+            {
+                asks++;
+                if (now >= nextWake[i])
+                {
+                    nextWake[i] = VisitorShoppingScheduler.nextWake(nextWake[i], now);
+                    decisionsNow++;
+                }
+            }
+            decisions += decisionsNow;
+            peak = Math.max(peak, decisionsNow);
+        }
+
+        assertTrue(decisions * 3 < asks, decisions + " decisions for " + asks + " asks");
+        assertTrue(peak <= SHOPPERS / 4, peak + " decisions on one tick");
+    }
+
+    @Test
+    void lateAsksKeepTheShoppersBatch()
+    {
+        long first = VisitorShoppingScheduler.firstWake(1000, 3);
+        long next = VisitorShoppingScheduler.nextWake(first, first + VisitorShoppingScheduler.WAKE_INTERVAL + 10);
+
+        assertEquals(first + 2L * VisitorShoppingScheduler.WAKE_INTERVAL, next);
+    }
+
+    @Test
+    void batchedAsksRollAsOftenAsSeparateAsks()
+    {
+        for (int timer = -5; timer <= 40; timer++)
+        {
+            for (int drain = 1; drain <= 5; drain++)
+            {
+                for (int asks = 1; asks <= 6; asks++)
+                {
+                    int separate = 0;
+                    int remaining = timer;
+                    for (int ask = 0; ask < asks; ask++)
+                    {
+                        remaining -= drain;
+                        if (remaining <= 0) separate++;
+                    }
+
+                    assertEquals(separate, VisitorShoppingScheduler.chanceRolls(timer, drain, asks),
+                        "timer=" + timer + " drain=" + drain + " asks=" + asks);
+                }
+            }
+        }
+
+        assertEquals(0.0, VisitorShoppingScheduler.chanceOverRolls(0.25, 0));
+        assertEquals(0.25, VisitorShoppingScheduler.chanceOverRolls(0.25, 1), 1e-12);
+        assertEquals(1 - 0.75 * 0.75 * 0.75 * 0.75, VisitorShoppingScheduler.chanceOverRolls(0.25, 4), 1e-12);
+    }
+}
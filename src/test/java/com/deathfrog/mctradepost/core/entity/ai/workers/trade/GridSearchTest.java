@@ -0,0 +1,116 @@
+package com.deathfrog.mctradepost.core.entity.ai.workers.trade;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Set;
+import java.util.function.LongPredicate;
+
+import org.junit.jupiter.api.Test;
+
+import net.minecraft.core.BlockPos;
+
+class GridSearchTest
+{
+    @Test
+    void breadthFirstFindsShortestPathAndAppendsTouchedEnd()
+    {
+        // Two five-step corridors lead to the cell beside the end.
+        Set<Long> open = Set.of(
+            new BlockPos(1, 0, 0).asLong(), new BlockPos(2, 0, 0).asLong(), new BlockPos(3, 0, 0).asLong(),
+            new BlockPos(3, 0, 1).asLong(), new BlockPos(3, 0, 2).asLong(),
+            new BlockPos(1, 0, 1).asLong(), new BlockPos(1, 0, 2).asLong(), new BlockPos(2, 0, 2).asLong());
+        long end = new BlockPos(3, 0, 3).asLong();
+
+        GridSearch search = new GridSearch();
+        int goal = search.breadthFirst(BlockPos.ZERO.asLong(), pos -> pos == end || GridSearch.manhattan(pos, end) == 1,
+            GridSearch.HORIZONTAL, open::contains, Integer.MAX_VALUE, 1000, null);
+
+        assertNotEquals(GridSearch.NOT_FOUND, goal);
+        List<BlockPos> path = search.path(goal, end);
+        assertEquals(BlockPos.ZERO, path.getFirst());
+        assertEquals(BlockPos.of(end), path.getLast());
+        assertEquals(7, path.size());
+    }
+
+    @Test
+    void pausedBreadthFirstResumesToSameResult()
+    {
+        // A 40x40 open field, so the search needs many deadline checks before reaching the far corner.
+        long end = new BlockPos(39, 0, 39).asLong();
+        GridSearch.NeighbourFunction neighbours = GridSearch.HORIZONTAL;
+        LongPredicate inField = pos ->
+        {
+            BlockPos p = BlockPos.of(pos);
+            return p.getX() >= 0 && p.getX() < 40 && p.getZ() >= 0 && p.getZ() < 40;
+        };
+
+        GridSearch whole = new GridSearch();
+        int expected = whole.breadthFirst(BlockPos.ZERO.asLong(), pos -> pos == end, neighbours, inField, Integer.MAX_VALUE, 10_000, null);
+
+        GridSearch paused = new GridSearch();
+        paused.beginBreadthFirst(BlockPos.ZERO.asLong());
+        int pauses = 0;
+        int goal;
+        // A deadline in the past pauses at every check.
+        while ((goal = paused.resumeBreadthFirst(pos -> pos == end, neighbours, inField, Integer.MAX_VALUE, 10_000, null, System.nanoTime() - 1))
+            == GridSearch.PAUSED)
+        {
+            pauses++;
+        }
+
+        assertTrue(pauses > 1);
+        assertEquals(expected, goal);
+        assertEquals(whole.expandedCount(), paused.expandedCount());
+        assertEquals(whole.path(expected, end), paused.path(goal, end));
+    }
+
+    @Test
+    void aStarRoutesAroundWallAndRespectsDistanceLimit()
+    {
+        long end = new BlockPos(4, 0, 0).asLong();
+        long wallTop = new BlockPos(2, 0, 1).asLong();
+        long wall = new BlockPos(2, 0, 0).asLong();
+        long wallBottom = new BlockPos(2, 0, -1).asLong();
+
+        GridSearch search = new GridSearch();
+        int goal = search.aStar(BlockPos.ZERO.asLong(), pos -> pos == end,
+            GridSearch.HORIZONTAL, pos -> pos != wall && pos != wallTop && pos != wallBottom,
+            pos -> GridSearch.manhattan(pos, end), 100, 10_000);
+
+        assertNotEquals(GridSearch.NOT_FOUND, goal);
+        assertEquals(9, search.path(goal, end).size());
+
+        GridSearch bounded = new GridSearch();
+        assertEquals(GridSearch.NOT_FOUND, bounded.aStar(BlockPos.ZERO.asLong(), pos -> pos == end,
+            GridSearch.HORIZONTAL, pos -> pos != wall && pos != wallTop && pos != wallBottom,
+            pos -> GridSearch.manhattan(pos, end), 7, 10_000));
+    }
+
+    @Test
+    void diagonalFinalStepStaysWithinModalEdgeBounds()
+    {
+        // The corridor ends diagonally beside the end, so the appended end covers two blocks of span in one step.
+        Set<Long> open = Set.of(
+            new BlockPos(1, 0, 0).asLong(), new BlockPos(2, 0, 0).asLong(),
+            new BlockPos(2, 0, 1).asLong(), new BlockPos(2, 0, 2).asLong());
+        long end = new BlockPos(3, 0, 3).asLong();
+
+        GridSearch search = new GridSearch();
+        int goal = search.breadthFirst(BlockPos.ZERO.asLong(), pos -> GridSearch.touches(pos, end),
+            GridSearch.HORIZONTAL, open::contains, Integer.MAX_VALUE, 1000, null);
+
+        assertNotEquals(GridSearch.NOT_FOUND, goal);
+        List<BlockPos> path = search.path(goal, end);
+        int edgeDistance = path.size() - 1;
+        assertEquals(5, edgeDistance);
+
+        // Route nodes whose connection positions each sit one block beyond the path ends.
+        BlockPos fromNode = new BlockPos(-1, 0, 0);
+        BlockPos toNode = new BlockPos(4, 0, 3);
+        assertTrue(MultimodalRouteConnection.edgeLowerBound(fromNode, toNode) <= edgeDistance);
+        assertTrue(MultimodalRouteConnection.remainingLowerBound(fromNode, toNode) <= edgeDistance);
+    }
+}
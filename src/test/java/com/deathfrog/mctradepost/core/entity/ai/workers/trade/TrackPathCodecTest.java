@@ -0,0 +1,67 @@
+package com.deathfrog.mctradepost.core.entity.ai.workers.trade;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import net.minecraft.core.BlockPos;
+
+class TrackPathCodecTest
+{
+    @Test
+    void roundTripsSlopedRailWithRunsOfSteps()
+    {
+        List<BlockPos> path = new ArrayList<>();
+        BlockPos pos = new BlockPos(-1200, 64, 3500);
+        path.add(pos);
+        for (int i = 0; i < 500; i++)
+        {
+            pos = new BlockPos(pos.getX() + 1, pos.getY() + (i % 50 == 0 ? 1 : 0), pos.getZ());
+            path.add(pos);
+        }
+        for (int i = 0; i < 300; i++)
+        {
+            pos = new BlockPos(pos.getX(), pos.getY() - (i < 10 ? 1 : 0), pos.getZ() - 1);
+            path.add(pos);
+        }
+
+        byte[] encoded = TrackPathCodec.encode(path);
+
+        assertEquals(path, TrackPathCodec.decode(encoded));
+        assertTrue(encoded.length < 100, "801 positions packed into " + encoded.length + " bytes");
+    }
+
+    @Test
+    void roundTripsIrregularStepsAndSkipsNulls()
+    {
+        List<BlockPos> path = Arrays.asList(new BlockPos(5, -60, 5), null, new BlockPos(6, -60, 6), new BlockPos(6, -57, 6),
+            new BlockPos(30000000 - 1, 319, -30000000), new BlockPos(30000000 - 1, 319, -30000000));
+
+        assertEquals(List.of(path.get(0), path.get(2), path.get(3), path.get(4), path.get(5)),
+            TrackPathCodec.decode(TrackPathCodec.encode(path)));
+    }
+
+    @Test
+    void roundTripsEmptyPaths()
+    {
+        assertEquals(List.of(), TrackPathCodec.decode(TrackPathCodec.encode(List.of())));
+        assertEquals(List.of(), TrackPathCodec.decode(TrackPathCodec.encode(null)));
+    }
+
+    @Test
+    void rejectsOtherVersionsAndTruncatedData()
+    {
+        byte[] encoded = TrackPathCodec.encode(List.of(BlockPos.ZERO, new BlockPos(1, 0, 0), new BlockPos(9, 9, 9)));
+
+        byte[] otherVersion = encoded.clone();
+        otherVersion[0] = TrackPathCodec.FORMAT_VERSION + 1;
+        assertThrows(IllegalArgumentException.class, () -> TrackPathCodec.decode(otherVersion));
+        assertThrows(IllegalArgumentException.class, () -> TrackPathCodec.decode(Arrays.copyOf(encoded, encoded.length - 1)));
+    }
+}
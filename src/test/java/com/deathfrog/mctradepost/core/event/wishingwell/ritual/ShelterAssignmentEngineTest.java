@@ -0,0 +1,75 @@
+package com.deathfrog.mctradepost.core.event.wishingwell.ritual;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.deathfrog.mctradepost.core.event.wishingwell.ritual.ShelterAssignmentEngine.House;
+import com.deathfrog.mctradepost.core.event.wishingwell.ritual.ShelterAssignmentEngine.Resident;
+
+class ShelterAssignmentEngineTest
+{
+    @Test
+    void swapsResidentsIntoTheHousesNearestTheirWork()
+    {
+        List<House> houses = List.of(new House(0, 64, 0, 1), new House(200, 64, 0, 1));
+        List<Resident> residents = List.of(
+            new Resident(true, 190, 64, 0, 50, 0),
+            new Resident(true, 10, 64, 0, 50, 1));
+
+        assertArrayEquals(new int[] {1, 0}, ShelterAssignmentEngine.assign(houses, residents));
+    }
+
+    @Test
+    void keepsCurrentHouseWhenTheSavingIsTooSmall()
+    {
+        List<House> houses = List.of(new House(0, 64, 0, 1), new House(ShelterAssignmentEngine.MIN_IMPROVEMENT - 2, 64, 0, 1));
+        List<Resident> residents = List.of(new Resident(true, 20, 64, 0, 10, 0));
+
+        assertArrayEquals(new int[] {0}, ShelterAssignmentEngine.assign(houses, residents));
+    }
+
+    @Test
+    void higherPriorityJobGetsTheContestedBedAndEveryoneIsHoused()
+    {
+        List<House> houses = List.of(new House(0, 64, 0, 1), new House(100, 64, 0, 2));
+        List<Resident> residents = List.of(
+            new Resident(true, 5, 64, 0, 10, -1),
+            new Resident(true, 5, 64, 0, 100, -1),
+            new Resident(false, 0, 0, 0, 0, -1));
+
+        assertArrayEquals(new int[] {1, 0, 1}, ShelterAssignmentEngine.assign(houses, residents));
+    }
+
+    @Test
+    void housesResidentsBeyondTheirCandidateHouses()
+    {
+        List<House> houses = new ArrayList<>();
+        List<Resident> residents = new ArrayList<>();
+        int workers = ShelterAssignmentEngine.CANDIDATE_HOUSES * 2;
+
+        for (int i = 0; i < workers; i++)
+        {
+            houses.add(new House(i * 40, 64, 0, 1));
+            residents.add(new Resident(true, 0, 64, 0, 10, -1));
+        }
+
+        int[] assignment = ShelterAssignmentEngine.assign(houses, residents);
+        boolean[] used = new boolean[houses.size()];
+        int housed = 0;
+        for (int house : assignment)
+        {
+            if (house < 0) continue;
+
+            assertEquals(false, used[house]);
+            used[house] = true;
+            housed++;
+        }
+
+        assertEquals(workers, housed);
+    }
+}
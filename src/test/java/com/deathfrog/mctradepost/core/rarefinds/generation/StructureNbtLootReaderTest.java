@@ -0,0 +1,116 @@
+package com.deathfrog.mctradepost.core.rarefinds.generation;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class StructureNbtLootReaderTest
+{
+    @Test
+    void findsLootTablesInBlockAndEntityDataWithTreePaths() throws IOException
+    {
+        final byte[] file = structure(out -> {
+            // size: [I; 3, 3, 3], skipped without descending
+            out.writeByte(11);
+            out.writeUTF("size");
+            out.writeInt(3);
+            out.writeInt(3);
+            out.writeInt(3);
+            out.writeInt(3);
+
+            // blocks: [{pos: [0, 0, 0], state: 0}, {nbt: {LootTable: "minecraft:chests/simple_dungeon", Items: []}}]
+            out.writeByte(9);
+            out.writeUTF("blocks");
+            out.writeByte(10);
+            out.writeInt(2);
+
+            out.writeByte(9);
+            out.writeUTF("pos");
+            out.writeByte(3);
+            out.writeInt(3);
+            out.writeInt(0);
+            out.writeInt(0);
+            out.writeInt(0);
+            out.writeByte(3);
+            out.writeUTF("state");
+            out.writeInt(0);
+            out.writeByte(0);
+
+            out.writeByte(10);
+            out.writeUTF("nbt");
+            out.writeByte(8);
+            out.writeUTF("LootTable");
+            out.writeUTF("minecraft:chests/simple_dungeon");
+            out.writeByte(9);
+            out.writeUTF("Items");
+            out.writeByte(0);
+            out.writeInt(0);
+            out.writeByte(0);
+            out.writeByte(0);
+
+            // entities: [{nbt: {LootTable: "example:entities/cart", Motion: [0.0d]}}]
+            out.writeByte(9);
+            out.writeUTF("entities");
+            out.writeByte(10);
+            out.writeInt(1);
+            out.writeByte(10);
+            out.writeUTF("nbt");
+            out.writeByte(9);
+            out.writeUTF("Motion");
+            out.writeByte(6);
+            out.writeInt(1);
+            out.writeDouble(0.0D);
+            out.writeByte(8);
+            out.writeUTF("LootTable");
+            out.writeUTF("example:entities/cart");
+            out.writeByte(0);
+            out.writeByte(0);
+
+            out.writeByte(0);
+        });
+
+        assertEquals(List.of(
+            new StructureNbtLootReader.Found("minecraft:chests/simple_dungeon", "$.blocks[1].nbt.LootTable"),
+            new StructureNbtLootReader.Found("example:entities/cart", "$.entities[0].nbt.LootTable")),
+            StructureNbtLootReader.read(new ByteArrayInputStream(file)));
+    }
+
+    @Test
+    void rejectsTruncatedFiles() throws IOException
+    {
+        final byte[] file = structure(out -> {
+            out.writeByte(7);
+            out.writeUTF("palette");
+            out.writeInt(1000);
+            out.write(new byte[10]);
+        });
+
+        assertThrows(IOException.class, () -> StructureNbtLootReader.read(new ByteArrayInputStream(file)));
+    }
+
+    private interface Body
+    {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    /** Writes a gzip-compressed root compound whose entries are written by {@code body}, without the closing end tag. */
+    private static byte[] structure(final Body body) throws IOException
+    {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(bytes)))
+        {
+            out.writeByte(10);
+            out.writeUTF("");
+            body.write(out);
+        }
+        return bytes.toByteArray();
+    }
+}